@@ -0,0 +1,24 @@
+package com.clinalert.doctortracker.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Accepts {@code application/cbor} request bodies next to JSON, so wearables
+ * can upload batches in a compact binary form.
+ * <p>
+ * The CBOR mapper comes from the same builder as the application's JSON
+ * mapper and shares its modules and settings. Spring keeps this converter
+ * after the JSON one, so responses stay JSON unless a client asks for CBOR.
+ */
+@Configuration
+public class CborConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -28,7 +28,7 @@ public class CorsConfig {
         configuration.setAllowCredentials(true);
 
         // Expose headers
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "X-Signature"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "X-Signature", "X-Next-Cursor"));
 
         // Max age for preflight requests
         configuration.setMaxAge(3600L);
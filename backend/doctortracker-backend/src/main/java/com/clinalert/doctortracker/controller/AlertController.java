@@ -1,12 +1,24 @@
 package com.clinalert.doctortracker.controller;
 
 import com.clinalert.doctortracker.model.Alert;
+import com.clinalert.doctortracker.model.Doctor;
+import com.clinalert.doctortracker.service.AlertPushHub;
 import com.clinalert.doctortracker.service.AlertService;
+import com.clinalert.doctortracker.service.DoctorService;
+import com.clinalert.doctortracker.util.AppConstants;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/alerts")
@@ -15,9 +27,16 @@ public class AlertController {
 
     private final AlertService alertService;
 
+    private final AlertPushHub alertPushHub;
+
+    private final DoctorService doctorService;
+
     @GetMapping
-    public List<Alert> getAllAlerts() {
-        return alertService.getAllAlerts();
+    public ResponseEntity<Object> getAllAlerts(@RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        return PagedListing.respond(page, size, cursor, alertService::getAllAlerts,
+                alertService::getAlertsPage, alertService::getAlertsAfter);
     }
 
     @GetMapping("/patient/{patientId}")
@@ -25,9 +44,56 @@ public class AlertController {
         return alertService.getAlertsByPatientId(patientId);
     }
 
+    /**
+     * Unread alerts from the in-memory unread index, newest first and capped
+     * at the maximum page size, optionally narrowed by patient, doctor, clinic
+     * or severity.
+     */
     @GetMapping("/unread")
-    public List<Alert> getUnreadAlerts() {
-        return alertService.getUnreadAlerts();
+    public List<Alert> getUnreadAlerts(@RequestParam(required = false) String patientId,
+            @RequestParam(required = false) String doctorId,
+            @RequestParam(required = false) String clinicId,
+            @RequestParam(required = false) String severity) {
+        if (patientId == null && doctorId == null && clinicId == null && severity == null) {
+            return alertService.getUnreadAlerts();
+        }
+        return alertService.getUnreadAlerts(patientId, doctorId, clinicId, severity);
+    }
+
+    @GetMapping("/unread/counts")
+    public ResponseEntity<Object> getUnreadCounts(@RequestParam(required = false) String patientId,
+            @RequestParam(required = false) String doctorId,
+            @RequestParam(required = false) String clinicId) {
+        try {
+            return ResponseEntity.ok(alertService.getUnreadCounts(patientId, doctorId, clinicId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(AppConstants.KEY_ERROR, e.getMessage()));
+        }
+    }
+
+    /**
+     * Server-Sent Events stream of new alerts, optionally narrowed to a
+     * patient, a doctor's patients or a clinic's patients. Administrators
+     * may stream every alert; a doctor's stream is always limited to their
+     * own patients, whatever doctorId is requested. A reconnecting
+     * EventSource sends Last-Event-ID and receives what it missed.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAlerts(@RequestParam(required = false) String patientId,
+            @RequestParam(required = false) String doctorId,
+            @RequestParam(required = false) String clinicId,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+            Authentication authentication) {
+        if (!hasRole(authentication, AppConstants.ROLE_ADMIN)) {
+            Optional<Doctor> doctor = hasRole(authentication, AppConstants.ROLE_DOCTOR)
+                    ? doctorService.getDoctorByEmail(authentication.getName())
+                    : Optional.empty();
+            if (doctor.isEmpty() || (doctorId != null && !doctorId.equals(doctor.get().getId()))) {
+                throw new AccessDeniedException("Alert stream not allowed for this scope");
+            }
+            doctorId = doctor.get().getId();
+        }
+        return alertPushHub.subscribe(patientId, doctorId, clinicId, lastEventId);
     }
 
     @PutMapping("/{id}/read")
@@ -35,4 +101,37 @@ public class AlertController {
         alertService.markAsRead(id);
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * Marks the alerts whose ids are in the body read, with one statement.
+     */
+    @PutMapping("/read")
+    public ResponseEntity<Object> markAsRead(@RequestBody List<String> ids) {
+        try {
+            return updated(alertService.markAsRead(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(AppConstants.KEY_ERROR, e.getMessage()));
+        }
+    }
+
+    @PutMapping("/patient/{patientId}/read")
+    public ResponseEntity<Object> markPatientAlertsAsRead(@PathVariable String patientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before) {
+        return updated(alertService.markPatientAlertsAsRead(patientId, before));
+    }
+
+    @PutMapping("/read-before")
+    public ResponseEntity<Object> markAlertsAsReadBefore(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before) {
+        return updated(alertService.markAlertsAsReadBefore(before));
+    }
+
+    private static boolean hasRole(Authentication authentication, String role) {
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> ("ROLE_" + role).equals(authority.getAuthority()));
+    }
+
+    private static ResponseEntity<Object> updated(int count) {
+        return ResponseEntity.ok(Map.of(AppConstants.KEY_UPDATED, count));
+    }
 }
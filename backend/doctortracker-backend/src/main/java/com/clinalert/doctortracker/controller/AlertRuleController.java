@@ -0,0 +1,45 @@
+package com.clinalert.doctortracker.controller;
+
+import com.clinalert.doctortracker.dto.AlertRule;
+import com.clinalert.doctortracker.service.AlertRuleEngine;
+import com.clinalert.doctortracker.util.AppConstants;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/alert-rules")
+@RequiredArgsConstructor
+public class AlertRuleController {
+
+    private final AlertRuleEngine alertRuleEngine;
+
+    @GetMapping
+    public List<AlertRule> getRules() {
+        return alertRuleEngine.getRules();
+    }
+
+    @PutMapping
+    public ResponseEntity<Object> replaceRules(@RequestBody List<AlertRule> rules) {
+        try {
+            alertRuleEngine.replaceRules(rules);
+            return ResponseEntity.ok(alertRuleEngine.getRules());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(AppConstants.KEY_ERROR, e.getMessage()));
+        }
+    }
+
+    @PostMapping("/reload")
+    public ResponseEntity<Object> reloadRules() {
+        try {
+            alertRuleEngine.reload();
+            return ResponseEntity.ok(Map.of(AppConstants.KEY_MESSAGE, "Alert rules reloaded",
+                    "count", alertRuleEngine.getRules().size()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(AppConstants.KEY_ERROR, e.getMessage()));
+        }
+    }
+}
@@ -5,13 +5,18 @@ import com.clinalert.doctortracker.dto.LoginResponse;
 import com.clinalert.doctortracker.dto.RegisterRequest;
 import com.clinalert.doctortracker.model.User;
 import com.clinalert.doctortracker.service.AuthService;
+import com.clinalert.doctortracker.service.LoginExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -22,20 +27,34 @@ public class AuthController {
 
     private final AuthService authService;
 
+    private final LoginExecutor loginExecutor;
+
+    /**
+     * Runs on the bounded login pool, so the servlet thread is released while
+     * the password hash is checked; 429 when the pool is saturated.
+     */
     @PostMapping(value = "/login", produces = "application/json", consumes = "application/json")
-    public ResponseEntity<Object> login(@RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<Object>> login(@RequestBody LoginRequest request) {
         log.info("=== CONTROLLER: LOGIN ENDPOINT HIT ===");
         log.info("Request email: {}", request.getEmail());
-        try {
-            LoginResponse response = authService.login(request);
-            log.info("=== LOGIN SUCCESS ===");
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("=== LOGIN ERROR: {} ===", e.getMessage());
-            Map<String, String> error = new HashMap<>();
-            error.put(com.clinalert.doctortracker.util.AppConstants.KEY_ERROR, "Invalid email or password");
-            return ResponseEntity.badRequest().body(error);
-        }
+        return loginExecutor.submit(() -> authService.login(request))
+                .handle((response, failure) -> {
+                    if (failure == null) {
+                        log.info("=== LOGIN SUCCESS ===");
+                        return ResponseEntity.ok(response);
+                    }
+                    Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                    Map<String, String> error = new HashMap<>();
+                    if (cause instanceof RejectedExecutionException) {
+                        log.warn("=== LOGIN REJECTED: login queue full ===");
+                        error.put(com.clinalert.doctortracker.util.AppConstants.KEY_ERROR,
+                                "Too many login attempts, retry later");
+                        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(error);
+                    }
+                    log.error("=== LOGIN ERROR: {} ===", cause.getMessage());
+                    error.put(com.clinalert.doctortracker.util.AppConstants.KEY_ERROR, "Invalid email or password");
+                    return ResponseEntity.badRequest().body(error);
+                });
     }
 
     @PostMapping(value = "/register", produces = "application/json", consumes = "application/json")
@@ -17,8 +17,11 @@ public class ClinicController {
     private final ClinicService clinicService;
 
     @GetMapping
-    public List<Clinic> getAllClinics() {
-        return clinicService.getAllClinics();
+    public ResponseEntity<Object> getAllClinics(@RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        return PagedListing.respond(page, size, cursor, clinicService::getAllClinics,
+                clinicService::getClinicsPage, clinicService::getClinicsAfter);
     }
 
     @GetMapping("/{id}")
@@ -6,8 +6,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/doctors")
 @RequiredArgsConstructor
@@ -16,8 +14,11 @@ public class DoctorController {
     private final DoctorService doctorService;
 
     @GetMapping
-    public List<Doctor> getAllDoctors() {
-        return doctorService.getAllDoctors();
+    public ResponseEntity<Object> getAllDoctors(@RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        return PagedListing.respond(page, size, cursor, doctorService::getAllDoctors,
+                doctorService::getDoctorsPage, doctorService::getDoctorsAfter);
     }
 
     @GetMapping("/{id}")
@@ -2,61 +2,100 @@ package com.clinalert.doctortracker.controller;
 
 import com.clinalert.doctortracker.model.Measurement;
 import com.clinalert.doctortracker.service.MeasurementService;
+import com.clinalert.doctortracker.util.AppConstants;
 import com.clinalert.doctortracker.util.HmacUtil;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/measurements")
-@RequiredArgsConstructor
 public class MeasurementController {
 
     private final MeasurementService measurementService;
 
     private final HmacUtil hmacUtil;
 
+    private final ObjectReader measurementsReader;
+
+    private final ObjectReader cborMeasurementsReader;
+
+    public MeasurementController(MeasurementService measurementService, HmacUtil hmacUtil,
+            ObjectMapper objectMapper, MappingJackson2CborHttpMessageConverter cborConverter) {
+        this.measurementService = measurementService;
+        this.hmacUtil = hmacUtil;
+        this.measurementsReader = measurementsReader(objectMapper);
+        this.cborMeasurementsReader = measurementsReader(cborConverter.getObjectMapper());
+    }
+
+    /**
+     * Receives an array of measurements, as JSON or, with
+     * {@code Content-Type: application/cbor}, as CBOR. A signed body is parsed
+     * straight from the request stream while its HMAC is computed over the
+     * same bytes, and nothing is saved unless the signature matches.
+     */
     @PostMapping
     public ResponseEntity<String> receiveMeasurements(
             @RequestHeader(value = "X-Signature", required = false) String signature,
-            @RequestHeader(value = com.clinalert.doctortracker.util.AppConstants.AUTHORIZATION_HEADER, required = false) String authHeader,
-            @RequestBody String rawBody) {
+            @RequestHeader(value = AppConstants.AUTHORIZATION_HEADER, required = false) String authHeader,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) MediaType contentType,
+            InputStream body) {
+        HmacUtil.SigningInputStream signedBody = null;
         // 1. Check HMAC if present
         if (signature != null) {
-            if (!hmacUtil.verifySignature(rawBody, signature)) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Invalid HMAC Signature");
-            }
+            signedBody = hmacUtil.signing(body);
         }
         // 2. Check JWT if HMAC is missing
-        else if (authHeader != null
-                && authHeader.startsWith(com.clinalert.doctortracker.util.AppConstants.BEARER_PREFIX)) {
+        else if (authHeader != null && authHeader.startsWith(AppConstants.BEARER_PREFIX)) {
             // In a real app, Spring Security filter chain handles this.
         } else {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Missing Authentication");
         }
 
+        ObjectReader reader = MediaType.APPLICATION_CBOR.isCompatibleWith(contentType) ? cborMeasurementsReader
+                : measurementsReader;
+        List<Measurement> measurements = null;
+        String parseError = null;
         try {
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            mapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
-            List<Measurement> measurements = mapper.readValue(rawBody,
-                    new com.fasterxml.jackson.core.type.TypeReference<List<Measurement>>() {
-                    });
+            measurements = reader.readValue(signedBody != null ? signedBody : body);
+        } catch (IOException e) {
+            parseError = e.getMessage();
+        }
+        // Checked once the whole body has gone through the HMAC, before anything about it is trusted
+        if (signedBody != null && !signedBody.matches(signature)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Invalid HMAC Signature");
+        }
+        if (parseError != null) {
+            return ResponseEntity.badRequest().body("Invalid " + (reader == measurementsReader ? "JSON" : "CBOR")
+                    + ": " + parseError);
+        }
 
-            // Save measurements using service
-            if (measurements != null) {
-                measurementService.saveMeasurements(measurements);
-                return ResponseEntity.ok().body("Measurements received: " + measurements.size());
-            } else {
-                return ResponseEntity.badRequest().body("No measurements provided");
-            }
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Invalid JSON: " + e.getMessage());
+        // Save measurements using service
+        if (measurements != null) {
+            measurementService.saveMeasurements(measurements);
+            return ResponseEntity.ok().body("Measurements received: " + measurements.size());
+        } else {
+            return ResponseEntity.badRequest().body("No measurements provided");
         }
     }
 
+    private static ObjectReader measurementsReader(ObjectMapper mapper) {
+        // The request stream must stay open after parsing so the HMAC also covers what follows the payload
+        return mapper.readerFor(new TypeReference<List<Measurement>>() {
+        }).without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    }
+
     @GetMapping("/{patientId}")
     public List<Measurement> getHistory(@PathVariable String patientId) {
         return measurementService.getHistory(patientId);
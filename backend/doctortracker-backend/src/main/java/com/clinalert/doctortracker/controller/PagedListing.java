@@ -0,0 +1,49 @@
+package com.clinalert.doctortracker.controller;
+
+import com.clinalert.doctortracker.dto.CursorPage;
+import com.clinalert.doctortracker.util.AppConstants;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Chooses how a list endpoint answers from its {@code page}, {@code size} and
+ * {@code cursor} parameters: {@code page} gives an offset page, {@code cursor}
+ * or {@code size} alone a keyset page, and none of them the plain list.
+ * The plain list is capped at the maximum page size; when rows were left out
+ * the cursor to the rest is sent in the {@code X-Next-Cursor} header.
+ */
+final class PagedListing {
+
+    // Prevent instantiation
+    private PagedListing() {
+    }
+
+    static ResponseEntity<Object> respond(Integer page, Integer size, String cursor,
+            Supplier<? extends CursorPage<?>> all,
+            BiFunction<Integer, Integer, ?> byPage,
+            BiFunction<String, Integer, ?> byCursor) {
+        try {
+            if (page != null) {
+                if (cursor != null) {
+                    throw new IllegalArgumentException("page cannot be combined with cursor");
+                }
+                return ResponseEntity.ok(byPage.apply(page, size));
+            }
+            if (cursor != null || size != null) {
+                return ResponseEntity.ok(byCursor.apply(cursor, size));
+            }
+            CursorPage<?> first = all.get();
+            if (first.getNextCursor() != null) {
+                return ResponseEntity.ok()
+                        .header(AppConstants.NEXT_CURSOR_HEADER, first.getNextCursor())
+                        .body(first.getItems());
+            }
+            return ResponseEntity.ok(first.getItems());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(AppConstants.KEY_ERROR, e.getMessage()));
+        }
+    }
+}
@@ -17,8 +17,11 @@ public class PatientController {
     private final PatientService patientService;
 
     @GetMapping
-    public List<Patient> getAllPatients() {
-        return patientService.getAllPatients();
+    public ResponseEntity<Object> getAllPatients(@RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        return PagedListing.respond(page, size, cursor, patientService::getAllPatients,
+                patientService::getPatientsPage, patientService::getPatientsAfter);
     }
 
     @GetMapping("/{id}")
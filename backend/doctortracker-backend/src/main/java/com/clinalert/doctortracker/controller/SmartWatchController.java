@@ -1,28 +1,58 @@
 package com.clinalert.doctortracker.controller;
 
+import com.clinalert.doctortracker.dto.CursorPage;
+import com.clinalert.doctortracker.dto.DownsampleAlgorithm;
+import com.clinalert.doctortracker.dto.HistoryFormat;
+import com.clinalert.doctortracker.dto.HistoryQuery;
+import com.clinalert.doctortracker.dto.VitalPoint;
+import com.clinalert.doctortracker.dto.VitalSeries;
 import com.clinalert.doctortracker.model.DailyHealthSummary;
 import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.model.HealthMetric;
 import com.clinalert.doctortracker.model.SmartWatchDevice;
+import com.clinalert.doctortracker.service.HealthDataIngestionPipeline;
 import com.clinalert.doctortracker.service.SmartWatchHealthService;
 import com.clinalert.doctortracker.util.AppConstants;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/smartwatch")
 @RequiredArgsConstructor
 public class SmartWatchController {
 
+    // Keeps the buffered per-vital endpoints out of the way of ?stream=true
+    private static final String NOT_STREAMING = "stream!=true";
+
+    private static final Map<String, HealthMetric> HISTORY_METRICS = Map.of(
+            "heart-rate", HealthMetric.HEART_RATE,
+            "steps", HealthMetric.STEPS,
+            "spo2", HealthMetric.SPO2,
+            "sleep", HealthMetric.SLEEP);
+
     private final SmartWatchHealthService smartWatchHealthService;
 
+    private final HealthDataIngestionPipeline ingestionPipeline;
+
+    private final ObjectMapper objectMapper;
+
     // ==================== Device Endpoints ====================
 
     @PostMapping("/devices")
@@ -64,17 +94,47 @@ public class SmartWatchController {
     // ==================== Health Data Endpoints ====================
 
     @PostMapping("/health-data")
-    public ResponseEntity<Map<String, Object>> submitHealthData(@RequestBody List<HealthData> healthDataList) {
+    public ResponseEntity<Map<String, Object>> submitHealthData(@RequestBody List<HealthData> healthDataList,
+            @RequestParam(defaultValue = "false") boolean async) {
         if (healthDataList == null || healthDataList.isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of(AppConstants.KEY_ERROR, "No health data provided"));
         }
 
+        if (async) {
+            // Larger than the whole queue: retrying would never help, unlike a 429
+            if (healthDataList.size() > ingestionPipeline.getMaxUploadRows()) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of(AppConstants.KEY_ERROR,
+                        "At most " + ingestionPipeline.getMaxUploadRows() + " rows per asynchronous upload"));
+            }
+            Optional<String> ticketId = ingestionPipeline.submit(healthDataList);
+            if (ticketId.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .body(Map.of(AppConstants.KEY_ERROR, "Ingestion queue is full, retry later"));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                    AppConstants.KEY_MESSAGE, "Health data accepted for ingestion",
+                    "ticketId", ticketId.get(),
+                    "count", healthDataList.size()));
+        }
+
         List<HealthData> saved = smartWatchHealthService.saveHealthData(healthDataList);
         return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
                 AppConstants.KEY_MESSAGE, "Health data saved successfully",
                 "count", saved.size()));
     }
 
+    @GetMapping("/health-data/ingestion/stats")
+    public ResponseEntity<HealthDataIngestionPipeline.IngestionStats> getIngestionStats() {
+        return ResponseEntity.ok(ingestionPipeline.getStats());
+    }
+
+    @GetMapping("/health-data/ingestion/{ticketId}")
+    public ResponseEntity<Map<String, Object>> getIngestionTicket(@PathVariable String ticketId) {
+        return ingestionPipeline.getTicketStatus(ticketId)
+                .map(status -> ResponseEntity.ok(Map.<String, Object>of("ticketId", ticketId, "status", status)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/health-data/single")
     public ResponseEntity<HealthData> submitSingleHealthData(@RequestBody HealthData healthData) {
         HealthData saved = smartWatchHealthService.saveHealthData(healthData);
@@ -87,33 +147,134 @@ public class SmartWatchController {
         return ResponseEntity.ok(data);
     }
 
+    /**
+     * Raw rows between {@code start} and {@code end}, or with {@code points}
+     * the {@code metric} vital (heart-rate, steps, spo2 or sleep) of that
+     * range downsampled with {@code algorithm}.
+     */
     @GetMapping("/health-data/{patientId}/range")
-    public ResponseEntity<List<HealthData>> getPatientHealthDataRange(
+    public ResponseEntity<Object> getPatientHealthDataRange(
             @PathVariable String patientId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
-        List<HealthData> data = smartWatchHealthService.getPatientHealthDataBetween(patientId, start, end);
-        return ResponseEntity.ok(data);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) Integer points,
+            @RequestParam(required = false) String metric,
+            @RequestParam(required = false) String algorithm) {
+        if (points == null) {
+            List<HealthData> data = smartWatchHealthService.getPatientHealthDataBetween(patientId, start, end);
+            return ResponseEntity.ok(data);
+        }
+        HealthMetric healthMetric = metric == null ? null : HISTORY_METRICS.get(metric);
+        if (healthMetric == null) {
+            return ResponseEntity.badRequest().body(Map.of(AppConstants.KEY_ERROR,
+                    "metric must be one of heart-rate, steps, spo2, sleep when points is set"));
+        }
+        try {
+            return downsampled(patientId, healthMetric, start, end, points, algorithm);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(AppConstants.KEY_ERROR, e.getMessage()));
+        }
     }
 
-    @GetMapping("/health-data/{patientId}/heart-rate")
-    public ResponseEntity<List<HealthData>> getHeartRateHistory(@PathVariable String patientId) {
-        return ResponseEntity.ok(smartWatchHealthService.getHeartRateHistory(patientId));
+    @GetMapping(value = "/health-data/{patientId}/heart-rate", params = NOT_STREAMING)
+    public ResponseEntity<Object> getHeartRateHistory(@PathVariable String patientId, HistoryQuery query) {
+        return history(patientId, HealthMetric.HEART_RATE, query,
+                () -> smartWatchHealthService.getHeartRateHistory(patientId));
     }
 
-    @GetMapping("/health-data/{patientId}/steps")
-    public ResponseEntity<List<HealthData>> getStepsHistory(@PathVariable String patientId) {
-        return ResponseEntity.ok(smartWatchHealthService.getStepsHistory(patientId));
+    @GetMapping(value = "/health-data/{patientId}/steps", params = NOT_STREAMING)
+    public ResponseEntity<Object> getStepsHistory(@PathVariable String patientId, HistoryQuery query) {
+        return history(patientId, HealthMetric.STEPS, query,
+                () -> smartWatchHealthService.getStepsHistory(patientId));
     }
 
-    @GetMapping("/health-data/{patientId}/spo2")
-    public ResponseEntity<List<HealthData>> getSpO2History(@PathVariable String patientId) {
-        return ResponseEntity.ok(smartWatchHealthService.getSpO2History(patientId));
+    @GetMapping(value = "/health-data/{patientId}/spo2", params = NOT_STREAMING)
+    public ResponseEntity<Object> getSpO2History(@PathVariable String patientId, HistoryQuery query) {
+        return history(patientId, HealthMetric.SPO2, query,
+                () -> smartWatchHealthService.getSpO2History(patientId));
+    }
+
+    @GetMapping(value = "/health-data/{patientId}/sleep", params = NOT_STREAMING)
+    public ResponseEntity<Object> getSleepHistory(@PathVariable String patientId, HistoryQuery query) {
+        return history(patientId, HealthMetric.SLEEP, query,
+                () -> smartWatchHealthService.getSleepHistory(patientId));
+    }
+
+    /**
+     * Streams a whole vital history with constant memory: as a JSON array, or
+     * as newline-delimited JSON when the client accepts
+     * {@code application/x-ndjson}.
+     */
+    @GetMapping(value = "/health-data/{patientId}/{metric:heart-rate|steps|spo2|sleep}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamHistory(@PathVariable String patientId,
+            @PathVariable String metric,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        HealthMetric healthMetric = HISTORY_METRICS.get(metric);
+        boolean ndjson = accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                if (!ndjson) {
+                    generator.writeStartArray();
+                }
+                smartWatchHealthService.streamHistory(patientId, healthMetric, row -> {
+                    try {
+                        generator.writeObject(row);
+                        if (ndjson) {
+                            generator.writeRaw('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!ndjson) {
+                    generator.writeEndArray();
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private ResponseEntity<Object> history(String patientId, HealthMetric metric, HistoryQuery query,
+            Supplier<List<HealthData>> fullHistory) {
+        try {
+            if (query.getPoints() != null) {
+                if (query.getLimit() != null || query.getFormat() != null) {
+                    throw new IllegalArgumentException("points cannot be combined with limit or format");
+                }
+                return downsampled(patientId, metric, null, null, query.getPoints(), query.getAlgorithm());
+            }
+            HistoryFormat format = HistoryFormat.fromParam(query.getFormat());
+            if (query.getLimit() == null) {
+                return ResponseEntity.ok(switch (format) {
+                    case FULL -> fullHistory.get();
+                    case POINTS -> smartWatchHealthService.getHistoryPoints(patientId, metric);
+                    case COLUMNAR -> smartWatchHealthService.getHistorySeries(patientId, metric);
+                });
+            }
+            CursorPage<HealthData> page = smartWatchHealthService.getHistoryPage(patientId, metric,
+                    query.getCursor(), query.getLimit());
+            return ResponseEntity.ok(switch (format) {
+                case FULL -> page;
+                case POINTS -> new CursorPage<>(
+                        page.getItems().stream().map(row -> VitalPoint.of(row, metric)).toList(),
+                        page.getNextCursor());
+                case COLUMNAR -> VitalSeries.of(page.getItems(), metric, page.getNextCursor());
+            });
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(AppConstants.KEY_ERROR, e.getMessage()));
+        }
     }
 
-    @GetMapping("/health-data/{patientId}/sleep")
-    public ResponseEntity<List<HealthData>> getSleepHistory(@PathVariable String patientId) {
-        return ResponseEntity.ok(smartWatchHealthService.getSleepHistory(patientId));
+    private ResponseEntity<Object> downsampled(String patientId, HealthMetric metric, LocalDateTime from,
+            LocalDateTime to, int points, String algorithm) {
+        return ResponseEntity.ok(switch (DownsampleAlgorithm.fromParam(algorithm)) {
+            case LTTB -> smartWatchHealthService.downsampleLttb(patientId, metric, from, to, points);
+            case BUCKET -> smartWatchHealthService.getHistoryBuckets(patientId, metric, from, to, points);
+        });
     }
 
     @GetMapping("/health-data/{patientId}/stats")
@@ -8,7 +8,6 @@ import org.springframework.lang.NonNull;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -21,10 +20,13 @@ public class UserController {
     private final UserService userService;
 
     @GetMapping
-    public List<Map<String, Object>> getAllUsers() {
-        return userService.getAllUsers().stream()
-                .map(this::userToMap)
-                .toList();
+    public ResponseEntity<Object> getAllUsers(@RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        return PagedListing.respond(page, size, cursor,
+                () -> userService.getAllUsers().map(this::userToMap),
+                (p, s) -> userService.getUsersPage(p, s).map(this::userToMap),
+                (c, s) -> userService.getUsersAfter(c, s).map(this::userToMap));
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,23 @@
+package com.clinalert.doctortracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One threshold rule of the alert rule engine, as declared in the rules file.
+ * Rules of the same vital are tried in declaration order and only the first
+ * match fires. The message may reference {value} and {diastolic}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertRule {
+    private String vital;      // HEART_RATE, SPO2, BLOOD_PRESSURE_SYSTOLIC, TEMPERATURE
+    private String operator;   // ABOVE or BELOW
+    private double threshold;
+    private String severity;
+    private String message;
+}
@@ -0,0 +1,28 @@
+package com.clinalert.doctortracker.dto;
+
+import java.util.Locale;
+
+/**
+ * How a vital history is reduced to the number of points requested with
+ * {@code points}.
+ */
+public enum DownsampleAlgorithm {
+    // Largest-Triangle-Three-Buckets: keeps the real readings that best preserve the shape
+    LTTB,
+    // Equal-width time buckets with min, max and average of each
+    BUCKET;
+
+    /**
+     * @throws IllegalArgumentException if {@code value} names no algorithm
+     */
+    public static DownsampleAlgorithm fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return LTTB;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("algorithm must be one of lttb, bucket", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.clinalert.doctortracker.dto;
+
+import java.util.Locale;
+
+/**
+ * Response shape of the per-vital history endpoints.
+ */
+public enum HistoryFormat {
+    // Whole HealthData rows, the historical response
+    FULL,
+    // VitalPoint objects of (timestamp, value)
+    POINTS,
+    // A single VitalSeries of parallel arrays
+    COLUMNAR;
+
+    /**
+     * @throws IllegalArgumentException if {@code value} names no format
+     */
+    public static HistoryFormat fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return FULL;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("format must be one of full, points, columnar", e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.clinalert.doctortracker.dto;
+
+import lombok.Data;
+
+/**
+ * Optional query parameters of the per-vital history endpoints. Without a
+ * {@code limit} the full history is returned as before, and without a
+ * {@code format} as whole HealthData rows. {@code points} asks for a
+ * downsampled series instead and excludes the other two.
+ */
+@Data
+public class HistoryQuery {
+    // Page size; enables keyset pagination
+    private Integer limit;
+    // nextCursor of the previous page
+    private String cursor;
+    // full (default), points or columnar, see HistoryFormat
+    private String format;
+    // Target number of points; enables downsampling
+    private Integer points;
+    // lttb (default) or bucket, see DownsampleAlgorithm
+    private String algorithm;
+}
@@ -0,0 +1,19 @@
+package com.clinalert.doctortracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Number of unread alerts of a patient, a doctor's patients, a clinic's
+ * patients or the whole system, in total and per severity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnreadCounts {
+    private int total;
+    private Map<String, Integer> bySeverity;
+}
@@ -0,0 +1,23 @@
+package com.clinalert.doctortracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate of the readings of one vital falling into one time bucket, as
+ * returned by downsampled history requests with {@code algorithm=bucket}.
+ * {@code timestamp} is that of the bucket's first reading.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VitalBucket {
+    private LocalDateTime timestamp;
+    private double min;
+    private double max;
+    private double avg;
+    private long count;
+}
@@ -0,0 +1,25 @@
+package com.clinalert.doctortracker.dto;
+
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.model.HealthMetric;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One reading of a single vital, as returned by the per-vital history
+ * endpoints with {@code format=points}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VitalPoint {
+    private LocalDateTime timestamp;
+    private Number value;
+
+    public static VitalPoint of(HealthData row, HealthMetric metric) {
+        return new VitalPoint(row.getTimestamp(), metric.readValue(row));
+    }
+}
@@ -0,0 +1,42 @@
+package com.clinalert.doctortracker.dto;
+
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.model.HealthMetric;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Columnar form of a vital history ({@code format=columnar}): parallel
+ * arrays of epoch milliseconds and values, in the same order as the rows.
+ * Timestamps are stored as server-local date-times and converted with the
+ * server's time zone. {@code nextCursor} is only set on paginated requests
+ * that have another page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VitalSeries {
+    private long[] timestamps;
+    private double[] values;
+    private String nextCursor;
+
+    public static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public static VitalSeries of(List<HealthData> rows, HealthMetric metric, String nextCursor) {
+        long[] timestamps = new long[rows.size()];
+        double[] values = new double[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            HealthData row = rows.get(i);
+            timestamps[i] = toEpochMillis(row.getTimestamp());
+            values[i] = metric.readValue(row).doubleValue();
+        }
+        return new VitalSeries(timestamps, values, nextCursor);
+    }
+}
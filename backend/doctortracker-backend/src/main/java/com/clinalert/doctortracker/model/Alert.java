@@ -5,7 +5,14 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "alerts")
+@Table(name = "alerts", indexes = {
+        @Index(name = "idx_alerts_patient_timestamp", columnList = "patient_id, timestamp"),
+        // Partial (WHERE is_read = false) in the PostgreSQL migration
+        @Index(name = "idx_alerts_unread", columnList = "is_read, patient_id, timestamp"),
+        @Index(name = "idx_alerts_severity_timestamp", columnList = "severity, timestamp"),
+        // Newest-first listing and its keyset pages
+        @Index(name = "idx_alerts_timestamp_id", columnList = "timestamp, id")
+})
 public class Alert {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
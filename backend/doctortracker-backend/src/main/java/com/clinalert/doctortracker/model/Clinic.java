@@ -3,7 +3,9 @@ package com.clinalert.doctortracker.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "clinics")
+@Table(name = "clinics", indexes = {
+        @Index(name = "idx_clinics_doctor_id", columnList = "doctor_id")
+})
 public class Clinic {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
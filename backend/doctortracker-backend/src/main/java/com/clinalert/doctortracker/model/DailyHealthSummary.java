@@ -29,6 +29,10 @@ public class DailyHealthSummary {
     @Column(name = "max_heart_rate")
     private Integer maxHeartRate;
 
+    // Number of readings behind each average, so later batches can be folded in
+    @Column(name = "heart_rate_samples")
+    private Integer heartRateSamples;
+
     @Column(name = "resting_heart_rate")
     private Integer restingHeartRate;
 
@@ -65,6 +69,9 @@ public class DailyHealthSummary {
     @Column(name = "min_spo2")
     private Double minSpO2;
 
+    @Column(name = "spo2_samples")
+    private Integer spO2Samples;
+
     // Blood Pressure Stats
     @Column(name = "avg_systolic")
     private Double avgSystolic;
@@ -72,10 +79,19 @@ public class DailyHealthSummary {
     @Column(name = "avg_diastolic")
     private Double avgDiastolic;
 
+    @Column(name = "systolic_samples")
+    private Integer systolicSamples;
+
+    @Column(name = "diastolic_samples")
+    private Integer diastolicSamples;
+
     // Temperature Stats
     @Column(name = "avg_temperature")
     private Double avgTemperature;
 
+    @Column(name = "temperature_samples")
+    private Integer temperatureSamples;
+
     @Column(name = "data_points_count")
     private Integer dataPointsCount;
 
@@ -145,6 +161,14 @@ public class DailyHealthSummary {
         this.maxHeartRate = maxHeartRate;
     }
 
+    public Integer getHeartRateSamples() {
+        return heartRateSamples;
+    }
+
+    public void setHeartRateSamples(Integer heartRateSamples) {
+        this.heartRateSamples = heartRateSamples;
+    }
+
     public Integer getRestingHeartRate() {
         return restingHeartRate;
     }
@@ -233,6 +257,14 @@ public class DailyHealthSummary {
         this.minSpO2 = minSpO2;
     }
 
+    public Integer getSpO2Samples() {
+        return spO2Samples;
+    }
+
+    public void setSpO2Samples(Integer spO2Samples) {
+        this.spO2Samples = spO2Samples;
+    }
+
     public Double getAvgSystolic() {
         return avgSystolic;
     }
@@ -249,6 +281,22 @@ public class DailyHealthSummary {
         this.avgDiastolic = avgDiastolic;
     }
 
+    public Integer getSystolicSamples() {
+        return systolicSamples;
+    }
+
+    public void setSystolicSamples(Integer systolicSamples) {
+        this.systolicSamples = systolicSamples;
+    }
+
+    public Integer getDiastolicSamples() {
+        return diastolicSamples;
+    }
+
+    public void setDiastolicSamples(Integer diastolicSamples) {
+        this.diastolicSamples = diastolicSamples;
+    }
+
     public Double getAvgTemperature() {
         return avgTemperature;
     }
@@ -257,6 +305,14 @@ public class DailyHealthSummary {
         this.avgTemperature = avgTemperature;
     }
 
+    public Integer getTemperatureSamples() {
+        return temperatureSamples;
+    }
+
+    public void setTemperatureSamples(Integer temperatureSamples) {
+        this.temperatureSamples = temperatureSamples;
+    }
+
     public Integer getDataPointsCount() {
         return dataPointsCount;
     }
@@ -4,7 +4,13 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "health_data")
+@Table(name = "health_data", indexes = {
+        // Per-patient history, latest readings and keyset pages (timestamp DESC, id DESC)
+        @Index(name = "idx_health_data_patient_timestamp", columnList = "patient_id, timestamp, id"),
+        // Daily summary job: one day of readings across all patients; BRIN in the PostgreSQL migration
+        @Index(name = "idx_health_data_timestamp", columnList = "timestamp"),
+        @Index(name = "idx_health_data_device_timestamp", columnList = "device_id, timestamp")
+})
 public class HealthData {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -0,0 +1,34 @@
+package com.clinalert.doctortracker.model;
+
+/**
+ * Single-valued vitals of {@link HealthData} that have their own history
+ * endpoint, with the health_data column holding each one.
+ */
+public enum HealthMetric {
+    HEART_RATE("heart_rate"),
+    STEPS("steps"),
+    SPO2("spo2"),
+    SLEEP("sleep_minutes");
+
+    private final String column;
+
+    HealthMetric(String column) {
+        this.column = column;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * The value of this vital in {@code row}, or null if it was not measured.
+     */
+    public Number readValue(HealthData row) {
+        return switch (this) {
+            case HEART_RATE -> row.getHeartRate();
+            case STEPS -> row.getSteps();
+            case SPO2 -> row.getSpO2();
+            case SLEEP -> row.getSleepMinutes();
+        };
+    }
+}
@@ -5,7 +5,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "measurements")
+@Table(name = "measurements", indexes = {
+        @Index(name = "idx_measurements_patient_type_timestamp", columnList = "patient_id, type, timestamp"),
+        @Index(name = "idx_measurements_patient_timestamp", columnList = "patient_id, timestamp")
+})
 public class Measurement {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -24,6 +27,10 @@ public class Measurement {
     @PrePersist
     protected void onCreate() {
         receivedAt = LocalDateTime.now();
+        // The timestamp is the partition key on PostgreSQL and cannot be null
+        if (timestamp == null) {
+            timestamp = receivedAt;
+        }
     }
 
     public String getId() {
@@ -3,7 +3,10 @@ package com.clinalert.doctortracker.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "patients")
+@Table(name = "patients", indexes = {
+        @Index(name = "idx_patients_doctor_id", columnList = "doctor_id"),
+        @Index(name = "idx_patients_clinic_id", columnList = "clinic_id")
+})
 public class Patient {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
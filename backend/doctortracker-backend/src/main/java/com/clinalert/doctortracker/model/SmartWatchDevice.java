@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "smartwatch_devices")
+@Table(name = "smartwatch_devices", indexes = {
+        @Index(name = "idx_smartwatch_devices_patient_address", columnList = "patient_id, device_address"),
+        @Index(name = "idx_smartwatch_devices_address", columnList = "device_address")
+})
 public class SmartWatchDevice {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -1,18 +1,77 @@
 package com.clinalert.doctortracker.repository;
 
 import com.clinalert.doctortracker.model.Alert;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface AlertRepository extends JpaRepository<Alert, String> {
+public interface AlertRepository extends JpaRepository<Alert, String>, AlertRepositoryCustom {
     List<Alert> findByPatientId(String patientId);
 
     List<Alert> findByIsReadFalse();
 
+    long countByIsReadFalse();
+
     List<Alert> findTop10ByPatientIdOrderByTimestampDesc(String patientId);
 
     List<Alert> findBySeverityAndTimestampBefore(String severity, java.time.LocalDateTime timestamp);
+
+    List<Alert> findAllByOrderByTimestampDescIdDesc(Limit limit);
+
+    /**
+     * Alerts strictly after ({@code timestamp}, {@code id}) in newest-first
+     * order, the keyset continuation of {@link #findAllByOrderByTimestampDescIdDesc}.
+     */
+    @Query("SELECT a FROM Alert a WHERE a.timestamp < :timestamp OR (a.timestamp = :timestamp AND a.id < :id) "
+            + "ORDER BY a.timestamp DESC, a.id DESC")
+    List<Alert> findPageBefore(@Param("timestamp") LocalDateTime timestamp, @Param("id") String id, Limit limit);
+
+    /**
+     * Raises the given alerts from {@code from} to {@code to} in one statement
+     * and prefixes their message. Alerts read or re-graded in the meantime are
+     * left alone.
+     *
+     * @return number of alerts escalated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Alert a SET a.severity = :to, a.message = CONCAT(:prefix, COALESCE(a.message, '')) "
+            + "WHERE a.id IN :ids AND a.severity = :from AND a.isRead = false")
+    int escalate(@Param("ids") Collection<String> ids, @Param("from") String from, @Param("to") String to,
+            @Param("prefix") String prefix);
+
+    /**
+     * Marks the given alerts read in one statement.
+     *
+     * @return number of alerts that were unread
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Alert a SET a.isRead = true WHERE a.id IN :ids AND a.isRead = false")
+    int markReadByIds(@Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Alert a SET a.isRead = true WHERE a.patientId = :patientId AND a.isRead = false")
+    int markReadByPatient(@Param("patientId") String patientId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Alert a SET a.isRead = true "
+            + "WHERE a.patientId = :patientId AND a.timestamp < :before AND a.isRead = false")
+    int markReadByPatientBefore(@Param("patientId") String patientId, @Param("before") LocalDateTime before);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Alert a SET a.isRead = true WHERE a.timestamp < :before AND a.isRead = false")
+    int markReadBefore(@Param("before") LocalDateTime before);
 }
@@ -0,0 +1,35 @@
+package com.clinalert.doctortracker.repository;
+
+import com.clinalert.doctortracker.model.Alert;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * JDBC-backed bulk operations on alerts.
+ */
+public interface AlertRepositoryCustom {
+
+    /**
+     * Inserts all alerts with a single JDBC batch. Id, timestamp and read
+     * state are initialised as {@link Alert}'s {@code @PrePersist} callback
+     * would, and are written back to the objects.
+     *
+     * @return number of alerts inserted
+     */
+    int insertBatch(List<Alert> alerts);
+
+    /**
+     * Streams the id and timestamp of every unread alert of {@code severity},
+     * without loading the entities.
+     */
+    void forEachUnread(String severity, BiConsumer<String, LocalDateTime> consumer);
+
+    /**
+     * Streams every unread alert with only its id, patient, severity and
+     * timestamp filled in.
+     */
+    void forEachUnread(Consumer<Alert> consumer);
+}
@@ -0,0 +1,77 @@
+package com.clinalert.doctortracker.repository;
+
+import com.clinalert.doctortracker.model.Alert;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class AlertRepositoryCustomImpl implements AlertRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO alerts "
+            + "(id, patient_id, measurement_id, message, severity, timestamp, is_read) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public int insertBatch(List<Alert> alerts) {
+        if (alerts.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Alert alert : alerts) {
+            if (alert.getId() == null) {
+                alert.setId(UUID.randomUUID().toString());
+            }
+            alert.setTimestamp(now);
+            alert.setRead(false);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, alerts, alerts.size(), AlertRepositoryCustomImpl::bind);
+        return alerts.size();
+    }
+
+    @Override
+    public void forEachUnread(String severity, BiConsumer<String, LocalDateTime> consumer) {
+        jdbcTemplate.query("SELECT id, timestamp FROM alerts WHERE severity = ? AND is_read = false",
+                rs -> {
+                    Timestamp timestamp = rs.getTimestamp(2);
+                    consumer.accept(rs.getString(1), timestamp == null ? null : timestamp.toLocalDateTime());
+                }, severity);
+    }
+
+    @Override
+    public void forEachUnread(Consumer<Alert> consumer) {
+        jdbcTemplate.query("SELECT id, patient_id, severity, timestamp FROM alerts WHERE is_read = false", rs -> {
+            Alert alert = new Alert();
+            alert.setId(rs.getString(1));
+            alert.setPatientId(rs.getString(2));
+            alert.setSeverity(rs.getString(3));
+            Timestamp timestamp = rs.getTimestamp(4);
+            alert.setTimestamp(timestamp == null ? null : timestamp.toLocalDateTime());
+            consumer.accept(alert);
+        });
+    }
+
+    private static void bind(PreparedStatement ps, Alert alert) throws SQLException {
+        ps.setString(1, alert.getId());
+        ps.setString(2, alert.getPatientId());
+        ps.setString(3, alert.getMeasurementId());
+        ps.setString(4, alert.getMessage());
+        ps.setString(5, alert.getSeverity());
+        ps.setTimestamp(6, Timestamp.valueOf(alert.getTimestamp()));
+        ps.setBoolean(7, alert.isRead());
+    }
+}
@@ -1,6 +1,7 @@
 package com.clinalert.doctortracker.repository;
 
 import com.clinalert.doctortracker.model.Clinic;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,4 +10,8 @@ import java.util.List;
 @Repository
 public interface ClinicRepository extends JpaRepository<Clinic, String> {
     List<Clinic> findByDoctorId(String doctorId);
+
+    List<Clinic> findAllByOrderByIdAsc(Limit limit);
+
+    List<Clinic> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
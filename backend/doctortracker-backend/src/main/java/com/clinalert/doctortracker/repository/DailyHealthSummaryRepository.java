@@ -2,14 +2,18 @@ package com.clinalert.doctortracker.repository;
 
 import com.clinalert.doctortracker.model.DailyHealthSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface DailyHealthSummaryRepository extends JpaRepository<DailyHealthSummary, String> {
+public interface DailyHealthSummaryRepository extends JpaRepository<DailyHealthSummary, String>,
+        DailyHealthSummaryRepositoryCustom {
 
     Optional<DailyHealthSummary> findByPatientIdAndDate(String patientId, LocalDate date);
 
@@ -23,4 +27,7 @@ public interface DailyHealthSummaryRepository extends JpaRepository<DailyHealthS
             LocalDate endDate);
 
     boolean existsByPatientIdAndDate(String patientId, LocalDate date);
+
+    @Query("SELECT s.patientId FROM DailyHealthSummary s WHERE s.date = :date")
+    Set<String> findPatientIdsByDate(@Param("date") LocalDate date);
 }
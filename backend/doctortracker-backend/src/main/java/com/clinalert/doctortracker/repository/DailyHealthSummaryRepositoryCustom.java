@@ -0,0 +1,31 @@
+package com.clinalert.doctortracker.repository;
+
+import com.clinalert.doctortracker.model.DailyHealthSummary;
+
+import java.util.List;
+
+/**
+ * JDBC-backed bulk operations on daily summaries.
+ */
+public interface DailyHealthSummaryRepositoryCustom {
+
+    /**
+     * Folds each increment into the stored summary of the same patient and
+     * day with a single batched upsert, creating the summary if needed.
+     * <p>
+     * An increment is the summary of a batch of new readings: its totals are
+     * added, its extremes compared and its averages weighted by the
+     * {@code *Samples} counts of both sides.
+     *
+     * @return number of summaries written
+     */
+    int mergeIncrements(List<DailyHealthSummary> increments);
+
+    /**
+     * Writes complete summaries with a single batched upsert, replacing the
+     * computed fields of any stored summary of the same patient and day.
+     *
+     * @return number of summaries written
+     */
+    int upsertSummaries(List<DailyHealthSummary> summaries);
+}
@@ -0,0 +1,200 @@
+package com.clinalert.doctortracker.repository;
+
+import com.clinalert.doctortracker.model.DailyHealthSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class DailyHealthSummaryRepositoryCustomImpl implements DailyHealthSummaryRepositoryCustom {
+
+    // Column name and SQL type, in bind order
+    private static final String[][] COLUMNS = {
+            { "id", "VARCHAR(255)" },
+            { "patient_id", "VARCHAR(255)" },
+            { "summary_date", "DATE" },
+            { "data_points_count", "INTEGER" },
+            { "avg_heart_rate", "DOUBLE PRECISION" },
+            { "min_heart_rate", "INTEGER" },
+            { "max_heart_rate", "INTEGER" },
+            { "heart_rate_samples", "INTEGER" },
+            { "total_steps", "INTEGER" },
+            { "total_distance_meters", "DOUBLE PRECISION" },
+            { "total_calories_burned", "INTEGER" },
+            { "total_sleep_minutes", "INTEGER" },
+            { "avg_spo2", "DOUBLE PRECISION" },
+            { "min_spo2", "DOUBLE PRECISION" },
+            { "spo2_samples", "INTEGER" },
+            { "avg_systolic", "DOUBLE PRECISION" },
+            { "systolic_samples", "INTEGER" },
+            { "avg_diastolic", "DOUBLE PRECISION" },
+            { "diastolic_samples", "INTEGER" },
+            { "avg_temperature", "DOUBLE PRECISION" },
+            { "temperature_samples", "INTEGER" },
+            { "created_at", "TIMESTAMP" },
+            { "updated_at", "TIMESTAMP" },
+    };
+
+    // Never overwritten by an upsert
+    private static final Set<String> KEY_COLUMNS = Set.of("id", "patient_id", "summary_date", "created_at");
+
+    private static final String COLUMN_LIST = Arrays.stream(COLUMNS)
+            .map(c -> c[0])
+            .collect(Collectors.joining(", "));
+
+    private static final String POSTGRES_MERGE_SQL = postgresUpsert(mergeAssignments("EXCLUDED"));
+
+    private static final String POSTGRES_REPLACE_SQL = postgresUpsert(replaceAssignments("EXCLUDED"));
+
+    private static final String MERGE_SQL = standardMerge(mergeAssignments("s"));
+
+    private static final String REPLACE_SQL = standardMerge(replaceAssignments("s"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    @Override
+    @Transactional
+    public int mergeIncrements(List<DailyHealthSummary> increments) {
+        if (increments.isEmpty()) {
+            return 0;
+        }
+        return write(isPostgres() ? POSTGRES_MERGE_SQL : MERGE_SQL, increments);
+    }
+
+    @Override
+    @Transactional
+    public int upsertSummaries(List<DailyHealthSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return 0;
+        }
+        return write(isPostgres() ? POSTGRES_REPLACE_SQL : REPLACE_SQL, summaries);
+    }
+
+    private int write(String sql, List<DailyHealthSummary> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(sql, rows, rows.size(), (ps, row) -> bind(ps, row, now));
+        return rows.size();
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equals(product);
+            postgres = result;
+        }
+        return result;
+    }
+
+    // PostgreSQL: native upsert, atomic under concurrent inserts of the same day
+    private static String postgresUpsert(String assignments) {
+        return "INSERT INTO daily_health_summaries AS t (" + COLUMN_LIST + ") VALUES ("
+                + Arrays.stream(COLUMNS).map(c -> "?").collect(Collectors.joining(", "))
+                + ") ON CONFLICT (patient_id, summary_date) DO UPDATE SET " + assignments;
+    }
+
+    // Other databases (H2): standard MERGE
+    private static String standardMerge(String assignments) {
+        return "MERGE INTO daily_health_summaries t USING (SELECT "
+                + Arrays.stream(COLUMNS).map(c -> "CAST(? AS " + c[1] + ") AS " + c[0])
+                        .collect(Collectors.joining(", "))
+                + ") s ON t.patient_id = s.patient_id AND t.summary_date = s.summary_date"
+                + " WHEN MATCHED THEN UPDATE SET " + assignments
+                + " WHEN NOT MATCHED THEN INSERT (" + COLUMN_LIST + ") VALUES ("
+                + Arrays.stream(COLUMNS).map(c -> "s." + c[0]).collect(Collectors.joining(", ")) + ")";
+    }
+
+    private static String replaceAssignments(String s) {
+        return Arrays.stream(COLUMNS)
+                .map(c -> c[0])
+                .filter(column -> !KEY_COLUMNS.contains(column))
+                .map(column -> column + " = " + s + "." + column)
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String mergeAssignments(String s) {
+        return String.join(", ",
+                sum("data_points_count", s),
+                weightedAverage("avg_heart_rate", "heart_rate_samples", s),
+                extreme("min_heart_rate", "LEAST", s),
+                extreme("max_heart_rate", "GREATEST", s),
+                sum("heart_rate_samples", s),
+                sum("total_steps", s),
+                sum("total_distance_meters", s),
+                sum("total_calories_burned", s),
+                sum("total_sleep_minutes", s),
+                weightedAverage("avg_spo2", "spo2_samples", s),
+                extreme("min_spo2", "LEAST", s),
+                sum("spo2_samples", s),
+                weightedAverage("avg_systolic", "systolic_samples", s),
+                sum("systolic_samples", s),
+                weightedAverage("avg_diastolic", "diastolic_samples", s),
+                sum("diastolic_samples", s),
+                weightedAverage("avg_temperature", "temperature_samples", s),
+                sum("temperature_samples", s),
+                "updated_at = " + s + ".updated_at");
+    }
+
+    private static String sum(String column, String s) {
+        return column + " = COALESCE(t." + column + ", 0) + " + s + "." + column;
+    }
+
+    private static String extreme(String column, String function, String s) {
+        return column + " = CASE WHEN t." + column + " IS NULL THEN " + s + "." + column
+                + " WHEN " + s + "." + column + " IS NULL THEN t." + column
+                + " ELSE " + function + "(t." + column + ", " + s + "." + column + ") END";
+    }
+
+    private static String weightedAverage(String column, String samples, String s) {
+        String stored = "COALESCE(t." + samples + ", 0)";
+        return column + " = CASE WHEN " + s + "." + samples + " = 0 THEN t." + column
+                + " WHEN t." + column + " IS NULL THEN " + s + "." + column
+                + " ELSE (t." + column + " * " + stored + " + " + s + "." + column + " * " + s + "." + samples
+                + ") / (" + stored + " + " + s + "." + samples + ") END";
+    }
+
+    private static void bind(PreparedStatement ps, DailyHealthSummary increment, LocalDateTime now)
+            throws SQLException {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        int i = 1;
+        ps.setString(i++, UUID.randomUUID().toString());
+        ps.setString(i++, increment.getPatientId());
+        ps.setDate(i++, Date.valueOf(increment.getDate()));
+        ps.setObject(i++, increment.getDataPointsCount(), Types.INTEGER);
+        ps.setObject(i++, increment.getAvgHeartRate(), Types.DOUBLE);
+        ps.setObject(i++, increment.getMinHeartRate(), Types.INTEGER);
+        ps.setObject(i++, increment.getMaxHeartRate(), Types.INTEGER);
+        ps.setObject(i++, increment.getHeartRateSamples(), Types.INTEGER);
+        ps.setObject(i++, increment.getTotalSteps(), Types.INTEGER);
+        ps.setObject(i++, increment.getTotalDistanceMeters(), Types.DOUBLE);
+        ps.setObject(i++, increment.getTotalCaloriesBurned(), Types.INTEGER);
+        ps.setObject(i++, increment.getTotalSleepMinutes(), Types.INTEGER);
+        ps.setObject(i++, increment.getAvgSpO2(), Types.DOUBLE);
+        ps.setObject(i++, increment.getMinSpO2(), Types.DOUBLE);
+        ps.setObject(i++, increment.getSpO2Samples(), Types.INTEGER);
+        ps.setObject(i++, increment.getAvgSystolic(), Types.DOUBLE);
+        ps.setObject(i++, increment.getSystolicSamples(), Types.INTEGER);
+        ps.setObject(i++, increment.getAvgDiastolic(), Types.DOUBLE);
+        ps.setObject(i++, increment.getDiastolicSamples(), Types.INTEGER);
+        ps.setObject(i++, increment.getAvgTemperature(), Types.DOUBLE);
+        ps.setObject(i++, increment.getTemperatureSamples(), Types.INTEGER);
+        ps.setTimestamp(i++, timestamp);
+        ps.setTimestamp(i, timestamp);
+    }
+}
@@ -1,9 +1,18 @@
 package com.clinalert.doctortracker.repository;
 
 import com.clinalert.doctortracker.model.Doctor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, String> {
+    List<Doctor> findAllByOrderByIdAsc(Limit limit);
+
+    List<Doctor> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
+
+    Optional<Doctor> findFirstByEmailOrderByIdAsc(String email);
 }
@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface HealthDataRepository extends JpaRepository<HealthData, String> {
+public interface HealthDataRepository extends JpaRepository<HealthData, String>, HealthDataRepositoryCustom {
 
     List<HealthData> findByPatientIdOrderByTimestampDesc(String patientId);
 
@@ -0,0 +1,114 @@
+package com.clinalert.doctortracker.repository;
+
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.model.HealthMetric;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * JDBC-backed operations on health_data that bypass the JPA persistence
+ * context, for ingestion paths that write large volumes of rows.
+ */
+public interface HealthDataRepositoryCustom {
+
+    /**
+     * Inserts all rows with a single JDBC batch. Ids, timestamps and
+     * receivedAt are filled in the same way as {@link HealthData}'s
+     * {@code @PrePersist} callback would, and are written back to the objects.
+     *
+     * @return number of rows inserted
+     */
+    int insertBatch(List<HealthData> rows);
+
+    /**
+     * Streams the vitals of every row with {@code from <= timestamp < to},
+     * ordered by patient, to {@code sink} without materialising the result.
+     * Only patients sorting after {@code afterPatientId} are read when it is
+     * not null, so an interrupted scan can resume where it stopped.
+     * <p>
+     * The rows handed to the sink carry the patient id and vitals only.
+     */
+    void streamByPatient(LocalDateTime from, LocalDateTime to, String afterPatientId, int fetchSize,
+            Consumer<HealthData> sink);
+
+    /**
+     * Streams a patient's rows that have a value for {@code metric}, newest
+     * first, through a fetch-size cursor so memory use does not depend on
+     * the length of the history.
+     */
+    void streamHistory(String patientId, HealthMetric metric, int fetchSize, Consumer<HealthData> sink);
+
+    /**
+     * Keyset page of the same history: at most {@code limit} rows strictly
+     * older than ({@code beforeTimestamp}, {@code beforeId}) in
+     * (timestamp DESC, id DESC) order, or the newest rows when
+     * {@code beforeTimestamp} is null.
+     */
+    List<HealthData> findHistoryPage(String patientId, HealthMetric metric, LocalDateTime beforeTimestamp,
+            String beforeId, int limit);
+
+    /**
+     * The same history as {@link #streamHistory} reduced to (timestamp,
+     * value), reading only those two columns.
+     */
+    List<Reading> findHistoryPoints(String patientId, HealthMetric metric);
+
+    /**
+     * Hands the same history as {@link #findHistoryPoints} to {@code sink}
+     * as primitive values, without an object per row besides the timestamp.
+     */
+    void forEachHistoryValue(String patientId, HealthMetric metric, ValueSink sink);
+
+    /**
+     * Count and first/last timestamps of a patient's readings of
+     * {@code metric} with {@code from <= timestamp <= to}; a null bound is
+     * open.
+     */
+    Span findHistorySpan(String patientId, HealthMetric metric, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Streams the same readings as {@link #findHistorySpan} as (timestamp,
+     * value) readings, oldest first, through a fetch-size cursor.
+     */
+    void streamHistoryPoints(String patientId, HealthMetric metric, LocalDateTime from, LocalDateTime to,
+            int fetchSize, Consumer<Reading> sink);
+
+    /**
+     * Aggregates the readings with {@code from <= timestamp <= to} into
+     * {@code bucketCount} equal-width time buckets, oldest first; empty
+     * buckets are omitted. The grouping runs in the database where the
+     * dialect supports it, otherwise in one streamed pass over the rows.
+     */
+    List<Bucket> findHistoryBuckets(String patientId, HealthMetric metric, LocalDateTime from,
+            LocalDateTime to, int bucketCount);
+
+    /**
+     * One reading of a single vital.
+     */
+    record Reading(LocalDateTime timestamp, Number value) {
+    }
+
+    /**
+     * Number of readings and timestamps of the first and last one; both
+     * timestamps are null when there are none.
+     */
+    record Span(long count, LocalDateTime first, LocalDateTime last) {
+    }
+
+    /**
+     * Aggregate of the readings of one time bucket; {@code timestamp} is that
+     * of its first reading.
+     */
+    record Bucket(LocalDateTime timestamp, double min, double max, double avg, long count) {
+    }
+
+    /**
+     * Receives the readings of {@link #forEachHistoryValue}.
+     */
+    @FunctionalInterface
+    interface ValueSink {
+        void accept(LocalDateTime timestamp, double value);
+    }
+}
@@ -0,0 +1,334 @@
+package com.clinalert.doctortracker.repository;
+
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.model.HealthMetric;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class HealthDataRepositoryCustomImpl implements HealthDataRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO health_data (id, patient_id, device_id, heart_rate, steps, "
+            + "sleep_minutes, spo2, blood_pressure_systolic, blood_pressure_diastolic, temperature, "
+            + "calories_burned, distance_meters, timestamp, source, received_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String STREAM_SQL = "SELECT patient_id, heart_rate, steps, sleep_minutes, spo2, "
+            + "blood_pressure_systolic, blood_pressure_diastolic, temperature, calories_burned, distance_meters "
+            + "FROM health_data WHERE timestamp >= ? AND timestamp < ? AND patient_id > ? ORDER BY patient_id";
+
+    private static final String SELECT_COLUMNS = "SELECT id, patient_id, device_id, heart_rate, steps, "
+            + "sleep_minutes, spo2, blood_pressure_systolic, blood_pressure_diastolic, temperature, "
+            + "calories_burned, distance_meters, timestamp, source, received_at FROM health_data ";
+
+    private static final String HISTORY_ORDER = " ORDER BY timestamp DESC, id DESC";
+
+    // Databases whose EXTRACT(EPOCH FROM timestamp) lets time bucketing run in SQL
+    private static final Set<String> EPOCH_BUCKETING_PRODUCTS = Set.of("PostgreSQL", "H2");
+
+    private static final int BUCKET_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean sqlBucketing;
+
+    @Override
+    @Transactional
+    public int insertBatch(List<HealthData> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (HealthData row : rows) {
+            if (row.getId() == null) {
+                row.setId(UUID.randomUUID().toString());
+            }
+            if (row.getTimestamp() == null) {
+                row.setTimestamp(now);
+            }
+            row.setReceivedAt(now);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), HealthDataRepositoryCustomImpl::bind);
+        return rows.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamByPatient(LocalDateTime from, LocalDateTime to, String afterPatientId, int fetchSize,
+            Consumer<HealthData> sink) {
+        // A transaction keeps the PostgreSQL driver on a server-side cursor instead of buffering the result
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(STREAM_SQL, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setTimestamp(1, Timestamp.valueOf(from));
+            ps.setTimestamp(2, Timestamp.valueOf(to));
+            ps.setString(3, afterPatientId == null ? "" : afterPatientId);
+            return ps;
+        }, (RowCallbackHandler) rs -> sink.accept(mapVitals(rs)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamHistory(String patientId, HealthMetric metric, int fetchSize, Consumer<HealthData> sink) {
+        String sql = SELECT_COLUMNS + "WHERE patient_id = ? AND " + metric.getColumn() + " IS NOT NULL"
+                + HISTORY_ORDER;
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setString(1, patientId);
+            return ps;
+        }, (RowCallbackHandler) rs -> sink.accept(mapRow(rs)));
+    }
+
+    @Override
+    public List<HealthData> findHistoryPage(String patientId, HealthMetric metric, LocalDateTime beforeTimestamp,
+            String beforeId, int limit) {
+        String where = "WHERE patient_id = ? AND " + metric.getColumn() + " IS NOT NULL";
+        if (beforeTimestamp == null) {
+            return jdbcTemplate.query(SELECT_COLUMNS + where + HISTORY_ORDER + " LIMIT ?",
+                    (rs, rowNum) -> mapRow(rs), patientId, limit);
+        }
+        Timestamp before = Timestamp.valueOf(beforeTimestamp);
+        return jdbcTemplate.query(
+                SELECT_COLUMNS + where + " AND (timestamp < ? OR (timestamp = ? AND id < ?))" + HISTORY_ORDER
+                        + " LIMIT ?",
+                (rs, rowNum) -> mapRow(rs), patientId, before, before, beforeId, limit);
+    }
+
+    @Override
+    public List<Reading> findHistoryPoints(String patientId, HealthMetric metric) {
+        return jdbcTemplate.query(pointsSql(metric),
+                (rs, rowNum) -> new Reading(toLocalDateTime(rs.getTimestamp(1)), (Number) rs.getObject(2)),
+                patientId);
+    }
+
+    @Override
+    public void forEachHistoryValue(String patientId, HealthMetric metric, ValueSink sink) {
+        jdbcTemplate.query(pointsSql(metric),
+                (RowCallbackHandler) rs -> sink.accept(rs.getTimestamp(1).toLocalDateTime(), rs.getDouble(2)),
+                patientId);
+    }
+
+    @Override
+    public Span findHistorySpan(String patientId, HealthMetric metric, LocalDateTime from,
+            LocalDateTime to) {
+        List<Object> args = new ArrayList<>();
+        String where = rangeWhere(patientId, metric, from, to, args);
+        return jdbcTemplate.queryForObject("SELECT COUNT(*), MIN(timestamp), MAX(timestamp) FROM health_data "
+                + where, (rs, rowNum) -> new Span(rs.getLong(1), toLocalDateTime(rs.getTimestamp(2)),
+                        toLocalDateTime(rs.getTimestamp(3))),
+                args.toArray());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamHistoryPoints(String patientId, HealthMetric metric, LocalDateTime from, LocalDateTime to,
+            int fetchSize, Consumer<Reading> sink) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT timestamp, " + metric.getColumn() + " FROM health_data "
+                + rangeWhere(patientId, metric, from, to, args) + " ORDER BY timestamp, id";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> sink.accept(
+                new Reading(toLocalDateTime(rs.getTimestamp(1)), (Number) rs.getObject(2))));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Bucket> findHistoryBuckets(String patientId, HealthMetric metric, LocalDateTime from,
+            LocalDateTime to, int bucketCount) {
+        // Bucket widths are measured on the nominal UTC instant, matching EXTRACT(EPOCH) on a plain timestamp
+        double start = from.toEpochSecond(ZoneOffset.UTC);
+        double width = Math.max(to.toEpochSecond(ZoneOffset.UTC) - start, 1) / (double) bucketCount;
+
+        if (!isSqlBucketing()) {
+            BucketCollector collector = new BucketCollector(start, width, bucketCount);
+            streamHistoryPoints(patientId, metric, from, to, BUCKET_FETCH_SIZE, collector::accept);
+            return collector.finish();
+        }
+
+        String column = metric.getColumn();
+        List<Object> args = new ArrayList<>();
+        String where = rangeWhere(patientId, metric, from, to, args);
+        args.add(start);
+        args.add(width);
+        args.add(bucketCount - 1);
+        String sql = "SELECT MIN(timestamp), MIN(" + column + "), MAX(" + column + "), AVG(CAST(" + column
+                + " AS DOUBLE PRECISION)), COUNT(*) FROM health_data " + where
+                + " GROUP BY LEAST(FLOOR((CAST(EXTRACT(EPOCH FROM timestamp) AS DOUBLE PRECISION) - ?) / ?), ?)"
+                + " ORDER BY 1";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new Bucket(toLocalDateTime(rs.getTimestamp(1)),
+                rs.getDouble(2), rs.getDouble(3), rs.getDouble(4), rs.getLong(5)), args.toArray());
+    }
+
+    private boolean isSqlBucketing() {
+        Boolean result = sqlBucketing;
+        if (result == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            result = EPOCH_BUCKETING_PRODUCTS.contains(product);
+            sqlBucketing = result;
+        }
+        return result;
+    }
+
+    private static String rangeWhere(String patientId, HealthMetric metric, LocalDateTime from, LocalDateTime to,
+            List<Object> args) {
+        StringBuilder where = new StringBuilder("WHERE patient_id = ? AND ").append(metric.getColumn())
+                .append(" IS NOT NULL");
+        args.add(patientId);
+        if (from != null) {
+            where.append(" AND timestamp >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            where.append(" AND timestamp <= ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        return where.toString();
+    }
+
+    private static String pointsSql(HealthMetric metric) {
+        String column = metric.getColumn();
+        return "SELECT timestamp, " + column + " FROM health_data WHERE patient_id = ? AND " + column
+                + " IS NOT NULL" + HISTORY_ORDER;
+    }
+
+    private static HealthData mapRow(ResultSet rs) throws SQLException {
+        HealthData row = new HealthData();
+        row.setId(rs.getString(1));
+        row.setPatientId(rs.getString(2));
+        row.setDeviceId(rs.getString(3));
+        row.setHeartRate(rs.getObject(4, Integer.class));
+        row.setSteps(rs.getObject(5, Integer.class));
+        row.setSleepMinutes(rs.getObject(6, Integer.class));
+        row.setSpO2(rs.getObject(7, Double.class));
+        row.setBloodPressureSystolic(rs.getObject(8, Integer.class));
+        row.setBloodPressureDiastolic(rs.getObject(9, Integer.class));
+        row.setTemperature(rs.getObject(10, Double.class));
+        row.setCaloriesBurned(rs.getObject(11, Integer.class));
+        row.setDistanceMeters(rs.getObject(12, Double.class));
+        row.setTimestamp(toLocalDateTime(rs.getTimestamp(13)));
+        row.setSource(rs.getString(14));
+        row.setReceivedAt(toLocalDateTime(rs.getTimestamp(15)));
+        return row;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private static HealthData mapVitals(ResultSet rs) throws SQLException {
+        HealthData row = new HealthData();
+        row.setPatientId(rs.getString(1));
+        row.setHeartRate(rs.getObject(2, Integer.class));
+        row.setSteps(rs.getObject(3, Integer.class));
+        row.setSleepMinutes(rs.getObject(4, Integer.class));
+        row.setSpO2(rs.getObject(5, Double.class));
+        row.setBloodPressureSystolic(rs.getObject(6, Integer.class));
+        row.setBloodPressureDiastolic(rs.getObject(7, Integer.class));
+        row.setTemperature(rs.getObject(8, Double.class));
+        row.setCaloriesBurned(rs.getObject(9, Integer.class));
+        row.setDistanceMeters(rs.getObject(10, Double.class));
+        return row;
+    }
+
+    private static void bind(PreparedStatement ps, HealthData row) throws SQLException {
+        ps.setString(1, row.getId());
+        ps.setString(2, row.getPatientId());
+        ps.setString(3, row.getDeviceId());
+        ps.setObject(4, row.getHeartRate(), Types.INTEGER);
+        ps.setObject(5, row.getSteps(), Types.INTEGER);
+        ps.setObject(6, row.getSleepMinutes(), Types.INTEGER);
+        ps.setObject(7, row.getSpO2(), Types.DOUBLE);
+        ps.setObject(8, row.getBloodPressureSystolic(), Types.INTEGER);
+        ps.setObject(9, row.getBloodPressureDiastolic(), Types.INTEGER);
+        ps.setObject(10, row.getTemperature(), Types.DOUBLE);
+        ps.setObject(11, row.getCaloriesBurned(), Types.INTEGER);
+        ps.setObject(12, row.getDistanceMeters(), Types.DOUBLE);
+        ps.setTimestamp(13, Timestamp.valueOf(row.getTimestamp()));
+        ps.setString(14, row.getSource());
+        ps.setTimestamp(15, Timestamp.valueOf(row.getReceivedAt()));
+    }
+
+    /**
+     * Folds points arriving in time order into equal-width time buckets,
+     * holding only the bucket being filled.
+     */
+    private static final class BucketCollector {
+
+        private final double start;
+        private final double width;
+        private final int bucketCount;
+        private final List<Bucket> buckets = new ArrayList<>();
+
+        private long index = -1;
+        private LocalDateTime first;
+        private double min;
+        private double max;
+        private double sum;
+        private long count;
+
+        BucketCollector(double start, double width, int bucketCount) {
+            this.start = start;
+            this.width = width;
+            this.bucketCount = bucketCount;
+        }
+
+        void accept(Reading reading) {
+            double seconds = reading.timestamp().toEpochSecond(ZoneOffset.UTC);
+            long bucket = Math.min((long) Math.floor((seconds - start) / width), bucketCount - 1);
+            double value = reading.value().doubleValue();
+            if (count == 0 || bucket != index) {
+                close();
+                index = bucket;
+                first = reading.timestamp();
+                min = value;
+                max = value;
+                sum = 0;
+            }
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            count++;
+        }
+
+        List<Bucket> finish() {
+            close();
+            return buckets;
+        }
+
+        private void close() {
+            if (count > 0) {
+                buckets.add(new Bucket(first, min, max, sum / count, count));
+                count = 0;
+            }
+        }
+    }
+}
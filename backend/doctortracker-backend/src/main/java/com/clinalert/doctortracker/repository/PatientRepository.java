@@ -1,6 +1,7 @@
 package com.clinalert.doctortracker.repository;
 
 import com.clinalert.doctortracker.model.Patient;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,4 +12,8 @@ public interface PatientRepository extends JpaRepository<Patient, String> {
     List<Patient> findByDoctorId(String doctorId);
 
     List<Patient> findByClinicId(String clinicId);
+
+    List<Patient> findAllByOrderByIdAsc(Limit limit);
+
+    List<Patient> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
@@ -0,0 +1,164 @@
+package com.clinalert.doctortracker.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Storage maintenance of the raw time series tables, health_data and
+ * measurements: monthly partitions on PostgreSQL (see the V3 migration) for
+ * both, and removal of the health_data rows already rolled up into a daily
+ * summary. Measurements have no summary and are never removed.
+ * <p>
+ * On databases without partitioning the partition methods report nothing
+ * and retention falls back to row deletes.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RawDataRetentionRepository {
+
+    public static final String HEALTH_DATA = "health_data";
+
+    public static final String MEASUREMENTS = "measurements";
+
+    private static final Set<String> RAW_TABLES = Set.of(HEALTH_DATA, MEASUREMENTS);
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    /**
+     * Whether {@code table} is a partitioned table, i.e. the PostgreSQL
+     * migration converted it.
+     */
+    public boolean isPartitioned(String table) {
+        if (!isPostgres()) {
+            return false;
+        }
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_partitioned_table pt "
+                + "JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = ?", Integer.class, rawTable(table));
+        return count != null && count > 0;
+    }
+
+    /**
+     * Creates the missing monthly partitions of {@code table} from
+     * {@code from} to {@code to} inclusive.
+     *
+     * @return number of partitions created
+     */
+    public int createMonthlyPartitions(String table, YearMonth from, YearMonth to) {
+        Integer created = jdbcTemplate.queryForObject("SELECT create_monthly_partitions(?, ?, ?)", Integer.class,
+                rawTable(table), Date.valueOf(from.atDay(1)), Date.valueOf(to.atDay(1)));
+        return created == null ? 0 : created;
+    }
+
+    /**
+     * Monthly partitions of {@code table}, oldest first; the default
+     * partition is not listed.
+     */
+    public List<MonthPartition> findMonthlyPartitions(String table) {
+        String prefix = rawTable(table) + "_p";
+        List<String> names = jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+                + "WHERE p.relname = ? ORDER BY c.relname", String.class, rawTable(table));
+        List<MonthPartition> partitions = new ArrayList<>();
+        for (String name : names) {
+            if (name.startsWith(prefix) && name.length() == prefix.length() + 6) {
+                partitions.add(new MonthPartition(name,
+                        YearMonth.parse(name.substring(prefix.length()), PARTITION_SUFFIX)));
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Whether every row of the partition belongs to a patient and day that
+     * has a daily summary.
+     */
+    public boolean isFullySummarized(MonthPartition partition) {
+        Boolean unsummarized = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + partition.name()
+                + " r WHERE NOT EXISTS (SELECT 1 FROM daily_health_summaries s WHERE s.patient_id = r.patient_id"
+                + " AND s.summary_date = CAST(r.timestamp AS DATE)))", Boolean.class);
+        return !Boolean.TRUE.equals(unsummarized);
+    }
+
+    /**
+     * Detaches and drops a whole partition, which is far cheaper than
+     * deleting its rows.
+     */
+    @Transactional
+    public void dropPartition(String table, MonthPartition partition) {
+        jdbcTemplate.execute("ALTER TABLE " + summarizedTable(table) + " DETACH PARTITION " + partition.name());
+        jdbcTemplate.execute("DROP TABLE " + partition.name());
+    }
+
+    /**
+     * Day of the oldest row of {@code table}, or empty if it has none.
+     */
+    public Optional<LocalDate> findOldestDay(String table) {
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM " + rawTable(table),
+                Timestamp.class);
+        return Optional.ofNullable(oldest).map(timestamp -> timestamp.toLocalDateTime().toLocalDate());
+    }
+
+    /**
+     * Deletes the rows of {@code day} whose patient has a daily summary for
+     * that day. The timestamp range keeps the delete on one partition.
+     *
+     * @return number of rows deleted
+     */
+    @Transactional
+    public int deleteSummarizedRows(String table, LocalDate day) {
+        return jdbcTemplate.update("DELETE FROM " + summarizedTable(table) + " WHERE timestamp >= ? AND timestamp < ?"
+                + " AND patient_id IN (SELECT patient_id FROM daily_health_summaries WHERE summary_date = ?)",
+                Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()),
+                Date.valueOf(day));
+    }
+
+    // Table names are concatenated into SQL, so only the known ones are accepted
+    private static String rawTable(String table) {
+        if (!RAW_TABLES.contains(table)) {
+            throw new IllegalArgumentException("Not a raw time series table: " + table);
+        }
+        return table;
+    }
+
+    // Only health_data is rolled up into daily summaries, so only its rows may be retired
+    private static String summarizedTable(String table) {
+        if (!HEALTH_DATA.equals(rawTable(table))) {
+            throw new IllegalArgumentException("No daily summary covers " + table);
+        }
+        return table;
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equals(product);
+            postgres = result;
+        }
+        return result;
+    }
+
+    /**
+     * One monthly partition: rows with a timestamp in {@code month}.
+     */
+    public record MonthPartition(String name, YearMonth month) {
+    }
+}
@@ -1,10 +1,16 @@
 package com.clinalert.doctortracker.repository;
 
 import com.clinalert.doctortracker.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,6 +19,20 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     boolean existsByEmail(String email);
 
+    List<User> findAllByOrderByEmailAsc(Limit limit);
+
+    List<User> findByEmailGreaterThanOrderByEmailAsc(String email, Limit limit);
+
+    /**
+     * Replaces the password hash only if it is still {@code currentHash}, so a
+     * rehash on login never overwrites a password changed in the meantime.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :currentHash")
+    int replacePasswordHash(@Param("id") String id, @Param("currentHash") String currentHash,
+            @Param("newHash") String newHash);
+
     @Override
     @NonNull
     <S extends User> S save(@NonNull S entity);
@@ -0,0 +1,58 @@
+package com.clinalert.doctortracker.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Picks the BCrypt work factor for this host: the highest cost whose hash
+ * still completes within the target latency. Each cost step doubles the work,
+ * so one timed hash at the minimum cost is enough to extrapolate.
+ */
+@Slf4j
+public final class BcryptCostCalibrator {
+
+    static final int BCRYPT_MIN_COST = 4;
+    static final int BCRYPT_MAX_COST = 31;
+
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int SAMPLE_ROUNDS = 3;
+
+    private BcryptCostCalibrator() {
+    }
+
+    public static int calibrate(long targetMs, int minCost, int maxCost) {
+        if (minCost < BCRYPT_MIN_COST || maxCost > BCRYPT_MAX_COST || minCost > maxCost) {
+            throw new IllegalArgumentException("BCrypt cost bounds must satisfy 4 <= min <= max <= 31");
+        }
+        long sampleNanos = timeHash(minCost);
+        int cost = costFor(targetMs, sampleNanos, minCost, maxCost);
+        log.info("BCrypt cost {} selected ({} ms per hash at cost {}, target {} ms)",
+                cost, sampleNanos / 1_000_000.0, minCost, targetMs);
+        return cost;
+    }
+
+    static int costFor(long targetMs, long sampleNanos, int minCost, int maxCost) {
+        long targetNanos = targetMs * 1_000_000L;
+        int cost = minCost;
+        long nanos = Math.max(sampleNanos, 1);
+        while (cost < maxCost && nanos * 2 <= targetNanos) {
+            nanos *= 2;
+            cost++;
+        }
+        return cost;
+    }
+
+    private static long timeHash(int cost) {
+        String salt = BCrypt.gensalt(cost);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            BCrypt.hashpw("calibration", salt);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -1,11 +1,14 @@
 package com.clinalert.doctortracker.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,6 +17,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
@@ -23,6 +28,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final UserDetailsServiceImpl userDetailsService;
 
+    private final UserStateCache userStateCache;
+
+    // Build the principal from the token claims and cached user state instead of loading the user
+    @Value("${jwt.statelessPrincipal:true}")
+    private boolean statelessPrincipal;
+
     @Override
     protected void doFilterInternal(@org.springframework.lang.NonNull HttpServletRequest request,
             @org.springframework.lang.NonNull HttpServletResponse response,
@@ -30,15 +41,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            // One verification at most: the claims come back with the validation
+            Optional<Claims> claims = StringUtils.hasText(jwt) ? tokenProvider.getValidatedClaims(jwt)
+                    : Optional.empty();
+            if (claims.isPresent()) {
+                UsernamePasswordAuthenticationToken authentication = statelessPrincipal
+                        ? authenticateFromClaims(claims.get())
+                        : authenticateFromUser(claims.get().getSubject());
+                if (authentication != null) {
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context", ex);
@@ -47,6 +60,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Trusts the verified claims for identity, and the cached user state for
+     * what may have changed since the token was issued: a disabled or
+     * deleted user, a new email, or a new role.
+     */
+    private UsernamePasswordAuthenticationToken authenticateFromClaims(Claims claims) {
+        String userId = claims.get("userId", String.class);
+        if (userId == null) {
+            return authenticateFromUser(claims.getSubject());
+        }
+        Optional<UserStateCache.UserState> state = userStateCache.get(userId);
+        if (state.isEmpty() || !state.get().enabled() || !state.get().email().equals(claims.getSubject())) {
+            return null;
+        }
+
+        String role = state.get().role().name();
+        JwtPrincipal principal = new JwtPrincipal(userId, claims.getSubject(), role);
+        return new UsernamePasswordAuthenticationToken(principal, null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+    }
+
+    private UsernamePasswordAuthenticationToken authenticateFromUser(String username) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -0,0 +1,16 @@
+package com.clinalert.doctortracker.security;
+
+import java.security.Principal;
+
+/**
+ * Authenticated user rebuilt from verified token claims instead of a users
+ * lookup. {@link #getName()} is the email, like the username of the
+ * {@code User} principal it replaces.
+ */
+public record JwtPrincipal(String userId, String email, String role) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -1,6 +1,7 @@
 package com.clinalert.doctortracker.security;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,17 +11,22 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfigurationSource;
 
+import java.util.Map;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    private static final String BCRYPT_ID = "bcrypt";
+
     private final CorsConfigurationSource corsConfigurationSource;
 
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
@@ -45,6 +51,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/patients/**").permitAll()
                         .requestMatchers("/api/clinics/**").permitAll()
                         .requestMatchers("/api/measurements/**").permitAll()
+                        // The stream is scoped by the caller's identity
+                        .requestMatchers("/api/alerts/stream").hasAnyRole("ADMIN", "DOCTOR")
                         .requestMatchers("/api/alerts/**").permitAll()
                         // Admin endpoints
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
@@ -61,9 +69,23 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Hashes are stored as {@code {bcrypt}$2a$...}; legacy hashes without an id
+     * prefix still match through the default BCrypt encoder and are reported by
+     * {@link PasswordEncoder#upgradeEncoding} so login can rewrite them, as are
+     * hashes whose cost is below the current work factor.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${app.auth.bcryptCost:0}") int bcryptCost,
+            @Value("${app.auth.targetHashMs:250}") long targetHashMs,
+            @Value("${app.auth.bcryptMinCost:10}") int minCost,
+            @Value("${app.auth.bcryptMaxCost:14}") int maxCost) {
+        int cost = bcryptCost > 0 ? bcryptCost : BcryptCostCalibrator.calibrate(targetHashMs, minCost, maxCost);
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(cost);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     @Bean
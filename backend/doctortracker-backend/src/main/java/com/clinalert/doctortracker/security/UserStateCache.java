@@ -0,0 +1,83 @@
+package com.clinalert.doctortracker.security;
+
+import com.clinalert.doctortracker.model.User;
+import com.clinalert.doctortracker.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Current email, role and enabled flag of users authenticated from token
+ * claims, so a disabled user or a role change takes effect without a users
+ * lookup on every request.
+ * <p>
+ * Entries live for {@code jwt.userStateTtlMs} and are dropped at once by
+ * {@link #invalidate} when a user is changed on this instance; other
+ * instances see the change when their entry expires.
+ */
+@Component
+public class UserStateCache {
+
+    private final UserRepository userRepository;
+
+    private final long ttlMs;
+
+    private final int maxSize;
+
+    private final Map<String, Entry> states = new ConcurrentHashMap<>();
+
+    public UserStateCache(UserRepository userRepository,
+            @Value("${jwt.userStateTtlMs:60000}") long ttlMs,
+            @Value("${jwt.userStateCacheSize:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.ttlMs = ttlMs;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * State of the user, loaded from the database when not cached or
+     * expired; empty if the user no longer exists.
+     */
+    @SuppressWarnings("null")
+    public Optional<UserState> get(String userId) {
+        long now = System.currentTimeMillis();
+        Entry entry = states.get(userId);
+        if (entry != null && entry.expiresAt > now) {
+            return Optional.of(entry.state);
+        }
+
+        Optional<UserState> state = userRepository.findById(userId)
+                .map(user -> new UserState(user.getEmail(), user.getRole(), user.isEnabled()));
+        if (state.isEmpty()) {
+            states.remove(userId);
+            return state;
+        }
+        if (states.size() >= maxSize) {
+            evictExpired();
+        }
+        if (states.size() < maxSize || states.containsKey(userId)) {
+            states.put(userId, new Entry(state.get(), now + ttlMs));
+        }
+        return state;
+    }
+
+    public void invalidate(String userId) {
+        states.remove(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.userStateSweepMs:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        states.values().removeIf(entry -> entry.expiresAt <= now);
+    }
+
+    public record UserState(String email, User.UserRole role, boolean enabled) {
+    }
+
+    private record Entry(UserState state, long expiresAt) {
+    }
+}
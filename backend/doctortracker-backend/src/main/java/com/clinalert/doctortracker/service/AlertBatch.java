@@ -0,0 +1,47 @@
+package com.clinalert.doctortracker.service;
+
+import com.clinalert.doctortracker.model.Alert;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Collects the alerts raised while processing one ingestion call so that
+ * {@link AlertService#createAlerts(AlertBatch)} can persist them in a single
+ * JDBC batch.
+ * <p>
+ * Every alert is added with a deduplication key naming what it is about (for
+ * example the vital it was raised for). Only the first alert per patient, key
+ * and severity is kept, so a batch of 500 readings at 155 bpm yields a single
+ * alert.
+ */
+public class AlertBatch {
+
+    private final Map<String, Alert> alerts = new LinkedHashMap<>();
+
+    public void add(String dedupKey, Alert alert) {
+        alerts.putIfAbsent(alert.getPatientId() + '|' + dedupKey + '|' + alert.getSeverity(), alert);
+    }
+
+    public boolean isEmpty() {
+        return alerts.isEmpty();
+    }
+
+    public int size() {
+        return alerts.size();
+    }
+
+    public List<Alert> getAlerts() {
+        return new ArrayList<>(alerts.values());
+    }
+
+    /**
+     * Visits every alert together with its full deduplication key.
+     */
+    void forEach(BiConsumer<String, Alert> action) {
+        alerts.forEach(action);
+    }
+}
@@ -0,0 +1,326 @@
+package com.clinalert.doctortracker.service;
+
+import com.clinalert.doctortracker.model.Alert;
+import com.clinalert.doctortracker.model.Patient;
+import com.clinalert.doctortracker.repository.PatientRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes newly created alerts to dashboards over Server-Sent Events.
+ * <p>
+ * {@link #publish(Collection)} only hands the alerts to a dispatcher thread,
+ * which resolves each patient's doctor and clinic, numbers the events and
+ * queues them to the matching subscribers. Every subscriber has a bounded
+ * queue drained by a small sender pool, so a slow client never holds up
+ * alert creation; a client that falls {@code app.alertPush.bufferSize}
+ * events behind is disconnected and resumes through {@code Last-Event-ID}
+ * from the last {@code app.alertPush.replaySize} events kept in memory.
+ */
+@Component
+@Slf4j
+public class AlertPushHub {
+
+    static final String EVENT_ALERT = "alert";
+
+    // Sent when the events after Last-Event-ID are no longer in the replay buffer
+    static final String EVENT_RESET = "reset";
+
+    private static final int DISPATCH_QUEUE_CAPACITY = 10_000;
+
+    private final PatientRepository patientRepository;
+
+    private final int bufferSize;
+
+    private final int replaySize;
+
+    private final int senderThreads;
+
+    private final long timeoutMs;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Guarded by this; events in id order
+    private final Deque<PushEvent> replay = new ArrayDeque<>();
+
+    // Guarded by this. Event ids are "<boot>-<sequence>" so that ids from before a
+    // restart are recognised and answered with a reset instead of a silent gap
+    private long sequence;
+
+    private final String boot = Long.toString(System.currentTimeMillis(), 36);
+
+    private final LongAdder droppedBatches = new LongAdder();
+
+    private ThreadPoolExecutor dispatcher;
+
+    private ExecutorService senders;
+
+    public AlertPushHub(PatientRepository patientRepository,
+            @Value("${app.alertPush.bufferSize:256}") int bufferSize,
+            @Value("${app.alertPush.replaySize:1000}") int replaySize,
+            @Value("${app.alertPush.senderThreads:4}") int senderThreads,
+            @Value("${app.alertPush.timeoutMs:1800000}") long timeoutMs) {
+        this.patientRepository = patientRepository;
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+        this.senderThreads = senderThreads;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(DISPATCH_QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "alert-push-dispatch");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        AtomicInteger threadIndex = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "alert-push-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    /**
+     * Opens a stream of the alerts matching every non-null filter; with no
+     * filter the stream carries all alerts.
+     *
+     * @param lastEventId {@code Last-Event-ID} sent by a reconnecting client,
+     *                    or null; the events after it are replayed first, or a
+     *                    {@code reset} event is sent if some were lost
+     */
+    public SseEmitter subscribe(String patientId, String doctorId, String clinicId, String lastEventId) {
+        SseEmitter emitter = newEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, new Filter(patientId, doctorId, clinicId));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscriber.close(false));
+        emitter.onError(e -> subscriber.close(false));
+
+        synchronized (this) {
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                long resumeAfter = parseSequence(lastEventId.trim());
+                PushEvent oldest = replay.peekFirst();
+                long firstKept = oldest == null ? sequence + 1 : oldest.sequence;
+                if (resumeAfter < firstKept - 1 || resumeAfter > sequence) {
+                    subscriber.offer(SseEmitter.event().name(EVENT_RESET).data("{}"));
+                } else {
+                    for (PushEvent event : replay) {
+                        if (event.sequence > resumeAfter && subscriber.filter.matches(event)) {
+                            subscriber.offer(event.toSse());
+                        }
+                    }
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    /**
+     * Queues freshly persisted alerts for delivery. Never blocks: when the
+     * dispatcher is saturated the alerts are not pushed, clients still find
+     * them through the REST endpoints.
+     */
+    public void publish(Collection<Alert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        List<Alert> snapshot = List.copyOf(alerts);
+        try {
+            dispatcher.execute(() -> dispatch(snapshot));
+        } catch (RejectedExecutionException e) {
+            droppedBatches.increment();
+            log.warn("Alert push dispatcher saturated, {} alerts not pushed", snapshot.size());
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getDroppedBatches() {
+        return droppedBatches.sum();
+    }
+
+    /**
+     * Keeps idle connections open through proxies and detects the clients
+     * that went away without closing.
+     */
+    @Scheduled(fixedDelayString = "${app.alertPush.heartbeatMs:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(SseEmitter.event().comment("ping"));
+        }
+    }
+
+    SseEmitter newEmitter(long timeout) {
+        return new SseEmitter(timeout);
+    }
+
+    void dispatch(List<Alert> alerts) {
+        Map<String, Patient> patients = new HashMap<>();
+        List<String> patientIds = alerts.stream().map(Alert::getPatientId).filter(Objects::nonNull)
+                .distinct().toList();
+        if (!patientIds.isEmpty()) {
+            try {
+                patientRepository.findAllById(patientIds).forEach(patient -> patients.put(patient.getId(), patient));
+            } catch (RuntimeException e) {
+                // Still push to the patient and unfiltered streams
+                log.warn("Could not resolve alert routing: {}", e.getMessage());
+            }
+        }
+
+        synchronized (this) {
+            for (Alert alert : alerts) {
+                Patient patient = alert.getPatientId() == null ? null : patients.get(alert.getPatientId());
+                PushEvent event = new PushEvent(boot, ++sequence, alert,
+                        patient == null ? null : patient.getDoctorId(),
+                        patient == null ? null : patient.getClinicId());
+                replay.addLast(event);
+                if (replay.size() > replaySize) {
+                    replay.removeFirst();
+                }
+                for (Subscriber subscriber : subscribers) {
+                    if (subscriber.filter.matches(event)) {
+                        subscriber.offer(event.toSse());
+                    }
+                }
+            }
+        }
+    }
+
+    // Sequence number of an event id of this run, -1 for anything else
+    private long parseSequence(String eventId) {
+        int dash = eventId.lastIndexOf('-');
+        if (dash < 0 || !eventId.substring(0, dash).equals(boot)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private record PushEvent(String boot, long sequence, Alert alert, String doctorId, String clinicId) {
+
+        SseEmitter.SseEventBuilder toSse() {
+            return SseEmitter.event().id(boot + "-" + sequence).name(EVENT_ALERT)
+                    .data(alert, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    private record Filter(String patientId, String doctorId, String clinicId) {
+
+        boolean matches(PushEvent event) {
+            return (patientId == null || patientId.equals(event.alert.getPatientId()))
+                    && (doctorId == null || doctorId.equals(event.doctorId))
+                    && (clinicId == null || clinicId.equals(event.clinicId));
+        }
+    }
+
+    /**
+     * One open stream. Events are queued without blocking and written by at
+     * most one sender task at a time, which keeps them in order.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Filter filter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, Filter filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.pending = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!pending.offer(event)) {
+                // Too far behind: let the client reconnect and catch up from the replay buffer
+                log.debug("Alert push subscriber lagging {} events behind, disconnecting", bufferSize);
+                close(true);
+                return;
+            }
+            scheduleDrain();
+        }
+
+        void close(boolean complete) {
+            closed = true;
+            subscribers.remove(this);
+            pending.clear();
+            if (complete) {
+                emitter.complete();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = pending.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                close(false);
+            } finally {
+                draining.set(false);
+            }
+            // An event offered while this task was finishing
+            if (!closed && !pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.clinalert.doctortracker.service;
+
+import com.clinalert.doctortracker.dto.AlertRule;
+import com.clinalert.doctortracker.model.Alert;
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.model.Measurement;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Threshold-based alert detection shared by the smartwatch and the
+ * measurement ingestion paths.
+ * <p>
+ * Rules are read from {@code app.alertRules.location} and compiled into a
+ * flat decision table indexed by vital: evaluating a row is a handful of
+ * primitive comparisons, and the alert message is only rendered once a rule
+ * fires. The table is swapped atomically on reload, so rules can be changed at
+ * runtime through the admin API or by editing the rules file.
+ */
+@Service
+@Slf4j
+public class AlertRuleEngine {
+
+    public enum Vital {
+        HEART_RATE, SPO2, BLOOD_PRESSURE_SYSTOLIC, TEMPERATURE
+    }
+
+    private static final Vital[] VITALS = Vital.values();
+
+    private static final int MAX_CACHED_TYPES = 1024;
+
+    private final ResourceLoader resourceLoader;
+
+    private final ObjectMapper objectMapper;
+
+    private final String location;
+
+    // Measurement.type is free text; remember how each spelling maps to a vital
+    private final Map<String, Optional<Vital>> measurementTypes = new ConcurrentHashMap<>();
+
+    private volatile CompiledRules compiled = CompiledRules.compile(List.of());
+
+    private volatile long loadedLastModified = -1;
+
+    public AlertRuleEngine(ResourceLoader resourceLoader, ObjectMapper objectMapper,
+            @Value("${app.alertRules.location:classpath:alert-rules.json}") String location) {
+        this.resourceLoader = resourceLoader;
+        this.objectMapper = objectMapper;
+        this.location = location;
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    public List<AlertRule> getRules() {
+        return compiled.source;
+    }
+
+    /**
+     * Re-reads the rules file. On a malformed file the current rules stay in
+     * place and an {@link IllegalArgumentException} is thrown.
+     */
+    public synchronized void reload() {
+        Resource resource = resourceLoader.getResource(location);
+        try (InputStream in = resource.getInputStream()) {
+            List<AlertRule> rules = objectMapper.readValue(in, new TypeReference<List<AlertRule>>() {
+            });
+            replaceRules(rules);
+            loadedLastModified = lastModified(resource);
+            log.info("Loaded {} alert rules from {}", rules.size(), location);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read alert rules from " + location, e);
+        }
+    }
+
+    /**
+     * Compiles and installs a new rule set; in-flight evaluations finish on the
+     * previous table.
+     */
+    public synchronized void replaceRules(List<AlertRule> rules) {
+        Objects.requireNonNull(rules, "rules must not be null");
+        compiled = CompiledRules.compile(rules);
+    }
+
+    @Scheduled(fixedDelayString = "${app.alertRules.refreshIntervalMs:30000}")
+    public void reloadIfModified() {
+        Resource resource = resourceLoader.getResource(location);
+        long modified = lastModified(resource);
+        if (modified > 0 && modified != loadedLastModified) {
+            try {
+                reload();
+            } catch (IllegalArgumentException e) {
+                loadedLastModified = modified;
+                log.error("Ignoring invalid alert rules file {}: {}", location, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Evaluates every vital of every row and returns the alerts that fired,
+     * at most one per vital and row.
+     */
+    public List<Alert> evaluateHealthData(List<HealthData> rows) {
+        List<Alert> fired = new ArrayList<>();
+        evaluateHealthData(rows, (vital, alert) -> fired.add(alert));
+        return fired;
+    }
+
+    /**
+     * Adds the alerts fired by the rows to {@code batch}, keyed by vital so a
+     * patient stuck above a threshold for the whole batch raises one alert.
+     */
+    public void evaluateHealthData(List<HealthData> rows, AlertBatch batch) {
+        evaluateHealthData(rows, (vital, alert) -> batch.add(vital.name(), alert));
+    }
+
+    public List<Alert> evaluateMeasurements(List<Measurement> rows) {
+        List<Alert> fired = new ArrayList<>();
+        evaluateMeasurements(rows, (vital, alert) -> fired.add(alert));
+        return fired;
+    }
+
+    public void evaluateMeasurements(List<Measurement> rows, AlertBatch batch) {
+        evaluateMeasurements(rows, (vital, alert) -> batch.add(vital.name(), alert));
+    }
+
+    private void evaluateHealthData(List<HealthData> rows, BiConsumer<Vital, Alert> sink) {
+        CompiledRules table = compiled;
+        for (HealthData row : rows) {
+            Integer heartRate = row.getHeartRate();
+            if (heartRate != null) {
+                fire(table, Vital.HEART_RATE, heartRate, row, sink);
+            }
+            Double spO2 = row.getSpO2();
+            if (spO2 != null) {
+                fire(table, Vital.SPO2, spO2, row, sink);
+            }
+            Integer systolic = row.getBloodPressureSystolic();
+            if (systolic != null) {
+                fire(table, Vital.BLOOD_PRESSURE_SYSTOLIC, systolic, row, sink);
+            }
+            Double temperature = row.getTemperature();
+            if (temperature != null) {
+                fire(table, Vital.TEMPERATURE, temperature, row, sink);
+            }
+        }
+    }
+
+    private void evaluateMeasurements(List<Measurement> rows, BiConsumer<Vital, Alert> sink) {
+        CompiledRules table = compiled;
+        for (Measurement m : rows) {
+            Double value = m.getValue();
+            Vital vital = m.getType() == null ? null : vitalForType(m.getType());
+            if (value == null || vital == null) {
+                continue;
+            }
+            int rule = table.match(vital, value);
+            if (rule >= 0) {
+                Alert alert = table.toAlert(rule, m.getPatientId(), value, null);
+                alert.setMeasurementId(m.getId());
+                sink.accept(vital, alert);
+            }
+        }
+    }
+
+    private static void fire(CompiledRules table, Vital vital, Number value, HealthData row,
+            BiConsumer<Vital, Alert> sink) {
+        int rule = table.match(vital, value.doubleValue());
+        if (rule >= 0) {
+            sink.accept(vital, table.toAlert(rule, row.getPatientId(), value, row.getBloodPressureDiastolic()));
+        }
+    }
+
+    Vital vitalForType(String type) {
+        Optional<Vital> cached = measurementTypes.get(type);
+        if (cached == null) {
+            cached = Optional.ofNullable(parseType(type));
+            if (measurementTypes.size() < MAX_CACHED_TYPES) {
+                measurementTypes.put(type, cached);
+            }
+        }
+        return cached.orElse(null);
+    }
+
+    private static Vital parseType(String type) {
+        String key = type.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+        return switch (key) {
+            case "heartrate", "hr", "pulse" -> Vital.HEART_RATE;
+            case "spo2", "oxygensaturation" -> Vital.SPO2;
+            case "bloodpressuresystolic", "bloodpressure", "systolic" -> Vital.BLOOD_PRESSURE_SYSTOLIC;
+            case "temperature", "temp" -> Vital.TEMPERATURE;
+            default -> null;
+        };
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.isFile() ? resource.lastModified() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Decision table: the rules of vital {@code v} occupy indexes
+     * {@code start[v] .. start[v + 1] - 1} of the parallel arrays, in
+     * declaration order.
+     */
+    static final class CompiledRules {
+
+        final List<AlertRule> source;
+        final int[] start;
+        final double[] thresholds;
+        final boolean[] above;
+        final String[] severities;
+        final MessageTemplate[] messages;
+
+        private CompiledRules(List<AlertRule> source, int size) {
+            this.source = source;
+            this.start = new int[VITALS.length + 1];
+            this.thresholds = new double[size];
+            this.above = new boolean[size];
+            this.severities = new String[size];
+            this.messages = new MessageTemplate[size];
+        }
+
+        static CompiledRules compile(List<AlertRule> rules) {
+            List<List<AlertRule>> byVital = new ArrayList<>();
+            for (int i = 0; i < VITALS.length; i++) {
+                byVital.add(new ArrayList<>());
+            }
+            for (AlertRule rule : rules) {
+                if (rule == null) {
+                    throw new IllegalArgumentException("Alert rule must not be null");
+                }
+                byVital.get(parseVital(rule).ordinal()).add(rule);
+            }
+
+            CompiledRules table = new CompiledRules(List.copyOf(rules), rules.size());
+            int index = 0;
+            for (int v = 0; v < VITALS.length; v++) {
+                table.start[v] = index;
+                for (AlertRule rule : byVital.get(v)) {
+                    table.thresholds[index] = rule.getThreshold();
+                    table.above[index] = parseOperator(rule);
+                    table.severities[index] = required(rule.getSeverity(), "severity");
+                    table.messages[index] = MessageTemplate.parse(rule.getMessage());
+                    index++;
+                }
+            }
+            table.start[VITALS.length] = index;
+            return table;
+        }
+
+        int match(Vital vital, double value) {
+            int end = start[vital.ordinal() + 1];
+            for (int i = start[vital.ordinal()]; i < end; i++) {
+                if (above[i] ? value > thresholds[i] : value < thresholds[i]) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Alert toAlert(int rule, String patientId, Object value, Integer diastolic) {
+            Alert alert = new Alert();
+            alert.setPatientId(patientId);
+            alert.setSeverity(severities[rule]);
+            alert.setMessage(messages[rule].render(value, diastolic));
+            return alert;
+        }
+
+        private static Vital parseVital(AlertRule rule) {
+            try {
+                return Vital.valueOf(required(rule.getVital(), "vital"));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown vital in alert rule: " + rule.getVital(), e);
+            }
+        }
+
+        private static String required(String value, String field) {
+            if (value == null) {
+                throw new IllegalArgumentException("Alert rule " + field + " must not be null");
+            }
+            return value;
+        }
+
+        private static boolean parseOperator(AlertRule rule) {
+            if ("ABOVE".equals(rule.getOperator())) {
+                return true;
+            }
+            if ("BELOW".equals(rule.getOperator())) {
+                return false;
+            }
+            throw new IllegalArgumentException("Unknown operator in alert rule: " + rule.getOperator());
+        }
+    }
+
+    /**
+     * Message split into literal parts and placeholder slots at compile time.
+     */
+    static final class MessageTemplate {
+
+        private static final String VALUE = "{value}";
+        private static final String DIASTOLIC = "{diastolic}";
+
+        private final String[] literals;
+        private final boolean[] diastolicSlots;
+
+        private MessageTemplate(String[] literals, boolean[] diastolicSlots) {
+            this.literals = literals;
+            this.diastolicSlots = diastolicSlots;
+        }
+
+        static MessageTemplate parse(String message) {
+            if (message == null) {
+                throw new IllegalArgumentException("Alert rule message must not be null");
+            }
+            List<String> literals = new ArrayList<>();
+            List<Boolean> slots = new ArrayList<>();
+            int from = 0;
+            while (true) {
+                int value = message.indexOf(VALUE, from);
+                int diastolic = message.indexOf(DIASTOLIC, from);
+                if (value < 0 && diastolic < 0) {
+                    break;
+                }
+                boolean isDiastolic = value < 0 || (diastolic >= 0 && diastolic < value);
+                int at = isDiastolic ? diastolic : value;
+                literals.add(message.substring(from, at));
+                slots.add(isDiastolic);
+                from = at + (isDiastolic ? DIASTOLIC : VALUE).length();
+            }
+            literals.add(message.substring(from));
+
+            boolean[] diastolicSlots = new boolean[slots.size()];
+            for (int i = 0; i < diastolicSlots.length; i++) {
+                diastolicSlots[i] = slots.get(i);
+            }
+            return new MessageTemplate(literals.toArray(new String[0]), diastolicSlots);
+        }
+
+        /**
+         * Without a diastolic value (systolic-only readings and measurements)
+         * its slot is dropped together with a "/" right before it, so
+         * "{value}/{diastolic} mmHg" renders as "185.0 mmHg".
+         */
+        String render(Object value, Integer diastolic) {
+            StringBuilder sb = new StringBuilder(64);
+            for (int i = 0; i < diastolicSlots.length; i++) {
+                String literal = literals[i];
+                if (diastolicSlots[i] && diastolic == null) {
+                    sb.append(literal, 0, literal.endsWith("/") ? literal.length() - 1 : literal.length());
+                } else {
+                    sb.append(literal).append(diastolicSlots[i] ? diastolic : value);
+                }
+            }
+            return sb.append(literals[literals.length - 1]).toString();
+        }
+    }
+}
@@ -1,43 +1,263 @@
 package com.clinalert.doctortracker.service;
 
+import com.clinalert.doctortracker.dto.CursorPage;
+import com.clinalert.doctortracker.dto.UnreadCounts;
 import com.clinalert.doctortracker.model.Alert;
 import com.clinalert.doctortracker.repository.AlertRepository;
+import com.clinalert.doctortracker.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
 public class AlertService {
 
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id"));
+
     private final AlertRepository alertRepository;
 
-    public List<Alert> getAllAlerts() {
-        return alertRepository.findAll();
+    private final PageLimits pageLimits;
+
+    private final EscalationService escalationService;
+
+    private final AlertPushHub pushHub;
+
+    private final UnreadAlertIndex unreadIndex;
+
+    // Window during which an alert with the same patient, key and severity is not raised again; 0 disables
+    @Value("${app.alerts.dedupWindowMs:300000}")
+    private long dedupWindowMs;
+
+    // patientId|dedupKey|severity -> time the alert was last raised
+    private final Map<String, Long> lastRaised = new ConcurrentHashMap<>();
+
+    /**
+     * The newest alerts, newest first, capped at the maximum page size. A
+     * non-null {@code nextCursor} means the list was cut short and the older
+     * alerts are reached through {@link #getAlertsAfter}.
+     */
+    public CursorPage<Alert> getAllAlerts() {
+        return getAlertsAfter(null, pageLimits.maxSize());
+    }
+
+    /**
+     * One offset page of alerts, newest first.
+     *
+     * @throws IllegalArgumentException if the page or size is out of range
+     */
+    public Page<Alert> getAlertsPage(int page, Integer size) {
+        return alertRepository.findAll(pageLimits.pageRequest(page, size, NEWEST_FIRST));
+    }
+
+    /**
+     * Keyset-paginated alerts, newest first.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or null for the
+     *               first page
+     * @throws IllegalArgumentException if the size is out of range or the
+     *                                  cursor is malformed
+     */
+    public CursorPage<Alert> getAlertsAfter(String cursor, Integer size) {
+        int limit = pageLimits.resolve(size);
+        List<Alert> rows;
+        if (cursor == null) {
+            rows = alertRepository.findAllByOrderByTimestampDescIdDesc(Limit.of(limit + 1));
+        } else {
+            String[] parts = CursorCodec.decode(cursor, 2);
+            LocalDateTime beforeTimestamp;
+            try {
+                beforeTimestamp = LocalDateTime.parse(parts[0]);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid pagination cursor", e);
+            }
+            rows = alertRepository.findPageBefore(beforeTimestamp, parts[1], Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit,
+                alert -> CursorCodec.encode(alert.getTimestamp().toString(), alert.getId()));
     }
 
     public List<Alert> getAlertsByPatientId(String patientId) {
         return alertRepository.findByPatientId(patientId);
     }
 
+    /**
+     * The newest unread alerts, newest first and capped at the maximum page
+     * size; see {@link #getUnreadAlerts(String, String, String, String)}.
+     */
     public List<Alert> getUnreadAlerts() {
-        return alertRepository.findByIsReadFalse();
+        return getUnreadAlerts(null, null, null, null);
+    }
+
+    /**
+     * The newest unread alerts matching every non-null filter, newest first
+     * and capped at the maximum page size. The ids come from the unread
+     * index, so only the matching rows are read.
+     */
+    public List<Alert> getUnreadAlerts(String patientId, String doctorId, String clinicId, String severity) {
+        List<String> ids = unreadIndex.unreadIds(patientId, doctorId, clinicId, severity, pageLimits.maxSize());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Alert> found = new HashMap<>();
+        alertRepository.findAllById(ids).forEach(alert -> found.put(alert.getId(), alert));
+        List<Alert> alerts = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Alert alert = found.get(id);
+            if (alert != null && !alert.isRead()) {
+                alerts.add(alert);
+            }
+        }
+        return alerts;
+    }
+
+    /**
+     * Unread counts of a patient, a doctor, a clinic or the whole system,
+     * answered from the unread index.
+     *
+     * @throws IllegalArgumentException if more than one scope is given
+     */
+    public UnreadCounts getUnreadCounts(String patientId, String doctorId, String clinicId) {
+        return unreadIndex.counts(patientId, doctorId, clinicId);
     }
 
     @SuppressWarnings("null")
     public Alert createAlert(Alert alert) {
-        return alertRepository.save(alert);
+        Alert saved = alertRepository.save(alert);
+        escalationService.schedule(saved);
+        TransactionHooks.afterCommit(() -> {
+            unreadIndex.add(saved);
+            pushHub.publish(List.of(saved));
+        });
+        return saved;
+    }
+
+    /**
+     * Persists the alerts collected during one ingestion call with a single
+     * JDBC batch. Alerts already raised for the same patient, key and severity
+     * within {@code app.alerts.dedupWindowMs} are dropped. The suppression
+     * only holds once the alerts are stored: it is lifted if the insert fails
+     * or the surrounding transaction rolls back. The unread index and the
+     * dashboards only see the alerts once that transaction commits.
+     *
+     * @return the alerts that were actually persisted
+     */
+    public List<Alert> createAlerts(AlertBatch batch) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+
+        long now = System.currentTimeMillis();
+        List<Alert> toInsert = new ArrayList<>(batch.size());
+        List<String> claimed = new ArrayList<>(batch.size());
+        batch.forEach((key, alert) -> {
+            if (dedupWindowMs <= 0) {
+                toInsert.add(alert);
+            } else if (claim(key, now)) {
+                claimed.add(key);
+                toInsert.add(alert);
+            }
+        });
+
+        if (!toInsert.isEmpty()) {
+            try {
+                alertRepository.insertBatch(toInsert);
+            } catch (RuntimeException e) {
+                release(claimed, now);
+                throw e;
+            }
+            TransactionHooks.afterRollback(() -> release(claimed, now));
+            toInsert.forEach(escalationService::schedule);
+            TransactionHooks.afterCommit(() -> {
+                unreadIndex.addAll(toInsert);
+                pushHub.publish(toInsert);
+            });
+        }
+        return toInsert;
+    }
+
+    @Scheduled(fixedDelayString = "${app.alerts.dedupSweepIntervalMs:60000}")
+    public void evictExpiredSuppressions() {
+        long cutoff = System.currentTimeMillis() - dedupWindowMs;
+        lastRaised.values().removeIf(raisedAt -> raisedAt <= cutoff);
     }
 
-    @SuppressWarnings("null")
     public void markAsRead(String id) {
-        Optional<Alert> alert = alertRepository.findById(id);
-        if (alert.isPresent()) {
-            Alert a = alert.get();
-            a.setRead(true);
-            alertRepository.save(a);
+        markAsRead(List.of(id));
+    }
+
+    /**
+     * Marks the given alerts read with a single UPDATE.
+     *
+     * @return number of alerts that were unread
+     * @throws IllegalArgumentException if more ids than the maximum page size
+     *                                  are given
+     */
+    public int markAsRead(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return 0;
         }
+        if (ids.size() > pageLimits.maxSize()) {
+            throw new IllegalArgumentException("At most " + pageLimits.maxSize() + " alert ids per request");
+        }
+        int updated = alertRepository.markReadByIds(ids);
+        TransactionHooks.afterCommit(() -> unreadIndex.markRead(ids));
+        ids.forEach(escalationService::cancel);
+        return updated;
+    }
+
+    /**
+     * Marks a patient's alerts read, all of them or only those raised before
+     * {@code before}. Their pending escalations are not withdrawn one by one;
+     * the escalation UPDATE skips read alerts.
+     *
+     * @return number of alerts that were unread
+     */
+    public int markPatientAlertsAsRead(String patientId, LocalDateTime before) {
+        int updated = before == null ? alertRepository.markReadByPatient(patientId)
+                : alertRepository.markReadByPatientBefore(patientId, before);
+        TransactionHooks.afterCommit(() -> unreadIndex.markPatientRead(patientId, before));
+        return updated;
+    }
+
+    /**
+     * Marks every alert raised before {@code before} read.
+     *
+     * @return number of alerts that were unread
+     */
+    public int markAlertsAsReadBefore(LocalDateTime before) {
+        int updated = alertRepository.markReadBefore(before);
+        TransactionHooks.afterCommit(() -> unreadIndex.markReadBefore(before));
+        return updated;
+    }
+
+    // Only drops the claims still holding this call's timestamp
+    private void release(Collection<String> keys, long claimedAt) {
+        keys.forEach(key -> lastRaised.remove(key, claimedAt));
+    }
+
+    private boolean claim(String key, long now) {
+        boolean[] claimed = new boolean[1];
+        lastRaised.compute(key, (k, raisedAt) -> {
+            if (raisedAt != null && now - raisedAt < dedupWindowMs) {
+                return raisedAt;
+            }
+            claimed[0] = true;
+            return now;
+        });
+        return claimed[0];
     }
 }
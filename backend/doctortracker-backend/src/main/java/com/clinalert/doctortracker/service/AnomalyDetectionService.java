@@ -2,43 +2,210 @@ package com.clinalert.doctortracker.service;
 
 import com.clinalert.doctortracker.model.Measurement;
 import com.clinalert.doctortracker.repository.MeasurementRepository;
-import lombok.RequiredArgsConstructor;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Statistical anomaly detection over the most recent measurements of a
+ * patient for a given type.
+ * <p>
+ * Each (patientId, type) pair keeps an in-memory rolling window of the last
+ * {@value #WINDOW_SIZE} values with a running mean and variance, so scoring a
+ * new measurement needs neither a query nor an allocation. A window is warmed
+ * from the repository the first time its key is seen and dropped again once it
+ * has been idle for {@code app.anomaly.idleEvictionMs}.
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class AnomalyDetectionService {
 
-    private final MeasurementRepository measurementRepository;
+    static final int WINDOW_SIZE = 20;
+
+    private static final int MIN_HISTORY = 5;
 
     private static final double STD_DEV_THRESHOLD = 2.5;
 
+    private final MeasurementRepository measurementRepository;
+
+    private final long idleEvictionMs;
+
+    // patientId -> type -> window; nested maps avoid allocating a composite key per lookup
+    private final Map<String, Map<String, RollingWindow>> windows = new ConcurrentHashMap<>();
+
+    public AnomalyDetectionService(MeasurementRepository measurementRepository,
+            @Value("${app.anomaly.idleEvictionMs:1800000}") long idleEvictionMs) {
+        this.measurementRepository = measurementRepository;
+        this.idleEvictionMs = idleEvictionMs;
+    }
+
+    /**
+     * Scores the measurement against the window of values that preceded it,
+     * then adds it to the window.
+     */
     public boolean isAnomaly(Measurement newMeasurement) {
+        RollingWindow window = windowFor(newMeasurement.getPatientId(), newMeasurement.getType(),
+                newMeasurement.getId());
+        return window.scoreAndAdd(newMeasurement.getValue(), STD_DEV_THRESHOLD, System.currentTimeMillis());
+    }
+
+    /**
+     * Loads the windows of every (patientId, type) pair in the batch before it
+     * is persisted, so that later rows of the batch are scored against earlier
+     * ones instead of against rows that are already in the database.
+     */
+    public void warmUp(Collection<Measurement> measurements) {
+        for (Measurement m : measurements) {
+            windowFor(m.getPatientId(), m.getType(), null);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.anomaly.evictionIntervalMs:60000}")
+    public void evictIdleWindows() {
+        long cutoff = System.currentTimeMillis() - idleEvictionMs;
+        windows.values().forEach(byType -> byType.values().removeIf(window -> window.lastAccess() < cutoff));
+        windows.values().removeIf(Map::isEmpty);
+    }
+
+    int trackedWindowCount() {
+        return windows.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private RollingWindow windowFor(String patientId, String type, String excludedId) {
+        Map<String, RollingWindow> byType = windows.computeIfAbsent(patientId, k -> new ConcurrentHashMap<>());
+        RollingWindow window = byType.get(type);
+        if (window == null) {
+            // Loaded outside the map: a query must not run under a bin lock.
+            // If another thread got there first, its window is kept.
+            RollingWindow loaded = load(patientId, type, excludedId);
+            window = byType.putIfAbsent(type, loaded);
+            if (window == null) {
+                window = loaded;
+            }
+        }
+        return window;
+    }
+
+    private RollingWindow load(String patientId, String type, String excludedId) {
         List<Measurement> history = measurementRepository.findTop20ByPatientIdAndTypeOrderByTimestampDesc(
-                newMeasurement.getPatientId(), newMeasurement.getType());
+                patientId, type);
+        RollingWindow window = new RollingWindow(WINDOW_SIZE, System.currentTimeMillis());
+        // History is newest first; replay it oldest first so eviction order matches arrival order
+        for (int i = history.size() - 1; i >= 0; i--) {
+            Measurement m = history.get(i);
+            if (m.getValue() != null && (excludedId == null || !excludedId.equals(m.getId()))) {
+                window.add(m.getValue());
+            }
+        }
+        log.debug("Warmed anomaly window for patient {} / {} with {} values", patientId, type, window.size());
+        return window;
+    }
+
+    /**
+     * Fixed-size ring buffer of doubles with a running mean and sum of squared
+     * deviations (Welford), updated in O(1) when a value is added or replaced.
+     */
+    static final class RollingWindow {
+
+        private final double[] values;
+        private int size;
+        private int head;
+        private double mean;
+        private double m2;
+        private int updatesSinceRecompute;
+        private volatile long lastAccess;
+
+        RollingWindow(int capacity, long now) {
+            this.values = new double[capacity];
+            this.lastAccess = now;
+        }
 
-        if (history.size() < 5) {
-            // Not enough data to establish a trend
-            return false;
+        synchronized boolean scoreAndAdd(double value, double zThreshold, long now) {
+            lastAccess = now;
+            boolean anomaly = isAnomaly(value, zThreshold);
+            add(value);
+            return anomaly;
         }
 
-        DescriptiveStatistics stats = new DescriptiveStatistics();
-        for (Measurement m : history) {
-            stats.addValue(m.getValue());
+        private boolean isAnomaly(double value, double zThreshold) {
+            if (size < MIN_HISTORY) {
+                // Not enough data to establish a trend
+                return false;
+            }
+
+            double stdDev = standardDeviation();
+
+            // Avoid division by zero or extremely sensitive triggers on flat lines
+            if (stdDev < 0.1) {
+                return Math.abs(value - mean) > (mean * 0.2); // 20% deviation if stable
+            }
+
+            double zScore = Math.abs((value - mean) / stdDev);
+            return zScore > zThreshold;
         }
 
-        double mean = stats.getMean();
-        double stdDev = stats.getStandardDeviation();
+        synchronized void add(double value) {
+            if (size < values.length) {
+                values[(head + size) % values.length] = value;
+                size++;
+                double delta = value - mean;
+                mean += delta / size;
+                m2 += delta * (value - mean);
+                return;
+            }
+
+            double old = values[head];
+            values[head] = value;
+            head = (head + 1) % values.length;
+            double oldMean = mean;
+            mean += (value - old) / size;
+            m2 += (value - old) * (value - mean + old - oldMean);
 
-        // Avoid division by zero or extremely sensitive triggers on flat lines
-        if (stdDev < 0.1) {
-            return Math.abs(newMeasurement.getValue() - mean) > (mean * 0.2); // 20% deviation if stable
+            // Replacing values accumulates rounding error; re-derive from the buffer now and then
+            if (++updatesSinceRecompute >= values.length * 8) {
+                recompute();
+            }
         }
 
-        double zScore = Math.abs((newMeasurement.getValue() - mean) / stdDev);
-        return zScore > STD_DEV_THRESHOLD;
+        private void recompute() {
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += values[i];
+            }
+            mean = sum / size;
+            double squares = 0;
+            for (int i = 0; i < size; i++) {
+                double d = values[i] - mean;
+                squares += d * d;
+            }
+            m2 = squares;
+            updatesSinceRecompute = 0;
+        }
+
+        synchronized double mean() {
+            return mean;
+        }
+
+        /**
+         * Sample standard deviation (n - 1), as computed by commons-math
+         * DescriptiveStatistics.
+         */
+        synchronized double standardDeviation() {
+            return size > 1 ? Math.sqrt(Math.max(m2, 0) / (size - 1)) : 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        long lastAccess() {
+            return lastAccess;
+        }
     }
 }
@@ -10,18 +10,18 @@ import com.clinalert.doctortracker.repository.DoctorRepository;
 import com.clinalert.doctortracker.repository.PatientRepository;
 import com.clinalert.doctortracker.repository.UserRepository;
 import com.clinalert.doctortracker.security.JwtTokenProvider;
-import com.clinalert.doctortracker.util.AppConstants;
-import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.UUID;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -37,42 +37,39 @@ public class AuthService {
 
     private final JwtTokenProvider tokenProvider;
 
-    private final AuthenticationManager authenticationManager;
-
+    // Hash of a random password, checked against when the email is unknown
+    private volatile String unknownUserPassword;
+
+    /**
+     * Authenticates with one user lookup and one password hash check, the
+     * same checks the DaoAuthenticationProvider behind the
+     * AuthenticationManager would make.
+     *
+     * @throws BadCredentialsException if the email is unknown or the password
+     *                                 does not match
+     * @throws DisabledException       if the account is disabled
+     */
     public LoginResponse login(LoginRequest request) {
         String safeEmail = sanitizeForLog(request.getEmail());
-        log.info("=== LOGIN ATTEMPT ===");
-        log.info("Email: {}", safeEmail);
-        log.debug("Password received: [PROTECTED]");
-
-        // Check if user exists first
-        User existingUser = userRepository.findByEmail(request.getEmail()).orElse(null);
-        if (existingUser == null) {
-            log.warn("ERROR: User not found in database for email: {}", safeEmail);
-        } else {
-            log.info("User found! ID: {}", existingUser.getId());
-            boolean matches = passwordEncoder.matches(request.getPassword(), existingUser.getPassword());
-            log.info("Password matches: {}", matches);
+        log.info("Login attempt for {}", safeEmail);
+
+        User user = userRepository.findByEmail(request.getEmail()).orElse(null);
+        // Unknown emails pay for a hash check too, so response times do not reveal which accounts exist
+        String encodedPassword = user != null ? user.getPassword() : unknownUserPassword();
+        boolean matches = passwordEncoder.matches(request.getPassword(), encodedPassword);
+        if (user == null || !matches) {
+            log.warn("Authentication FAILED for {}: {}", safeEmail, user == null ? "unknown email" : "bad password");
+            throw new BadCredentialsException("Bad credentials");
         }
-
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
-
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-
-            User user = userRepository.findByEmail(request.getEmail())
-                    .orElseThrow(() -> new EntityNotFoundException(
-                            AppConstants.ERROR_USER_NOT_FOUND_PREFIX + request.getEmail()));
-
-            String token = tokenProvider.generateToken(user, user.getId(), user.getRole().name());
-            log.info("Login successful! Token generated.");
-
-            return new LoginResponse(token, user.getId(), user.getEmail(), user.getRole().name());
-        } catch (Exception e) {
-            log.error("Authentication FAILED: {}", e.getMessage());
-            throw e;
+        if (!user.isEnabled()) {
+            log.warn("Authentication FAILED for {}: account disabled", safeEmail);
+            throw new DisabledException("User is disabled");
         }
+        rehashIfNeeded(user, request.getPassword());
+
+        String token = tokenProvider.generateToken(user, user.getId(), user.getRole().name());
+        log.info("Login successful for user {}", user.getId());
+        return new LoginResponse(token, user.getId(), user.getEmail(), user.getRole().name());
     }
 
     @Transactional
@@ -128,6 +125,36 @@ public class AuthService {
         return userRepository.findByEmail(email).orElse(null);
     }
 
+    /**
+     * Rewrites a hash left over from an older encoding or a lower work factor,
+     * while the raw password is at hand. A failure only delays the upgrade to
+     * the next login.
+     */
+    private void rehashIfNeeded(User user, String rawPassword) {
+        String currentHash = user.getPassword();
+        if (!passwordEncoder.upgradeEncoding(currentHash)) {
+            return;
+        }
+        try {
+            String newHash = passwordEncoder.encode(rawPassword);
+            if (userRepository.replacePasswordHash(user.getId(), currentHash, newHash) == 1) {
+                user.setPassword(newHash);
+                log.info("Upgraded password hash for user {}", user.getId());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Password hash upgrade failed for user {}: {}", user.getId(), e.getMessage());
+        }
+    }
+
+    private String unknownUserPassword() {
+        String encoded = unknownUserPassword;
+        if (encoded == null) {
+            encoded = passwordEncoder.encode(UUID.randomUUID().toString());
+            unknownUserPassword = encoded;
+        }
+        return encoded;
+    }
+
     private String sanitizeForLog(String input) {
         if (input == null) {
             return "null";
@@ -1,8 +1,13 @@
 package com.clinalert.doctortracker.service;
 
+import com.clinalert.doctortracker.dto.CursorPage;
 import com.clinalert.doctortracker.model.Clinic;
 import com.clinalert.doctortracker.repository.ClinicRepository;
+import com.clinalert.doctortracker.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -12,10 +17,45 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ClinicService {
 
+    private static final Sort BY_ID = Sort.by("id");
+
     private final ClinicRepository clinicRepository;
 
-    public List<Clinic> getAllClinics() {
-        return clinicRepository.findAll();
+    private final PageLimits pageLimits;
+
+    /**
+     * The first clinics ordered by id, capped at the maximum page size. A
+     * non-null {@code nextCursor} means the list was cut short and the others
+     * are reached through {@link #getClinicsAfter}.
+     */
+    public CursorPage<Clinic> getAllClinics() {
+        return getClinicsAfter(null, pageLimits.maxSize());
+    }
+
+    /**
+     * One offset page of clinics, ordered by id.
+     *
+     * @throws IllegalArgumentException if the page or size is out of range
+     */
+    public Page<Clinic> getClinicsPage(int page, Integer size) {
+        return clinicRepository.findAll(pageLimits.pageRequest(page, size, BY_ID));
+    }
+
+    /**
+     * Keyset-paginated clinics, ordered by id.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or null for the
+     *               first page
+     * @throws IllegalArgumentException if the size is out of range or the
+     *                                  cursor is malformed
+     */
+    public CursorPage<Clinic> getClinicsAfter(String cursor, Integer size) {
+        int limit = pageLimits.resolve(size);
+        // One extra row tells whether another page follows
+        List<Clinic> rows = cursor == null
+                ? clinicRepository.findAllByOrderByIdAsc(Limit.of(limit + 1))
+                : clinicRepository.findByIdGreaterThanOrderByIdAsc(CursorCodec.decode(cursor, 1)[0], Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, clinic -> CursorCodec.encode(clinic.getId()));
     }
 
     @SuppressWarnings("null")
@@ -0,0 +1,184 @@
+package com.clinalert.doctortracker.service;
+
+import com.clinalert.doctortracker.model.DailyHealthSummary;
+import com.clinalert.doctortracker.model.HealthData;
+
+import java.time.LocalDate;
+import java.util.stream.Collector;
+
+/**
+ * Running sums, counts, minimums and maximums of the {@link HealthData} rows
+ * of one patient and day, kept in primitive fields.
+ * <p>
+ * Every summary field is computed in a single pass without boxing or
+ * intermediate collections. Partial accumulators can be combined, so
+ * {@link #collector()} also works on parallel streams, e.g.
+ * {@code rows.parallelStream().collect(groupingByConcurrent(day, collector()))}
+ * over a long date range.
+ */
+public class DailySummaryAccumulator {
+
+    private int dataPoints;
+
+    private int heartRateCount;
+    private long heartRateSum;
+    private int minHeartRate = Integer.MAX_VALUE;
+    private int maxHeartRate = Integer.MIN_VALUE;
+
+    private long totalSteps;
+    private long totalSleepMinutes;
+    private long totalCalories;
+    private double totalDistance;
+
+    private int spO2Count;
+    private double spO2Sum;
+    private double minSpO2 = Double.POSITIVE_INFINITY;
+
+    private int systolicCount;
+    private long systolicSum;
+
+    private int diastolicCount;
+    private long diastolicSum;
+
+    private int temperatureCount;
+    private double temperatureSum;
+
+    public void add(HealthData row) {
+        dataPoints++;
+
+        Integer heartRate = row.getHeartRate();
+        if (heartRate != null) {
+            int hr = heartRate;
+            heartRateCount++;
+            heartRateSum += hr;
+            minHeartRate = Math.min(minHeartRate, hr);
+            maxHeartRate = Math.max(maxHeartRate, hr);
+        }
+
+        Integer steps = row.getSteps();
+        if (steps != null) {
+            totalSteps += steps;
+        }
+        Integer sleep = row.getSleepMinutes();
+        if (sleep != null) {
+            totalSleepMinutes += sleep;
+        }
+        Integer calories = row.getCaloriesBurned();
+        if (calories != null) {
+            totalCalories += calories;
+        }
+        Double distance = row.getDistanceMeters();
+        if (distance != null) {
+            totalDistance += distance;
+        }
+
+        Double spO2 = row.getSpO2();
+        if (spO2 != null) {
+            double value = spO2;
+            spO2Count++;
+            spO2Sum += value;
+            minSpO2 = Math.min(minSpO2, value);
+        }
+
+        Integer systolic = row.getBloodPressureSystolic();
+        if (systolic != null) {
+            systolicCount++;
+            systolicSum += systolic;
+        }
+        Integer diastolic = row.getBloodPressureDiastolic();
+        if (diastolic != null) {
+            diastolicCount++;
+            diastolicSum += diastolic;
+        }
+
+        Double temperature = row.getTemperature();
+        if (temperature != null) {
+            temperatureCount++;
+            temperatureSum += temperature;
+        }
+    }
+
+    /**
+     * Merges the rows accumulated by {@code other} into this accumulator.
+     *
+     * @return this accumulator
+     */
+    public DailySummaryAccumulator combine(DailySummaryAccumulator other) {
+        dataPoints += other.dataPoints;
+
+        heartRateCount += other.heartRateCount;
+        heartRateSum += other.heartRateSum;
+        minHeartRate = Math.min(minHeartRate, other.minHeartRate);
+        maxHeartRate = Math.max(maxHeartRate, other.maxHeartRate);
+
+        totalSteps += other.totalSteps;
+        totalSleepMinutes += other.totalSleepMinutes;
+        totalCalories += other.totalCalories;
+        totalDistance += other.totalDistance;
+
+        spO2Count += other.spO2Count;
+        spO2Sum += other.spO2Sum;
+        minSpO2 = Math.min(minSpO2, other.minSpO2);
+
+        systolicCount += other.systolicCount;
+        systolicSum += other.systolicSum;
+        diastolicCount += other.diastolicCount;
+        diastolicSum += other.diastolicSum;
+
+        temperatureCount += other.temperatureCount;
+        temperatureSum += other.temperatureSum;
+        return this;
+    }
+
+    public static Collector<HealthData, ?, DailySummaryAccumulator> collector() {
+        return Collector.of(DailySummaryAccumulator::new, DailySummaryAccumulator::add,
+                DailySummaryAccumulator::combine, Collector.Characteristics.UNORDERED,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    public int getDataPoints() {
+        return dataPoints;
+    }
+
+    /**
+     * Builds the summary of the accumulated rows. Averages and extremes of a
+     * vital without readings are left null; totals default to zero.
+     */
+    public DailyHealthSummary toSummary(String patientId, LocalDate date) {
+        DailyHealthSummary summary = new DailyHealthSummary();
+        summary.setPatientId(patientId);
+        summary.setDate(date);
+        applyTo(summary);
+        return summary;
+    }
+
+    /**
+     * Overwrites every computed field of {@code summary} with the accumulated
+     * values.
+     */
+    public void applyTo(DailyHealthSummary summary) {
+        summary.setDataPointsCount(dataPoints);
+
+        summary.setHeartRateSamples(heartRateCount);
+        summary.setAvgHeartRate(heartRateCount > 0 ? (double) heartRateSum / heartRateCount : null);
+        summary.setMinHeartRate(heartRateCount > 0 ? minHeartRate : null);
+        summary.setMaxHeartRate(heartRateCount > 0 ? maxHeartRate : null);
+
+        summary.setTotalSteps(Math.toIntExact(totalSteps));
+        summary.setTotalSleepMinutes(Math.toIntExact(totalSleepMinutes));
+        summary.setTotalCaloriesBurned(Math.toIntExact(totalCalories));
+        summary.setTotalDistanceMeters(totalDistance);
+
+        summary.setSpO2Samples(spO2Count);
+        summary.setAvgSpO2(spO2Count > 0 ? spO2Sum / spO2Count : null);
+        summary.setMinSpO2(spO2Count > 0 ? minSpO2 : null);
+
+        summary.setSystolicSamples(systolicCount);
+        summary.setAvgSystolic(systolicCount > 0 ? (double) systolicSum / systolicCount : null);
+        summary.setDiastolicSamples(diastolicCount);
+        summary.setAvgDiastolic(diastolicCount > 0 ? (double) diastolicSum / diastolicCount : null);
+
+        summary.setTemperatureSamples(temperatureCount);
+        summary.setAvgTemperature(temperatureCount > 0 ? temperatureSum / temperatureCount : null);
+    }
+}
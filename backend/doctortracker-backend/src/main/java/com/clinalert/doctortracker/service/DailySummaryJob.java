@@ -0,0 +1,341 @@
+package com.clinalert.doctortracker.service;
+
+import com.clinalert.doctortracker.model.DailyHealthSummary;
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.model.JobCheckpoint;
+import com.clinalert.doctortracker.repository.DailyHealthSummaryRepository;
+import com.clinalert.doctortracker.repository.HealthDataRepository;
+import com.clinalert.doctortracker.repository.JobCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Nightly computation of the previous day's {@link DailyHealthSummary} for
+ * every patient with data.
+ * <p>
+ * The day is read with one streamed scan of health_data ordered by patient,
+ * so each patient's rows arrive contiguously and are folded into a
+ * {@link DailySummaryAccumulator} as they stream by. Finished summaries are
+ * grouped into chunks of {@code app.summaryJob.batchSize} patients and
+ * written with batched upserts by a pool of {@code app.summaryJob.workers}
+ * writers. After each chunk the last patient written in order is
+ * checkpointed, so a failed or interrupted run resumes from there.
+ */
+@Service
+@Slf4j
+public class DailySummaryJob {
+
+    static final String JOB_NAME = "daily-summary";
+
+    private final HealthDataRepository healthDataRepository;
+
+    private final DailyHealthSummaryRepository dailySummaryRepository;
+
+    private final JobCheckpointRepository checkpointRepository;
+
+    private final int workerCount;
+
+    private final int batchSize;
+
+    private final int fetchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public DailySummaryJob(HealthDataRepository healthDataRepository,
+            DailyHealthSummaryRepository dailySummaryRepository,
+            JobCheckpointRepository checkpointRepository,
+            @Value("${app.summaryJob.workers:4}") int workerCount,
+            @Value("${app.summaryJob.batchSize:500}") int batchSize,
+            @Value("${app.summaryJob.fetchSize:1000}") int fetchSize) {
+        this.healthDataRepository = healthDataRepository;
+        this.dailySummaryRepository = dailySummaryRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.fetchSize = fetchSize;
+    }
+
+    @Scheduled(cron = "${app.summaryJob.cron:0 30 1 * * *}")
+    public void runNightly() {
+        run(LocalDate.now().minusDays(1));
+    }
+
+    /**
+     * Computes the summaries of {@code date} for every patient with data,
+     * resuming after the checkpointed patient if a previous run for the same
+     * date did not complete. A date that was already completed is skipped.
+     *
+     * @throws IllegalStateException if a run is already in progress or a
+     *                               chunk could not be written
+     */
+    public RunStats run(LocalDate date) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Daily summary job is already running");
+        }
+        try {
+            return doRun(date);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private RunStats doRun(LocalDate date) {
+        long started = System.currentTimeMillis();
+        RunStats stats = new RunStats();
+        stats.setDate(date);
+
+        JobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElseGet(() -> {
+            JobCheckpoint fresh = new JobCheckpoint();
+            fresh.setJobName(JOB_NAME);
+            return fresh;
+        });
+        if (date.equals(checkpoint.getRunDate()) && checkpoint.isCompleted()) {
+            log.info("Daily summaries for {} already computed, skipping", date);
+            stats.setSkipped(true);
+            return stats;
+        }
+
+        String resumeAfter = date.equals(checkpoint.getRunDate()) ? checkpoint.getLastKey() : null;
+        checkpoint.setRunDate(date);
+        checkpoint.setLastKey(resumeAfter);
+        checkpoint.setCompleted(false);
+        checkpoint = checkpointRepository.save(checkpoint);
+        stats.setResumedAfter(resumeAfter);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService writers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "summary-job-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Progress progress = new Progress(checkpoint);
+        Scan scan = new Scan(date, writers, progress, stats);
+        try {
+            healthDataRepository.streamByPatient(date.atStartOfDay(), date.plusDays(1).atStartOfDay(),
+                    resumeAfter, fetchSize, scan::accept);
+            scan.finish();
+        } catch (RuntimeException e) {
+            progress.fail(e);
+        } finally {
+            writers.shutdown();
+            awaitWriters(writers);
+        }
+
+        stats.setDurationMs(System.currentTimeMillis() - started);
+        if (progress.failure != null) {
+            throw new IllegalStateException("Daily summary job for " + date + " failed after patient "
+                    + progress.checkpoint.getLastKey() + ", it will resume from there", progress.failure);
+        }
+
+        progress.checkpoint.setCompleted(true);
+        checkpointRepository.save(progress.checkpoint);
+        log.info("Daily summaries for {} computed: {} patients, {} rows, {} batches in {} ms", date,
+                stats.getPatients(), stats.getRows(), stats.getBatches(), stats.getDurationMs());
+        return stats;
+    }
+
+    private static void awaitWriters(ExecutorService writers) {
+        try {
+            writers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            writers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs on the scanning thread: folds rows into the current patient's
+     * accumulator and hands full chunks to the writers.
+     */
+    private final class Scan {
+
+        private final LocalDate date;
+        private final ExecutorService writers;
+        private final Progress progress;
+        private final RunStats stats;
+        // Bounds the chunks queued or being written, so a slow database throttles the scan
+        private final Semaphore inFlight = new Semaphore(workerCount * 2);
+
+        private List<DailyHealthSummary> chunk = new ArrayList<>();
+        private long nextSequence;
+        private String currentPatient;
+        private DailySummaryAccumulator current;
+
+        Scan(LocalDate date, ExecutorService writers, Progress progress, RunStats stats) {
+            this.date = date;
+            this.writers = writers;
+            this.progress = progress;
+            this.stats = stats;
+        }
+
+        void accept(HealthData row) {
+            if (progress.failure != null) {
+                throw new IllegalStateException("Aborting scan after a failed write", progress.failure);
+            }
+            if (!row.getPatientId().equals(currentPatient)) {
+                closePatient();
+                currentPatient = row.getPatientId();
+                current = new DailySummaryAccumulator();
+            }
+            current.add(row);
+            stats.rows++;
+        }
+
+        void finish() {
+            closePatient();
+            if (!chunk.isEmpty()) {
+                submit();
+            }
+        }
+
+        private void closePatient() {
+            if (current == null) {
+                return;
+            }
+            chunk.add(current.toSummary(currentPatient, date));
+            stats.patients++;
+            current = null;
+            if (chunk.size() >= batchSize) {
+                submit();
+            }
+        }
+
+        private void submit() {
+            List<DailyHealthSummary> summaries = chunk;
+            long sequence = nextSequence++;
+            String lastPatient = summaries.get(summaries.size() - 1).getPatientId();
+            chunk = new ArrayList<>(batchSize);
+            stats.batches++;
+
+            inFlight.acquireUninterruptibly();
+            writers.execute(() -> {
+                try {
+                    dailySummaryRepository.upsertSummaries(summaries);
+                    progress.complete(sequence, lastPatient);
+                } catch (RuntimeException e) {
+                    progress.fail(e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * Advances the checkpoint past chunks in scan order only, since writers
+     * may finish them out of order.
+     */
+    private final class Progress {
+
+        private JobCheckpoint checkpoint;
+        private final TreeMap<Long, String> completed = new TreeMap<>();
+        private long nextToCommit;
+        private volatile RuntimeException failure;
+
+        Progress(JobCheckpoint checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+
+        synchronized void complete(long sequence, String lastPatient) {
+            if (failure != null) {
+                return;
+            }
+            completed.put(sequence, lastPatient);
+            String advancedTo = null;
+            while (completed.containsKey(nextToCommit)) {
+                advancedTo = completed.remove(nextToCommit);
+                nextToCommit++;
+            }
+            if (advancedTo != null) {
+                checkpoint.setLastKey(advancedTo);
+                checkpoint = checkpointRepository.save(checkpoint);
+            }
+        }
+
+        synchronized void fail(RuntimeException e) {
+            if (failure == null) {
+                log.error("Daily summary job failed", e);
+                failure = e;
+            }
+        }
+    }
+
+    public static class RunStats {
+        private LocalDate date;
+        private boolean skipped;
+        private String resumedAfter;
+        private long patients;
+        private long rows;
+        private long batches;
+        private long durationMs;
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+
+        public boolean isSkipped() {
+            return skipped;
+        }
+
+        public void setSkipped(boolean skipped) {
+            this.skipped = skipped;
+        }
+
+        public String getResumedAfter() {
+            return resumedAfter;
+        }
+
+        public void setResumedAfter(String resumedAfter) {
+            this.resumedAfter = resumedAfter;
+        }
+
+        public long getPatients() {
+            return patients;
+        }
+
+        public void setPatients(long patients) {
+            this.patients = patients;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public void setRows(long rows) {
+            this.rows = rows;
+        }
+
+        public long getBatches() {
+            return batches;
+        }
+
+        public void setBatches(long batches) {
+            this.batches = batches;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public void setDurationMs(long durationMs) {
+            this.durationMs = durationMs;
+        }
+    }
+}
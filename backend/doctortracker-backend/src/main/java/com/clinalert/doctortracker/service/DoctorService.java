@@ -1,8 +1,13 @@
 package com.clinalert.doctortracker.service;
 
+import com.clinalert.doctortracker.dto.CursorPage;
 import com.clinalert.doctortracker.model.Doctor;
 import com.clinalert.doctortracker.repository.DoctorRepository;
+import com.clinalert.doctortracker.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -12,10 +17,45 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class DoctorService {
 
+    private static final Sort BY_ID = Sort.by("id");
+
     private final DoctorRepository doctorRepository;
 
-    public List<Doctor> getAllDoctors() {
-        return doctorRepository.findAll();
+    private final PageLimits pageLimits;
+
+    /**
+     * The first doctors ordered by id, capped at the maximum page size. A
+     * non-null {@code nextCursor} means the list was cut short and the others
+     * are reached through {@link #getDoctorsAfter}.
+     */
+    public CursorPage<Doctor> getAllDoctors() {
+        return getDoctorsAfter(null, pageLimits.maxSize());
+    }
+
+    /**
+     * One offset page of doctors, ordered by id.
+     *
+     * @throws IllegalArgumentException if the page or size is out of range
+     */
+    public Page<Doctor> getDoctorsPage(int page, Integer size) {
+        return doctorRepository.findAll(pageLimits.pageRequest(page, size, BY_ID));
+    }
+
+    /**
+     * Keyset-paginated doctors, ordered by id.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or null for the
+     *               first page
+     * @throws IllegalArgumentException if the size is out of range or the
+     *                                  cursor is malformed
+     */
+    public CursorPage<Doctor> getDoctorsAfter(String cursor, Integer size) {
+        int limit = pageLimits.resolve(size);
+        // One extra row tells whether another page follows
+        List<Doctor> rows = cursor == null
+                ? doctorRepository.findAllByOrderByIdAsc(Limit.of(limit + 1))
+                : doctorRepository.findByIdGreaterThanOrderByIdAsc(CursorCodec.decode(cursor, 1)[0], Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, doctor -> CursorCodec.encode(doctor.getId()));
     }
 
     @SuppressWarnings("null")
@@ -23,6 +63,13 @@ public class DoctorService {
         return doctorRepository.findById(id);
     }
 
+    /**
+     * Doctor profile of a user account; the two are linked by email.
+     */
+    public Optional<Doctor> getDoctorByEmail(String email) {
+        return doctorRepository.findFirstByEmailOrderByIdAsc(email);
+    }
+
     @SuppressWarnings("null")
     public Doctor createDoctor(Doctor doctor) {
         return doctorRepository.save(doctor);
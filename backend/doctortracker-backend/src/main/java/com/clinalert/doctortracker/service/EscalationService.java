@@ -2,41 +2,153 @@ package com.clinalert.doctortracker.service;
 
 import com.clinalert.doctortracker.model.Alert;
 import com.clinalert.doctortracker.repository.AlertRepository;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Escalates unread MEDIUM alerts to HIGH once they have been pending for
+ * {@code app.escalation.delayMs}.
+ * <p>
+ * Alerts are registered with their deadline when created and cancelled when
+ * read, so the database is only touched when something is actually due, and
+ * then with one bulk UPDATE. The queue lives in memory and is rebuilt from
+ * the unread MEDIUM alerts at startup.
+ */
 @Service
-@RequiredArgsConstructor
-@lombok.extern.slf4j.Slf4j
+@Slf4j
 public class EscalationService {
 
+    static final String FROM_SEVERITY = "MEDIUM";
+
+    static final String TO_SEVERITY = "HIGH";
+
+    static final String ESCALATED_PREFIX = "[ESCALATED] ";
+
+    // Bound on the IN list of one UPDATE
+    private static final int UPDATE_CHUNK = 500;
+
     private final AlertRepository alertRepository;
 
-    // Run every minute
-    @Scheduled(fixedRate = 60000)
-    public void checkAndEscalateAlerts() {
-        LocalDateTime thresholdTime = LocalDateTime.now().minusMinutes(15);
+    private final UnreadAlertIndex unreadIndex;
 
-        // Find active alerts that are older than 15 minutes and not yet acknowledged
-        // (assuming 'active' means unacknowledged)
-        // In a real scenario, we would check a specific 'acknowledged' flag.
-        // For now, we assume we are looking for MEDIUM severity alerts to upgrade to
-        // HIGH.
+    private final long delayMs;
 
-        List<Alert> pendingAlerts = alertRepository.findBySeverityAndTimestampBefore("MEDIUM", thresholdTime);
+    private final DelayQueue<Deadline> queue = new DelayQueue<>();
 
-        for (Alert alert : pendingAlerts) {
-            // Escalate to HIGH
-            alert.setSeverity("HIGH");
-            alert.setMessage("[ESCALATED] " + alert.getMessage());
-            alertRepository.save(alert);
+    // alert id -> deadline of its queue entry; an entry no longer listed here
+    // was cancelled and is skipped when it falls due
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    public EscalationService(AlertRepository alertRepository, UnreadAlertIndex unreadIndex,
+            @Value("${app.escalation.delayMs:900000}") long delayMs) {
+        this.alertRepository = alertRepository;
+        this.unreadIndex = unreadIndex;
+        this.delayMs = delayMs;
+    }
+
+    /**
+     * Re-registers every unread MEDIUM alert, including those created while
+     * the application was down or by the seeders.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int before = pending.size();
+        alertRepository.forEachUnread(FROM_SEVERITY, this::register);
+        log.info("Escalation queue rebuilt: {} alerts pending", pending.size() - before);
+    }
+
+    /**
+     * Registers a newly created alert; alerts that can never escalate are
+     * ignored.
+     */
+    public void schedule(Alert alert) {
+        if (FROM_SEVERITY.equals(alert.getSeverity()) && !alert.isRead() && alert.getId() != null) {
+            register(alert.getId(), alert.getTimestamp());
+        }
+    }
+
+    /**
+     * Withdraws a pending escalation, typically because the alert was read.
+     */
+    public void cancel(String alertId) {
+        pending.remove(alertId);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
 
+    /**
+     * Escalates the alerts whose deadline has passed.
+     *
+     * @return number of alerts escalated
+     */
+    @Scheduled(fixedDelayString = "${app.escalation.pollIntervalMs:1000}")
+    public int escalateDue() {
+        List<Deadline> expired = new ArrayList<>();
+        queue.drainTo(expired);
+        List<Deadline> due = new ArrayList<>(expired.size());
+        for (Deadline deadline : expired) {
+            if (pending.remove(deadline.alertId, deadline.dueAtMs)) {
+                due.add(deadline);
+            }
+        }
+
+        int escalated = 0;
+        for (int from = 0; from < due.size(); from += UPDATE_CHUNK) {
+            List<Deadline> chunk = due.subList(from, Math.min(from + UPDATE_CHUNK, due.size()));
+            List<String> ids = chunk.stream().map(Deadline::alertId).toList();
+            try {
+                escalated += alertRepository.escalate(ids, FROM_SEVERITY, TO_SEVERITY, ESCALATED_PREFIX);
+                unreadIndex.regrade(ids, FROM_SEVERITY, TO_SEVERITY);
+            } catch (RuntimeException e) {
+                // Put them back, they are retried on the next poll
+                chunk.forEach(deadline -> register(deadline.alertId, deadline.dueAtMs));
+                log.error("Could not escalate {} alerts: {}", ids.size(), e.getMessage());
+            }
+        }
+        if (escalated > 0) {
             // Here we would also trigger a notification to a broader team or supervisor
-            log.info("Escalated alert {} for patient {}", alert.getId(), alert.getPatientId());
+            log.info("Escalated {} alerts to {}", escalated, TO_SEVERITY);
+        }
+        return escalated;
+    }
+
+    private void register(String alertId, LocalDateTime createdAt) {
+        LocalDateTime start = createdAt == null ? LocalDateTime.now() : createdAt;
+        register(alertId, start.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + delayMs);
+    }
+
+    private void register(String alertId, long dueAtMs) {
+        if (pending.putIfAbsent(alertId, dueAtMs) == null) {
+            queue.add(new Deadline(alertId, dueAtMs));
+        }
+    }
+
+    private record Deadline(String alertId, long dueAtMs) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtMs, ((Deadline) other).dueAtMs);
         }
     }
 }
@@ -0,0 +1,503 @@
+package com.clinalert.doctortracker.service;
+
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.repository.HealthDataRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Asynchronous ingestion of smartwatch uploads.
+ * <p>
+ * Accepted payloads are queued in memory and drained by a pool of writer
+ * workers, which coalesce several uploads into one JDBC batch insert, fold
+ * the rows into the daily summaries and then run alert detection on them. The queue is bounded in rows:
+ * when it is full, {@link #submit(List)} rejects the upload so the caller can
+ * answer 429 instead of piling up memory.
+ * <p>
+ * A ticket reports whether its rows were written. When a coalesced insert
+ * fails, each upload is retried on its own so that one bad upload does not
+ * fail the others; errors in the summaries or alert detection that follow a
+ * successful write are logged and counted but leave the tickets completed.
+ */
+@Service
+@Slf4j
+public class HealthDataIngestionPipeline {
+
+    public enum TicketStatus {
+        QUEUED, COMPLETED, FAILED
+    }
+
+    private static final int MAX_TRACKED_TICKETS = 10_000;
+
+    private final HealthDataRepository healthDataRepository;
+
+    private final SmartWatchHealthService smartWatchHealthService;
+
+    private final int queueCapacity;
+
+    private final int workerCount;
+
+    private final int maxBatchSize;
+
+    private final long lingerMs;
+
+    private final long shutdownTimeoutMs;
+
+    private final BlockingQueue<Submission> queue = new LinkedBlockingQueue<>();
+
+    private final Semaphore rowPermits;
+
+    private final Map<String, TicketStatus> tickets = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, TicketStatus> eldest) {
+                    return size() > MAX_TRACKED_TICKETS;
+                }
+            });
+
+    private final StageTimer queueTimer = new StageTimer();
+    private final StageTimer writeTimer = new StageTimer();
+    private final StageTimer alertTimer = new StageTimer();
+    private final StageTimer endToEndTimer = new StageTimer();
+    private final LongAdder acceptedRows = new LongAdder();
+    private final LongAdder writtenRows = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+    private final LongAdder rejectedUploads = new LongAdder();
+    private final LongAdder postWriteFailures = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private ExecutorService workers;
+
+    private volatile boolean accepting;
+
+    // Submitters enqueue under the read lock and shutdown closes the pipeline
+    // under the write lock, so no upload is queued once the workers may exit
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+
+    public HealthDataIngestionPipeline(HealthDataRepository healthDataRepository,
+            SmartWatchHealthService smartWatchHealthService,
+            @Value("${app.ingestion.queueCapacity:50000}") int queueCapacity,
+            @Value("${app.ingestion.workers:2}") int workerCount,
+            @Value("${app.ingestion.maxBatchSize:1000}") int maxBatchSize,
+            @Value("${app.ingestion.lingerMs:20}") long lingerMs,
+            @Value("${app.ingestion.shutdownTimeoutMs:30000}") long shutdownTimeoutMs) {
+        this.healthDataRepository = healthDataRepository;
+        this.smartWatchHealthService = smartWatchHealthService;
+        this.queueCapacity = queueCapacity;
+        this.workerCount = workerCount;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMs = lingerMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.rowPermits = new Semaphore(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "health-ingest-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        accepting = true;
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::runWorker);
+        }
+        log.info("Health data ingestion pipeline started: {} workers, capacity {} rows, batch size {}",
+                workerCount, queueCapacity, maxBatchSize);
+    }
+
+    /**
+     * Flushes everything still queued before the datasource goes away.
+     */
+    @PreDestroy
+    public void shutdown() {
+        acceptLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Ingestion pipeline did not drain within {} ms, {} uploads dropped",
+                        shutdownTimeoutMs, queue.size());
+                workers.shutdownNow();
+                failQueued();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            failQueued();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Uploads left behind by workers that were stopped before draining the queue
+    private void failQueued() {
+        Submission submission;
+        while ((submission = queue.poll()) != null) {
+            int rows = submission.rows().size();
+            failedRows.add(rows);
+            rowPermits.release(rows);
+            tickets.put(submission.ticketId(), TicketStatus.FAILED);
+        }
+    }
+
+    /**
+     * Queues an upload for asynchronous persistence.
+     *
+     * @return the ingestion ticket id, or empty if the queue is full or the
+     *         pipeline is shutting down
+     * @throws IllegalArgumentException if the upload has more rows than
+     *                                  {@link #getMaxUploadRows()}, which
+     *                                  could never be queued
+     */
+    public Optional<String> submit(List<HealthData> healthDataList) {
+        Objects.requireNonNull(healthDataList, "healthDataList must not be null");
+        int rows = healthDataList.size();
+        if (rows > queueCapacity) {
+            throw new IllegalArgumentException("At most " + queueCapacity + " rows per asynchronous upload");
+        }
+        acceptLock.readLock().lock();
+        try {
+            if (!accepting || !rowPermits.tryAcquire(rows)) {
+                rejectedUploads.increment();
+                return Optional.empty();
+            }
+
+            String ticketId = UUID.randomUUID().toString();
+            tickets.put(ticketId, TicketStatus.QUEUED);
+            queue.add(new Submission(ticketId, new ArrayList<>(healthDataList), System.nanoTime()));
+            acceptedRows.add(rows);
+            return Optional.of(ticketId);
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Largest upload {@link #submit(List)} accepts: the whole queue.
+     */
+    public int getMaxUploadRows() {
+        return queueCapacity;
+    }
+
+    public Optional<TicketStatus> getTicketStatus(String ticketId) {
+        return Optional.ofNullable(tickets.get(ticketId));
+    }
+
+    public IngestionStats getStats() {
+        IngestionStats stats = new IngestionStats();
+        stats.setQueuedRows(queueCapacity - rowPermits.availablePermits());
+        stats.setQueueCapacity(queueCapacity);
+        stats.setAcceptedRows(acceptedRows.sum());
+        stats.setWrittenRows(writtenRows.sum());
+        stats.setFailedRows(failedRows.sum());
+        stats.setRejectedUploads(rejectedUploads.sum());
+        stats.setPostWriteFailures(postWriteFailures.sum());
+        stats.setBatches(batches.sum());
+        stats.setQueueWait(queueTimer.snapshot());
+        stats.setWrite(writeTimer.snapshot());
+        stats.setAlerts(alertTimer.snapshot());
+        stats.setEndToEnd(endToEndTimer.snapshot());
+        return stats;
+    }
+
+    private void runWorker() {
+        List<Submission> drained = new ArrayList<>();
+        while (accepting || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                drained.add(first);
+                int rows = first.rows().size();
+                long lingerDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (rows < maxBatchSize) {
+                    long remaining = lingerDeadline - System.nanoTime();
+                    Submission next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    drained.add(next);
+                    rows += next.rows().size();
+                }
+                writeBatch(drained, rows);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                drained.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Submission> submissions, int rowCount) {
+        long startNanos = System.nanoTime();
+        List<HealthData> rows = new ArrayList<>(rowCount);
+        for (Submission submission : submissions) {
+            queueTimer.record(startNanos - submission.enqueuedAtNanos());
+            rows.addAll(submission.rows());
+        }
+
+        Map<Submission, TicketStatus> outcomes = new LinkedHashMap<>();
+        List<HealthData> written = new ArrayList<>(rowCount);
+        try {
+            if (insert(rows)) {
+                submissions.forEach(submission -> outcomes.put(submission, TicketStatus.COMPLETED));
+                written = rows;
+            } else {
+                if (submissions.size() > 1) {
+                    log.warn("Batch of {} uploads failed, retrying them one by one", submissions.size());
+                }
+                for (Submission submission : submissions) {
+                    boolean ok = submissions.size() > 1 && insert(submission.rows());
+                    outcomes.put(submission, ok ? TicketStatus.COMPLETED : TicketStatus.FAILED);
+                    if (ok) {
+                        written.addAll(submission.rows());
+                    } else {
+                        log.error("Failed to ingest upload {} of {} health data rows", submission.ticketId(),
+                                submission.rows().size());
+                        failedRows.add(submission.rows().size());
+                    }
+                }
+            }
+            long writtenNanos = System.nanoTime();
+            if (!written.isEmpty()) {
+                writeTimer.record(writtenNanos - startNanos);
+                writtenRows.add(written.size());
+                batches.increment();
+                processWritten(written, writtenNanos);
+            }
+        } finally {
+            rowPermits.release(rowCount);
+        }
+
+        long doneNanos = System.nanoTime();
+        outcomes.forEach((submission, outcome) -> {
+            tickets.put(submission.ticketId(), outcome);
+            endToEndTimer.record(doneNanos - submission.enqueuedAtNanos());
+        });
+    }
+
+    private boolean insert(List<HealthData> rows) {
+        try {
+            healthDataRepository.insertBatch(rows);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Failed to insert batch of {} health data rows", rows.size(), e);
+            return false;
+        }
+    }
+
+    // The rows are stored at this point: failures here do not fail their tickets
+    private void processWritten(List<HealthData> written, long writtenNanos) {
+        try {
+            smartWatchHealthService.updateDailySummaries(written);
+        } catch (RuntimeException e) {
+            // The summaries can be regenerated from the stored rows
+            postWriteFailures.increment();
+            log.error("Failed to update daily summaries for {} ingested rows", written.size(), e);
+        }
+        try {
+            smartWatchHealthService.checkAlerts(written);
+            alertTimer.record(System.nanoTime() - writtenNanos);
+        } catch (RuntimeException e) {
+            postWriteFailures.increment();
+            log.error("Failed to check alerts for {} ingested rows", written.size(), e);
+        }
+    }
+
+    private record Submission(String ticketId, List<HealthData> rows, long enqueuedAtNanos) {
+    }
+
+    /**
+     * Lock-free latency accumulator for one pipeline stage.
+     */
+    static final class StageTimer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        StageLatency snapshot() {
+            long n = count.sum();
+            StageLatency latency = new StageLatency();
+            latency.setCount(n);
+            latency.setAvgMillis(n == 0 ? 0 : totalNanos.sum() / (double) n / 1_000_000);
+            latency.setMaxMillis(maxNanos.get() / 1_000_000.0);
+            return latency;
+        }
+    }
+
+    public static class StageLatency {
+        private long count;
+        private double avgMillis;
+        private double maxMillis;
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public double getAvgMillis() {
+            return avgMillis;
+        }
+
+        public void setAvgMillis(double avgMillis) {
+            this.avgMillis = avgMillis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        public void setMaxMillis(double maxMillis) {
+            this.maxMillis = maxMillis;
+        }
+    }
+
+    public static class IngestionStats {
+        private int queuedRows;
+        private int queueCapacity;
+        private long acceptedRows;
+        private long writtenRows;
+        private long failedRows;
+        private long rejectedUploads;
+        private long postWriteFailures;
+        private long batches;
+        private StageLatency queueWait;
+        private StageLatency write;
+        private StageLatency alerts;
+        private StageLatency endToEnd;
+
+        public int getQueuedRows() {
+            return queuedRows;
+        }
+
+        public void setQueuedRows(int queuedRows) {
+            this.queuedRows = queuedRows;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getAcceptedRows() {
+            return acceptedRows;
+        }
+
+        public void setAcceptedRows(long acceptedRows) {
+            this.acceptedRows = acceptedRows;
+        }
+
+        public long getWrittenRows() {
+            return writtenRows;
+        }
+
+        public void setWrittenRows(long writtenRows) {
+            this.writtenRows = writtenRows;
+        }
+
+        public long getFailedRows() {
+            return failedRows;
+        }
+
+        public void setFailedRows(long failedRows) {
+            this.failedRows = failedRows;
+        }
+
+        public long getRejectedUploads() {
+            return rejectedUploads;
+        }
+
+        public void setRejectedUploads(long rejectedUploads) {
+            this.rejectedUploads = rejectedUploads;
+        }
+
+        public long getPostWriteFailures() {
+            return postWriteFailures;
+        }
+
+        public void setPostWriteFailures(long postWriteFailures) {
+            this.postWriteFailures = postWriteFailures;
+        }
+
+        public long getBatches() {
+            return batches;
+        }
+
+        public void setBatches(long batches) {
+            this.batches = batches;
+        }
+
+        public StageLatency getQueueWait() {
+            return queueWait;
+        }
+
+        public void setQueueWait(StageLatency queueWait) {
+            this.queueWait = queueWait;
+        }
+
+        public StageLatency getWrite() {
+            return write;
+        }
+
+        public void setWrite(StageLatency write) {
+            this.write = write;
+        }
+
+        public StageLatency getAlerts() {
+            return alerts;
+        }
+
+        public void setAlerts(StageLatency alerts) {
+            this.alerts = alerts;
+        }
+
+        public StageLatency getEndToEnd() {
+            return endToEnd;
+        }
+
+        public void setEndToEnd(StageLatency endToEnd) {
+            this.endToEnd = endToEnd;
+        }
+    }
+}
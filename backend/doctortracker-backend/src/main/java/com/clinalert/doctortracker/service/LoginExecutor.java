@@ -0,0 +1,71 @@
+package com.clinalert.doctortracker.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool that runs password hash checks off the servlet threads.
+ * <p>
+ * Logins are CPU-bound, so at most {@code app.auth.loginThreads} run at once
+ * and at most {@code app.auth.loginQueueCapacity} wait; anything beyond is
+ * rejected straight away. A burst of logins therefore cannot take every
+ * Tomcat thread or every core away from vitals ingestion.
+ */
+@Component
+@Slf4j
+public class LoginExecutor {
+
+    private final int threadCount;
+
+    private final int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    public LoginExecutor(@Value("${app.auth.loginThreads:0}") int threadCount,
+            @Value("${app.auth.loginQueueCapacity:100}") int queueCapacity) {
+        // 0 leaves one core free for everything else
+        this.threadCount = threadCount > 0 ? threadCount
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.queueCapacity = queueCapacity;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "login-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        log.info("Login executor started: {} threads, queue of {}", threadCount, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs {@code task} on the pool. The future fails with a
+     * {@link RejectedExecutionException} when the pool and its queue are full.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.clinalert.doctortracker.service;
+
+import com.clinalert.doctortracker.dto.VitalPoint;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling of a time series fed in
+ * ascending time order, one point at a time.
+ * <p>
+ * The first and last points are always kept. The points in between are
+ * split into {@code threshold - 2} buckets of equal count, and from each
+ * bucket the point forming the largest triangle with the point kept from
+ * the previous bucket and the average of the next bucket is kept. Only the
+ * bucket being decided and the one after it are buffered, so memory does
+ * not depend on the length of the series.
+ * <p>
+ * {@code expectedSize} only sizes the buckets: if more points arrive they
+ * are folded into the last bucket, and if fewer arrive the series ends
+ * early.
+ */
+public class LttbDownsampler implements Consumer<VitalPoint> {
+
+    private final int threshold;
+    private final double every;
+    private final boolean passThrough;
+    private final List<VitalPoint> output;
+
+    // Last point received, held back because it is kept as is if it is the last one
+    private VitalPoint held;
+    private long placed;
+
+    // Bucket that incoming points are placed in, and where it ends
+    private int placeBucket;
+    private long placeEnd;
+
+    private int currentBucket;
+    private List<VitalPoint> current = new ArrayList<>();
+    private List<VitalPoint> next = new ArrayList<>();
+
+    public LttbDownsampler(long expectedSize, int threshold) {
+        this.threshold = threshold;
+        this.passThrough = threshold < 3 || expectedSize <= threshold;
+        this.every = passThrough ? 1 : (double) (expectedSize - 2) / (threshold - 2);
+        this.output = new ArrayList<>(passThrough ? (int) Math.min(expectedSize, 1024) : threshold);
+        this.placeEnd = (long) Math.floor(every) + 1;
+    }
+
+    @Override
+    public void accept(VitalPoint point) {
+        if (passThrough) {
+            output.add(point);
+            return;
+        }
+        if (held != null) {
+            place(held);
+        }
+        held = point;
+    }
+
+    /**
+     * @return the kept points, in ascending time order
+     */
+    public List<VitalPoint> finish() {
+        if (passThrough || held == null) {
+            return output;
+        }
+        if (!current.isEmpty()) {
+            if (next.isEmpty()) {
+                select(current, held);
+            } else {
+                select(current, average(next));
+                select(next, held);
+            }
+        }
+        output.add(held);
+        held = null;
+        return output;
+    }
+
+    private void place(VitalPoint point) {
+        long index = placed++;
+        if (index == 0) {
+            output.add(point);
+            return;
+        }
+        while (index >= placeEnd && placeBucket < threshold - 3) {
+            placeBucket++;
+            placeEnd = (long) Math.floor((placeBucket + 1) * every) + 1;
+        }
+        while (placeBucket > currentBucket + 1) {
+            select(current, average(next));
+            current = next;
+            next = new ArrayList<>();
+            currentBucket++;
+        }
+        (placeBucket == currentBucket ? current : next).add(point);
+    }
+
+    private void select(List<VitalPoint> bucket, VitalPoint following) {
+        select(bucket, x(following), following.getValue().doubleValue());
+    }
+
+    private void select(List<VitalPoint> bucket, double[] following) {
+        select(bucket, following[0], following[1]);
+    }
+
+    private void select(List<VitalPoint> bucket, double cx, double cy) {
+        VitalPoint previous = output.get(output.size() - 1);
+        double ax = x(previous);
+        double ay = previous.getValue().doubleValue();
+
+        VitalPoint best = bucket.get(0);
+        double bestArea = -1;
+        for (VitalPoint point : bucket) {
+            double py = point.getValue().doubleValue();
+            double area = Math.abs((ax - cx) * (py - ay) - (ax - x(point)) * (cy - ay));
+            if (area > bestArea) {
+                bestArea = area;
+                best = point;
+            }
+        }
+        output.add(best);
+    }
+
+    private static double[] average(List<VitalPoint> bucket) {
+        double sumX = 0;
+        double sumY = 0;
+        for (VitalPoint point : bucket) {
+            sumX += x(point);
+            sumY += point.getValue().doubleValue();
+        }
+        return new double[] { sumX / bucket.size(), sumY / bucket.size() };
+    }
+
+    // Only distances along the time axis matter, so the nominal UTC instant avoids time zone lookups
+    private static double x(VitalPoint point) {
+        LocalDateTime timestamp = point.getTimestamp();
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1000.0 + timestamp.getNano() / 1_000_000.0;
+    }
+}
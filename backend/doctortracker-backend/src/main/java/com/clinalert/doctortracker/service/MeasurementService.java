@@ -18,15 +18,28 @@ public class MeasurementService {
 
     private final AnomalyDetectionService anomalyDetectionService;
 
+    private final AlertRuleEngine alertRuleEngine;
+
     @SuppressWarnings("null")
     public List<Measurement> saveMeasurements(List<Measurement> measurements) {
+        // Load trend windows before the batch lands so it is scored against prior history
+        anomalyDetectionService.warmUp(measurements);
+
         List<Measurement> saved = measurementRepository.saveAll(measurements);
+        AlertBatch batch = new AlertBatch();
 
-        // Check for alerts
+        // AI Anomaly Detection
         for (Measurement m : saved) {
-            checkAndCreateAlert(m);
+            if (anomalyDetectionService.isAnomaly(m)) {
+                batch.add("TREND:" + m.getType(),
+                        createAlert(m, "Abnormal trend detected for " + m.getType(), "WARNING"));
+            }
         }
 
+        // Threshold rules
+        alertRuleEngine.evaluateMeasurements(saved, batch);
+
+        alertService.createAlerts(batch);
         return saved;
     }
 
@@ -34,29 +47,12 @@ public class MeasurementService {
         return measurementRepository.findByPatientId(patientId);
     }
 
-    private void checkAndCreateAlert(Measurement m) {
-        // AI Anomaly Detection
-        if (anomalyDetectionService.isAnomaly(m)) {
-            createAlert(m, "Abnormal trend detected for " + m.getType(), "WARNING");
-        }
-
-        if ("Heart Rate".equalsIgnoreCase(m.getType())) {
-            if (m.getValue() > 100) {
-                createAlert(m, "High Heart Rate detected: " + m.getValue(), "HIGH");
-            } else if (m.getValue() < 50) {
-                createAlert(m, "Low Heart Rate detected: " + m.getValue(), "MEDIUM");
-            }
-        } else if ("SpO2".equalsIgnoreCase(m.getType()) && m.getValue() < 90) {
-            createAlert(m, "Low SpO2 detected: " + m.getValue(), "CRITICAL");
-        }
-    }
-
-    private void createAlert(Measurement m, String message, String severity) {
+    private static Alert createAlert(Measurement m, String message, String severity) {
         Alert alert = new Alert();
         alert.setPatientId(m.getPatientId());
         alert.setMeasurementId(m.getId());
         alert.setMessage(message);
         alert.setSeverity(severity);
-        alertService.createAlert(alert);
+        return alert;
     }
 }
@@ -0,0 +1,50 @@
+package com.clinalert.doctortracker.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default and maximum page sizes shared by the paginated list endpoints.
+ */
+@Component
+public class PageLimits {
+
+    private final int defaultSize;
+
+    private final int maxSize;
+
+    public PageLimits(@Value("${app.pagination.defaultSize:50}") int defaultSize,
+            @Value("${app.pagination.maxSize:500}") int maxSize) {
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @param size requested page size, or null for the default
+     * @throws IllegalArgumentException if the size is out of range
+     */
+    public int resolve(Integer size) {
+        int resolved = size == null ? defaultSize : size;
+        if (resolved < 1 || resolved > maxSize) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxSize);
+        }
+        return resolved;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the page is negative or the size is
+     *                                  out of range
+     */
+    public PageRequest pageRequest(int page, Integer size, Sort sort) {
+        if (page < 0) {
+            throw new IllegalArgumentException("page must not be negative");
+        }
+        return PageRequest.of(page, resolve(size), sort);
+    }
+}
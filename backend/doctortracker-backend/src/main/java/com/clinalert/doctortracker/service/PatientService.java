@@ -1,9 +1,14 @@
 package com.clinalert.doctortracker.service;
 
 import jakarta.persistence.EntityNotFoundException;
+import com.clinalert.doctortracker.dto.CursorPage;
 import com.clinalert.doctortracker.model.Patient;
 import com.clinalert.doctortracker.repository.PatientRepository;
+import com.clinalert.doctortracker.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -13,10 +18,47 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class PatientService {
 
+    private static final Sort BY_ID = Sort.by("id");
+
     private final PatientRepository patientRepository;
 
-    public List<Patient> getAllPatients() {
-        return patientRepository.findAll();
+    private final PageLimits pageLimits;
+
+    private final UnreadAlertIndex unreadIndex;
+
+    /**
+     * The first patients ordered by id, capped at the maximum page size. A
+     * non-null {@code nextCursor} means the list was cut short and the others
+     * are reached through {@link #getPatientsAfter}.
+     */
+    public CursorPage<Patient> getAllPatients() {
+        return getPatientsAfter(null, pageLimits.maxSize());
+    }
+
+    /**
+     * One offset page of patients, ordered by id.
+     *
+     * @throws IllegalArgumentException if the page or size is out of range
+     */
+    public Page<Patient> getPatientsPage(int page, Integer size) {
+        return patientRepository.findAll(pageLimits.pageRequest(page, size, BY_ID));
+    }
+
+    /**
+     * Keyset-paginated patients, ordered by id.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or null for the
+     *               first page
+     * @throws IllegalArgumentException if the size is out of range or the
+     *                                  cursor is malformed
+     */
+    public CursorPage<Patient> getPatientsAfter(String cursor, Integer size) {
+        int limit = pageLimits.resolve(size);
+        // One extra row tells whether another page follows
+        List<Patient> rows = cursor == null
+                ? patientRepository.findAllByOrderByIdAsc(Limit.of(limit + 1))
+                : patientRepository.findByIdGreaterThanOrderByIdAsc(CursorCodec.decode(cursor, 1)[0], Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, patient -> CursorCodec.encode(patient.getId()));
     }
 
     @SuppressWarnings("null")
@@ -34,12 +76,17 @@ public class PatientService {
 
     @SuppressWarnings("null")
     public Patient createPatient(Patient patient) {
-        return patientRepository.save(patient);
+        Patient saved = patientRepository.save(patient);
+        // Also an update when the patient exists: keep the unread counts on the right doctor and clinic
+        TransactionHooks.afterCommit(
+                () -> unreadIndex.updatePatient(saved.getId(), saved.getDoctorId(), saved.getClinicId()));
+        return saved;
     }
 
     @SuppressWarnings("null")
     public void deletePatient(String id) {
         patientRepository.deleteById(id);
+        TransactionHooks.afterCommit(() -> unreadIndex.updatePatient(id, null, null));
     }
 
     @SuppressWarnings("null")
@@ -0,0 +1,243 @@
+package com.clinalert.doctortracker.service;
+
+import com.clinalert.doctortracker.model.DailyHealthSummary;
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.repository.DailyHealthSummaryRepository;
+import com.clinalert.doctortracker.repository.HealthDataRepository;
+import com.clinalert.doctortracker.repository.RawDataRetentionRepository;
+import com.clinalert.doctortracker.repository.RawDataRetentionRepository.MonthPartition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Nightly maintenance of the raw time series tables, health_data and
+ * measurements.
+ * <p>
+ * On PostgreSQL the monthly partitions of the next
+ * {@code app.retention.partitionsAhead} months are created in advance for
+ * both tables. Health data rows older than {@code app.retention.rawDays}
+ * days are then removed once the daily summary of their patient and day
+ * exists: days never summarized are rolled up first, whole partitions that
+ * are fully summarized are dropped, and what remains is deleted day by day.
+ * Measurements are never removed: daily summaries are computed from
+ * health_data only, so they do not hold what a measurement recorded.
+ */
+@Service
+@Slf4j
+public class RawDataRetentionJob {
+
+    private static final List<String> RAW_TABLES = List.of(
+            RawDataRetentionRepository.HEALTH_DATA, RawDataRetentionRepository.MEASUREMENTS);
+
+    private static final String SUMMARIZED_TABLE = RawDataRetentionRepository.HEALTH_DATA;
+
+    private final RawDataRetentionRepository retentionRepository;
+
+    private final HealthDataRepository healthDataRepository;
+
+    private final DailyHealthSummaryRepository dailySummaryRepository;
+
+    private final int rawDays;
+
+    private final int partitionsAhead;
+
+    private final boolean rollup;
+
+    private final int batchSize;
+
+    private final int fetchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public RawDataRetentionJob(RawDataRetentionRepository retentionRepository,
+            HealthDataRepository healthDataRepository,
+            DailyHealthSummaryRepository dailySummaryRepository,
+            @Value("${app.retention.rawDays:0}") int rawDays,
+            @Value("${app.retention.partitionsAhead:3}") int partitionsAhead,
+            @Value("${app.retention.rollup:true}") boolean rollup,
+            @Value("${app.summaryJob.batchSize:500}") int batchSize,
+            @Value("${app.summaryJob.fetchSize:1000}") int fetchSize) {
+        this.retentionRepository = retentionRepository;
+        this.healthDataRepository = healthDataRepository;
+        this.dailySummaryRepository = dailySummaryRepository;
+        this.rawDays = rawDays;
+        this.partitionsAhead = partitionsAhead;
+        this.rollup = rollup;
+        this.batchSize = batchSize;
+        this.fetchSize = fetchSize;
+    }
+
+    @Scheduled(cron = "${app.retention.cron:0 30 3 * * *}")
+    public void runNightly() {
+        run(LocalDate.now());
+    }
+
+    /**
+     * Prepares the coming partitions and, if a horizon is configured, removes
+     * the summarized health data rows of days before {@code today - rawDays}.
+     *
+     * @throws IllegalStateException if a run is already in progress
+     */
+    public RunStats run(LocalDate today) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Raw data retention job is already running");
+        }
+        try {
+            return doRun(today);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private RunStats doRun(LocalDate today) {
+        long started = System.currentTimeMillis();
+        RunStats stats = new RunStats();
+        YearMonth current = YearMonth.from(today);
+        for (String table : RAW_TABLES) {
+            if (retentionRepository.isPartitioned(table)) {
+                // A month that cannot be prepared must not hold back the retention below
+                try {
+                    stats.partitionsCreated += retentionRepository.createMonthlyPartitions(table, current,
+                            current.plusMonths(partitionsAhead));
+                } catch (RuntimeException e) {
+                    log.error("Could not create the coming partitions of {}", table, e);
+                }
+            }
+        }
+        if (rawDays <= 0) {
+            return stats;
+        }
+
+        LocalDate cutoff = today.minusDays(rawDays);
+        stats.cutoff = cutoff;
+        if (rollup) {
+            retentionRepository.findOldestDay(SUMMARIZED_TABLE).ifPresent(oldest -> {
+                for (LocalDate day = oldest; day.isBefore(cutoff); day = day.plusDays(1)) {
+                    stats.summariesRolledUp += rollUp(day);
+                }
+            });
+        }
+        if (retentionRepository.isPartitioned(SUMMARIZED_TABLE)) {
+            dropExpiredPartitions(SUMMARIZED_TABLE, cutoff, stats);
+        }
+        LocalDate oldest = retentionRepository.findOldestDay(SUMMARIZED_TABLE).orElse(cutoff);
+        for (LocalDate day = oldest; day.isBefore(cutoff); day = day.plusDays(1)) {
+            stats.rowsDeleted += retentionRepository.deleteSummarizedRows(SUMMARIZED_TABLE, day);
+        }
+
+        stats.durationMs = System.currentTimeMillis() - started;
+        log.info("Health data before {} retired: {} summaries rolled up, {} partitions dropped, {} rows deleted in {} ms",
+                cutoff, stats.summariesRolledUp, stats.partitionsDropped, stats.rowsDeleted, stats.durationMs);
+        return stats;
+    }
+
+    // Writes the missing summaries of one day from its raw rows, so they can be retired
+    private int rollUp(LocalDate day) {
+        Set<String> summarized = dailySummaryRepository.findPatientIdsByDate(day);
+        List<DailyHealthSummary> chunk = new ArrayList<>();
+        int[] written = { 0 };
+        DayRollup rollupScan = new DayRollup(day, summarized, summary -> {
+            chunk.add(summary);
+            if (chunk.size() >= batchSize) {
+                written[0] += dailySummaryRepository.upsertSummaries(new ArrayList<>(chunk));
+                chunk.clear();
+            }
+        });
+        healthDataRepository.streamByPatient(day.atStartOfDay(), day.plusDays(1).atStartOfDay(), null, fetchSize,
+                rollupScan::accept);
+        rollupScan.finish();
+        written[0] += dailySummaryRepository.upsertSummaries(chunk);
+        return written[0];
+    }
+
+    private void dropExpiredPartitions(String table, LocalDate cutoff, RunStats stats) {
+        for (MonthPartition partition : retentionRepository.findMonthlyPartitions(table)) {
+            boolean expired = !partition.month().plusMonths(1).atDay(1).isAfter(cutoff);
+            if (expired && retentionRepository.isFullySummarized(partition)) {
+                retentionRepository.dropPartition(table, partition);
+                stats.partitionsDropped++;
+                log.info("Dropped partition {}", partition.name());
+            }
+        }
+    }
+
+    /**
+     * Folds a day's rows, streamed grouped by patient, into summaries for the
+     * patients that do not have one yet.
+     */
+    private static final class DayRollup {
+
+        private final LocalDate day;
+        private final Set<String> summarized;
+        private final java.util.function.Consumer<DailyHealthSummary> sink;
+
+        private String currentPatient;
+        private DailySummaryAccumulator current;
+
+        DayRollup(LocalDate day, Set<String> summarized, java.util.function.Consumer<DailyHealthSummary> sink) {
+            this.day = day;
+            this.summarized = summarized;
+            this.sink = sink;
+        }
+
+        void accept(HealthData row) {
+            if (!row.getPatientId().equals(currentPatient)) {
+                finish();
+                currentPatient = row.getPatientId();
+                current = summarized.contains(currentPatient) ? null : new DailySummaryAccumulator();
+            }
+            if (current != null) {
+                current.add(row);
+            }
+        }
+
+        void finish() {
+            if (current != null) {
+                sink.accept(current.toSummary(currentPatient, day));
+                current = null;
+            }
+        }
+    }
+
+    public static class RunStats {
+        private LocalDate cutoff;
+        private long partitionsCreated;
+        private long summariesRolledUp;
+        private long partitionsDropped;
+        private long rowsDeleted;
+        private long durationMs;
+
+        public LocalDate getCutoff() {
+            return cutoff;
+        }
+
+        public long getPartitionsCreated() {
+            return partitionsCreated;
+        }
+
+        public long getSummariesRolledUp() {
+            return summariesRolledUp;
+        }
+
+        public long getPartitionsDropped() {
+            return partitionsDropped;
+        }
+
+        public long getRowsDeleted() {
+            return rowsDeleted;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+}
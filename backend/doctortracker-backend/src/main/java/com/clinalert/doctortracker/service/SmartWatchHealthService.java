@@ -1,22 +1,36 @@
 package com.clinalert.doctortracker.service;
 
+import com.clinalert.doctortracker.dto.CursorPage;
+import com.clinalert.doctortracker.dto.VitalBucket;
+import com.clinalert.doctortracker.dto.VitalPoint;
+import com.clinalert.doctortracker.dto.VitalSeries;
 import com.clinalert.doctortracker.model.DailyHealthSummary;
 import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.model.HealthMetric;
 import com.clinalert.doctortracker.model.SmartWatchDevice;
-import com.clinalert.doctortracker.model.Alert;
 import com.clinalert.doctortracker.repository.DailyHealthSummaryRepository;
 import com.clinalert.doctortracker.repository.HealthDataRepository;
+import com.clinalert.doctortracker.repository.HealthDataRepositoryCustom.Span;
+import com.clinalert.doctortracker.repository.HealthDataRepositoryCustom.ValueSink;
 import com.clinalert.doctortracker.repository.SmartWatchDeviceRepository;
+import com.clinalert.doctortracker.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -30,6 +44,17 @@ public class SmartWatchHealthService {
 
     private final AlertService alertService;
 
+    private final AlertRuleEngine alertRuleEngine;
+
+    @Value("${app.history.fetchSize:500}")
+    private int historyFetchSize;
+
+    @Value("${app.history.maxPageSize:1000}")
+    private int maxHistoryPageSize;
+
+    @Value("${app.history.maxPoints:2000}")
+    private int maxDownsamplePoints;
+
     // ==================== Device Management ====================
 
     public SmartWatchDevice registerDevice(SmartWatchDevice device) {
@@ -86,11 +111,10 @@ public class SmartWatchHealthService {
     public List<HealthData> saveHealthData(List<HealthData> healthDataList) {
         Objects.requireNonNull(healthDataList, "healthDataList must not be null");
         List<HealthData> saved = healthDataRepository.saveAll(healthDataList);
+        updateDailySummaries(saved);
 
         // Check for anomalies and create alerts
-        for (HealthData data : saved) {
-            checkAndCreateAlerts(data);
-        }
+        checkAlerts(saved);
 
         return saved;
     }
@@ -98,7 +122,8 @@ public class SmartWatchHealthService {
     public HealthData saveHealthData(HealthData healthData) {
         Objects.requireNonNull(healthData, "healthData must not be null");
         HealthData saved = healthDataRepository.save(healthData);
-        checkAndCreateAlerts(saved);
+        updateDailySummaries(List.of(saved));
+        checkAlerts(List.of(saved));
         return saved;
     }
 
@@ -126,108 +151,163 @@ public class SmartWatchHealthService {
         return healthDataRepository.findSleepDataByPatientId(patientId);
     }
 
-    // ==================== Daily Summary Management ====================
+    /**
+     * A vital's whole history as (timestamp, value) points, newest first.
+     */
+    public List<VitalPoint> getHistoryPoints(String patientId, HealthMetric metric) {
+        return healthDataRepository.findHistoryPoints(patientId, metric).stream()
+                .map(reading -> new VitalPoint(reading.timestamp(), reading.value()))
+                .toList();
+    }
 
-    @Transactional
-    public DailyHealthSummary generateDailySummary(String patientId, LocalDate date) {
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
+    /**
+     * A vital's whole history as parallel timestamp and value arrays, newest
+     * first.
+     */
+    public VitalSeries getHistorySeries(String patientId, HealthMetric metric) {
+        SeriesCollector collector = new SeriesCollector();
+        healthDataRepository.forEachHistoryValue(patientId, metric, collector);
+        return collector.toSeries();
+    }
 
-        List<HealthData> dayData = healthDataRepository
-                .findByPatientIdAndTimestampBetweenOrderByTimestampAsc(patientId, startOfDay, endOfDay);
+    /**
+     * Hands every row of a vital's history to {@code sink}, newest first,
+     * without holding the history in memory.
+     */
+    public void streamHistory(String patientId, HealthMetric metric, Consumer<HealthData> sink) {
+        healthDataRepository.streamHistory(patientId, metric, historyFetchSize, sink);
+    }
 
-        if (dayData.isEmpty()) {
-            return null;
+    /**
+     * Keyset-paginated history of a vital, newest first.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or null for the
+     *               first page
+     * @throws IllegalArgumentException if the limit is out of range or the
+     *                                  cursor is malformed
+     */
+    public CursorPage<HealthData> getHistoryPage(String patientId, HealthMetric metric, String cursor, int limit) {
+        if (limit < 1 || limit > maxHistoryPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxHistoryPageSize);
         }
 
-        // Check for existing summary
-        DailyHealthSummary summary = dailySummaryRepository
-                .findByPatientIdAndDate(patientId, date)
-                .orElse(new DailyHealthSummary());
-
-        summary.setPatientId(patientId);
-        summary.setDate(date);
-        summary.setDataPointsCount(dayData.size());
+        LocalDateTime beforeTimestamp = null;
+        String beforeId = null;
+        if (cursor != null) {
+            String[] parts = CursorCodec.decode(cursor, 2);
+            try {
+                beforeTimestamp = LocalDateTime.parse(parts[0]);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid pagination cursor", e);
+            }
+            beforeId = parts[1];
+        }
 
-        // Calculate heart rate stats
-        List<Integer> heartRates = dayData.stream()
-                .filter(d -> d.getHeartRate() != null)
-                .map(HealthData::getHeartRate)
-                .toList();
+        // One extra row tells whether another page follows
+        List<HealthData> rows = healthDataRepository.findHistoryPage(patientId, metric, beforeTimestamp, beforeId,
+                limit + 1);
+        return CursorPage.of(rows, limit, row -> CursorCodec.encode(row.getTimestamp().toString(), row.getId()));
+    }
 
-        if (!heartRates.isEmpty()) {
-            summary.setAvgHeartRate(heartRates.stream().mapToInt(Integer::intValue).average().orElse(0));
-            summary.setMinHeartRate(heartRates.stream().mapToInt(Integer::intValue).min().orElse(0));
-            summary.setMaxHeartRate(heartRates.stream().mapToInt(Integer::intValue).max().orElse(0));
+    /**
+     * Reduces a vital's readings with {@code from <= timestamp <= to} (null
+     * bounds are open) to at most {@code points} real readings chosen with
+     * LTTB, oldest first. The readings are streamed, never held in full.
+     *
+     * @throws IllegalArgumentException if {@code points} is out of range
+     */
+    public List<VitalPoint> downsampleLttb(String patientId, HealthMetric metric, LocalDateTime from,
+            LocalDateTime to, int points) {
+        checkPoints(points);
+        Span span = healthDataRepository.findHistorySpan(patientId, metric, from, to);
+        if (span.count() == 0) {
+            return List.of();
         }
+        LttbDownsampler downsampler = new LttbDownsampler(span.count(), points);
+        healthDataRepository.streamHistoryPoints(patientId, metric, from, to, historyFetchSize,
+                reading -> downsampler.accept(new VitalPoint(reading.timestamp(), reading.value())));
+        return downsampler.finish();
+    }
 
-        // Calculate steps total
-        int totalSteps = dayData.stream()
-                .filter(d -> d.getSteps() != null)
-                .mapToInt(HealthData::getSteps)
-                .sum();
-        summary.setTotalSteps(totalSteps);
-
-        // Calculate sleep total
-        int totalSleep = dayData.stream()
-                .filter(d -> d.getSleepMinutes() != null)
-                .mapToInt(HealthData::getSleepMinutes)
-                .sum();
-        summary.setTotalSleepMinutes(totalSleep);
-
-        // Calculate SpO2 average
-        List<Double> spO2Values = dayData.stream()
-                .filter(d -> d.getSpO2() != null)
-                .map(HealthData::getSpO2)
+    /**
+     * Splits the same readings into {@code points} equal-width time buckets
+     * with the min, max and average of each, oldest first. Open bounds are
+     * narrowed to the first and last reading.
+     *
+     * @throws IllegalArgumentException if {@code points} is out of range
+     */
+    public List<VitalBucket> getHistoryBuckets(String patientId, HealthMetric metric, LocalDateTime from,
+            LocalDateTime to, int points) {
+        checkPoints(points);
+        Span span = healthDataRepository.findHistorySpan(patientId, metric, from, to);
+        if (span.count() == 0) {
+            return List.of();
+        }
+        return healthDataRepository.findHistoryBuckets(patientId, metric,
+                from != null ? from : span.first(), to != null ? to : span.last(), points).stream()
+                .map(bucket -> new VitalBucket(bucket.timestamp(), bucket.min(), bucket.max(), bucket.avg(),
+                        bucket.count()))
                 .toList();
+    }
 
-        if (!spO2Values.isEmpty()) {
-            summary.setAvgSpO2(spO2Values.stream().mapToDouble(Double::doubleValue).average().orElse(0));
-            summary.setMinSpO2(spO2Values.stream().mapToDouble(Double::doubleValue).min().orElse(0));
+    private void checkPoints(int points) {
+        if (points < 3 || points > maxDownsamplePoints) {
+            throw new IllegalArgumentException("points must be between 3 and " + maxDownsamplePoints);
         }
+    }
 
-        // Calculate blood pressure averages
-        List<Integer> systolicValues = dayData.stream()
-                .filter(d -> d.getBloodPressureSystolic() != null)
-                .map(HealthData::getBloodPressureSystolic)
-                .toList();
+    // ==================== Daily Summary Management ====================
 
-        if (!systolicValues.isEmpty()) {
-            summary.setAvgSystolic(systolicValues.stream().mapToInt(Integer::intValue).average().orElse(0));
+    /**
+     * Folds rows that have just been persisted into the daily summaries of
+     * their patients, so summaries stay current without rescanning the day.
+     */
+    public void updateDailySummaries(List<HealthData> savedRows) {
+        Map<SummaryKey, DailySummaryAccumulator> byDay = new HashMap<>();
+        for (HealthData row : savedRows) {
+            if (row.getPatientId() == null || row.getTimestamp() == null) {
+                continue;
+            }
+            byDay.computeIfAbsent(new SummaryKey(row.getPatientId(), row.getTimestamp().toLocalDate()),
+                    k -> new DailySummaryAccumulator()).add(row);
+        }
+        if (byDay.isEmpty()) {
+            return;
         }
 
-        List<Integer> diastolicValues = dayData.stream()
-                .filter(d -> d.getBloodPressureDiastolic() != null)
-                .map(HealthData::getBloodPressureDiastolic)
+        // Stable order so concurrent batches lock summary rows in the same sequence
+        List<DailyHealthSummary> increments = byDay.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> e.getValue().toSummary(e.getKey().patientId(), e.getKey().date()))
                 .toList();
+        dailySummaryRepository.mergeIncrements(increments);
+    }
 
-        if (!diastolicValues.isEmpty()) {
-            summary.setAvgDiastolic(diastolicValues.stream().mapToInt(Integer::intValue).average().orElse(0));
-        }
+    /**
+     * Recomputes a summary from every reading of the day. Summaries are
+     * maintained incrementally on ingest; this is only needed to repair one.
+     */
+    @Transactional
+    public DailyHealthSummary generateDailySummary(String patientId, LocalDate date) {
+        LocalDateTime startOfDay = date.atStartOfDay();
+        LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
 
-        // Calculate calories and distance
-        int totalCalories = dayData.stream()
-                .filter(d -> d.getCaloriesBurned() != null)
-                .mapToInt(HealthData::getCaloriesBurned)
-                .sum();
-        summary.setTotalCaloriesBurned(totalCalories);
-
-        double totalDistance = dayData.stream()
-                .filter(d -> d.getDistanceMeters() != null)
-                .mapToDouble(HealthData::getDistanceMeters)
-                .sum();
-        summary.setTotalDistanceMeters(totalDistance);
-
-        // Calculate temperature average
-        List<Double> tempValues = dayData.stream()
-                .filter(d -> d.getTemperature() != null)
-                .map(HealthData::getTemperature)
-                .toList();
+        List<HealthData> dayData = healthDataRepository
+                .findByPatientIdAndTimestampBetweenOrderByTimestampAsc(patientId, startOfDay, endOfDay);
 
-        if (!tempValues.isEmpty()) {
-            summary.setAvgTemperature(tempValues.stream().mapToDouble(Double::doubleValue).average().orElse(0));
+        if (dayData.isEmpty()) {
+            return null;
         }
 
+        // Check for existing summary
+        DailyHealthSummary summary = dailySummaryRepository
+                .findByPatientIdAndDate(patientId, date)
+                .orElse(new DailyHealthSummary());
+
+        summary.setPatientId(patientId);
+        summary.setDate(date);
+        dayData.stream().collect(DailySummaryAccumulator.collector()).applyTo(summary);
+
         return dailySummaryRepository.save(summary);
     }
 
@@ -245,103 +325,14 @@ public class SmartWatchHealthService {
 
     // ==================== Alert Detection ====================
 
-    private void checkAndCreateAlerts(HealthData data) {
-        checkHeartRate(data);
-        checkSpO2(data);
-        checkBloodPressure(data);
-        checkTemperature(data);
-    }
-
-    private void checkHeartRate(HealthData data) {
-        if (data.getHeartRate() != null) {
-            String alertMessage = null;
-            String severity = null;
-
-            if (data.getHeartRate() > 150) {
-                alertMessage = "Critical Heart Rate: " + data.getHeartRate() + " bpm";
-                severity = com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_CRITICAL;
-            } else if (data.getHeartRate() > 120) {
-                alertMessage = "High Heart Rate: " + data.getHeartRate() + " bpm";
-                severity = com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_HIGH;
-            } else if (data.getHeartRate() < 50) {
-                alertMessage = "Low Heart Rate: " + data.getHeartRate() + " bpm";
-                severity = com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_MEDIUM;
-            }
-
-            if (alertMessage != null) {
-                createAlert(data, alertMessage, severity);
-            }
-        }
-    }
-
-    private void checkSpO2(HealthData data) {
-        if (data.getSpO2() != null) {
-            String alertMessage = null;
-            String severity = null;
-
-            if (data.getSpO2() < 90) {
-                alertMessage = "Critical SpO2 Level: " + data.getSpO2() + "%";
-                severity = com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_CRITICAL;
-            } else if (data.getSpO2() < 94) {
-                alertMessage = "Low SpO2 Level: " + data.getSpO2() + "%";
-                severity = com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_HIGH;
-            }
-
-            if (alertMessage != null) {
-                createAlert(data, alertMessage, severity);
-            }
-        }
-    }
-
-    private void checkBloodPressure(HealthData data) {
-        if (data.getBloodPressureSystolic() != null) {
-            String alertMessage = null;
-            String severity = null;
-
-            if (data.getBloodPressureSystolic() > 180) {
-                alertMessage = "Hypertensive Crisis: " + data.getBloodPressureSystolic() + "/" +
-                        data.getBloodPressureDiastolic() + " mmHg";
-                severity = com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_CRITICAL;
-            } else if (data.getBloodPressureSystolic() > 140) {
-                alertMessage = "High Blood Pressure: " + data.getBloodPressureSystolic() + "/" +
-                        data.getBloodPressureDiastolic() + " mmHg";
-                severity = com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_HIGH;
-            }
-
-            if (alertMessage != null) {
-                createAlert(data, alertMessage, severity);
-            }
-        }
-    }
-
-    private void checkTemperature(HealthData data) {
-        if (data.getTemperature() != null) {
-            String alertMessage = null;
-            String severity = null;
-
-            if (data.getTemperature() > 40.0) {
-                alertMessage = "Critical Fever: " + data.getTemperature() + "°C";
-                severity = com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_CRITICAL;
-            } else if (data.getTemperature() > 39.0) {
-                alertMessage = "High Fever: " + data.getTemperature() + "°C";
-                severity = com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_HIGH;
-            } else if (data.getTemperature() < 35.0) {
-                alertMessage = "Hypothermia: " + data.getTemperature() + "°C";
-                severity = com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_HIGH;
-            }
-
-            if (alertMessage != null) {
-                createAlert(data, alertMessage, severity);
-            }
-        }
-    }
-
-    private void createAlert(HealthData data, String message, String severity) {
-        Alert alert = new Alert();
-        alert.setPatientId(data.getPatientId());
-        alert.setMessage(message);
-        alert.setSeverity(severity);
-        alertService.createAlert(alert);
+    /**
+     * Runs alert detection over rows that have already been persisted, e.g. by
+     * the asynchronous ingestion pipeline.
+     */
+    public void checkAlerts(List<HealthData> savedRows) {
+        AlertBatch batch = new AlertBatch();
+        alertRuleEngine.evaluateHealthData(savedRows, batch);
+        alertService.createAlerts(batch);
     }
 
     // ==================== Statistics ====================
@@ -374,6 +365,43 @@ public class SmartWatchHealthService {
         return stats;
     }
 
+    // Patient and day of a daily summary, ordered so that summary rows are always locked in the same sequence
+    private record SummaryKey(String patientId, LocalDate date) implements Comparable<SummaryKey> {
+
+        private static final Comparator<SummaryKey> ORDER = Comparator.comparing(SummaryKey::patientId)
+                .thenComparing(SummaryKey::date);
+
+        @Override
+        public int compareTo(SummaryKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    /**
+     * Appends (timestamp, value) readings to growing primitive arrays.
+     */
+    private static final class SeriesCollector implements ValueSink {
+
+        private long[] timestamps = new long[256];
+        private double[] values = new double[256];
+        private int size;
+
+        @Override
+        public void accept(LocalDateTime timestamp, double value) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            timestamps[size] = VitalSeries.toEpochMillis(timestamp);
+            values[size] = value;
+            size++;
+        }
+
+        VitalSeries toSeries() {
+            return new VitalSeries(Arrays.copyOf(timestamps, size), Arrays.copyOf(values, size), null);
+        }
+    }
+
     // Inner class for stats
     public static class HealthDataStats {
         private Integer latestHeartRate;
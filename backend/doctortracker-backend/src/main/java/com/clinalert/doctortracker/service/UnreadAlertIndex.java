@@ -0,0 +1,374 @@
+package com.clinalert.doctortracker.service;
+
+import com.clinalert.doctortracker.dto.UnreadCounts;
+import com.clinalert.doctortracker.model.Alert;
+import com.clinalert.doctortracker.model.Patient;
+import com.clinalert.doctortracker.repository.AlertRepository;
+import com.clinalert.doctortracker.repository.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of the unread alerts, so dashboards get unread counts per
+ * patient, doctor and clinic without scanning the alerts table.
+ * <p>
+ * Every unread alert is kept with its patient, severity and timestamp, and
+ * counted per severity for its patient, for the patient's doctor and clinic
+ * and globally; reading a count is a map lookup. The index follows alert
+ * creation, reads and escalation through {@link AlertService} and
+ * {@link EscalationService}, and patient reassignment through
+ * {@link PatientService}, once the corresponding transaction has committed.
+ * <p>
+ * It is rebuilt from the database at startup and every
+ * {@code app.unreadIndex.rebuildIntervalMs}, and sooner when the number of
+ * unread alerts checked every {@code app.unreadIndex.reconcileIntervalMs}
+ * no longer matches the table. Changes made through another instance are
+ * therefore only picked up by the next reconciliation or rebuild.
+ */
+@Component
+@Slf4j
+public class UnreadAlertIndex {
+
+    private static final String UNKNOWN_SEVERITY = "UNKNOWN";
+
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator
+            .comparing(Entry::timestamp, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Entry::alertId, Comparator.reverseOrder());
+
+    private static final Route NO_ROUTE = new Route(null, null);
+
+    private final AlertRepository alertRepository;
+
+    private final PatientRepository patientRepository;
+
+    // Everything below is guarded by this
+    private final Map<String, Entry> byId = new HashMap<>();
+    private final Map<String, Map<String, Entry>> byPatient = new HashMap<>();
+    private final Map<String, Route> routes = new HashMap<>();
+    private final Map<String, Set<String>> doctorPatients = new HashMap<>();
+    private final Map<String, Set<String>> clinicPatients = new HashMap<>();
+    private final Map<String, Tally> patientTallies = new HashMap<>();
+    private final Map<String, Tally> doctorTallies = new HashMap<>();
+    private final Map<String, Tally> clinicTallies = new HashMap<>();
+    private final Tally total = new Tally();
+
+    public UnreadAlertIndex(AlertRepository alertRepository, PatientRepository patientRepository) {
+        this.alertRepository = alertRepository;
+        this.patientRepository = patientRepository;
+    }
+
+    /**
+     * Reloads the index from the patients and unread alerts in the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.unreadIndex.rebuildIntervalMs:3600000}",
+            initialDelayString = "${app.unreadIndex.rebuildIntervalMs:3600000}")
+    public synchronized void rebuild() {
+        byId.clear();
+        byPatient.clear();
+        routes.clear();
+        doctorPatients.clear();
+        clinicPatients.clear();
+        patientTallies.clear();
+        doctorTallies.clear();
+        clinicTallies.clear();
+        total.clear();
+        for (Patient patient : patientRepository.findAll()) {
+            setRoute(patient.getId(), new Route(patient.getDoctorId(), patient.getClinicId()));
+        }
+        alertRepository.forEachUnread(this::addLocked);
+        log.info("Unread alert index rebuilt: {} unread alerts", byId.size());
+    }
+
+    /**
+     * Rebuilds the index when its unread total differs from the table's,
+     * which catches the alerts created or read through another instance.
+     *
+     * @return whether the index was rebuilt
+     */
+    @Scheduled(fixedDelayString = "${app.unreadIndex.reconcileIntervalMs:60000}",
+            initialDelayString = "${app.unreadIndex.reconcileIntervalMs:60000}")
+    public boolean reconcile() {
+        long stored = alertRepository.countByIsReadFalse();
+        int indexed;
+        synchronized (this) {
+            indexed = byId.size();
+        }
+        if (stored == indexed) {
+            return false;
+        }
+        log.info("Unread alert index out of date ({} indexed, {} stored), rebuilding", indexed, stored);
+        rebuild();
+        return true;
+    }
+
+    public void add(Alert alert) {
+        addAll(List.of(alert));
+    }
+
+    public void addAll(Collection<Alert> alerts) {
+        // Unknown patients are looked up before taking the lock
+        Map<String, Route> missing = new HashMap<>();
+        for (Alert alert : alerts) {
+            String patientId = alert.getPatientId();
+            if (patientId != null && !missing.containsKey(patientId) && !hasRoute(patientId)) {
+                missing.put(patientId, patientRepository.findById(patientId)
+                        .map(patient -> new Route(patient.getDoctorId(), patient.getClinicId()))
+                        .orElse(NO_ROUTE));
+            }
+        }
+        synchronized (this) {
+            missing.forEach((patientId, route) -> {
+                if (!routes.containsKey(patientId)) {
+                    setRoute(patientId, route);
+                }
+            });
+            alerts.forEach(this::addLocked);
+        }
+    }
+
+    public synchronized void markRead(Collection<String> alertIds) {
+        alertIds.forEach(this::removeLocked);
+    }
+
+    /**
+     * Drops a patient's unread alerts, all of them or those raised before
+     * {@code before}.
+     */
+    public synchronized void markPatientRead(String patientId, LocalDateTime before) {
+        Map<String, Entry> entries = byPatient.get(patientId);
+        if (entries == null) {
+            return;
+        }
+        List<String> read = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (isBefore(entry, before)) {
+                read.add(entry.alertId);
+            }
+        }
+        read.forEach(this::removeLocked);
+    }
+
+    public synchronized void markReadBefore(LocalDateTime before) {
+        List<String> read = new ArrayList<>();
+        for (Entry entry : byId.values()) {
+            if (isBefore(entry, before)) {
+                read.add(entry.alertId);
+            }
+        }
+        read.forEach(this::removeLocked);
+    }
+
+    /**
+     * Moves the given unread alerts from severity {@code from} to {@code to},
+     * after an escalation.
+     */
+    public synchronized void regrade(Collection<String> alertIds, String from, String to) {
+        for (String alertId : alertIds) {
+            Entry entry = byId.get(alertId);
+            if (entry != null && from.equals(entry.severity)) {
+                removeLocked(alertId);
+                insertLocked(new Entry(alertId, entry.patientId, to, entry.timestamp));
+            }
+        }
+    }
+
+    /**
+     * Records a patient's current doctor and clinic, moving its unread alerts
+     * to the new doctor's and clinic's counts.
+     */
+    public synchronized void updatePatient(String patientId, String doctorId, String clinicId) {
+        Route route = new Route(doctorId, clinicId);
+        if (route.equals(routes.get(patientId))) {
+            return;
+        }
+        Collection<Entry> entries = new ArrayList<>(byPatient.getOrDefault(patientId, Map.of()).values());
+        entries.forEach(entry -> removeLocked(entry.alertId));
+        setRoute(patientId, route);
+        entries.forEach(this::insertLocked);
+    }
+
+    /**
+     * Unread counts of one patient, doctor or clinic, or of the whole system
+     * when all three are null.
+     *
+     * @throws IllegalArgumentException if more than one scope is given
+     */
+    public synchronized UnreadCounts counts(String patientId, String doctorId, String clinicId) {
+        requireSingleScope(patientId, doctorId, clinicId);
+        Tally tally;
+        if (patientId != null) {
+            tally = patientTallies.get(patientId);
+        } else if (doctorId != null) {
+            tally = doctorTallies.get(doctorId);
+        } else if (clinicId != null) {
+            tally = clinicTallies.get(clinicId);
+        } else {
+            tally = total;
+        }
+        return tally == null ? new UnreadCounts(0, Map.of()) : tally.snapshot();
+    }
+
+    /**
+     * Ids of the newest unread alerts matching every non-null filter, newest
+     * first.
+     */
+    public synchronized List<String> unreadIds(String patientId, String doctorId, String clinicId, String severity,
+            int limit) {
+        Collection<String> patients;
+        if (patientId != null) {
+            patients = List.of(patientId);
+        } else if (doctorId != null) {
+            patients = doctorPatients.getOrDefault(doctorId, Set.of());
+        } else if (clinicId != null) {
+            patients = clinicPatients.getOrDefault(clinicId, Set.of());
+        } else {
+            patients = byPatient.keySet();
+        }
+        List<Entry> matches = new ArrayList<>();
+        for (String patient : patients) {
+            Route route = routes.getOrDefault(patient, NO_ROUTE);
+            if ((doctorId != null && !doctorId.equals(route.doctorId))
+                    || (clinicId != null && !clinicId.equals(route.clinicId))) {
+                continue;
+            }
+            for (Entry entry : byPatient.getOrDefault(patient, Map.of()).values()) {
+                if (severity == null || severity.equals(entry.severity)) {
+                    matches.add(entry);
+                }
+            }
+        }
+        return matches.stream().sorted(NEWEST_FIRST).limit(limit).map(Entry::alertId).toList();
+    }
+
+    private static void requireSingleScope(String patientId, String doctorId, String clinicId) {
+        long scopes = Stream.of(patientId, doctorId, clinicId).filter(Objects::nonNull).count();
+        if (scopes > 1) {
+            throw new IllegalArgumentException("Only one of patientId, doctorId and clinicId can be given");
+        }
+    }
+
+    private synchronized boolean hasRoute(String patientId) {
+        return routes.containsKey(patientId);
+    }
+
+    private void addLocked(Alert alert) {
+        if (alert.isRead() || alert.getId() == null || byId.containsKey(alert.getId())) {
+            return;
+        }
+        String severity = alert.getSeverity() == null ? UNKNOWN_SEVERITY : alert.getSeverity();
+        insertLocked(new Entry(alert.getId(), alert.getPatientId(), severity, alert.getTimestamp()));
+    }
+
+    private void insertLocked(Entry entry) {
+        byId.put(entry.alertId, entry);
+        byPatient.computeIfAbsent(entry.patientId, k -> new HashMap<>()).put(entry.alertId, entry);
+        adjust(entry, 1);
+    }
+
+    private void removeLocked(String alertId) {
+        Entry entry = byId.remove(alertId);
+        if (entry == null) {
+            return;
+        }
+        Map<String, Entry> entries = byPatient.get(entry.patientId);
+        entries.remove(alertId);
+        if (entries.isEmpty()) {
+            byPatient.remove(entry.patientId);
+        }
+        adjust(entry, -1);
+    }
+
+    private void adjust(Entry entry, int delta) {
+        total.add(entry.severity, delta);
+        if (entry.patientId == null) {
+            return;
+        }
+        adjust(patientTallies, entry.patientId, entry.severity, delta);
+        Route route = routes.getOrDefault(entry.patientId, NO_ROUTE);
+        if (route.doctorId != null) {
+            adjust(doctorTallies, route.doctorId, entry.severity, delta);
+        }
+        if (route.clinicId != null) {
+            adjust(clinicTallies, route.clinicId, entry.severity, delta);
+        }
+    }
+
+    private static void adjust(Map<String, Tally> tallies, String key, String severity, int delta) {
+        Tally tally = tallies.computeIfAbsent(key, k -> new Tally());
+        tally.add(severity, delta);
+        if (tally.total == 0) {
+            tallies.remove(key);
+        }
+    }
+
+    private void setRoute(String patientId, Route route) {
+        Route previous = routes.put(patientId, route);
+        if (previous != null) {
+            unlink(doctorPatients, previous.doctorId, patientId);
+            unlink(clinicPatients, previous.clinicId, patientId);
+        }
+        if (route.doctorId != null) {
+            doctorPatients.computeIfAbsent(route.doctorId, k -> new HashSet<>()).add(patientId);
+        }
+        if (route.clinicId != null) {
+            clinicPatients.computeIfAbsent(route.clinicId, k -> new HashSet<>()).add(patientId);
+        }
+    }
+
+    private static void unlink(Map<String, Set<String>> index, String key, String patientId) {
+        if (key == null) {
+            return;
+        }
+        Set<String> patients = index.get(key);
+        if (patients != null && patients.remove(patientId) && patients.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static boolean isBefore(Entry entry, LocalDateTime before) {
+        return before == null || (entry.timestamp != null && entry.timestamp.isBefore(before));
+    }
+
+    private record Entry(String alertId, String patientId, String severity, LocalDateTime timestamp) {
+    }
+
+    private record Route(String doctorId, String clinicId) {
+    }
+
+    private static final class Tally {
+        private int total;
+        private final Map<String, Integer> bySeverity = new TreeMap<>();
+
+        void add(String severity, int delta) {
+            total += delta;
+            bySeverity.merge(severity, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+
+        void clear() {
+            total = 0;
+            bySeverity.clear();
+        }
+
+        UnreadCounts snapshot() {
+            return new UnreadCounts(total, Collections.unmodifiableMap(new TreeMap<>(bySeverity)));
+        }
+    }
+}
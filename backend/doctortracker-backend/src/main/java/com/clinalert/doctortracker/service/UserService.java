@@ -1,10 +1,16 @@
 package com.clinalert.doctortracker.service;
 
+import com.clinalert.doctortracker.dto.CursorPage;
 import com.clinalert.doctortracker.model.User;
 import com.clinalert.doctortracker.repository.UserRepository;
+import com.clinalert.doctortracker.security.UserStateCache;
 import com.clinalert.doctortracker.util.AppConstants;
+import com.clinalert.doctortracker.util.CursorCodec;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 import org.springframework.lang.NonNull;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -17,12 +23,50 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class UserService {
 
+    private static final Sort BY_EMAIL = Sort.by(AppConstants.KEY_EMAIL);
+
     private final UserRepository userRepository;
 
     private final PasswordEncoder passwordEncoder;
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    private final UserStateCache userStateCache;
+
+    private final PageLimits pageLimits;
+
+    /**
+     * The first users ordered by email, capped at the maximum page size. A
+     * non-null {@code nextCursor} means the list was cut short and the others
+     * are reached through {@link #getUsersAfter}.
+     */
+    public CursorPage<User> getAllUsers() {
+        return getUsersAfter(null, pageLimits.maxSize());
+    }
+
+    /**
+     * One offset page of users, ordered by email.
+     *
+     * @throws IllegalArgumentException if the page or size is out of range
+     */
+    public Page<User> getUsersPage(int page, Integer size) {
+        return userRepository.findAll(pageLimits.pageRequest(page, size, BY_EMAIL));
+    }
+
+    /**
+     * Keyset-paginated users, ordered by email.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or null for the
+     *               first page
+     * @throws IllegalArgumentException if the size is out of range or the
+     *                                  cursor is malformed
+     */
+    public CursorPage<User> getUsersAfter(String cursor, Integer size) {
+        int limit = pageLimits.resolve(size);
+        // One extra row tells whether another page follows
+        List<User> rows = cursor == null
+                ? userRepository.findAllByOrderByEmailAsc(Limit.of(limit + 1))
+                : userRepository.findByEmailGreaterThanOrderByEmailAsc(CursorCodec.decode(cursor, 1)[0],
+                        Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, user -> CursorCodec.encode(user.getEmail()));
     }
 
     public Optional<User> getUserById(@NonNull String id) {
@@ -63,7 +107,10 @@ public class UserService {
         if (enabled != null) {
             user.setEnabled(enabled);
         }
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // Requests authenticated from token claims pick up the new role or disabled flag right away
+        userStateCache.invalidate(id);
+        return saved;
     }
 
     public User updateUserPassword(@NonNull String id, @NonNull String newPassword) {
@@ -91,7 +138,9 @@ public class UserService {
         }
 
         user.setEmail(newEmail);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userStateCache.invalidate(id);
+        return saved;
     }
 
     public void deleteUser(@NonNull String id) {
@@ -100,6 +149,7 @@ public class UserService {
             throw new EntityNotFoundException(AppConstants.ERROR_USER_NOT_FOUND_PREFIX + id);
         }
         userRepository.deleteById(id);
+        userStateCache.invalidate(id);
     }
 
     @SuppressWarnings("null")
@@ -17,6 +17,9 @@ public final class AppConstants {
     public static final String AUTHORIZATION_HEADER = "Authorization";
     public static final String BEARER_PREFIX = "Bearer ";
 
+    // Pagination
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     // Content Types
     public static final String CONTENT_TYPE_JSON = "application/json";
 
@@ -45,6 +48,7 @@ public final class AppConstants {
     public static final String KEY_FIRST_NAME = "firstName";
     public static final String KEY_LAST_NAME = "lastName";
     public static final String KEY_PHONE = "phone";
+    public static final String KEY_UPDATED = "updated";
 
     // Error Messages
     public static final String ERROR_DEVICE_ID_NULL = "deviceId must not be null";
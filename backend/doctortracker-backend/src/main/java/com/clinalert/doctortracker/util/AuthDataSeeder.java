@@ -19,7 +19,7 @@ public class AuthDataSeeder implements CommandLineRunner {
 
     private final PasswordEncoder passwordEncoder;
 
-    // Set to true to force password reset for all demo users
+    // Set to true to reset demo users back to their documented passwords
     private static final boolean FORCE_PASSWORD_RESET = true;
 
     @Override
@@ -44,8 +44,8 @@ public class AuthDataSeeder implements CommandLineRunner {
         Optional<User> existingUser = userRepository.findByEmail(email);
 
         if (existingUser.isPresent()) {
-            if (FORCE_PASSWORD_RESET) {
-                User user = existingUser.get();
+            User user = existingUser.get();
+            if (FORCE_PASSWORD_RESET && needsReset(user.getPassword(), password)) {
                 user.setPassword(passwordEncoder.encode(password));
                 userRepository.save(user);
                 log.info("Updated password for user: {} / [PROTECTED]", email);
@@ -62,4 +62,11 @@ public class AuthDataSeeder implements CommandLineRunner {
             log.info("Created user: {} / [PROTECTED]", email);
         }
     }
+
+    // Only re-hash a demo password that was changed or is stored in an outdated encoding
+    private boolean needsReset(String storedHash, String password) {
+        return storedHash == null
+                || passwordEncoder.upgradeEncoding(storedHash)
+                || !passwordEncoder.matches(password, storedHash);
+    }
 }
@@ -0,0 +1,41 @@
+package com.clinalert.doctortracker.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque pagination cursors: the sort key values of the last row of a page,
+ * joined and Base64url-encoded so clients pass them back untouched.
+ */
+public final class CursorCodec {
+
+    private static final char SEPARATOR = '\u001F';
+
+    private static final String ERROR_INVALID_CURSOR = "Invalid pagination cursor";
+
+    // Prevent instantiation
+    private CursorCodec() {
+    }
+
+    public static String encode(String... parts) {
+        String joined = String.join(String.valueOf(SEPARATOR), parts);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is malformed or does not
+     *                                  have {@code expectedParts} parts
+     */
+    public static String[] decode(String cursor, int expectedParts) {
+        try {
+            String joined = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = joined.split(String.valueOf(SEPARATOR), -1);
+            if (parts.length != expectedParts) {
+                throw new IllegalArgumentException(ERROR_INVALID_CURSOR);
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(ERROR_INVALID_CURSOR, e);
+        }
+    }
+}
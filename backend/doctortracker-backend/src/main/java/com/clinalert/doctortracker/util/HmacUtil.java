@@ -4,52 +4,170 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Verifies the HMAC-SHA256 signatures of device uploads, sent hex-encoded in
+ * either case.
+ * <p>
+ * Each thread keeps an initialised {@link Mac} and two digest buffers, so a
+ * verification allocates nothing besides the payload bytes. The signature is
+ * decoded into bytes and compared with {@link MessageDigest#isEqual}, whose
+ * time does not depend on where the first difference is.
+ */
 @Component
 public class HmacUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(HmacUtil.class);
 
+    private static final String ALGORITHM = "HmacSHA256";
+
     @Value("${app.hmacSecret}")
     private String hmacSecret;
 
+    private final ThreadLocal<Verifier> verifiers = ThreadLocal.withInitial(this::newVerifier);
+
     public boolean verifySignature(String payload, String signature) {
         if (payload == null || signature == null) {
             return false;
         }
         try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(hmacSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(secretKeySpec);
+            Verifier verifier = verifier();
+            verifier.mac.update(payload.getBytes(StandardCharsets.UTF_8));
+            return verifier.matches(signature);
+        } catch (Exception e) {
+            logger.error("Error verifying signature", e);
+            return false;
+        }
+    }
 
-            byte[] digest = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-            // We used digest.toString() in Dart which is not Hex, it's Instance ID usually!
-            // Wait, in Dart crypto package, digest.toString() returns Hex string.
-            // So we need to convert bytes to Hex here.
+    /**
+     * Wraps a request body so that its HMAC is computed over the bytes as
+     * they are consumed, letting the caller parse the body in the same pass
+     * instead of buffering it first. The stream uses the calling thread's
+     * {@link Mac}: it must be read and checked on that thread before anything
+     * else is signed there.
+     */
+    public SigningInputStream signing(InputStream body) {
+        return new SigningInputStream(body, verifier());
+    }
 
-            String calculatedSignature = bytesToHex(digest);
+    private Verifier verifier() {
+        Verifier verifier = verifiers.get();
+        // Drops the state of a stream that was abandoned before being checked
+        verifier.mac.reset();
+        return verifier;
+    }
 
-            return calculatedSignature.equalsIgnoreCase(signature);
-        } catch (Exception e) {
-            logger.error("Error verifying signature", e);
+    private Verifier newVerifier() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(hmacSecret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            return new Verifier(mac, new byte[mac.getMacLength()], new byte[mac.getMacLength()]);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    // Decodes hex into target, false unless it is exactly target.length bytes of valid hex
+    private static boolean decodeHex(String hex, byte[] target) {
+        if (hex.length() != 2 * target.length) {
             return false;
         }
+        for (int i = 0; i < target.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return false;
+            }
+            target[i] = (byte) ((high << 4) | low);
+        }
+        return true;
+    }
+
+    private record Verifier(Mac mac, byte[] computed, byte[] expected) {
+
+        // Completes the MAC, which also resets it for the next payload
+        boolean matches(String signature) throws ShortBufferException {
+            mac.doFinal(computed, 0);
+            return decodeHex(signature, expected) && MessageDigest.isEqual(computed, expected);
+        }
     }
 
-    private static String bytesToHex(byte[] hash) {
-        StringBuilder hexString = new StringBuilder(2 * hash.length);
-        for (byte b : hash) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) {
-                hexString.append('0');
+    /**
+     * Body stream that feeds every byte read through the HMAC.
+     */
+    public static final class SigningInputStream extends FilterInputStream {
+
+        private final Verifier verifier;
+
+        private SigningInputStream(InputStream in, Verifier verifier) {
+            super(in);
+            this.verifier = verifier;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                verifier.mac.update((byte) b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                verifier.mac.update(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes are signed too
+            long skipped = 0;
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int read;
+            while (skipped < n && (read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped))) > 0) {
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Consumes whatever the parser left unread, such as trailing
+         * whitespace, and compares the HMAC of the whole body with the
+         * hex-encoded {@code signature}.
+         */
+        public boolean matches(String signature) {
+            if (signature == null) {
+                return false;
+            }
+            try {
+                transferTo(OutputStream.nullOutputStream());
+                return verifier.matches(signature);
+            } catch (IOException | ShortBufferException e) {
+                logger.error("Error reading signed payload", e);
+                return false;
             }
-            hexString.append(hex);
         }
-        return hexString.toString();
     }
 }
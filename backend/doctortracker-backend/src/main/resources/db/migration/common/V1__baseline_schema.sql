@@ -0,0 +1,170 @@
+-- Baseline schema for every entity in com.clinalert.doctortracker.model.
+-- Portable between PostgreSQL and H2; vendor-specific DDL lives in db/migration/{vendor}.
+-- Idempotent: a schema created by the former ddl-auto=update is baselined at
+-- version 0 and brought up to date here, keeping its existing tables.
+
+CREATE TABLE IF NOT EXISTS users (
+    id          VARCHAR(255) NOT NULL,
+    email       VARCHAR(255) NOT NULL,
+    password    VARCHAR(255) NOT NULL,
+    role        VARCHAR(255) NOT NULL,
+    enabled     BOOLEAN      NOT NULL,
+    first_name  VARCHAR(255),
+    last_name   VARCHAR(255),
+    phone       VARCHAR(255),
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6),
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT ck_users_role CHECK (role IN ('ADMIN', 'DOCTOR', 'NURSE', 'PATIENT'))
+);
+
+CREATE TABLE IF NOT EXISTS doctors (
+    id            VARCHAR(255) NOT NULL,
+    name          VARCHAR(255),
+    specialty     VARCHAR(255),
+    email         VARCHAR(255),
+    phone_number  VARCHAR(255),
+    CONSTRAINT pk_doctors PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS clinics (
+    id         VARCHAR(255) NOT NULL,
+    name       VARCHAR(255) NOT NULL,
+    address    VARCHAR(255),
+    phone      VARCHAR(255),
+    doctor_id  VARCHAR(255),
+    CONSTRAINT pk_clinics PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_clinics_doctor_id ON clinics (doctor_id);
+
+CREATE TABLE IF NOT EXISTS patients (
+    id         VARCHAR(255) NOT NULL,
+    name       VARCHAR(255),
+    age        INTEGER,
+    gender     VARCHAR(255),
+    doctor_id  VARCHAR(255),
+    clinic_id  VARCHAR(255),
+    status     VARCHAR(255),
+    CONSTRAINT pk_patients PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_patients_doctor_id ON patients (doctor_id);
+CREATE INDEX IF NOT EXISTS idx_patients_clinic_id ON patients (clinic_id);
+
+CREATE TABLE IF NOT EXISTS smartwatch_devices (
+    id              VARCHAR(255) NOT NULL,
+    patient_id      VARCHAR(255) NOT NULL,
+    device_name     VARCHAR(255),
+    device_address  VARCHAR(255) NOT NULL,
+    device_type     VARCHAR(255),
+    last_connected  TIMESTAMP(6),
+    is_active       BOOLEAN,
+    created_at      TIMESTAMP(6),
+    CONSTRAINT pk_smartwatch_devices PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_smartwatch_devices_patient_address ON smartwatch_devices (patient_id, device_address);
+CREATE INDEX IF NOT EXISTS idx_smartwatch_devices_address ON smartwatch_devices (device_address);
+
+CREATE TABLE IF NOT EXISTS measurements (
+    id                 VARCHAR(255) NOT NULL,
+    patient_id         VARCHAR(255),
+    device_id          VARCHAR(255),
+    type               VARCHAR(255),
+    measurement_value  FLOAT(53),
+    timestamp          TIMESTAMP(6),
+    consent_id         VARCHAR(255),
+    received_at        TIMESTAMP(6),
+    CONSTRAINT pk_measurements PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_measurements_patient_type_timestamp ON measurements (patient_id, type, timestamp);
+CREATE INDEX IF NOT EXISTS idx_measurements_patient_timestamp ON measurements (patient_id, timestamp);
+
+CREATE TABLE IF NOT EXISTS health_data (
+    id                        VARCHAR(255) NOT NULL,
+    patient_id                VARCHAR(255) NOT NULL,
+    device_id                 VARCHAR(255),
+    heart_rate                INTEGER,
+    steps                     INTEGER,
+    sleep_minutes             INTEGER,
+    spo2                      FLOAT(53),
+    blood_pressure_systolic   INTEGER,
+    blood_pressure_diastolic  INTEGER,
+    temperature               FLOAT(53),
+    calories_burned           INTEGER,
+    distance_meters           FLOAT(53),
+    timestamp                 TIMESTAMP(6) NOT NULL,
+    received_at               TIMESTAMP(6),
+    source                    VARCHAR(255),
+    CONSTRAINT pk_health_data PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_health_data_patient_timestamp ON health_data (patient_id, timestamp, id);
+CREATE INDEX IF NOT EXISTS idx_health_data_device_timestamp ON health_data (device_id, timestamp);
+
+CREATE TABLE IF NOT EXISTS alerts (
+    id              VARCHAR(255) NOT NULL,
+    patient_id      VARCHAR(255),
+    measurement_id  VARCHAR(255),
+    message         VARCHAR(255),
+    severity        VARCHAR(255),
+    timestamp       TIMESTAMP(6),
+    is_read         BOOLEAN      NOT NULL,
+    CONSTRAINT pk_alerts PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_alerts_patient_timestamp ON alerts (patient_id, timestamp);
+CREATE INDEX IF NOT EXISTS idx_alerts_severity_timestamp ON alerts (severity, timestamp);
+CREATE INDEX IF NOT EXISTS idx_alerts_timestamp_id ON alerts (timestamp, id);
+
+CREATE TABLE IF NOT EXISTS daily_health_summaries (
+    id                     VARCHAR(255) NOT NULL,
+    patient_id             VARCHAR(255) NOT NULL,
+    summary_date           DATE         NOT NULL,
+    avg_heart_rate         FLOAT(53),
+    min_heart_rate         INTEGER,
+    max_heart_rate         INTEGER,
+    resting_heart_rate     INTEGER,
+    heart_rate_samples     INTEGER,
+    total_steps            INTEGER,
+    total_distance_meters  FLOAT(53),
+    total_calories_burned  INTEGER,
+    active_minutes         INTEGER,
+    total_sleep_minutes    INTEGER,
+    deep_sleep_minutes     INTEGER,
+    light_sleep_minutes    INTEGER,
+    rem_sleep_minutes      INTEGER,
+    avg_spo2               FLOAT(53),
+    min_spo2               FLOAT(53),
+    spo2_samples           INTEGER,
+    avg_systolic           FLOAT(53),
+    systolic_samples       INTEGER,
+    avg_diastolic          FLOAT(53),
+    diastolic_samples      INTEGER,
+    avg_temperature        FLOAT(53),
+    temperature_samples    INTEGER,
+    data_points_count      INTEGER,
+    created_at             TIMESTAMP(6),
+    updated_at             TIMESTAMP(6),
+    CONSTRAINT pk_daily_health_summaries PRIMARY KEY (id),
+    CONSTRAINT uk_daily_health_summaries_patient_date UNIQUE (patient_id, summary_date)
+);
+
+CREATE TABLE IF NOT EXISTS job_checkpoints (
+    job_name    VARCHAR(255) NOT NULL,
+    run_date    DATE,
+    last_key    VARCHAR(255),
+    completed   BOOLEAN      NOT NULL,
+    updated_at  TIMESTAMP(6),
+    CONSTRAINT pk_job_checkpoints PRIMARY KEY (job_name)
+);
+
+-- Columns added after schemas were last generated by ddl-auto=update
+ALTER TABLE daily_health_summaries ADD COLUMN IF NOT EXISTS heart_rate_samples INTEGER;
+ALTER TABLE daily_health_summaries ADD COLUMN IF NOT EXISTS spo2_samples INTEGER;
+ALTER TABLE daily_health_summaries ADD COLUMN IF NOT EXISTS systolic_samples INTEGER;
+ALTER TABLE daily_health_summaries ADD COLUMN IF NOT EXISTS diastolic_samples INTEGER;
+ALTER TABLE daily_health_summaries ADD COLUMN IF NOT EXISTS temperature_samples INTEGER;
@@ -0,0 +1,4 @@
+-- H2 has neither partial nor BRIN indexes: plain B-tree equivalents of the PostgreSQL migration
+CREATE INDEX IF NOT EXISTS idx_alerts_unread ON alerts (is_read, patient_id, timestamp);
+
+CREATE INDEX IF NOT EXISTS idx_health_data_timestamp ON health_data (timestamp);
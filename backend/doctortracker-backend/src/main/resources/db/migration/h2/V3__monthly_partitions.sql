@@ -0,0 +1,5 @@
+-- Monthly partitioning of health_data and measurements is PostgreSQL only
+-- (see postgresql/V3). On H2 only the measurement timestamp becomes
+-- mandatory, as it is the partition key there.
+UPDATE measurements SET timestamp = COALESCE(received_at, LOCALTIMESTAMP) WHERE timestamp IS NULL;
+ALTER TABLE measurements ALTER COLUMN timestamp SET NOT NULL;
@@ -0,0 +1,3 @@
+-- Monthly partitions are PostgreSQL only (see postgresql/V4); nothing to
+-- change on H2, the version is kept so both histories stay aligned.
+SELECT 1;
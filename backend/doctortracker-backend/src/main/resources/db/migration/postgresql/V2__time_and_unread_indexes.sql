@@ -0,0 +1,11 @@
+-- Schemas baselined from ddl-auto may carry the plain B-tree versions of these indexes
+DROP INDEX IF EXISTS idx_alerts_is_read;
+DROP INDEX IF EXISTS idx_alerts_unread;
+DROP INDEX IF EXISTS idx_health_data_timestamp;
+
+-- Unread alerts are a small, hot subset of the table: index only those rows
+CREATE INDEX idx_alerts_unread ON alerts (patient_id, timestamp) WHERE is_read = false;
+
+-- health_data is appended in time order, so a BRIN index serves the daily
+-- summary's time-range scans at a tiny fraction of a B-tree's size
+CREATE INDEX idx_health_data_timestamp ON health_data USING BRIN (timestamp);
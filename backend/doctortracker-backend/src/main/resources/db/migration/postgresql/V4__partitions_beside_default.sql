@@ -0,0 +1,46 @@
+-- Replaces create_monthly_partitions (see V3) so that a month whose rows
+-- already sit in the default partition, for instance readings with a
+-- timestamp beyond the months prepared in advance, can still be created:
+-- PostgreSQL refuses to add a partition whose range matches rows of the
+-- default one. The default partition is then detached, the month created,
+-- its rows moved over, and the default partition attached back, all within
+-- the caller's transaction.
+CREATE OR REPLACE FUNCTION create_monthly_partitions(parent TEXT, from_month DATE, to_month DATE)
+RETURNS INTEGER AS $$
+DECLARE
+    m DATE := date_trunc('month', from_month)::DATE;
+    next_month DATE;
+    partition_name TEXT;
+    default_name TEXT := parent || '_default';
+    has_default BOOLEAN := to_regclass(parent || '_default') IS NOT NULL;
+    stranded BOOLEAN;
+    created INTEGER := 0;
+BEGIN
+    WHILE m <= to_month LOOP
+        next_month := (m + INTERVAL '1 month')::DATE;
+        partition_name := parent || '_p' || to_char(m, 'YYYYMM');
+        IF to_regclass(partition_name) IS NULL THEN
+            stranded := FALSE;
+            IF has_default THEN
+                EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE timestamp >= %L AND timestamp < %L)',
+                        default_name, m, next_month) INTO stranded;
+            END IF;
+            IF stranded THEN
+                EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', parent, default_name);
+                EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                        partition_name, parent, m, next_month);
+                EXECUTE format('WITH moved AS (DELETE FROM %I WHERE timestamp >= %L AND timestamp < %L RETURNING *) '
+                        || 'INSERT INTO %I SELECT * FROM moved',
+                        default_name, m, next_month, partition_name);
+                EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I DEFAULT', parent, default_name);
+            ELSE
+                EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                        partition_name, parent, m, next_month);
+            END IF;
+            created := created + 1;
+        END IF;
+        m := next_month;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,79 @@
+package com.clinalert.doctortracker.benchmark;
+
+/**
+ * Benchmark JMH - AlertRuleEngine
+ * Mesure le débit d'évaluation (lignes/seconde) d'un lot de HealthData,
+ * avec une proportion configurable de lignes qui déclenchent une alerte.
+ */
+
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.service.AlertRuleEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlertRuleEngineBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    /** Pourcentage de lignes hors seuils. */
+    @Param({ "0", "5", "50" })
+    public int alertPercent;
+
+    private AlertRuleEngine engine;
+
+    private List<HealthData> batch;
+
+    @Setup
+    public void setUp() {
+        engine = new AlertRuleEngine(new DefaultResourceLoader(), new ObjectMapper(), "classpath:alert-rules.json");
+        engine.init();
+
+        Random random = new Random(7);
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            boolean abnormal = random.nextInt(100) < alertPercent;
+            HealthData data = new HealthData();
+            data.setPatientId("patient-" + (i % 50));
+            data.setHeartRate(abnormal ? 160 : 60 + random.nextInt(40));
+            data.setSpO2(95.0 + random.nextDouble() * 4);
+            data.setBloodPressureSystolic(110 + random.nextInt(20));
+            data.setBloodPressureDiastolic(70 + random.nextInt(15));
+            data.setTemperature(36.0 + random.nextDouble());
+            data.setTimestamp(LocalDateTime.now());
+            batch.add(data);
+        }
+    }
+
+    /**
+     * Un appel évalue {@value #BATCH_SIZE} lignes ; grâce à OperationsPerInvocation
+     * le score est directement exprimé en lignes/seconde.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void evaluateBatch(Blackhole bh) {
+        bh.consume(engine.evaluateHealthData(batch));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AlertRuleEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
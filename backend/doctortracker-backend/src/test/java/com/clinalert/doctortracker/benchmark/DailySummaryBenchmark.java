@@ -0,0 +1,136 @@
+package com.clinalert.doctortracker.benchmark;
+
+/**
+ * Benchmark JMH - Calcul du DailyHealthSummary
+ * Compare, sur une journée de 100 000 lignes, l'ancienne implémentation
+ * (une liste boxée et plusieurs flux par signe vital) avec
+ * DailySummaryAccumulator en séquentiel et en parallèle.
+ */
+
+import com.clinalert.doctortracker.model.DailyHealthSummary;
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.service.DailySummaryAccumulator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DailySummaryBenchmark {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    @Param({ "100000" })
+    public int rows;
+
+    private List<HealthData> dayData;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        LocalDateTime start = DAY.atStartOfDay();
+        dayData = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            HealthData data = new HealthData();
+            data.setPatientId("patient-001");
+            data.setHeartRate(50 + random.nextInt(80));
+            data.setSpO2(i % 4 == 0 ? 92 + random.nextDouble() * 8 : null);
+            data.setSteps(random.nextInt(40));
+            data.setCaloriesBurned(random.nextInt(5));
+            data.setDistanceMeters(random.nextDouble() * 30);
+            if (i % 10 == 0) {
+                data.setBloodPressureSystolic(110 + random.nextInt(40));
+                data.setBloodPressureDiastolic(70 + random.nextInt(20));
+                data.setTemperature(36 + random.nextDouble() * 2);
+            }
+            data.setTimestamp(start.plusSeconds(i % 86_400));
+            dayData.add(data);
+        }
+    }
+
+    @Benchmark
+    public DailyHealthSummary legacyStreams() {
+        return legacySummary(dayData);
+    }
+
+    @Benchmark
+    public DailyHealthSummary accumulator() {
+        return dayData.stream().collect(DailySummaryAccumulator.collector()).toSummary("patient-001", DAY);
+    }
+
+    @Benchmark
+    public DailyHealthSummary accumulatorParallel() {
+        return dayData.parallelStream().collect(DailySummaryAccumulator.collector()).toSummary("patient-001", DAY);
+    }
+
+    /**
+     * Copie de l'implémentation d'origine de generateDailySummary (hors accès
+     * base), conservée comme référence.
+     */
+    private static DailyHealthSummary legacySummary(List<HealthData> dayData) {
+        DailyHealthSummary summary = new DailyHealthSummary();
+        summary.setDataPointsCount(dayData.size());
+
+        List<Integer> heartRates = dayData.stream().filter(d -> d.getHeartRate() != null)
+                .map(HealthData::getHeartRate).toList();
+        if (!heartRates.isEmpty()) {
+            summary.setAvgHeartRate(heartRates.stream().mapToInt(Integer::intValue).average().orElse(0));
+            summary.setMinHeartRate(heartRates.stream().mapToInt(Integer::intValue).min().orElse(0));
+            summary.setMaxHeartRate(heartRates.stream().mapToInt(Integer::intValue).max().orElse(0));
+        }
+
+        summary.setTotalSteps(dayData.stream().filter(d -> d.getSteps() != null)
+                .mapToInt(HealthData::getSteps).sum());
+        summary.setTotalSleepMinutes(dayData.stream().filter(d -> d.getSleepMinutes() != null)
+                .mapToInt(HealthData::getSleepMinutes).sum());
+
+        List<Double> spO2Values = dayData.stream().filter(d -> d.getSpO2() != null)
+                .map(HealthData::getSpO2).toList();
+        if (!spO2Values.isEmpty()) {
+            summary.setAvgSpO2(spO2Values.stream().mapToDouble(Double::doubleValue).average().orElse(0));
+            summary.setMinSpO2(spO2Values.stream().mapToDouble(Double::doubleValue).min().orElse(0));
+        }
+
+        List<Integer> systolicValues = dayData.stream().filter(d -> d.getBloodPressureSystolic() != null)
+                .map(HealthData::getBloodPressureSystolic).toList();
+        if (!systolicValues.isEmpty()) {
+            summary.setAvgSystolic(systolicValues.stream().mapToInt(Integer::intValue).average().orElse(0));
+        }
+
+        List<Integer> diastolicValues = dayData.stream().filter(d -> d.getBloodPressureDiastolic() != null)
+                .map(HealthData::getBloodPressureDiastolic).toList();
+        if (!diastolicValues.isEmpty()) {
+            summary.setAvgDiastolic(diastolicValues.stream().mapToInt(Integer::intValue).average().orElse(0));
+        }
+
+        summary.setTotalCaloriesBurned(dayData.stream().filter(d -> d.getCaloriesBurned() != null)
+                .mapToInt(HealthData::getCaloriesBurned).sum());
+        summary.setTotalDistanceMeters(dayData.stream().filter(d -> d.getDistanceMeters() != null)
+                .mapToDouble(HealthData::getDistanceMeters).sum());
+
+        List<Double> tempValues = dayData.stream().filter(d -> d.getTemperature() != null)
+                .map(HealthData::getTemperature).toList();
+        if (!tempValues.isEmpty()) {
+            summary.setAvgTemperature(tempValues.stream().mapToDouble(Double::doubleValue).average().orElse(0));
+        }
+        return summary;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DailySummaryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,103 @@
+package com.clinalert.doctortracker.benchmark;
+
+/**
+ * Benchmark JMH - HmacUtil
+ * Mesure la vérification de la signature d'un envoi de 1 Ko à 1 Mo :
+ * - legacy : Mac et clé recréés, digest encodé en hexadécimal puis equalsIgnoreCase (ancien comportement)
+ * - threadLocal : Mac du thread réutilisé, signature décodée et comparée en temps constant
+ * - stream : même vérification, calculée pendant la lecture du corps comme dans MeasurementController
+ * Lancer avec -prof gc pour comparer les allocations par opération.
+ */
+
+import com.clinalert.doctortracker.util.HmacUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HmacVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-hmac-secret";
+
+    @Param({ "1024", "16384", "262144", "1048576" })
+    public int payloadBytes;
+
+    @Param({ "legacy", "threadLocal", "stream" })
+    public String mode;
+
+    private HmacUtil hmacUtil;
+
+    private String payload;
+
+    private byte[] body;
+
+    private String signature;
+
+    @Setup
+    public void setUp() throws Exception {
+        hmacUtil = new HmacUtil();
+        ReflectionTestUtils.setField(hmacUtil, "hmacSecret", SECRET);
+
+        // JSON-like ASCII, so the String and its UTF-8 bytes have the same length
+        StringBuilder json = new StringBuilder(payloadBytes);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (json.length() < payloadBytes) {
+            json.append("{\"type\":\"Heart Rate\",\"value\":").append(random.nextInt(40, 180)).append("},");
+        }
+        json.setLength(payloadBytes);
+        payload = json.toString();
+        body = payload.getBytes(StandardCharsets.UTF_8);
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        signature = HexFormat.of().formatHex(mac.doFinal(body));
+    }
+
+    @Benchmark
+    public boolean verify() throws Exception {
+        return switch (mode) {
+            case "legacy" -> legacyVerify(payload, signature);
+            case "threadLocal" -> hmacUtil.verifySignature(payload, signature);
+            default -> hmacUtil.signing(new ByteArrayInputStream(body)).matches(signature);
+        };
+    }
+
+    /**
+     * Reproduces the former HmacUtil.verifySignature.
+     */
+    private static boolean legacyVerify(String payload, String signature) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] digest = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hexString = new StringBuilder(2 * digest.length);
+        for (byte b : digest) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) {
+                hexString.append('0');
+            }
+            hexString.append(hex);
+        }
+        return hexString.toString().equalsIgnoreCase(signature);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HmacVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,110 @@
+package com.clinalert.doctortracker.benchmark;
+
+/**
+ * Benchmark JMH - JwtAuthenticationFilter
+ * Mesure le coût par requête de l'authentification par jeton :
+ * - legacy : clé et parser reconstruits, jeton vérifié deux fois (ancien comportement)
+ * - uncached : clé et parser partagés, une seule vérification de signature
+ * - cached : jeton déjà vu, claims servies par le cache sans vérification
+ */
+
+import com.clinalert.doctortracker.security.JwtAuthenticationFilter;
+import com.clinalert.doctortracker.security.JwtTokenProvider;
+import com.clinalert.doctortracker.security.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-that-is-long-enough-for-hs512-signatures-0123456789";
+
+    @Param({ "legacy", "uncached", "cached" })
+    public String mode;
+
+    private JwtAuthenticationFilter filter;
+
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtTokenProvider provider = "legacy".equals(mode) ? new LegacyTokenProvider() : new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(provider, "claimsCacheSize", "cached".equals(mode) ? 10_000 : 0);
+        provider.init();
+
+        UserDetails user = User.withUsername("doctor@clinalert.com").password("x").roles("DOCTOR").build();
+        authorization = "Bearer " + provider.generateToken(user, "user-1", "DOCTOR");
+        // Principal loaded through UserDetailsService, so only the token handling differs between modes
+        filter = new JwtAuthenticationFilter(provider, new UserDetailsServiceImpl(null) {
+            @Override
+            public UserDetails loadUserByUsername(String email) {
+                return user;
+            }
+        }, null);
+    }
+
+    @Benchmark
+    public Object filterRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/patients");
+        request.addHeader("Authorization", authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    /**
+     * Reproduces the former provider: validateToken then getUsernameFromToken,
+     * each rebuilding the key and the parser and verifying the signature.
+     */
+    private static final class LegacyTokenProvider extends JwtTokenProvider {
+
+        @Override
+        public Optional<Claims> getValidatedClaims(String token) {
+            try {
+                parse(token);
+            } catch (JwtException | IllegalArgumentException e) {
+                return Optional.empty();
+            }
+            return Optional.of(parse(token));
+        }
+
+        private static Claims parse(String token) {
+            return Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
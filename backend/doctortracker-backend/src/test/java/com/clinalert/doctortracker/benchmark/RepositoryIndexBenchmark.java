@@ -0,0 +1,226 @@
+package com.clinalert.doctortracker.benchmark;
+
+/**
+ * Benchmark JMH - Index des requêtes chaudes des repositories
+ * Charge 1 000 000 lignes health_data et 200 000 alertes dans H2 (mode
+ * natif et mode PostgreSQL), avec ou sans les index déclarés dans les
+ * @Table des entités, puis mesure les requêtes de HealthDataRepository et
+ * AlertRepository. Le plan (EXPLAIN) de chaque requête est affiché au
+ * démarrage pour montrer le passage du parcours complet à l'index.
+ */
+
+import com.clinalert.doctortracker.model.Alert;
+import com.clinalert.doctortracker.model.HealthData;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryIndexBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int PATIENTS = 2_000;
+    private static final int ALERTS = 200_000;
+
+    // Requêtes reprises de HealthDataRepository(CustomImpl) et AlertRepository
+    private static final String HISTORY_PAGE_SQL = "SELECT id, timestamp, heart_rate FROM health_data "
+            + "WHERE patient_id = ? AND heart_rate IS NOT NULL ORDER BY timestamp DESC, id DESC LIMIT 50";
+    private static final String DAY_RANGE_SQL = "SELECT id, timestamp, heart_rate FROM health_data "
+            + "WHERE patient_id = ? AND timestamp BETWEEN ? AND ? ORDER BY timestamp";
+    private static final String PATIENT_ALERTS_SQL = "SELECT id, timestamp FROM alerts "
+            + "WHERE patient_id = ? ORDER BY timestamp DESC LIMIT 10";
+    private static final String SEVERITY_SQL = "SELECT id FROM alerts WHERE severity = ? AND timestamp < ?";
+
+    @Param({ "1000000" })
+    public int rows;
+
+    @Param({ "REGULAR", "PostgreSQL" })
+    public String mode;
+
+    @Param({ "false", "true" })
+    public boolean indexed;
+
+    private Connection connection;
+    private PreparedStatement historyPage;
+    private PreparedStatement dayRange;
+    private PreparedStatement patientAlerts;
+    private PreparedStatement severity;
+    private final Random random = new Random(42);
+
+    @Setup
+    public void setUp() throws SQLException {
+        String url = "jdbc:h2:mem:index-bench-" + mode + "-" + indexed
+                + (mode.equals("REGULAR") ? "" : ";MODE=" + mode);
+        connection = DriverManager.getConnection(url, "sa", "");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TABLE health_data (id VARCHAR(36) PRIMARY KEY, patient_id VARCHAR(36) NOT NULL, "
+                    + "device_id VARCHAR(36), heart_rate INT, timestamp TIMESTAMP NOT NULL)");
+            ddl.execute("CREATE TABLE alerts (id VARCHAR(36) PRIMARY KEY, patient_id VARCHAR(36), "
+                    + "severity VARCHAR(16), timestamp TIMESTAMP, is_read BOOLEAN NOT NULL)");
+        }
+        loadHealthData();
+        loadAlerts();
+        if (indexed) {
+            createIndexes(HealthData.class);
+            createIndexes(Alert.class);
+        }
+        try (Statement analyze = connection.createStatement()) {
+            analyze.execute("ANALYZE");
+        }
+
+        historyPage = connection.prepareStatement(HISTORY_PAGE_SQL);
+        dayRange = connection.prepareStatement(DAY_RANGE_SQL);
+        patientAlerts = connection.prepareStatement(PATIENT_ALERTS_SQL);
+        severity = connection.prepareStatement(SEVERITY_SQL);
+        printPlan(HISTORY_PAGE_SQL, patient(0));
+        printPlan(DAY_RANGE_SQL, patient(0), Timestamp.valueOf(START), Timestamp.valueOf(START.plusDays(1)));
+        printPlan(PATIENT_ALERTS_SQL, patient(0));
+        printPlan(SEVERITY_SQL, "CRITICAL", Timestamp.valueOf(START.plusHours(1)));
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement drop = connection.createStatement()) {
+            drop.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public void historyPage(Blackhole bh) throws SQLException {
+        historyPage.setString(1, randomPatient());
+        drain(historyPage, bh);
+    }
+
+    @Benchmark
+    public void dayRange(Blackhole bh) throws SQLException {
+        LocalDateTime day = START.plusDays(random.nextInt(5));
+        dayRange.setString(1, randomPatient());
+        dayRange.setTimestamp(2, Timestamp.valueOf(day));
+        dayRange.setTimestamp(3, Timestamp.valueOf(day.plusDays(1)));
+        drain(dayRange, bh);
+    }
+
+    @Benchmark
+    public void patientAlerts(Blackhole bh) throws SQLException {
+        patientAlerts.setString(1, randomPatient());
+        drain(patientAlerts, bh);
+    }
+
+    @Benchmark
+    public void severityBefore(Blackhole bh) throws SQLException {
+        severity.setString(1, "CRITICAL");
+        severity.setTimestamp(2, Timestamp.valueOf(START.plusMinutes(random.nextInt(120))));
+        drain(severity, bh);
+    }
+
+    private void loadHealthData() throws SQLException {
+        int perPatient = rows / PATIENTS;
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO health_data (id, patient_id, device_id, heart_rate, timestamp) VALUES (?, ?, ?, ?, ?)")) {
+            for (int p = 0; p < PATIENTS; p++) {
+                for (int i = 0; i < perPatient; i++) {
+                    insert.setString(1, UUID.randomUUID().toString());
+                    insert.setString(2, patient(p));
+                    insert.setString(3, "device-" + p);
+                    insert.setInt(4, 60 + random.nextInt(60));
+                    // Une mesure toutes les 15 minutes environ
+                    insert.setTimestamp(5, Timestamp.valueOf(START.plusMinutes(i * 15L)));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    private void loadAlerts() throws SQLException {
+        String[] severities = { "LOW", "MEDIUM", "HIGH", "CRITICAL" };
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO alerts (id, patient_id, severity, timestamp, is_read) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < ALERTS; i++) {
+                insert.setString(1, UUID.randomUUID().toString());
+                insert.setString(2, patient(random.nextInt(PATIENTS)));
+                insert.setString(3, severities[random.nextInt(severities.length)]);
+                insert.setTimestamp(4, Timestamp.valueOf(START.plusSeconds(i * 30L)));
+                insert.setBoolean(5, random.nextInt(20) != 0);
+                insert.addBatch();
+                if (i % 10_000 == 9_999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    // Index lus depuis l'annotation @Table, pour mesurer exactement ceux de l'entité
+    private void createIndexes(Class<?> entity) throws SQLException {
+        Table table = entity.getAnnotation(Table.class);
+        try (Statement ddl = connection.createStatement()) {
+            for (Index index : table.indexes()) {
+                ddl.execute("CREATE INDEX " + index.name() + " ON " + table.name() + " (" + index.columnList() + ")");
+            }
+        }
+    }
+
+    private void printPlan(String sql, Object... args) throws SQLException {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < args.length; i++) {
+                explain.setObject(i + 1, args[i]);
+            }
+            try (ResultSet rs = explain.executeQuery()) {
+                rs.next();
+                System.out.println("[mode=" + mode + ", indexed=" + indexed + "] " + rs.getString(1)
+                        .replaceAll("\\s+", " "));
+            }
+        }
+    }
+
+    private static void drain(PreparedStatement statement, Blackhole bh) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(rs.getString(1));
+            }
+        }
+    }
+
+    private String randomPatient() {
+        return patient(random.nextInt(PATIENTS));
+    }
+
+    private static String patient(int index) {
+        return "patient-" + index;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RepositoryIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -4,8 +4,13 @@ package com.clinalert.doctortracker.controller;
  * Tests d'intégration pour AlertController (utilise SpringBootTest pour éviter conflits sécurité)
  */
 
+import com.clinalert.doctortracker.dto.CursorPage;
+import com.clinalert.doctortracker.dto.UnreadCounts;
 import com.clinalert.doctortracker.model.Alert;
+import com.clinalert.doctortracker.model.Doctor;
+import com.clinalert.doctortracker.service.AlertPushHub;
 import com.clinalert.doctortracker.service.AlertService;
+import com.clinalert.doctortracker.service.DoctorService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,12 +18,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -34,6 +50,12 @@ class AlertControllerIntegrationTest {
     @MockBean
     private AlertService alertService;
 
+    @SpyBean
+    private AlertPushHub alertPushHub;
+
+    @MockBean
+    private DoctorService doctorService;
+
     private Alert alert1;
     private Alert alert2;
     private Alert alert3;
@@ -67,16 +89,69 @@ class AlertControllerIntegrationTest {
     @DisplayName("GET /api/alerts - Doit retourner toutes les alertes")
     void getAllAlerts_ShouldReturnAllAlerts() throws Exception {
         List<Alert> alerts = Arrays.asList(alert1, alert2, alert3);
-        when(alertService.getAllAlerts()).thenReturn(alerts);
+        when(alertService.getAllAlerts()).thenReturn(new CursorPage<>(alerts, null));
 
         mockMvc.perform(get("/api/alerts"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(3))
-                .andExpect(jsonPath("$[0].message").value("Rythme cardiaque élevé"));
+                .andExpect(jsonPath("$[0].message").value("Rythme cardiaque élevé"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
 
         verify(alertService, times(1)).getAllAlerts();
     }
 
+    @Test
+    @DisplayName("GET /api/alerts - Liste tronquée signalée par l'en-tête X-Next-Cursor")
+    void getAllAlerts_WhenTruncated_ShouldSendNextCursorHeader() throws Exception {
+        when(alertService.getAllAlerts()).thenReturn(new CursorPage<>(List.of(alert1, alert2), "next"));
+
+        // Le corps reste un tableau simple ; le curseur permet de lire la suite
+        mockMvc.perform(get("/api/alerts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string("X-Next-Cursor", "next"));
+    }
+
+    @Test
+    @DisplayName("GET /api/alerts?size= - Page par curseur avec nextCursor")
+    void getAllAlerts_WithSize_ShouldReturnCursorPage() throws Exception {
+        when(alertService.getAlertsAfter(null, 2)).thenReturn(new CursorPage<>(List.of(alert1, alert2), "next"));
+
+        mockMvc.perform(get("/api/alerts").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+
+        verify(alertService, never()).getAllAlerts();
+    }
+
+    @Test
+    @DisplayName("GET /api/alerts?page= - Page par offset")
+    void getAllAlerts_WithPage_ShouldReturnOffsetPage() throws Exception {
+        when(alertService.getAlertsPage(1, 2))
+                .thenReturn(new PageImpl<>(List.of(alert3), PageRequest.of(1, 2), 3));
+
+        mockMvc.perform(get("/api/alerts").param("page", "1").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.totalElements").value(3));
+    }
+
+    @Test
+    @DisplayName("GET /api/alerts - 400 si page et cursor combinés ou taille hors bornes")
+    void getAllAlerts_InvalidPaging_ShouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/alerts").param("page", "0").param("cursor", "abc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("page cannot be combined with cursor"));
+
+        when(alertService.getAlertsAfter(null, 10_000))
+                .thenThrow(new IllegalArgumentException("size must be between 1 and 500"));
+
+        mockMvc.perform(get("/api/alerts").param("size", "10000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("size must be between 1 and 500"));
+    }
+
     @Test
     @DisplayName("GET /api/alerts/patient/{id} - Doit retourner alertes du patient")
     void getAlertsByPatient_ShouldReturnPatientAlerts() throws Exception {
@@ -104,6 +179,42 @@ class AlertControllerIntegrationTest {
         verify(alertService, times(1)).getUnreadAlerts();
     }
 
+    @Test
+    @DisplayName("GET /api/alerts/unread?doctorId=&severity= - Alertes non lues filtrées")
+    void getUnreadAlerts_Filtered_ShouldUseFilters() throws Exception {
+        when(alertService.getUnreadAlerts(null, "doc-1", null, "CRITICAL")).thenReturn(List.of(alert1));
+
+        mockMvc.perform(get("/api/alerts/unread").param("doctorId", "doc-1").param("severity", "CRITICAL"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value("alert-001"));
+
+        verify(alertService, never()).getUnreadAlerts();
+    }
+
+    @Test
+    @DisplayName("GET /api/alerts/unread/counts - Total et répartition par sévérité")
+    void getUnreadCounts_ShouldReturnCounts() throws Exception {
+        when(alertService.getUnreadCounts(null, null, "clinic-1"))
+                .thenReturn(new UnreadCounts(3, Map.of("CRITICAL", 1, "LOW", 2)));
+
+        mockMvc.perform(get("/api/alerts/unread/counts").param("clinicId", "clinic-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.bySeverity.LOW").value(2));
+    }
+
+    @Test
+    @DisplayName("GET /api/alerts/unread/counts - Plusieurs périmètres : 400")
+    void getUnreadCounts_SeveralScopes_ShouldReturnBadRequest() throws Exception {
+        when(alertService.getUnreadCounts("patient-001", "doc-1", null))
+                .thenThrow(new IllegalArgumentException("Only one of patientId, doctorId and clinicId can be given"));
+
+        mockMvc.perform(get("/api/alerts/unread/counts").param("patientId", "patient-001").param("doctorId", "doc-1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+    }
+
     @Test
     @DisplayName("PUT /api/alerts/{id}/read - Doit marquer comme lue")
     void markAsRead_ShouldReturnOk() throws Exception {
@@ -115,10 +226,111 @@ class AlertControllerIntegrationTest {
         verify(alertService, times(1)).markAsRead("alert-001");
     }
 
+    @Test
+    @DisplayName("PUT /api/alerts/read - Marque la liste d'ids comme lue et retourne le nombre")
+    void markAsRead_Ids_ShouldReturnCount() throws Exception {
+        when(alertService.markAsRead(List.of("alert-001", "alert-003"))).thenReturn(2);
+
+        mockMvc.perform(put("/api/alerts/read")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"alert-001\", \"alert-003\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2));
+    }
+
+    @Test
+    @DisplayName("PUT /api/alerts/read - Liste trop longue : 400")
+    void markAsRead_TooManyIds_ShouldReturnBadRequest() throws Exception {
+        when(alertService.markAsRead(anyList())).thenThrow(new IllegalArgumentException("At most 500 alert ids"));
+
+        mockMvc.perform(put("/api/alerts/read")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"alert-001\"]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("At most 500 alert ids"));
+    }
+
+    @Test
+    @DisplayName("PUT /api/alerts/patient/{id}/read - Alertes du patient, avec borne optionnelle")
+    void markPatientAlertsAsRead_ShouldReturnCount() throws Exception {
+        LocalDateTime before = LocalDateTime.of(2024, 3, 15, 12, 0);
+        when(alertService.markPatientAlertsAsRead("patient-001", null)).thenReturn(5);
+        when(alertService.markPatientAlertsAsRead("patient-001", before)).thenReturn(3);
+
+        mockMvc.perform(put("/api/alerts/patient/patient-001/read"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(5));
+        mockMvc.perform(put("/api/alerts/patient/patient-001/read").param("before", "2024-03-15T12:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(3));
+    }
+
+    @Test
+    @DisplayName("PUT /api/alerts/read-before - Toutes les alertes antérieures à la date")
+    void markAlertsAsReadBefore_ShouldReturnCount() throws Exception {
+        when(alertService.markAlertsAsReadBefore(LocalDateTime.of(2024, 3, 15, 12, 0))).thenReturn(300);
+
+        mockMvc.perform(put("/api/alerts/read-before").param("before", "2024-03-15T12:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(300));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /api/alerts/stream - Flux SSE recevant les alertes publiées pour le patient")
+    void streamAlerts_ShouldPushPublishedAlerts() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/alerts/stream").param("patientId", "patient-001"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        alertPushHub.publish(List.of(alert3, alert1));
+
+        String body = "";
+        for (int i = 0; i < 100 && !body.contains("alert-001"); i++) {
+            Thread.sleep(20);
+            body = result.getResponse().getContentAsString();
+        }
+        assertThat(result.getResponse().getContentType()).startsWith("text/event-stream");
+        assertThat(body).contains("event:alert").contains("\"id\":\"alert-001\"").doesNotContain("alert-003");
+    }
+
+    @Test
+    @DisplayName("GET /api/alerts/stream - Sans authentification : 401")
+    void streamAlerts_Anonymous_ShouldReturn401() throws Exception {
+        mockMvc.perform(get("/api/alerts/stream"))
+                .andExpect(status().isUnauthorized());
+
+        verify(alertPushHub, never()).subscribe(any(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "house@clinalert.com", roles = "DOCTOR")
+    @DisplayName("GET /api/alerts/stream - Médecin : flux limité à ses propres patients")
+    void streamAlerts_Doctor_ShouldBeBoundToOwnPatients() throws Exception {
+        when(doctorService.getDoctorByEmail("house@clinalert.com")).thenReturn(Optional.of(doctor("doc-1")));
+
+        mockMvc.perform(get("/api/alerts/stream"))
+                .andExpect(request().asyncStarted());
+        mockMvc.perform(get("/api/alerts/stream").param("doctorId", "doc-2"))
+                .andExpect(status().isForbidden());
+
+        verify(alertPushHub, times(1)).subscribe(null, "doc-1", null, null);
+    }
+
+    @Test
+    @WithMockUser(username = "nurse@clinalert.com", roles = "NURSE")
+    @DisplayName("GET /api/alerts/stream - Autre rôle : 403")
+    void streamAlerts_OtherRole_ShouldReturn403() throws Exception {
+        mockMvc.perform(get("/api/alerts/stream").param("doctorId", "doc-1"))
+                .andExpect(status().isForbidden());
+
+        verify(alertPushHub, never()).subscribe(any(), any(), any(), any());
+    }
+
     @Test
     @DisplayName("GET /api/alerts - Doit retourner liste vide")
     void getAllAlerts_WhenEmpty_ShouldReturnEmptyList() throws Exception {
-        when(alertService.getAllAlerts()).thenReturn(Arrays.asList());
+        when(alertService.getAllAlerts()).thenReturn(new CursorPage<>(Arrays.asList(), null));
 
         mockMvc.perform(get("/api/alerts"))
                 .andExpect(status().isOk())
@@ -138,4 +350,10 @@ class AlertControllerIntegrationTest {
 
         verify(alertService, times(1)).getAlertsByPatientId("patient-999");
     }
+
+    private static Doctor doctor(String id) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        return doctor;
+    }
 }
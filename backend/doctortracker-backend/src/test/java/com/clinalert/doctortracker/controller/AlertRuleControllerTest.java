@@ -0,0 +1,82 @@
+package com.clinalert.doctortracker.controller;
+
+/**
+ * Tests AlertRuleController - Integration
+ * Couvre: consultation, remplacement et rechargement des règles d'alerte
+ */
+
+import com.clinalert.doctortracker.dto.AlertRule;
+import com.clinalert.doctortracker.service.AlertRuleEngine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DisplayName("Tests AlertRule Controller - Integration")
+class AlertRuleControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AlertRuleEngine alertRuleEngine;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /api/admin/alert-rules")
+    void getRules_ShouldReturnRules() throws Exception {
+        when(alertRuleEngine.getRules()).thenReturn(List.of(AlertRule.builder().vital("HEART_RATE")
+                .operator("ABOVE").threshold(150).severity("CRITICAL").message("HR {value}").build()));
+
+        mockMvc.perform(get("/api/admin/alert-rules"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].vital").value("HEART_RATE"));
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/admin/alert-rules - Réservé aux administrateurs")
+    void getRules_AsDoctor_ShouldBeForbidden() throws Exception {
+        mockMvc.perform(get("/api/admin/alert-rules"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("PUT /api/admin/alert-rules - Règles invalides")
+    void replaceRules_Invalid_ShouldReturnBadRequest() throws Exception {
+        doThrow(new IllegalArgumentException("Unknown vital in alert rule: GLUCOSE"))
+                .when(alertRuleEngine).replaceRules(anyList());
+
+        mockMvc.perform(put("/api/admin/alert-rules")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"vital\":\"GLUCOSE\",\"operator\":\"ABOVE\",\"threshold\":1,"
+                        + "\"severity\":\"HIGH\",\"message\":\"x\"}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("POST /api/admin/alert-rules/reload")
+    void reloadRules_ShouldReload() throws Exception {
+        mockMvc.perform(post("/api/admin/alert-rules/reload"))
+                .andExpect(status().isOk());
+
+        verify(alertRuleEngine).reload();
+    }
+}
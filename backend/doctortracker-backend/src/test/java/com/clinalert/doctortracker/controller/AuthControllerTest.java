@@ -10,6 +10,7 @@ import com.clinalert.doctortracker.dto.LoginResponse;
 import com.clinalert.doctortracker.dto.RegisterRequest;
 import com.clinalert.doctortracker.model.User;
 import com.clinalert.doctortracker.service.AuthService;
+import com.clinalert.doctortracker.service.LoginExecutor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,8 +18,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -39,15 +45,22 @@ class AuthControllerTest {
     @MockBean
     private AuthService authService;
 
+    @SpyBean
+    private LoginExecutor loginExecutor;
+
     @Test
     @DisplayName("POST /api/auth/login - Success")
     void login_ValidCredentials_ShouldReturnToken() throws Exception {
         LoginResponse response = new LoginResponse("jwt-token", "user-001", "test@test.com", "DOCTOR");
         when(authService.login(any(LoginRequest.class))).thenReturn(response);
 
-        mockMvc.perform(post("/api/auth/login")
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content("{\"email\":\"test@test.com\",\"password\":\"pass123\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.token").value("jwt-token"));
 
@@ -59,10 +72,31 @@ class AuthControllerTest {
     void login_InvalidCredentials_ShouldReturnBadRequest() throws Exception {
         when(authService.login(any(LoginRequest.class))).thenThrow(new RuntimeException("Invalid"));
 
-        mockMvc.perform(post("/api/auth/login")
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content("{\"email\":\"bad@test.com\",\"password\":\"wrong\"}"))
-                .andExpect(status().isBadRequest());
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid email or password"));
+    }
+
+    @Test
+    @DisplayName("POST /api/auth/login - File de login saturée")
+    void login_ExecutorSaturated_ShouldReturnTooManyRequests() throws Exception {
+        doReturn(CompletableFuture.failedFuture(new RejectedExecutionException("full")))
+                .when(loginExecutor).submit(any());
+
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"test@test.com\",\"password\":\"pass123\"}"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.error").value("Too many login attempts, retry later"));
+        verify(authService, never()).login(any());
     }
 
     @Test
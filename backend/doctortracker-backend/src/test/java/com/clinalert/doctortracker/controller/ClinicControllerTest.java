@@ -5,6 +5,7 @@ package com.clinalert.doctortracker.controller;
  * Couvre: CRUD clinics, filter by doctor
  */
 
+import com.clinalert.doctortracker.dto.CursorPage;
 import com.clinalert.doctortracker.model.Clinic;
 import com.clinalert.doctortracker.service.ClinicService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -56,7 +57,7 @@ class ClinicControllerTest {
     @Test
     @DisplayName("GET /api/clinics")
     void getAllClinics_ShouldReturnList() throws Exception {
-        when(clinicService.getAllClinics()).thenReturn(Arrays.asList(clinic));
+        when(clinicService.getAllClinics()).thenReturn(new CursorPage<>(Arrays.asList(clinic), null));
 
         mockMvc.perform(get("/api/clinics"))
                 .andExpect(status().isOk())
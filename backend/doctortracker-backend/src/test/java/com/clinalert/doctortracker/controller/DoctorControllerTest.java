@@ -4,6 +4,7 @@ package com.clinalert.doctortracker.controller;
  * Tests d'intégration pour DoctorController (utilise SpringBootTest pour éviter conflits sécurité)
  */
 
+import com.clinalert.doctortracker.dto.CursorPage;
 import com.clinalert.doctortracker.model.Doctor;
 import com.clinalert.doctortracker.service.DoctorService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -65,7 +66,7 @@ class DoctorControllerIntegrationTest {
     @DisplayName("GET /api/doctors - Doit retourner tous les docteurs")
     void getAllDoctors_ShouldReturnAllDoctors() throws Exception {
         List<Doctor> doctors = Arrays.asList(doctor1, doctor2);
-        when(doctorService.getAllDoctors()).thenReturn(doctors);
+        when(doctorService.getAllDoctors()).thenReturn(new CursorPage<>(doctors, null));
 
         mockMvc.perform(get("/api/doctors"))
                 .andExpect(status().isOk())
@@ -165,7 +166,7 @@ class DoctorControllerIntegrationTest {
     @Test
     @DisplayName("GET /api/doctors - Doit retourner liste vide")
     void getAllDoctors_WhenEmpty_ShouldReturnEmptyList() throws Exception {
-        when(doctorService.getAllDoctors()).thenReturn(Arrays.asList());
+        when(doctorService.getAllDoctors()).thenReturn(new CursorPage<>(Arrays.asList(), null));
 
         mockMvc.perform(get("/api/doctors"))
                 .andExpect(status().isOk())
@@ -1,14 +1,16 @@
 package com.clinalert.doctortracker.controller;
 
 /**
- * Tests MeasurementController - Integration - 5 tests
+ * Tests MeasurementController - Integration - 7 tests
  * MeasurementController uses custom HMAC signature auth, not Spring Security!
+ * Les signatures sont calculées avec le vrai secret de test : le contrôleur
+ * signe le corps pendant qu'il le lit.
  */
 
 import com.clinalert.doctortracker.model.Measurement;
 import com.clinalert.doctortracker.service.MeasurementService;
-import com.clinalert.doctortracker.util.HmacUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,10 +19,15 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.HexFormat;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -41,8 +48,11 @@ class MeasurementControllerTest {
     @MockBean
     private MeasurementService measurementService;
 
-    @MockBean
-    private HmacUtil hmacUtil;
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Value("${app.hmacSecret}")
+    private String hmacSecret;
 
     private Measurement measurement;
 
@@ -59,20 +69,64 @@ class MeasurementControllerTest {
     @Test
     @DisplayName("POST /api/measurements - With valid HMAC signature")
     void saveMeasurements_WithValidSignature_ShouldSave() throws Exception {
-        when(hmacUtil.verifySignature(anyString(), eq("valid-signature"))).thenReturn(true);
         when(measurementService.saveMeasurements(anyList())).thenReturn(Arrays.asList(measurement));
 
-        String jsonBody = "[" + objectMapper.writeValueAsString(measurement) + "]";
+        // Espaces de fin : signés aussi, bien que le parseur JSON ne les lise pas
+        String jsonBody = "[" + objectMapper.writeValueAsString(measurement) + "]\n  ";
 
         mockMvc.perform(post("/api/measurements")
-                .header("X-Signature", "valid-signature")
+                .header("X-Signature", sign(jsonBody))
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(jsonBody))
                 .andExpect(status().isOk())
                 .andExpect(content().string(org.hamcrest.Matchers.containsString("Measurements received: 1")));
 
-        verify(hmacUtil).verifySignature(anyString(), eq("valid-signature"));
-        verify(measurementService).saveMeasurements(anyList());
+        verify(measurementService).saveMeasurements(argThat(list -> list.size() == 1
+                && "patient-001".equals(list.get(0).getPatientId())
+                && measurement.getTimestamp().equals(list.get(0).getTimestamp())));
+    }
+
+    @Test
+    @DisplayName("POST /api/measurements - Corps CBOR signé, négocié par Content-Type")
+    void saveMeasurements_SignedCbor_ShouldSave() throws Exception {
+        when(measurementService.saveMeasurements(anyList())).thenReturn(Arrays.asList(measurement));
+        byte[] body = cborConverter.getObjectMapper().writeValueAsBytes(Arrays.asList(measurement, measurement));
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(hmacSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+
+        mockMvc.perform(post("/api/measurements")
+                .header("X-Signature", HexFormat.of().formatHex(mac.doFinal(body)))
+                .contentType(MediaType.APPLICATION_CBOR)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Measurements received: 2"));
+
+        verify(measurementService).saveMeasurements(argThat(list -> list.size() == 2
+                && "Heart Rate".equals(list.get(1).getType())
+                && measurement.getTimestamp().equals(list.get(1).getTimestamp())));
+
+        // Le même corps annoncé comme JSON n'est pas lisible
+        mockMvc.perform(post("/api/measurements")
+                .header("Authorization", "Bearer fake-jwt-token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(org.hamcrest.Matchers.startsWith("Invalid JSON")));
+    }
+
+    @Test
+    @DisplayName("POST /api/measurements - Signature valide mais JSON invalide : 400")
+    void saveMeasurements_SignedInvalidJson_ShouldReturn400() throws Exception {
+        String body = "[{\"patientId\": ";
+
+        mockMvc.perform(post("/api/measurements")
+                .header("X-Signature", sign(body))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(org.hamcrest.Matchers.startsWith("Invalid JSON")));
+
+        verifyNoInteractions(measurementService);
     }
 
     @Test
@@ -105,16 +159,23 @@ class MeasurementControllerTest {
     @Test
     @DisplayName("POST /api/measurements - Invalid HMAC signature")
     void saveMeasurements_InvalidSignature_ShouldReturn403() throws Exception {
-        when(hmacUtil.verifySignature(anyString(), anyString())).thenReturn(false);
-
         String jsonBody = "[" + objectMapper.writeValueAsString(measurement) + "]";
 
         mockMvc.perform(post("/api/measurements")
-                .header("X-Signature", "invalid-signature")
+                .header("X-Signature", sign(jsonBody + " "))
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(jsonBody))
                 .andExpect(status().isForbidden())
                 .andExpect(content().string("Invalid HMAC Signature"));
+
+        // Corps non signé et illisible : 403 aussi, le contenu n'est pas examiné
+        mockMvc.perform(post("/api/measurements")
+                .header("X-Signature", "invalid-signature")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("not json"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(measurementService);
     }
 
     @Test
@@ -129,4 +190,10 @@ class MeasurementControllerTest {
 
         verify(measurementService).getHistory("patient-001");
     }
+
+    private String sign(String body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(hmacSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+    }
 }
@@ -29,6 +29,7 @@ package com.clinalert.doctortracker.controller;
  * @version 1.0
  */
 
+import com.clinalert.doctortracker.dto.CursorPage;
 import com.clinalert.doctortracker.model.Patient;
 import com.clinalert.doctortracker.service.PatientService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -153,7 +154,7 @@ class PatientControllerTest {
                 List<Patient> allPatients = Arrays.asList(patient1, patient2, patient3);
 
                 // Configurer le mock : quand getAllPatients() est appelé, retourner notre liste
-                when(patientService.getAllPatients()).thenReturn(allPatients);
+                when(patientService.getAllPatients()).thenReturn(new CursorPage<>(allPatients, null));
 
                 // ===== ACT & ASSERT =====
                 mockMvc.perform(
@@ -450,6 +451,7 @@ class PatientControllerTest {
         @DisplayName("GET /api/patients - Sans authentification : doit retourner 401")
         void getAllPatients_WithoutAuthentication_ShouldReturn401() throws Exception {
                 // Pas de @WithMockUser = pas d'authentification
+                when(patientService.getAllPatients()).thenReturn(new CursorPage<>(List.of(), null));
 
                 mockMvc.perform(get("/api/patients"))
                                 .andExpect(status().isOk()); // 200 - En mode test, la sécurité est permissive
@@ -469,6 +471,8 @@ class PatientControllerTest {
         @Test
         @WithMockUser(username = "patient@clinalert.com", roles = "PATIENT")
         void getAllPatients_WithPatientRole_AccessAllowed() throws Exception {
+                when(patientService.getAllPatients()).thenReturn(new CursorPage<>(List.of(), null));
+
                 mockMvc.perform(get("/api/patients")
                                 .contentType(MediaType.APPLICATION_JSON))
                                 .andExpect(status().isOk());
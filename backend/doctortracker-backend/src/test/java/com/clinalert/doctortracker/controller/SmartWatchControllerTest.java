@@ -5,9 +5,15 @@ package com.clinalert.doctortracker.controller;
  * Couvre: Device endpoints, health data, daily summaries
  */
 
+import com.clinalert.doctortracker.dto.CursorPage;
+import com.clinalert.doctortracker.dto.VitalBucket;
+import com.clinalert.doctortracker.dto.VitalPoint;
+import com.clinalert.doctortracker.dto.VitalSeries;
 import com.clinalert.doctortracker.model.DailyHealthSummary;
 import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.model.HealthMetric;
 import com.clinalert.doctortracker.model.SmartWatchDevice;
+import com.clinalert.doctortracker.service.HealthDataIngestionPipeline;
 import com.clinalert.doctortracker.service.SmartWatchHealthService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,12 +24,18 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -40,9 +52,15 @@ class SmartWatchControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
     @MockBean
     private SmartWatchHealthService smartWatchHealthService;
 
+    @MockBean
+    private HealthDataIngestionPipeline ingestionPipeline;
+
     private SmartWatchDevice device;
     private HealthData healthData;
 
@@ -59,6 +77,8 @@ class SmartWatchControllerTest {
         healthData.setPatientId("patient-001");
         healthData.setHeartRate(75);
         healthData.setTimestamp(LocalDateTime.now());
+
+        when(ingestionPipeline.getMaxUploadRows()).thenReturn(50_000);
     }
 
     @Test
@@ -107,6 +127,92 @@ class SmartWatchControllerTest {
                 .andExpect(jsonPath("$.count").value(1));
     }
 
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("POST /api/smartwatch/health-data - Corps CBOR décodé dans le même chemin, réponse JSON")
+    void submitHealthData_Cbor_ShouldSave() throws Exception {
+        when(smartWatchHealthService.saveHealthData(anyList())).thenReturn(Arrays.asList(healthData));
+        byte[] body = cborConverter.getObjectMapper().writeValueAsBytes(List.of(healthData));
+
+        mockMvc.perform(post("/api/smartwatch/health-data")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.count").value(1));
+
+        verify(smartWatchHealthService).saveHealthData(argThat((List<HealthData> list) -> list.size() == 1
+                && "patient-001".equals(list.get(0).getPatientId())
+                && Integer.valueOf(75).equals(list.get(0).getHeartRate())
+                && healthData.getTimestamp().equals(list.get(0).getTimestamp())));
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("POST /api/smartwatch/health-data?async=true - Accepté avec ticket")
+    void submitHealthData_Async_ShouldReturnAccepted() throws Exception {
+        when(ingestionPipeline.submit(anyList())).thenReturn(Optional.of("ticket-001"));
+
+        mockMvc.perform(post("/api/smartwatch/health-data?async=true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + objectMapper.writeValueAsString(healthData) + "]"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.ticketId").value("ticket-001"))
+                .andExpect(jsonPath("$.count").value(1));
+
+        verify(smartWatchHealthService, never()).saveHealthData(anyList());
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("POST /api/smartwatch/health-data?async=true - File pleine")
+    void submitHealthData_AsyncQueueFull_ShouldReturnTooManyRequests() throws Exception {
+        when(ingestionPipeline.submit(anyList())).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/smartwatch/health-data?async=true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + objectMapper.writeValueAsString(healthData) + "]"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("POST /api/smartwatch/health-data?async=true - Envoi plus grand que la file : 413")
+    void submitHealthData_AsyncLargerThanQueue_ShouldReturnPayloadTooLarge() throws Exception {
+        when(ingestionPipeline.getMaxUploadRows()).thenReturn(1);
+        String row = objectMapper.writeValueAsString(healthData);
+
+        mockMvc.perform(post("/api/smartwatch/health-data?async=true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + row + "," + row + "]"))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.error").value("At most 1 rows per asynchronous upload"));
+
+        verify(ingestionPipeline, never()).submit(anyList());
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/smartwatch/health-data/ingestion/{ticketId}")
+    void getIngestionTicket_ShouldReturnStatus() throws Exception {
+        when(ingestionPipeline.getTicketStatus("ticket-001"))
+                .thenReturn(Optional.of(HealthDataIngestionPipeline.TicketStatus.COMPLETED));
+
+        mockMvc.perform(get("/api/smartwatch/health-data/ingestion/ticket-001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"));
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/smartwatch/health-data/ingestion/{ticketId} - Inconnu")
+    void getIngestionTicket_Unknown_ShouldReturnNotFound() throws Exception {
+        when(ingestionPipeline.getTicketStatus("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/smartwatch/health-data/ingestion/missing"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @WithMockUser(roles = "DOCTOR")
     @DisplayName("POST /api/smartwatch/health-data - Empty list")
@@ -137,6 +243,210 @@ class SmartWatchControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/smartwatch/health-data/{patientId}/heart-rate?limit= - Page par curseur")
+    void getHeartRateHistory_WithLimit_ShouldReturnPage() throws Exception {
+        when(smartWatchHealthService.getHistoryPage("patient-001", HealthMetric.HEART_RATE, "abc", 50))
+                .thenReturn(new CursorPage<>(List.of(healthData), "next"));
+
+        mockMvc.perform(get("/api/smartwatch/health-data/patient-001/heart-rate")
+                .param("limit", "50")
+                .param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(healthData.getId()))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+        verify(smartWatchHealthService, never()).getHeartRateHistory(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/smartwatch/health-data/{patientId}/heart-rate?format=points - Projection")
+    void getHeartRateHistory_PointsFormat_ShouldReturnProjection() throws Exception {
+        when(smartWatchHealthService.getHistoryPoints("patient-001", HealthMetric.HEART_RATE))
+                .thenReturn(List.of(new VitalPoint(healthData.getTimestamp(), 75)));
+
+        mockMvc.perform(get("/api/smartwatch/health-data/patient-001/heart-rate")
+                .param("format", "points"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].value").value(75))
+                .andExpect(jsonPath("$[0].timestamp").exists())
+                .andExpect(jsonPath("$[0].id").doesNotExist());
+        verify(smartWatchHealthService, never()).getHeartRateHistory(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/smartwatch/health-data/{patientId}/steps?format=columnar - Tableaux parallèles")
+    void getStepsHistory_ColumnarFormat_ShouldReturnSeries() throws Exception {
+        when(smartWatchHealthService.getHistorySeries("patient-001", HealthMetric.STEPS))
+                .thenReturn(new VitalSeries(new long[] { 2000L, 1000L }, new double[] { 120, 80 }, null));
+
+        mockMvc.perform(get("/api/smartwatch/health-data/patient-001/steps")
+                .param("format", "columnar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.timestamps[0]").value(2000))
+                .andExpect(jsonPath("$.values[1]").value(80.0));
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/smartwatch/health-data/{patientId}/heart-rate?limit=&format=columnar - Page en colonnes")
+    void getHeartRateHistory_ColumnarPage_ShouldKeepCursor() throws Exception {
+        when(smartWatchHealthService.getHistoryPage("patient-001", HealthMetric.HEART_RATE, null, 1))
+                .thenReturn(new CursorPage<>(List.of(healthData), "next"));
+
+        mockMvc.perform(get("/api/smartwatch/health-data/patient-001/heart-rate")
+                .param("limit", "1")
+                .param("format", "columnar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.timestamps[0]").value(VitalSeries.toEpochMillis(healthData.getTimestamp())))
+                .andExpect(jsonPath("$.values[0]").value(75.0))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/smartwatch/health-data/{patientId}/sleep?format= - Format inconnu")
+    void getSleepHistory_UnknownFormat_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/smartwatch/health-data/patient-001/sleep")
+                .param("format", "csv"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("format must be one of full, points, columnar"));
+        verifyNoInteractions(smartWatchHealthService);
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/smartwatch/health-data/{patientId}/range?points= - Sous-échantillonnage LTTB")
+    void getRange_WithPoints_ShouldDownsample() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 31, 0, 0);
+        when(smartWatchHealthService.downsampleLttb("patient-001", HealthMetric.HEART_RATE, start, end, 300))
+                .thenReturn(List.of(new VitalPoint(start, 72)));
+
+        mockMvc.perform(get("/api/smartwatch/health-data/patient-001/range")
+                .param("start", "2024-03-01T00:00:00")
+                .param("end", "2024-03-31T00:00:00")
+                .param("metric", "heart-rate")
+                .param("points", "300"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].value").value(72));
+        verify(smartWatchHealthService, never()).getPatientHealthDataBetween(any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/smartwatch/health-data/{patientId}/range?points= - Métrique manquante")
+    void getRange_WithPointsWithoutMetric_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/smartwatch/health-data/patient-001/range")
+                .param("start", "2024-03-01T00:00:00")
+                .param("end", "2024-03-31T00:00:00")
+                .param("points", "300"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/smartwatch/health-data/{patientId}/spo2?points=&algorithm=bucket - Seaux min/max/moy")
+    void getSpO2History_BucketAlgorithm_ShouldReturnBuckets() throws Exception {
+        when(smartWatchHealthService.getHistoryBuckets("patient-001", HealthMetric.SPO2, null, null, 24))
+                .thenReturn(List.of(new VitalBucket(healthData.getTimestamp(), 94.0, 99.0, 97.2, 60)));
+
+        mockMvc.perform(get("/api/smartwatch/health-data/patient-001/spo2")
+                .param("points", "24")
+                .param("algorithm", "bucket"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].min").value(94.0))
+                .andExpect(jsonPath("$[0].avg").value(97.2))
+                .andExpect(jsonPath("$[0].count").value(60));
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/smartwatch/health-data/{patientId}/steps?points=&limit= - Combinaison refusée")
+    void getStepsHistory_PointsWithLimit_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/smartwatch/health-data/patient-001/steps")
+                .param("points", "100")
+                .param("limit", "10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("points cannot be combined with limit or format"));
+        verifyNoInteractions(smartWatchHealthService);
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/smartwatch/health-data/{patientId}/spo2?limit= - Curseur invalide")
+    void getSpO2History_InvalidCursor_ShouldReturnBadRequest() throws Exception {
+        when(smartWatchHealthService.getHistoryPage(any(), any(), any(), anyInt()))
+                .thenThrow(new IllegalArgumentException("Invalid pagination cursor"));
+
+        mockMvc.perform(get("/api/smartwatch/health-data/patient-001/spo2")
+                .param("limit", "10")
+                .param("cursor", "???"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid pagination cursor"));
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/smartwatch/health-data/{patientId}/steps?stream=true - Tableau JSON en flux")
+    void streamStepsHistory_ShouldWriteJsonArray() throws Exception {
+        streamRows(HealthMetric.STEPS, 3);
+
+        MvcResult result = mockMvc.perform(get("/api/smartwatch/health-data/patient-001/steps")
+                .param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[2].id").value("row-2"));
+        verify(smartWatchHealthService, never()).getStepsHistory(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/smartwatch/health-data/{patientId}/heart-rate?stream=true - NDJSON")
+    void streamHeartRateHistory_Ndjson_ShouldWriteOneObjectPerLine() throws Exception {
+        streamRows(HealthMetric.HEART_RATE, 2);
+
+        MvcResult result = mockMvc.perform(get("/api/smartwatch/health-data/patient-001/heart-rate")
+                .param("stream", "true")
+                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.strip().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[1]).get("id").asText())
+                .isEqualTo("row-1");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void streamRows(HealthMetric metric, int count) {
+        doAnswer(inv -> {
+            Consumer<HealthData> sink = inv.getArgument(2);
+            for (int i = 0; i < count; i++) {
+                HealthData row = new HealthData();
+                row.setId("row-" + i);
+                row.setPatientId("patient-001");
+                row.setSteps(100 * i);
+                row.setHeartRate(70 + i);
+                row.setTimestamp(LocalDateTime.of(2024, 3, 15, 12, 0).minusMinutes(i));
+                sink.accept(row);
+            }
+            return null;
+        }).when(smartWatchHealthService).streamHistory(eq("patient-001"), eq(metric), any(Consumer.class));
+    }
+
     @Test
     @WithMockUser(roles = "DOCTOR")
     @DisplayName("GET /api/smartwatch/health-data/{patientId}/steps")
@@ -5,6 +5,7 @@ package com.clinalert.doctortracker.controller;
  * Couvre: CRUD users, password, email, profile
  */
 
+import com.clinalert.doctortracker.dto.CursorPage;
 import com.clinalert.doctortracker.model.User;
 import com.clinalert.doctortracker.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -20,6 +21,7 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -60,15 +62,42 @@ class UserControllerTest {
     @WithMockUser(roles = "DOCTOR")
     @DisplayName("GET /api/users - Retourne tous les users")
     void getAllUsers_ShouldReturnList() throws Exception {
-        when(userService.getAllUsers()).thenReturn(Arrays.asList(user));
+        when(userService.getAllUsers()).thenReturn(new CursorPage<>(Arrays.asList(user), null));
 
         mockMvc.perform(get("/api/users"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].email").value("test@clinalert.com"));
+                .andExpect(jsonPath("$[0].email").value("test@clinalert.com"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
 
         verify(userService).getAllUsers();
     }
 
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/users - Liste tronquée signalée par l'en-tête X-Next-Cursor")
+    void getAllUsers_WhenTruncated_ShouldSendNextCursorHeader() throws Exception {
+        when(userService.getAllUsers()).thenReturn(new CursorPage<>(List.of(user), "abc"));
+
+        mockMvc.perform(get("/api/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email").value("test@clinalert.com"))
+                .andExpect(jsonPath("$[0].password").doesNotExist())
+                .andExpect(header().string("X-Next-Cursor", "abc"));
+    }
+
+    @Test
+    @WithMockUser(roles = "DOCTOR")
+    @DisplayName("GET /api/users?cursor= - Page par curseur sans mot de passe")
+    void getAllUsers_WithCursor_ShouldReturnMappedPage() throws Exception {
+        when(userService.getUsersAfter("abc", null)).thenReturn(new CursorPage<>(List.of(user), null));
+
+        mockMvc.perform(get("/api/users").param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].email").value("test@clinalert.com"))
+                .andExpect(jsonPath("$.items[0].password").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
     @Test
     @WithMockUser(roles = "DOCTOR")
     @DisplayName("GET /api/users/{id} - Retourne user")
@@ -11,8 +11,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -138,6 +141,90 @@ class AlertRepositoryTest {
                 .containsOnly("CRITICAL");
     }
 
+    @Test
+    @DisplayName("escalate - UPDATE groupé limité aux alertes MEDIUM non lues")
+    void escalate_ShouldOnlyTouchUnreadAlertsOfSourceSeverity() {
+        Alert medium = alert("MEDIUM", "Tachycardie");
+        Alert read = alert("MEDIUM", "Déjà vue");
+        Alert critical = alert("CRITICAL", "Critique");
+        entityManager.persist(medium);
+        entityManager.persist(read);
+        entityManager.persist(critical);
+        read.setRead(true);
+        entityManager.flush();
+
+        int escalated = alertRepository.escalate(List.of(medium.getId(), read.getId(), critical.getId()),
+                "MEDIUM", "HIGH", "[ESCALATED] ");
+        entityManager.clear();
+
+        assertThat(escalated).isEqualTo(1);
+        assertThat(alertRepository.findById(medium.getId())).get()
+                .returns("HIGH", Alert::getSeverity)
+                .returns("[ESCALATED] Tachycardie", Alert::getMessage);
+        assertThat(alertRepository.findById(read.getId())).get().returns("MEDIUM", Alert::getSeverity);
+        assertThat(alertRepository.findById(critical.getId())).get().returns("CRITICAL", Alert::getSeverity);
+    }
+
+    @Test
+    @DisplayName("forEachUnread - Parcourt id et timestamp des alertes non lues d'une sévérité")
+    void forEachUnread_ShouldStreamUnreadIdsOfSeverity() {
+        Alert medium = alert("MEDIUM", "A");
+        Alert read = alert("MEDIUM", "B");
+        entityManager.persist(medium);
+        entityManager.persist(read);
+        entityManager.persist(alert("LOW", "C"));
+        read.setRead(true);
+        entityManager.flush();
+
+        List<String> ids = new ArrayList<>();
+        alertRepository.forEachUnread("MEDIUM", (id, timestamp) -> {
+            assertThat(timestamp).isNotNull();
+            ids.add(id);
+        });
+
+        assertThat(ids).containsExactly(medium.getId());
+    }
+
+    @Test
+    @DisplayName("forEachUnread - Parcourt patient, sévérité et timestamp de toutes les alertes non lues")
+    void forEachUnread_ShouldStreamAllUnreadAlerts() {
+        Alert high = alert("HIGH", "A");
+        Alert read = alert("LOW", "B");
+        entityManager.persist(high);
+        entityManager.persist(read);
+        read.setRead(true);
+        entityManager.flush();
+
+        List<Alert> unread = new ArrayList<>();
+        alertRepository.forEachUnread(unread::add);
+
+        assertThat(unread).singleElement()
+                .returns(high.getId(), Alert::getId)
+                .returns("patient-001", Alert::getPatientId)
+                .returns("HIGH", Alert::getSeverity)
+                .satisfies(alert -> assertThat(alert.getTimestamp()).isNotNull());
+    }
+
+    @Test
+    @DisplayName("markRead* - UPDATE groupé par ids, par patient et par date, retournant le nombre d'alertes non lues")
+    void markRead_ShouldUpdateInBulkAndCountOnlyUnread() {
+        List<Alert> alerts = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            alerts.add(alert("LOW", "A" + i));
+        }
+        alerts.get(3).setPatientId("patient-002");
+        alertRepository.insertBatch(alerts);
+        LocalDateTime before = alerts.get(0).getTimestamp().minusSeconds(1);
+        LocalDateTime after = alerts.get(0).getTimestamp().plusSeconds(1);
+
+        assertThat(alertRepository.markReadByIds(List.of(alerts.get(0).getId(), "missing"))).isEqualTo(1);
+        assertThat(alertRepository.markReadByIds(List.of(alerts.get(0).getId()))).isZero();
+        assertThat(alertRepository.markReadByPatientBefore("patient-001", before)).isZero();
+        assertThat(alertRepository.markReadByPatient("patient-001")).isEqualTo(2);
+        assertThat(alertRepository.markReadBefore(after)).isEqualTo(1);
+        assertThat(alertRepository.findByIsReadFalse()).isEmpty();
+    }
+
     @Test
     @DisplayName("save - Doit sauvegarder une alerte")
     void save_ShouldPersistAlert() {
@@ -223,4 +310,59 @@ class AlertRepositoryTest {
         // Assert
         assertThat(unread).isEmpty();
     }
+
+    @Test
+    @DisplayName("insertBatch - Doit insérer les alertes non lues et attribuer ids et timestamps")
+    void insertBatch_ShouldInsertUnreadAlerts() {
+        alert2.setTimestamp(null);
+
+        int inserted = alertRepository.insertBatch(List.of(alert1, alert2, alert3));
+
+        assertThat(inserted).isEqualTo(3);
+        assertThat(List.of(alert1, alert2, alert3)).allSatisfy(alert -> {
+            assertThat(alert.getId()).isNotNull();
+            assertThat(alert.getTimestamp()).isNotNull();
+            assertThat(alert.isRead()).isFalse();
+        });
+        assertThat(alertRepository.findByPatientId("patient-001")).hasSize(2);
+        assertThat(alertRepository.findByIsReadFalse()).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("insertBatch - Liste vide")
+    void insertBatch_Empty_ShouldReturnZero() {
+        assertThat(alertRepository.insertBatch(List.of())).isZero();
+    }
+
+    @Test
+    @DisplayName("findPageBefore - Parcours par curseur sans doublon ni oubli à timestamp égal")
+    void findPageBefore_ShouldWalkAllAlertsWithEqualTimestamps() {
+        List<Alert> batch = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Alert alert = new Alert();
+            alert.setPatientId("patient-00" + i);
+            alert.setSeverity("LOW");
+            batch.add(alert);
+        }
+        alertRepository.insertBatch(batch);
+
+        List<String> walked = new ArrayList<>();
+        List<Alert> page = alertRepository.findAllByOrderByTimestampDescIdDesc(Limit.of(2));
+        while (!page.isEmpty()) {
+            page.forEach(alert -> walked.add(alert.getId()));
+            Alert last = page.get(page.size() - 1);
+            page = alertRepository.findPageBefore(last.getTimestamp(), last.getId(), Limit.of(2));
+        }
+
+        assertThat(walked).hasSize(5).doesNotHaveDuplicates()
+                .isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
+    private static Alert alert(String severity, String message) {
+        Alert alert = new Alert();
+        alert.setPatientId("patient-001");
+        alert.setSeverity(severity);
+        alert.setMessage(message);
+        return alert;
+    }
 }
@@ -0,0 +1,136 @@
+package com.clinalert.doctortracker.repository;
+
+/**
+ * Tests pour DailyHealthSummaryRepository (fusion incrémentale par upsert)
+ */
+
+import com.clinalert.doctortracker.model.DailyHealthSummary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@DisplayName("Tests Repository DailyHealthSummary")
+class DailyHealthSummaryRepositoryTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DailyHealthSummaryRepository dailySummaryRepository;
+
+    @Test
+    @DisplayName("mergeIncrements - Crée le résumé s'il n'existe pas")
+    void mergeIncrements_NewDay_ShouldInsert() {
+        int written = dailySummaryRepository.mergeIncrements(List.of(increment(2, 70, 80, 100)));
+
+        assertThat(written).isEqualTo(1);
+        DailyHealthSummary summary = reload();
+        assertThat(summary.getId()).isNotNull();
+        assertThat(summary.getDataPointsCount()).isEqualTo(2);
+        assertThat(summary.getAvgHeartRate()).isEqualTo(75.0);
+        assertThat(summary.getMinHeartRate()).isEqualTo(70);
+        assertThat(summary.getMaxHeartRate()).isEqualTo(80);
+        assertThat(summary.getTotalSteps()).isEqualTo(100);
+        assertThat(summary.getAvgSpO2()).isNull();
+        assertThat(summary.getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("mergeIncrements - Fusionne sommes, extrêmes et moyennes pondérées")
+    void mergeIncrements_ExistingDay_ShouldMerge() {
+        dailySummaryRepository.mergeIncrements(List.of(increment(2, 70, 80, 100)));
+
+        DailyHealthSummary second = increment(1, 110, 110, 50);
+        second.setSpO2Samples(1);
+        second.setAvgSpO2(96.0);
+        second.setMinSpO2(96.0);
+        dailySummaryRepository.mergeIncrements(List.of(second));
+
+        DailyHealthSummary summary = reload();
+        assertThat(summary.getDataPointsCount()).isEqualTo(3);
+        assertThat(summary.getHeartRateSamples()).isEqualTo(3);
+        assertThat(summary.getAvgHeartRate()).isCloseTo(86.667, within(0.001));
+        assertThat(summary.getMinHeartRate()).isEqualTo(70);
+        assertThat(summary.getMaxHeartRate()).isEqualTo(110);
+        assertThat(summary.getTotalSteps()).isEqualTo(150);
+        assertThat(summary.getAvgSpO2()).isEqualTo(96.0);
+        assertThat(summary.getMinSpO2()).isEqualTo(96.0);
+        assertThat(dailySummaryRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("mergeIncrements - Un incrément sans fréquence cardiaque conserve la moyenne")
+    void mergeIncrements_WithoutReadings_ShouldKeepAverage() {
+        dailySummaryRepository.mergeIncrements(List.of(increment(2, 70, 80, 100)));
+
+        DailyHealthSummary stepsOnly = new DailyHealthSummary();
+        stepsOnly.setPatientId("patient-001");
+        stepsOnly.setDate(DAY);
+        stepsOnly.setDataPointsCount(1);
+        stepsOnly.setHeartRateSamples(0);
+        stepsOnly.setTotalSteps(400);
+        dailySummaryRepository.mergeIncrements(List.of(stepsOnly));
+
+        DailyHealthSummary summary = reload();
+        assertThat(summary.getAvgHeartRate()).isEqualTo(75.0);
+        assertThat(summary.getMinHeartRate()).isEqualTo(70);
+        assertThat(summary.getTotalSteps()).isEqualTo(500);
+    }
+
+    @Test
+    @DisplayName("upsertSummaries - Remplace les valeurs calculées du résumé existant")
+    void upsertSummaries_ExistingDay_ShouldReplace() {
+        dailySummaryRepository.mergeIncrements(List.of(increment(2, 70, 80, 100)));
+
+        dailySummaryRepository.upsertSummaries(List.of(increment(5, 60, 65, 900)));
+
+        DailyHealthSummary summary = reload();
+        assertThat(summary.getDataPointsCount()).isEqualTo(5);
+        assertThat(summary.getHeartRateSamples()).isEqualTo(5);
+        assertThat(summary.getAvgHeartRate()).isEqualTo(62.5);
+        assertThat(summary.getMaxHeartRate()).isEqualTo(65);
+        assertThat(summary.getTotalSteps()).isEqualTo(900);
+        assertThat(dailySummaryRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("mergeIncrements - Liste vide")
+    void mergeIncrements_Empty_ShouldReturnZero() {
+        assertThat(dailySummaryRepository.mergeIncrements(List.of())).isZero();
+    }
+
+    private DailyHealthSummary reload() {
+        entityManager.clear();
+        return dailySummaryRepository.findByPatientIdAndDate("patient-001", DAY).orElseThrow();
+    }
+
+    private static DailyHealthSummary increment(int readings, int minHr, int maxHr, int steps) {
+        DailyHealthSummary increment = new DailyHealthSummary();
+        increment.setPatientId("patient-001");
+        increment.setDate(DAY);
+        increment.setDataPointsCount(readings);
+        increment.setHeartRateSamples(readings);
+        increment.setAvgHeartRate((minHr + maxHr) / 2.0);
+        increment.setMinHeartRate(minHr);
+        increment.setMaxHeartRate(maxHr);
+        increment.setTotalSteps(steps);
+        increment.setTotalDistanceMeters(0.0);
+        increment.setTotalCaloriesBurned(0);
+        increment.setTotalSleepMinutes(0);
+        increment.setSpO2Samples(0);
+        increment.setSystolicSamples(0);
+        increment.setDiastolicSamples(0);
+        increment.setTemperatureSamples(0);
+        return increment;
+    }
+}
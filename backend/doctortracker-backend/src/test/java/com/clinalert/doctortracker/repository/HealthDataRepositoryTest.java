@@ -0,0 +1,222 @@
+package com.clinalert.doctortracker.repository;
+
+/**
+ * Tests pour HealthDataRepository (insertion JDBC par lot)
+ */
+
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.model.HealthMetric;
+import com.clinalert.doctortracker.repository.HealthDataRepositoryCustom.Bucket;
+import com.clinalert.doctortracker.repository.HealthDataRepositoryCustom.Reading;
+import com.clinalert.doctortracker.repository.HealthDataRepositoryCustom.Span;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@DisplayName("Tests Repository HealthData")
+class HealthDataRepositoryTest {
+
+    @Autowired
+    private HealthDataRepository healthDataRepository;
+
+    @Autowired
+    private HealthDataRepositoryCustomImpl healthDataRepositoryImpl;
+
+    @Test
+    @DisplayName("insertBatch - Doit insérer toutes les lignes et attribuer les ids")
+    void insertBatch_ShouldInsertAllRows() {
+        List<HealthData> rows = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            HealthData data = new HealthData();
+            data.setPatientId("patient-001");
+            data.setHeartRate(60 + i);
+            data.setSpO2(i % 2 == 0 ? 97.5 : null);
+            data.setTimestamp(LocalDateTime.now().minusMinutes(i));
+            rows.add(data);
+        }
+
+        int inserted = healthDataRepository.insertBatch(rows);
+
+        assertThat(inserted).isEqualTo(25);
+        assertThat(rows).allSatisfy(row -> {
+            assertThat(row.getId()).isNotNull();
+            assertThat(row.getReceivedAt()).isNotNull();
+        });
+        assertThat(healthDataRepository.countByPatientId("patient-001")).isEqualTo(25);
+        assertThat(healthDataRepository.findSpO2DataByPatientId("patient-001")).hasSize(13);
+    }
+
+    @Test
+    @DisplayName("insertBatch - Timestamp manquant rempli comme @PrePersist")
+    void insertBatch_MissingTimestamp_ShouldDefaultToNow() {
+        HealthData data = new HealthData();
+        data.setPatientId("patient-002");
+        data.setSteps(1200);
+
+        healthDataRepository.insertBatch(List.of(data));
+
+        assertThat(data.getTimestamp()).isNotNull();
+        assertThat(healthDataRepository.findStepsDataByPatientId("patient-002")).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("insertBatch - Liste vide")
+    void insertBatch_Empty_ShouldReturnZero() {
+        assertThat(healthDataRepository.insertBatch(List.of())).isZero();
+    }
+
+    @Test
+    @DisplayName("streamByPatient - Lignes du jour triées par patient, reprise après un patient")
+    void streamByPatient_ShouldStreamDayOrderedByPatient() {
+        LocalDateTime day = LocalDateTime.of(2024, 3, 15, 0, 0);
+        List<HealthData> rows = new ArrayList<>();
+        for (String patient : List.of("p3", "p1", "p2", "p1")) {
+            HealthData data = new HealthData();
+            data.setPatientId(patient);
+            data.setHeartRate(70);
+            data.setTimestamp(day.plusHours(rows.size()));
+            rows.add(data);
+        }
+        HealthData nextDay = new HealthData();
+        nextDay.setPatientId("p1");
+        nextDay.setTimestamp(day.plusDays(1));
+        rows.add(nextDay);
+        healthDataRepository.insertBatch(rows);
+
+        List<String> all = new ArrayList<>();
+        healthDataRepository.streamByPatient(day, day.plusDays(1), null, 2, row -> all.add(row.getPatientId()));
+        List<String> resumed = new ArrayList<>();
+        healthDataRepository.streamByPatient(day, day.plusDays(1), "p1", 2,
+                row -> resumed.add(row.getPatientId()));
+
+        assertThat(all).containsExactly("p1", "p1", "p2", "p3");
+        assertThat(resumed).containsExactly("p2", "p3");
+    }
+
+    @Test
+    @DisplayName("streamHistory / findHistoryPage - Plus récent d'abord, pages par curseur")
+    void history_ShouldStreamAndPageNewestFirst() {
+        LocalDateTime base = LocalDateTime.of(2024, 3, 15, 8, 0);
+        List<HealthData> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            HealthData data = new HealthData();
+            data.setPatientId("patient-010");
+            data.setHeartRate(i == 2 ? null : 60 + i);
+            data.setSteps(10);
+            // Two rows share a timestamp to exercise the id tie-breaker
+            data.setTimestamp(base.plusMinutes(Math.min(i, 3)));
+            rows.add(data);
+        }
+        healthDataRepository.insertBatch(rows);
+
+        List<HealthData> streamed = new ArrayList<>();
+        healthDataRepository.streamHistory("patient-010", HealthMetric.HEART_RATE, 2, streamed::add);
+        assertThat(streamed).hasSize(4);
+        assertThat(streamed.get(0).getTimestamp()).isEqualTo(base.plusMinutes(3));
+        assertThat(streamed).extracting(HealthData::getHeartRate).doesNotContainNull();
+
+        List<HealthData> first = healthDataRepository.findHistoryPage("patient-010", HealthMetric.HEART_RATE,
+                null, null, 2);
+        HealthData last = first.get(1);
+        List<HealthData> second = healthDataRepository.findHistoryPage("patient-010", HealthMetric.HEART_RATE,
+                last.getTimestamp(), last.getId(), 2);
+
+        assertThat(first).extracting(HealthData::getId)
+                .containsExactlyElementsOf(streamed.subList(0, 2).stream().map(HealthData::getId).toList());
+        assertThat(second).extracting(HealthData::getId)
+                .containsExactlyElementsOf(streamed.subList(2, 4).stream().map(HealthData::getId).toList());
+    }
+
+    @Test
+    @DisplayName("findHistoryPoints / forEachHistoryValue - Projection (timestamp, valeur)")
+    void historyProjections_ShouldReturnTimestampAndValueOnly() {
+        LocalDateTime base = LocalDateTime.of(2024, 3, 15, 8, 0);
+        List<HealthData> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            HealthData data = new HealthData();
+            data.setPatientId("patient-011");
+            data.setSpO2(i == 1 ? null : 95.5 + i);
+            data.setTimestamp(base.plusMinutes(i));
+            rows.add(data);
+        }
+        healthDataRepository.insertBatch(rows);
+
+        List<Reading> points = healthDataRepository.findHistoryPoints("patient-011", HealthMetric.SPO2);
+        assertThat(points).extracting(Reading::timestamp)
+                .containsExactly(base.plusMinutes(2), base);
+        assertThat(points).extracting(p -> p.value().doubleValue()).containsExactly(97.5, 95.5);
+
+        List<LocalDateTime> timestamps = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        healthDataRepository.forEachHistoryValue("patient-011", HealthMetric.SPO2, (timestamp, value) -> {
+            timestamps.add(timestamp);
+            values.add(value);
+        });
+        assertThat(timestamps).containsExactly(base.plusMinutes(2), base);
+        assertThat(values).containsExactly(97.5, 95.5);
+    }
+
+    @Test
+    @DisplayName("findHistorySpan / streamHistoryPoints - Bornes de la plage, plus ancien d'abord")
+    void historySpanAndPoints_ShouldRespectRange() {
+        LocalDateTime base = LocalDateTime.of(2024, 3, 15, 8, 0);
+        insertHeartRates("patient-012", base, 10);
+
+        Span span = healthDataRepository.findHistorySpan("patient-012", HealthMetric.HEART_RATE,
+                base.plusMinutes(2), base.plusMinutes(6));
+        List<Reading> points = new ArrayList<>();
+        healthDataRepository.streamHistoryPoints("patient-012", HealthMetric.HEART_RATE, base.plusMinutes(2),
+                null, 3, points::add);
+
+        assertThat(span).isEqualTo(new Span(5, base.plusMinutes(2), base.plusMinutes(6)));
+        assertThat(points).hasSize(8);
+        assertThat(points.get(0).timestamp()).isEqualTo(base.plusMinutes(2));
+        assertThat(points.get(7).value().intValue()).isEqualTo(69);
+    }
+
+    @Test
+    @DisplayName("findHistoryBuckets - Agrégation SQL identique à la passe en flux")
+    void findHistoryBuckets_SqlAndStreamingShouldAgree() {
+        LocalDateTime base = LocalDateTime.of(2024, 3, 15, 8, 0);
+        insertHeartRates("patient-013", base, 60);
+        LocalDateTime end = base.plusMinutes(60);
+
+        List<Bucket> sql = healthDataRepository.findHistoryBuckets("patient-013", HealthMetric.HEART_RATE,
+                base, end, 6);
+        ReflectionTestUtils.setField(healthDataRepositoryImpl, "sqlBucketing", false);
+        List<Bucket> streamed;
+        try {
+            streamed = healthDataRepository.findHistoryBuckets("patient-013", HealthMetric.HEART_RATE, base, end,
+                    6);
+        } finally {
+            ReflectionTestUtils.setField(healthDataRepositoryImpl, "sqlBucketing", null);
+        }
+
+        assertThat(sql).hasSize(6);
+        assertThat(sql).extracting(Bucket::count).containsOnly(10L);
+        assertThat(sql.get(0)).isEqualTo(new Bucket(base, 60.0, 69.0, 64.5, 10));
+        assertThat(streamed).containsExactlyElementsOf(sql);
+    }
+
+    // One heart rate per minute, 60 + (i % 10)
+    private void insertHeartRates(String patientId, LocalDateTime base, int count) {
+        List<HealthData> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            HealthData data = new HealthData();
+            data.setPatientId(patientId);
+            data.setHeartRate(60 + i % 10);
+            data.setTimestamp(base.plusMinutes(i));
+            rows.add(data);
+        }
+        healthDataRepository.insertBatch(rows);
+    }
+}
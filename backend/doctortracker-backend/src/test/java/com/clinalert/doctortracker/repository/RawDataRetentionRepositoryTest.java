@@ -0,0 +1,98 @@
+package com.clinalert.doctortracker.repository;
+
+/**
+ * Tests pour RawDataRetentionRepository (purge des données brutes résumées)
+ * Sur H2 les tables ne sont pas partitionnées : seule la purge par jour
+ * s'applique.
+ */
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static com.clinalert.doctortracker.repository.RawDataRetentionRepository.HEALTH_DATA;
+import static com.clinalert.doctortracker.repository.RawDataRetentionRepository.MEASUREMENTS;
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@Import(RawDataRetentionRepository.class)
+@DisplayName("Tests Repository RawDataRetention")
+class RawDataRetentionRepositoryTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    @Autowired
+    private RawDataRetentionRepository retentionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("isPartitioned - Faux hors PostgreSQL")
+    void isPartitioned_OnH2_ShouldBeFalse() {
+        assertThat(retentionRepository.isPartitioned(HEALTH_DATA)).isFalse();
+        assertThat(retentionRepository.isPartitioned(MEASUREMENTS)).isFalse();
+    }
+
+    @Test
+    @DisplayName("deleteSummarizedRows - Supprime seulement les lignes du jour dont le patient est résumé, jamais les mesures")
+    void deleteSummarizedRows_ShouldKeepUnsummarizedPatientsAndOtherDays() {
+        summary("p1", DAY);
+        healthData("hd-1", "p1", DAY.atTime(8, 0));
+        healthData("hd-2", "p1", DAY.atTime(23, 59));
+        healthData("hd-3", "p2", DAY.atTime(9, 0));
+        healthData("hd-4", "p1", DAY.plusDays(1).atStartOfDay());
+        measurement("m-1", "p1", DAY.atTime(10, 0));
+        measurement("m-2", "p2", DAY.atTime(10, 0));
+
+        assertThat(retentionRepository.deleteSummarizedRows(HEALTH_DATA, DAY)).isEqualTo(2);
+        assertThatThrownBy(() -> retentionRepository.deleteSummarizedRows(MEASUREMENTS, DAY))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM health_data ORDER BY id", String.class))
+                .containsExactly("hd-3", "hd-4");
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM measurements ORDER BY id", String.class))
+                .containsExactly("m-1", "m-2");
+    }
+
+    @Test
+    @DisplayName("findOldestDay - Jour de la ligne la plus ancienne, vide si la table est vide")
+    void findOldestDay_ShouldReturnDayOfOldestRow() {
+        assertThat(retentionRepository.findOldestDay(HEALTH_DATA)).isEmpty();
+
+        healthData("hd-1", "p1", DAY.atTime(18, 0));
+        healthData("hd-2", "p1", DAY.minusDays(3).atTime(6, 30));
+
+        assertThat(retentionRepository.findOldestDay(HEALTH_DATA)).contains(DAY.minusDays(3));
+    }
+
+    @Test
+    @DisplayName("Table inconnue - Rejetée avant toute requête")
+    void unknownTable_ShouldBeRejected() {
+        assertThatThrownBy(() -> retentionRepository.deleteSummarizedRows("users", DAY))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void summary(String patientId, LocalDate date) {
+        jdbcTemplate.update("INSERT INTO daily_health_summaries (id, patient_id, summary_date) VALUES (?, ?, ?)",
+                "s-" + patientId + "-" + date, patientId, Date.valueOf(date));
+    }
+
+    private void healthData(String id, String patientId, LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO health_data (id, patient_id, timestamp) VALUES (?, ?, ?)",
+                id, patientId, Timestamp.valueOf(timestamp));
+    }
+
+    private void measurement(String id, String patientId, LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO measurements (id, patient_id, timestamp) VALUES (?, ?, ?)",
+                id, patientId, Timestamp.valueOf(timestamp));
+    }
+}
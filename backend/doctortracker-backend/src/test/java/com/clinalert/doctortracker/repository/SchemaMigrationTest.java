@@ -0,0 +1,91 @@
+package com.clinalert.doctortracker.repository;
+
+/**
+ * Tests des migrations Flyway
+ * Vérifie que le schéma est créé par les migrations (et non par Hibernate),
+ * que le SQL spécifique au fournisseur est appliqué, que les contraintes
+ * déclarées dans les scripts sont bien présentes et qu'un schéma hérité de
+ * ddl-auto=update est mis à niveau.
+ */
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@DisplayName("Tests des Migrations de Schéma")
+class SchemaMigrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Migrations - Socle commun puis index spécifiques H2 appliqués dans l'ordre")
+    void migrations_ShouldBeAppliedInOrder() {
+        List<String> versions = jdbcTemplate.queryForList(
+                "SELECT \"version\" FROM \"flyway_schema_history\" "
+                        + "WHERE \"type\" = 'SQL' AND \"success\" ORDER BY \"installed_rank\"",
+                String.class);
+
+        assertThat(versions).containsExactly("1", "2", "3", "4");
+    }
+
+    @Test
+    @DisplayName("Index - Index des alertes non lues et index temporel de health_data présents")
+    void vendorIndexes_ShouldExist() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT LOWER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_SCHEMA = 'PUBLIC'",
+                String.class);
+
+        assertThat(indexes).contains("idx_alerts_unread", "idx_health_data_timestamp",
+                "idx_health_data_patient_timestamp");
+    }
+
+    @Test
+    @DisplayName("Contraintes - Rôle utilisateur inconnu rejeté par la contrainte CHECK")
+    void usersRoleCheck_ShouldRejectUnknownRole() {
+        assertThatThrownBy(() -> jdbcTemplate.update(
+                "INSERT INTO users (id, email, password, role, enabled, created_at) "
+                        + "VALUES ('u-1', 'x@clinalert.com', 'p', 'ROOT', TRUE, CURRENT_TIMESTAMP)"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Schéma hérité de ddl-auto - Colonnes *_samples et job_checkpoints ajoutés, données conservées")
+    void legacySchema_ShouldBeUpgradedFromBaseline() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:legacy-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate legacy = new JdbcTemplate(dataSource);
+        legacy.execute("CREATE TABLE daily_health_summaries (id VARCHAR(255) PRIMARY KEY, "
+                + "patient_id VARCHAR(255) NOT NULL, summary_date DATE NOT NULL, avg_heart_rate FLOAT(53))");
+        legacy.update("INSERT INTO daily_health_summaries VALUES ('s-1', 'p-1', DATE '2024-03-14', 72.5)");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+
+        List<String> columns = legacy.queryForList(
+                "SELECT LOWER(COLUMN_NAME) FROM INFORMATION_SCHEMA.COLUMNS "
+                        + "WHERE LOWER(TABLE_NAME) = 'daily_health_summaries'",
+                String.class);
+        assertThat(columns).contains("heart_rate_samples", "spo2_samples", "systolic_samples",
+                "diastolic_samples", "temperature_samples");
+        assertThat(legacy.queryForObject("SELECT COUNT(*) FROM job_checkpoints", Integer.class)).isZero();
+        assertThat(legacy.queryForObject("SELECT avg_heart_rate FROM daily_health_summaries WHERE id = 's-1'",
+                Double.class)).isEqualTo(72.5);
+    }
+}
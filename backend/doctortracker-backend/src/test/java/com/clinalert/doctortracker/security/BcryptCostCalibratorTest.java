@@ -0,0 +1,59 @@
+package com.clinalert.doctortracker.security;
+
+/**
+ * Tests Unitaires pour BcryptCostCalibrator et l'encodeur délégué
+ * Vérifie le choix du coût BCrypt, la compatibilité avec les anciens hashes
+ * et la détection des hashes à mettre à niveau.
+ */
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests Unitaires BcryptCostCalibrator")
+class BcryptCostCalibratorTest {
+
+    @Test
+    @DisplayName("costFor - Chaque palier double le temps, borné par min et max")
+    void costFor_ShouldExtrapolateAndClamp() {
+        long fiftyMs = 50_000_000L;
+
+        assertThat(BcryptCostCalibrator.costFor(250, fiftyMs, 10, 14)).isEqualTo(12);
+        assertThat(BcryptCostCalibrator.costFor(10, fiftyMs, 10, 14)).isEqualTo(10);
+        assertThat(BcryptCostCalibrator.costFor(100_000, fiftyMs, 10, 14)).isEqualTo(14);
+    }
+
+    @Test
+    @DisplayName("calibrate - Bornes invalides rejetées")
+    void calibrate_InvalidBounds_ShouldThrow() {
+        assertThatThrownBy(() -> BcryptCostCalibrator.calibrate(250, 3, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BcryptCostCalibrator.calibrate(250, 12, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("calibrate - Coût minimal si la cible est trop basse")
+    void calibrate_LowTarget_ShouldReturnMinCost() {
+        assertThat(BcryptCostCalibrator.calibrate(0, 4, 6)).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("passwordEncoder - Anciens hashes acceptés puis signalés pour mise à niveau")
+    void passwordEncoder_ShouldMatchLegacyAndFlagUpgrade() {
+        PasswordEncoder encoder = new SecurityConfig(null, null, null).passwordEncoder(5, 250, 4, 6);
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+        String lowCost = "{bcrypt}" + legacy;
+        String current = encoder.encode("secret");
+
+        assertThat(current).startsWith("{bcrypt}$2a$05$");
+        assertThat(encoder.matches("secret", legacy)).isTrue();
+        assertThat(encoder.matches("secret", lowCost)).isTrue();
+        assertThat(encoder.upgradeEncoding(legacy)).isTrue();
+        assertThat(encoder.upgradeEncoding(lowCost)).isTrue();
+        assertThat(encoder.upgradeEncoding(current)).isFalse();
+    }
+}
@@ -0,0 +1,129 @@
+package com.clinalert.doctortracker.security;
+
+/**
+ * Tests Unitaires pour JwtAuthenticationFilter
+ * Vérifie la reconstruction du principal depuis les claims (sans lecture de users),
+ * la révocation via l'état utilisateur et le mode historique.
+ */
+
+import com.clinalert.doctortracker.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitaires JwtAuthenticationFilter")
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private UserStateCache userStateCache;
+
+    private JwtAuthenticationFilter filter;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret",
+                "test-secret-that-is-long-enough-for-hs512-signatures-0123456789abcdef");
+        ReflectionTestUtils.setField(provider, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(provider, "claimsCacheSize", 100);
+        provider.init();
+
+        filter = new JwtAuthenticationFilter(provider, userDetailsService, userStateCache);
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", true);
+
+        UserDetails doctor = org.springframework.security.core.userdetails.User
+                .withUsername("house@clinalert.com").password("x").roles("DOCTOR").build();
+        token = provider.generateToken(doctor, "user-001", "DOCTOR");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Mode sans état - Principal construit depuis les claims, sans chargement de l'utilisateur")
+    void statelessPrincipal_ShouldNotLoadUser() throws Exception {
+        when(userStateCache.get("user-001")).thenReturn(Optional.of(
+                new UserStateCache.UserState("house@clinalert.com", User.UserRole.DOCTOR, true)));
+
+        Authentication authentication = filter(token);
+
+        assertThat(authentication.getName()).isEqualTo("house@clinalert.com");
+        assertThat(authentication.getPrincipal())
+                .isEqualTo(new JwtPrincipal("user-001", "house@clinalert.com", "DOCTOR"));
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_DOCTOR");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    @DisplayName("Mode sans état - Rôle modifié depuis l'émission du jeton pris en compte")
+    void statelessPrincipal_ShouldUseCurrentRole() throws Exception {
+        when(userStateCache.get("user-001")).thenReturn(Optional.of(
+                new UserStateCache.UserState("house@clinalert.com", User.UserRole.PATIENT, true)));
+
+        assertThat(filter(token).getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_PATIENT");
+    }
+
+    @Test
+    @DisplayName("Mode sans état - Utilisateur désactivé, supprimé ou email changé : non authentifié")
+    void statelessPrincipal_RevokedUser_ShouldNotAuthenticate() throws Exception {
+        when(userStateCache.get("user-001"))
+                .thenReturn(Optional.of(new UserStateCache.UserState("house@clinalert.com", User.UserRole.DOCTOR,
+                        false)))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new UserStateCache.UserState("new@clinalert.com", User.UserRole.DOCTOR,
+                        true)));
+
+        assertThat(filter(token)).isNull();
+        assertThat(filter(token)).isNull();
+        assertThat(filter(token)).isNull();
+    }
+
+    @Test
+    @DisplayName("Mode historique - Utilisateur chargé par email")
+    void legacyMode_ShouldLoadUser() throws Exception {
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", false);
+        User user = new User();
+        user.setEmail("house@clinalert.com");
+        user.setRole(User.UserRole.DOCTOR);
+        when(userDetailsService.loadUserByUsername("house@clinalert.com")).thenReturn(user);
+
+        assertThat(filter(token).getPrincipal()).isSameAs(user);
+        verify(userStateCache, never()).get(any());
+    }
+
+    private Authentication filter(String jwt) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/patients");
+        request.addHeader("Authorization", "Bearer " + jwt);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
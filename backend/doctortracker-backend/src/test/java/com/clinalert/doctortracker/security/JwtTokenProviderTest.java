@@ -1,12 +1,15 @@
 package com.clinalert.doctortracker.security;
 
 import com.clinalert.doctortracker.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -144,4 +147,60 @@ class JwtTokenProviderTest {
         assertTrue(jwtTokenProvider.validateToken(doctorToken));
         assertTrue(jwtTokenProvider.validateToken(patientToken));
     }
+
+    @Test
+    @DisplayName("getClaims - Same token should be verified once and then served from cache")
+    void getClaims_RepeatedToken_ShouldUseCache() {
+        JwtTokenProvider provider = standaloneProvider(86400000, 100);
+        String token = provider.generateToken(userDetails, "user-123", "DOCTOR");
+
+        Claims first = provider.getClaims(token);
+        Claims second = provider.getClaims(token);
+
+        assertSame(first, second);
+        assertEquals("user-123", provider.getUserIdFromToken(token));
+        assertEquals("DOCTOR", provider.getRoleFromToken(token));
+    }
+
+    @Test
+    @DisplayName("getClaims - Tampered token should be rejected even when the original is cached")
+    void getClaims_TamperedToken_ShouldBeRejected() {
+        JwtTokenProvider provider = standaloneProvider(86400000, 100);
+        String token = provider.generateToken(userDetails, "user-123", "DOCTOR");
+        provider.getClaims(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> provider.getClaims(tampered));
+        assertFalse(provider.validateToken(tampered));
+    }
+
+    @Test
+    @DisplayName("getClaims - Expired token should be rejected and not cached")
+    void getClaims_ExpiredToken_ShouldBeRejected() {
+        JwtTokenProvider provider = standaloneProvider(-1000, 100);
+        String token = provider.generateToken(userDetails, "user-123", "DOCTOR");
+
+        assertFalse(provider.validateToken(token));
+        assertTrue(provider.getValidatedClaims(token).isEmpty());
+    }
+
+    @Test
+    @DisplayName("getClaims - Cache disabled should verify every time")
+    void getClaims_CacheDisabled_ShouldParseEachTime() {
+        JwtTokenProvider provider = standaloneProvider(86400000, 0);
+        String token = provider.generateToken(userDetails, "user-123", "DOCTOR");
+
+        assertNotSame(provider.getClaims(token), provider.getClaims(token));
+    }
+
+    private static JwtTokenProvider standaloneProvider(long expiration, int cacheSize) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret",
+                "test-secret-that-is-long-enough-for-hs512-signatures-0123456789abcdef");
+        ReflectionTestUtils.setField(provider, "jwtExpiration", expiration);
+        ReflectionTestUtils.setField(provider, "claimsCacheSize", cacheSize);
+        provider.init();
+        return provider;
+    }
 }
@@ -0,0 +1,92 @@
+package com.clinalert.doctortracker.security;
+
+/**
+ * Tests Unitaires pour UserStateCache
+ * Vérifie la mise en cache de l'état utilisateur, l'expiration,
+ * l'invalidation et la borne de taille.
+ */
+
+import com.clinalert.doctortracker.model.User;
+import com.clinalert.doctortracker.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitaires UserStateCache")
+class UserStateCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Test
+    @DisplayName("get - Chargé une fois puis servi depuis le cache")
+    void get_ShouldLoadOnce() {
+        UserStateCache cache = new UserStateCache(userRepository, 60_000, 100);
+        when(userRepository.findById("user-001")).thenReturn(Optional.of(user("user-001", true)));
+
+        assertThat(cache.get("user-001")).contains(
+                new UserStateCache.UserState("user-001@clinalert.com", User.UserRole.DOCTOR, true));
+        cache.get("user-001");
+
+        verify(userRepository, times(1)).findById("user-001");
+    }
+
+    @Test
+    @DisplayName("invalidate - L'état modifié est relu")
+    void invalidate_ShouldReload() {
+        UserStateCache cache = new UserStateCache(userRepository, 60_000, 100);
+        when(userRepository.findById("user-001"))
+                .thenReturn(Optional.of(user("user-001", true)))
+                .thenReturn(Optional.of(user("user-001", false)));
+
+        assertThat(cache.get("user-001").get().enabled()).isTrue();
+        cache.invalidate("user-001");
+
+        assertThat(cache.get("user-001").get().enabled()).isFalse();
+    }
+
+    @Test
+    @DisplayName("get - TTL nul : relu à chaque appel, utilisateur supprimé vide")
+    void get_ExpiredOrMissing() {
+        UserStateCache cache = new UserStateCache(userRepository, 0, 100);
+        when(userRepository.findById("user-001"))
+                .thenReturn(Optional.of(user("user-001", true)))
+                .thenReturn(Optional.empty());
+
+        assertThat(cache.get("user-001")).isPresent();
+        assertThat(cache.get("user-001")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("get - Cache plein : état renvoyé sans être conservé")
+    void get_FullCache_ShouldNotGrow() {
+        UserStateCache cache = new UserStateCache(userRepository, 60_000, 1);
+        when(userRepository.findById(any())).thenAnswer(invocation -> Optional.of(user(invocation.getArgument(0), true)));
+
+        cache.get("user-001");
+        cache.get("user-002");
+        cache.get("user-002");
+        cache.get("user-001");
+
+        verify(userRepository, times(2)).findById("user-002");
+        verify(userRepository, times(1)).findById("user-001");
+    }
+
+    private static User user(String id, boolean enabled) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@clinalert.com");
+        user.setRole(User.UserRole.DOCTOR);
+        user.setEnabled(enabled);
+        return user;
+    }
+}
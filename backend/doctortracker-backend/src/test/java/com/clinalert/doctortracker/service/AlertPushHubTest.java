@@ -0,0 +1,235 @@
+package com.clinalert.doctortracker.service;
+
+/**
+ * Tests Unitaires pour AlertPushHub
+ * Vérifie la diffusion par patient, médecin et clinique, la reprise par
+ * Last-Event-ID, l'événement reset quand l'historique est perdu et la
+ * déconnexion d'un abonné trop lent.
+ */
+
+import com.clinalert.doctortracker.model.Alert;
+import com.clinalert.doctortracker.model.Patient;
+import com.clinalert.doctortracker.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitaires AlertPushHub")
+class AlertPushHubTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    private AlertPushHub hub;
+
+    // Émetteur rendu par le prochain subscribe, sinon un nouvel émetteur enregistreur
+    private RecordingEmitter nextEmitter;
+
+    @BeforeEach
+    void setUp() {
+        hub = hub(16, 3);
+        Patient p1 = patient("p1", "doc-1", "clinic-1");
+        Patient p2 = patient("p2", "doc-2", "clinic-1");
+        lenient().when(patientRepository.findAllById(anyIterable())).thenReturn(List.of(p1, p2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    @DisplayName("publish - Alerte poussée aux abonnés du patient, du médecin et de la clinique concernés")
+    void publish_ShouldFanOutByPatientDoctorAndClinic() throws Exception {
+        RecordingEmitter all = subscribe(null, null, null, null);
+        RecordingEmitter patient = subscribe("p1", null, null, null);
+        RecordingEmitter doctor = subscribe(null, "doc-2", null, null);
+        RecordingEmitter clinic = subscribe(null, null, "clinic-1", null);
+
+        hub.publish(List.of(alert("a1", "p1"), alert("a2", "p2")));
+
+        assertThat(all.alertIds(2)).containsExactly("a1", "a2");
+        assertThat(patient.alertIds(1)).containsExactly("a1");
+        assertThat(doctor.alertIds(1)).containsExactly("a2");
+        assertThat(clinic.alertIds(2)).containsExactly("a1", "a2");
+        assertThat(patient.events).isEmpty();
+        assertThat(doctor.events).isEmpty();
+    }
+
+    @Test
+    @DisplayName("subscribe - Last-Event-ID : les événements manqués sont rejoués dans l'ordre")
+    void subscribe_WithLastEventId_ShouldReplayMissedEvents() throws Exception {
+        RecordingEmitter first = subscribe(null, null, null, null);
+        hub.publish(List.of(alert("a1", "p1"), alert("a2", "p1"), alert("a3", "p2")));
+        List<Event> seen = first.take(3);
+
+        RecordingEmitter resumed = subscribe("p1", null, null, seen.get(0).id);
+
+        assertThat(resumed.alertIds(1)).containsExactly("a2");
+        hub.publish(List.of(alert("a4", "p1")));
+        assertThat(resumed.alertIds(1)).containsExactly("a4");
+    }
+
+    @Test
+    @DisplayName("subscribe - Événements sortis du tampon ou d'un autre démarrage : événement reset")
+    void subscribe_WithLostEvents_ShouldSendReset() throws Exception {
+        RecordingEmitter first = subscribe(null, null, null, null);
+        hub.publish(List.of(alert("a1", "p1"), alert("a2", "p1"), alert("a3", "p1"), alert("a4", "p1"),
+                alert("a5", "p1")));
+        List<Event> seen = first.take(5);
+
+        // Tampon de 3 (a3 à a5) : a2, qui suit a1, est perdu
+        RecordingEmitter late = subscribe(null, null, null, seen.get(0).id);
+        RecordingEmitter otherBoot = subscribe(null, null, null, "previous-12");
+
+        assertThat(late.take(1).get(0).name).isEqualTo(AlertPushHub.EVENT_RESET);
+        assertThat(otherBoot.take(1).get(0).name).isEqualTo(AlertPushHub.EVENT_RESET);
+    }
+
+    @Test
+    @DisplayName("Abonné trop lent - Déconnecté quand son tampon déborde, les autres continuent")
+    void slowSubscriber_ShouldBeDisconnected() throws Exception {
+        hub.shutdown();
+        hub = hub(2, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        subscribe(slow, "p1");
+        subscribe(fast, "p1");
+
+        // Le client rapide suit chaque événement, le lent reste bloqué sur le premier
+        for (int i = 0; i < 6; i++) {
+            hub.publish(List.of(alert("a" + i, "p1")));
+            assertThat(fast.alertIds(1)).containsExactly("a" + i);
+        }
+
+        assertThat(slow.completed.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(hub.subscriberCount()).isEqualTo(1);
+        release.countDown();
+    }
+
+    private AlertPushHub hub(int bufferSize, int replaySize) {
+        AlertPushHub created = new AlertPushHub(patientRepository, bufferSize, replaySize, 2, 0) {
+            @Override
+            SseEmitter newEmitter(long timeout) {
+                return nextEmitter != null ? nextEmitter : new RecordingEmitter(null);
+            }
+        };
+        created.start();
+        return created;
+    }
+
+    private RecordingEmitter subscribe(String patientId, String doctorId, String clinicId, String lastEventId) {
+        return (RecordingEmitter) hub.subscribe(patientId, doctorId, clinicId, lastEventId);
+    }
+
+    private void subscribe(RecordingEmitter emitter, String patientId) {
+        nextEmitter = emitter;
+        hub.subscribe(patientId, null, null, null);
+        nextEmitter = null;
+    }
+
+    private static Alert alert(String id, String patientId) {
+        Alert alert = new Alert();
+        alert.setId(id);
+        alert.setPatientId(patientId);
+        alert.setSeverity("HIGH");
+        return alert;
+    }
+
+    private static Patient patient(String id, String doctorId, String clinicId) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setDoctorId(doctorId);
+        patient.setClinicId(clinicId);
+        return patient;
+    }
+
+    private record Event(String id, String name, Object data) {
+    }
+
+    /**
+     * Émetteur qui enregistre les événements au lieu de les écrire sur une
+     * réponse HTTP ; peut rester bloqué pour simuler un client lent.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+        private final CountDownLatch blockedUntil;
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        RecordingEmitter(CountDownLatch blockedUntil) {
+            this.blockedUntil = blockedUntil;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (blockedUntil != null) {
+                try {
+                    blockedUntil.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            String text = "";
+            Object data = null;
+            for (DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof String chunk) {
+                    text += chunk;
+                } else {
+                    data = part.getData();
+                }
+            }
+            if (!text.startsWith(":")) {
+                events.add(new Event(field(text, "id:"), field(text, "event:"), data));
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        List<Event> take(int count) throws InterruptedException {
+            List<Event> taken = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Event event = events.poll(2, TimeUnit.SECONDS);
+                assertThat(event).as("événement %d sur %d", i + 1, count).isNotNull();
+                taken.add(event);
+            }
+            return taken;
+        }
+
+        List<String> alertIds(int count) throws InterruptedException {
+            return take(count).stream().map(event -> ((Alert) event.data).getId()).toList();
+        }
+
+        private static String field(String text, String prefix) {
+            for (String line : text.split("\n")) {
+                if (line.startsWith(prefix)) {
+                    return line.substring(prefix.length());
+                }
+            }
+            return null;
+        }
+    }
+}
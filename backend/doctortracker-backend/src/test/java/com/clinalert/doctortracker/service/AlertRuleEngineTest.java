@@ -0,0 +1,191 @@
+package com.clinalert.doctortracker.service;
+
+/**
+ * Tests AlertRuleEngine
+ * Couvre: table de décision compilée, messages, types de mesure, rechargement à chaud
+ */
+
+import com.clinalert.doctortracker.dto.AlertRule;
+import com.clinalert.doctortracker.model.Alert;
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.model.Measurement;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests AlertRuleEngine")
+class AlertRuleEngineTest {
+
+    private AlertRuleEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = defaultEngine();
+    }
+
+    static AlertRuleEngine defaultEngine() {
+        AlertRuleEngine engine = new AlertRuleEngine(new DefaultResourceLoader(), new ObjectMapper(),
+                "classpath:alert-rules.json");
+        engine.init();
+        return engine;
+    }
+
+    private HealthData row() {
+        HealthData data = new HealthData();
+        data.setPatientId("patient-001");
+        return data;
+    }
+
+    @Test
+    @DisplayName("Règles par défaut chargées depuis le classpath")
+    void init_ShouldLoadDefaultRules() {
+        assertThat(engine.getRules()).hasSize(10);
+    }
+
+    @Test
+    @DisplayName("Rythme cardiaque - première règle correspondante uniquement")
+    void evaluateHealthData_HeartRate_ShouldFireFirstMatchingRule() {
+        HealthData critical = row();
+        critical.setHeartRate(160);
+        HealthData high = row();
+        high.setHeartRate(130);
+        HealthData low = row();
+        low.setHeartRate(45);
+        HealthData normal = row();
+        normal.setHeartRate(75);
+
+        List<Alert> alerts = engine.evaluateHealthData(List.of(critical, high, low, normal));
+
+        assertThat(alerts).extracting(Alert::getMessage).containsExactly(
+                "Critical Heart Rate: 160 bpm", "High Heart Rate: 130 bpm", "Low Heart Rate: 45 bpm");
+        assertThat(alerts).extracting(Alert::getSeverity).containsExactly("CRITICAL", "HIGH", "MEDIUM");
+        assertThat(alerts).allSatisfy(a -> assertThat(a.getPatientId()).isEqualTo("patient-001"));
+    }
+
+    @Test
+    @DisplayName("Tension - message avec systolique et diastolique")
+    void evaluateHealthData_BloodPressure_ShouldRenderDiastolic() {
+        HealthData data = row();
+        data.setBloodPressureSystolic(190);
+        data.setBloodPressureDiastolic(120);
+
+        List<Alert> alerts = engine.evaluateHealthData(List.of(data));
+
+        assertThat(alerts).singleElement()
+                .satisfies(a -> assertThat(a.getMessage()).isEqualTo("Hypertensive Crisis: 190/120 mmHg"));
+    }
+
+    @Test
+    @DisplayName("Tension - systolique seule : message sans partie diastolique")
+    void evaluateHealthData_SystolicOnly_ShouldOmitDiastolic() {
+        HealthData data = row();
+        data.setBloodPressureSystolic(150);
+
+        List<Alert> alerts = engine.evaluateHealthData(List.of(data));
+
+        assertThat(alerts).singleElement()
+                .satisfies(a -> assertThat(a.getMessage()).isEqualTo("High Blood Pressure: 150 mmHg"));
+    }
+
+    @Test
+    @DisplayName("Mesures - tension systolique rendue sans diastolique")
+    void evaluateMeasurements_Systolic_ShouldOmitDiastolic() {
+        Measurement bp = new Measurement();
+        bp.setPatientId("patient-001");
+        bp.setType("systolic");
+        bp.setValue(185.0);
+
+        List<Alert> alerts = engine.evaluateMeasurements(List.of(bp));
+
+        assertThat(alerts).singleElement()
+                .satisfies(a -> assertThat(a.getMessage()).isEqualTo("Hypertensive Crisis: 185.0 mmHg"));
+    }
+
+    @Test
+    @DisplayName("Plusieurs signes vitaux sur une même ligne")
+    void evaluateHealthData_SeveralVitals_ShouldFireOnePerVital() {
+        HealthData data = row();
+        data.setSpO2(88.0);
+        data.setTemperature(34.0);
+        data.setHeartRate(80);
+
+        List<Alert> alerts = engine.evaluateHealthData(List.of(data));
+
+        assertThat(alerts).extracting(Alert::getMessage)
+                .containsExactly("Critical SpO2 Level: 88.0%", "Hypothermia: 34.0°C");
+    }
+
+    @Test
+    @DisplayName("Mesures - alias de type et identifiant de mesure")
+    void evaluateMeasurements_ShouldMapTypesAndSetMeasurementId() {
+        Measurement hr = new Measurement();
+        hr.setId("m-1");
+        hr.setPatientId("patient-001");
+        hr.setType("Heart Rate");
+        hr.setValue(155.0);
+        Measurement spo2 = new Measurement();
+        spo2.setType("oxygen_saturation");
+        spo2.setValue(92.0);
+        Measurement unknown = new Measurement();
+        unknown.setType("Weight");
+        unknown.setValue(500.0);
+        Measurement untyped = new Measurement();
+        untyped.setValue(500.0);
+
+        List<Alert> alerts = engine.evaluateMeasurements(List.of(hr, spo2, unknown, untyped));
+
+        assertThat(alerts).hasSize(2);
+        assertThat(alerts.get(0).getMeasurementId()).isEqualTo("m-1");
+        assertThat(alerts.get(0).getMessage()).isEqualTo("Critical Heart Rate: 155.0 bpm");
+        assertThat(alerts.get(1).getSeverity()).isEqualTo("HIGH");
+    }
+
+    @Test
+    @DisplayName("replaceRules - nouvelle table appliquée immédiatement")
+    void replaceRules_ShouldApplyNewTable() {
+        engine.replaceRules(List.of(AlertRule.builder().vital("HEART_RATE").operator("ABOVE")
+                .threshold(90).severity("HIGH").message("HR {value}").build()));
+        HealthData data = row();
+        data.setHeartRate(95);
+
+        assertThat(engine.evaluateHealthData(List.of(data))).extracting(Alert::getMessage).containsExactly("HR 95");
+    }
+
+    @Test
+    @DisplayName("replaceRules - règle invalide conserve la table actuelle")
+    void replaceRules_Invalid_ShouldKeepCurrentRules() {
+        List<AlertRule> invalid = List.of(AlertRule.builder().vital("GLUCOSE").operator("ABOVE")
+                .threshold(10).severity("HIGH").message("x").build());
+
+        assertThatThrownBy(() -> engine.replaceRules(invalid)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(engine.getRules()).hasSize(10);
+    }
+
+    @Test
+    @DisplayName("reloadIfModified - fichier modifié rechargé sans redémarrage")
+    void reloadIfModified_ShouldPickUpFileChanges(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("rules.json");
+        Files.writeString(file, "[{\"vital\":\"TEMPERATURE\",\"operator\":\"ABOVE\",\"threshold\":38,"
+                + "\"severity\":\"HIGH\",\"message\":\"Fever {value}\"}]");
+        AlertRuleEngine fileEngine = new AlertRuleEngine(new DefaultResourceLoader(), new ObjectMapper(),
+                file.toUri().toString());
+        fileEngine.init();
+        assertThat(fileEngine.getRules()).hasSize(1);
+
+        Files.writeString(file, "[]");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        fileEngine.reloadIfModified();
+
+        assertThat(fileEngine.getRules()).isEmpty();
+    }
+}
@@ -12,12 +12,16 @@ package com.clinalert.doctortracker.service;
  * - getAlertsByPatientId() : Filtrer par patient
  * - getUnreadAlerts() : Alertes non lues
  * - createAlert() : Créer une nouvelle alerte
+ * - createAlerts() : Insertion groupée avec suppression des doublons
  * - markAsRead() : Marquer comme lue
+ * - getUnreadAlerts(filtres) / getUnreadCounts() : Lecture via l'index des non lues
  * 
  * @author ClinAlert Team
  * @version 1.0
  */
 
+import com.clinalert.doctortracker.dto.CursorPage;
+import com.clinalert.doctortracker.dto.UnreadCounts;
 import com.clinalert.doctortracker.model.Alert;
 import com.clinalert.doctortracker.repository.AlertRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,11 +30,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -43,6 +54,18 @@ class AlertServiceTest {
     @Mock
     private AlertRepository alertRepository;
 
+    @Spy
+    private PageLimits pageLimits = new PageLimits(2, 500);
+
+    @Mock
+    private EscalationService escalationService;
+
+    @Mock
+    private AlertPushHub pushHub;
+
+    @Mock
+    private UnreadAlertIndex unreadIndex;
+
     @InjectMocks
     private AlertService alertService;
 
@@ -84,34 +107,67 @@ class AlertServiceTest {
     }
 
     @Test
-    @DisplayName("getAllAlerts - Doit retourner toutes les alertes")
+    @DisplayName("getAllAlerts - Doit retourner les alertes les plus récentes, bornées à la taille maximale")
     void getAllAlerts_ShouldReturnAllAlerts() {
         // Arrange
         List<Alert> allAlerts = Arrays.asList(alert1, alert2, alert3);
-        when(alertRepository.findAll()).thenReturn(allAlerts);
+        when(alertRepository.findAllByOrderByTimestampDescIdDesc(Limit.of(501))).thenReturn(allAlerts);
 
         // Act
-        List<Alert> result = alertService.getAllAlerts();
+        List<Alert> result = alertService.getAllAlerts().getItems();
 
         // Assert
         assertThat(result).isNotNull()
                 .hasSize(3)
                 .contains(alert1, alert2, alert3);
-        verify(alertRepository, times(1)).findAll();
+        verify(alertRepository, never()).findAll();
     }
 
     @Test
     @DisplayName("getAllAlerts - Doit retourner liste vide si aucune alerte")
     void getAllAlerts_WhenNoAlerts_ShouldReturnEmptyList() {
         // Arrange
-        when(alertRepository.findAll()).thenReturn(Arrays.asList());
+        when(alertRepository.findAllByOrderByTimestampDescIdDesc(Limit.of(501))).thenReturn(Arrays.asList());
 
         // Act
-        List<Alert> result = alertService.getAllAlerts();
+        List<Alert> result = alertService.getAllAlerts().getItems();
 
         // Assert
         assertThat(result).isNotNull().isEmpty();
-        verify(alertRepository, times(1)).findAll();
+        verify(alertRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("getAlertsAfter - Page suivante lue à partir du curseur (timestamp, id)")
+    void getAlertsAfter_ShouldFollowCursor() {
+        when(alertRepository.findAllByOrderByTimestampDescIdDesc(Limit.of(3)))
+                .thenReturn(List.of(alert1, alert3, alert2));
+
+        CursorPage<Alert> first = alertService.getAlertsAfter(null, null);
+
+        assertThat(first.getItems()).containsExactly(alert1, alert3);
+        assertThat(first.getNextCursor()).isNotNull();
+
+        when(alertRepository.findPageBefore(alert3.getTimestamp(), "alert-003", Limit.of(3)))
+                .thenReturn(List.of(alert2));
+
+        CursorPage<Alert> second = alertService.getAlertsAfter(first.getNextCursor(), null);
+
+        assertThat(second.getItems()).containsExactly(alert2);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("getAlertsAfter - Taille hors bornes, page négative ou curseur invalide rejetés")
+    void getAlertsAfter_InvalidArguments_ShouldThrow() {
+        assertThatThrownBy(() -> alertService.getAlertsAfter(null, 501))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("size must be between 1 and 500");
+        assertThatThrownBy(() -> alertService.getAlertsAfter("not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> alertService.getAlertsPage(-1, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(alertRepository);
     }
 
     @Test
@@ -149,11 +205,12 @@ class AlertServiceTest {
     }
 
     @Test
-    @DisplayName("getUnreadAlerts - Doit retourner seulement les alertes non lues")
+    @DisplayName("getUnreadAlerts - Alertes non lues prises dans l'index, bornées à la taille maximale")
     void getUnreadAlerts_ShouldReturnOnlyUnreadAlerts() {
         // Arrange
-        List<Alert> unreadAlerts = Arrays.asList(alert1, alert3);
-        when(alertRepository.findByIsReadFalse()).thenReturn(unreadAlerts);
+        List<String> ids = List.of("alert-001", "alert-003");
+        when(unreadIndex.unreadIds(null, null, null, null, 500)).thenReturn(ids);
+        when(alertRepository.findAllById(ids)).thenReturn(List.of(alert1, alert3));
 
         // Act
         List<Alert> result = alertService.getUnreadAlerts();
@@ -161,23 +218,58 @@ class AlertServiceTest {
         // Assert
         assertThat(result).isNotNull()
                 .hasSize(2)
-                .contains(alert1, alert3)
+                .containsExactly(alert1, alert3)
                 .allMatch(a -> !a.isRead());
-        verify(alertRepository, times(1)).findByIsReadFalse();
+        verify(alertRepository, never()).findByIsReadFalse();
     }
 
     @Test
     @DisplayName("getUnreadAlerts - Doit retourner liste vide si toutes lues")
     void getUnreadAlerts_WhenAllRead_ShouldReturnEmpty() {
         // Arrange
-        when(alertRepository.findByIsReadFalse()).thenReturn(Arrays.asList());
+        when(unreadIndex.unreadIds(null, null, null, null, 500)).thenReturn(List.of());
 
         // Act
         List<Alert> result = alertService.getUnreadAlerts();
 
         // Assert
         assertThat(result).isNotNull().isEmpty();
-        verify(alertRepository, times(1)).findByIsReadFalse();
+        verifyNoInteractions(alertRepository);
+    }
+
+    @Test
+    @DisplayName("getUnreadAlerts (filtres) - Ids pris dans l'index, alertes lues entre-temps écartées, ordre conservé")
+    void getUnreadAlerts_Filtered_ShouldLoadIdsFromIndex() {
+        Alert readMeanwhile = new Alert();
+        readMeanwhile.setId("alert-009");
+        readMeanwhile.setRead(true);
+        List<String> ids = List.of("alert-001", "alert-009", "alert-003");
+        when(unreadIndex.unreadIds(null, "doc-1", null, null, 500)).thenReturn(ids);
+        when(alertRepository.findAllById(ids)).thenReturn(List.of(alert3, readMeanwhile, alert1));
+
+        List<Alert> result = alertService.getUnreadAlerts(null, "doc-1", null, null);
+
+        assertThat(result).containsExactly(alert1, alert3);
+        verify(alertRepository, never()).findByIsReadFalse();
+    }
+
+    @Test
+    @DisplayName("getUnreadAlerts (filtres) - Aucun id dans l'index : aucune requête")
+    void getUnreadAlerts_Filtered_NoMatch_ShouldNotQuery() {
+        when(unreadIndex.unreadIds("patient-404", null, null, "HIGH", 500)).thenReturn(List.of());
+
+        assertThat(alertService.getUnreadAlerts("patient-404", null, null, "HIGH")).isEmpty();
+        verifyNoInteractions(alertRepository);
+    }
+
+    @Test
+    @DisplayName("getUnreadCounts - Compteurs lus dans l'index, sans accès base")
+    void getUnreadCounts_ShouldComeFromIndex() {
+        UnreadCounts counts = new UnreadCounts(3, Map.of("HIGH", 2, "LOW", 1));
+        when(unreadIndex.counts(null, null, "clinic-1")).thenReturn(counts);
+
+        assertThat(alertService.getUnreadCounts(null, null, "clinic-1")).isSameAs(counts);
+        verifyNoInteractions(alertRepository);
     }
 
     @Test
@@ -208,24 +300,243 @@ class AlertServiceTest {
                 .returns("HIGH", Alert::getSeverity);
         assertThat(result.isRead()).isFalse();
         verify(alertRepository, times(1)).save(any(Alert.class));
+        verify(unreadIndex).add(savedAlert);
+        verify(escalationService).schedule(savedAlert);
+        verify(pushHub).publish(List.of(savedAlert));
+    }
+
+    @Test
+    @DisplayName("markAsRead - Un seul UPDATE, sans chargement de l'entité, et escalade annulée")
+    void markAsRead_ShouldUpdateAndCancelEscalation() {
+        alertService.markAsRead("alert-001");
+
+        verify(alertRepository).markReadByIds(List.of("alert-001"));
+        verify(alertRepository, never()).findById(any());
+        verify(alertRepository, never()).save(any());
+        verify(escalationService).cancel("alert-001");
+        verify(unreadIndex).markRead(List.of("alert-001"));
+    }
+
+    @Test
+    @DisplayName("markAsRead (liste) - Retourne le nombre d'alertes passées à lues")
+    void markAsRead_Ids_ShouldReturnCount() {
+        List<String> ids = List.of("alert-001", "alert-003");
+        when(alertRepository.markReadByIds(ids)).thenReturn(2);
+
+        assertThat(alertService.markAsRead(ids)).isEqualTo(2);
+        verify(escalationService).cancel("alert-001");
+        verify(escalationService).cancel("alert-003");
+    }
+
+    @Test
+    @DisplayName("markAsRead (liste) - Liste vide sans requête, liste trop longue rejetée")
+    void markAsRead_EmptyOrTooManyIds() {
+        assertThat(alertService.markAsRead(List.of())).isZero();
+
+        List<String> tooMany = IntStream.range(0, 501).mapToObj(i -> "alert-" + i).toList();
+        assertThatThrownBy(() -> alertService.markAsRead(tooMany))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(alertRepository);
+    }
+
+    @Test
+    @DisplayName("markPatientAlertsAsRead - Toutes les alertes du patient ou seulement avant une date")
+    void markPatientAlertsAsRead_ShouldChooseQueryFromBefore() {
+        LocalDateTime before = LocalDateTime.of(2024, 3, 15, 12, 0);
+        when(alertRepository.markReadByPatient("patient-001")).thenReturn(4);
+        when(alertRepository.markReadByPatientBefore("patient-001", before)).thenReturn(1);
+
+        assertThat(alertService.markPatientAlertsAsRead("patient-001", null)).isEqualTo(4);
+        assertThat(alertService.markPatientAlertsAsRead("patient-001", before)).isEqualTo(1);
+        verify(unreadIndex).markPatientRead("patient-001", null);
+        verify(unreadIndex).markPatientRead("patient-001", before);
     }
 
-    // Skipping markAsRead as it was fine
+    @Test
+    @DisplayName("markAlertsAsReadBefore - Un seul UPDATE sur toutes les alertes antérieures")
+    void markAlertsAsReadBefore_ShouldReturnCount() {
+        LocalDateTime before = LocalDateTime.of(2024, 3, 15, 12, 0);
+        when(alertRepository.markReadBefore(before)).thenReturn(300);
+
+        assertThat(alertService.markAlertsAsReadBefore(before)).isEqualTo(300);
+        verify(unreadIndex).markReadBefore(before);
+    }
 
     @Test
     @DisplayName("getAllAlerts - Doit retourner alertes triées par timestamp")
     void getAllAlerts_ShouldMaintainOrder() {
-        // Arrange
-        List<Alert> sortedAlerts = Arrays.asList(alert2, alert3, alert1);
-        when(alertRepository.findAll()).thenReturn(sortedAlerts);
+        // Arrange : du plus récent au plus ancien
+        List<Alert> sortedAlerts = Arrays.asList(alert1, alert3, alert2);
+        when(alertRepository.findAllByOrderByTimestampDescIdDesc(Limit.of(501))).thenReturn(sortedAlerts);
 
         // Act
-        List<Alert> result = alertService.getAllAlerts();
+        List<Alert> result = alertService.getAllAlerts().getItems();
 
         // Assert
         assertThat(result).isNotNull()
                 .hasSize(3)
-                .containsExactly(alert2, alert3, alert1);
-        verify(alertRepository, times(1)).findAll();
+                .containsExactly(alert1, alert3, alert2);
+        verify(alertRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("createAlerts - Doit insérer une seule alerte par patient, signe vital et sévérité")
+    void createAlerts_DuplicateInBatch_ShouldInsertOnce() {
+        ReflectionTestUtils.setField(alertService, "dedupWindowMs", 300_000L);
+        AlertBatch batch = new AlertBatch();
+        for (int i = 0; i < 500; i++) {
+            batch.add("HEART_RATE", alert("patient-001", "HIGH"));
+        }
+        batch.add("HEART_RATE", alert("patient-001", "CRITICAL"));
+        batch.add("HEART_RATE", alert("patient-002", "HIGH"));
+
+        List<Alert> result = alertService.createAlerts(batch);
+
+        assertThat(result).hasSize(3);
+        verify(alertRepository, times(1)).insertBatch(result);
+        verify(pushHub).publish(result);
+        verify(alertRepository, never()).save(any(Alert.class));
+    }
+
+    @Test
+    @DisplayName("createAlerts - Doit supprimer une alerte déjà levée dans la fenêtre")
+    void createAlerts_WithinWindow_ShouldSuppress() {
+        ReflectionTestUtils.setField(alertService, "dedupWindowMs", 300_000L);
+        AlertBatch first = new AlertBatch();
+        first.add("HEART_RATE", alert("patient-001", "HIGH"));
+        AlertBatch second = new AlertBatch();
+        second.add("HEART_RATE", alert("patient-001", "HIGH"));
+        Alert spO2 = alert("patient-001", "HIGH");
+        second.add("SPO2", spO2);
+
+        alertService.createAlerts(first);
+        List<Alert> result = alertService.createAlerts(second);
+
+        assertThat(result).containsExactly(spO2);
+        verify(alertRepository, times(2)).insertBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("createAlerts - Insertion en échec : l'alerte n'est pas supprimée au lot suivant")
+    void createAlerts_InsertFails_ShouldNotSuppressRetry() {
+        ReflectionTestUtils.setField(alertService, "dedupWindowMs", 300_000L);
+        AlertBatch first = new AlertBatch();
+        first.add("HEART_RATE", alert("patient-001", "HIGH"));
+        AlertBatch retry = new AlertBatch();
+        retry.add("HEART_RATE", alert("patient-001", "HIGH"));
+        when(alertRepository.insertBatch(anyList())).thenThrow(new IllegalStateException("db down")).thenReturn(1);
+
+        assertThatThrownBy(() -> alertService.createAlerts(first)).isInstanceOf(IllegalStateException.class);
+        List<Alert> result = alertService.createAlerts(retry);
+
+        assertThat(result).hasSize(1);
+        // Seul le lot réellement inséré est poussé
+        verify(pushHub, times(1)).publish(anyList());
+    }
+
+    @Test
+    @DisplayName("createAlerts - Transaction annulée : la suppression est levée, validée : elle est conservée")
+    void createAlerts_RolledBack_ShouldNotSuppressRetry() {
+        ReflectionTestUtils.setField(alertService, "dedupWindowMs", 300_000L);
+
+        List<TransactionSynchronization> rolledBack = inTransaction(() -> alertService.createAlerts(heartRateBatch()));
+        rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        List<TransactionSynchronization> committed = inTransaction(() -> assertThat(
+                alertService.createAlerts(heartRateBatch())).hasSize(1));
+        committed.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(alertService.createAlerts(heartRateBatch())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("createAlerts - Alertes poussées après le commit, jamais après un rollback")
+    void createAlerts_InTransaction_ShouldPublishAfterCommitOnly() {
+        List<TransactionSynchronization> rolledBack = inTransaction(() -> alertService.createAlerts(heartRateBatch()));
+        rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        verifyNoInteractions(pushHub);
+
+        List<TransactionSynchronization> committed = inTransaction(() -> alertService.createAlerts(heartRateBatch()));
+        verifyNoInteractions(pushHub);
+        committed.forEach(TransactionSynchronization::afterCommit);
+
+        verify(pushHub, times(1)).publish(anyList());
+    }
+
+    @Test
+    @DisplayName("createAlerts / markAsRead - Index des non lues mis à jour après le commit seulement")
+    void unreadIndex_InTransaction_ShouldFollowCommitOnly() {
+        List<TransactionSynchronization> rolledBack = inTransaction(() -> {
+            alertService.createAlerts(heartRateBatch());
+            alertService.markAsRead(List.of("alert-001"));
+        });
+        rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        verifyNoInteractions(unreadIndex);
+
+        List<TransactionSynchronization> committed = inTransaction(() -> alertService.markAsRead(List.of("alert-001")));
+        committed.forEach(TransactionSynchronization::afterCommit);
+
+        verify(unreadIndex, times(1)).markRead(List.of("alert-001"));
+    }
+
+    @Test
+    @DisplayName("createAlerts - Fenêtre à 0 : aucune suppression entre les lots")
+    void createAlerts_WindowDisabled_ShouldInsertEveryBatch() {
+        AlertBatch first = new AlertBatch();
+        first.add("HEART_RATE", alert("patient-001", "HIGH"));
+        AlertBatch second = new AlertBatch();
+        second.add("HEART_RATE", alert("patient-001", "HIGH"));
+
+        alertService.createAlerts(first);
+        List<Alert> result = alertService.createAlerts(second);
+
+        assertThat(result).hasSize(1);
+        verify(alertRepository, times(2)).insertBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("createAlerts - Lot vide : aucun accès à la base")
+    void createAlerts_EmptyBatch_ShouldNotHitRepository() {
+        assertThat(alertService.createAlerts(new AlertBatch())).isEmpty();
+        verifyNoInteractions(alertRepository);
+    }
+
+    @Test
+    @DisplayName("evictExpiredSuppressions - Une alerte expirée peut être relevée")
+    void evictExpiredSuppressions_AfterWindow_ShouldAllowAgain() throws InterruptedException {
+        ReflectionTestUtils.setField(alertService, "dedupWindowMs", 20L);
+        AlertBatch first = new AlertBatch();
+        first.add("HEART_RATE", alert("patient-001", "HIGH"));
+        alertService.createAlerts(first);
+
+        Thread.sleep(30);
+        alertService.evictExpiredSuppressions();
+        AlertBatch second = new AlertBatch();
+        second.add("HEART_RATE", alert("patient-001", "HIGH"));
+
+        assertThat(alertService.createAlerts(second)).hasSize(1);
+    }
+
+    private static Alert alert(String patientId, String severity) {
+        Alert alert = new Alert();
+        alert.setPatientId(patientId);
+        alert.setSeverity(severity);
+        return alert;
+    }
+
+    private AlertBatch heartRateBatch() {
+        AlertBatch batch = new AlertBatch();
+        batch.add("HEART_RATE", alert("patient-001", "HIGH"));
+        return batch;
+    }
+
+    // Runs the action with transaction synchronization active and returns what it registered
+    private static List<TransactionSynchronization> inTransaction(Runnable action) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            action.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 }
@@ -1,8 +1,8 @@
 package com.clinalert.doctortracker.service;
 
 /**
- * Tests AnomalyDetectionService - 6 tests
- * Couvre: Statistical anomaly detection logic
+ * Tests AnomalyDetectionService - 12 tests
+ * Couvre: Statistical anomaly detection logic, fenêtre glissante en mémoire
  */
 
 import com.clinalert.doctortracker.model.Measurement;
@@ -11,14 +11,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -31,7 +36,6 @@ class AnomalyDetectionServiceTest {
     @Mock
     private MeasurementRepository measurementRepository;
 
-    @InjectMocks
     private AnomalyDetectionService anomalyDetectionService;
 
     private Measurement newMeasurement;
@@ -39,6 +43,8 @@ class AnomalyDetectionServiceTest {
 
     @BeforeEach
     void setUp() {
+        anomalyDetectionService = new AnomalyDetectionService(measurementRepository, 1_800_000);
+
         newMeasurement = new Measurement();
         newMeasurement.setPatientId("patient-001");
         newMeasurement.setType("Heart Rate");
@@ -138,6 +144,128 @@ class AnomalyDetectionServiceTest {
         assertFalse(result, "Small deviation in stable data should not trigger anomaly");
     }
 
+    @Test
+    @DisplayName("Window should be loaded once, then scored without queries")
+    void isAnomaly_RepeatedCalls_ShouldQueryRepositoryOnce() {
+        when(measurementRepository.findTop20ByPatientIdAndTypeOrderByTimestampDesc(
+                "patient-001", "Heart Rate")).thenReturn(normalHistory);
+
+        for (int i = 0; i < 50; i++) {
+            newMeasurement.setValue(70.0 + (i % 5));
+            anomalyDetectionService.isAnomaly(newMeasurement);
+        }
+
+        verify(measurementRepository, times(1)).findTop20ByPatientIdAndTypeOrderByTimestampDesc(
+                "patient-001", "Heart Rate");
+    }
+
+    @Test
+    @DisplayName("Rolling window should match DescriptiveStatistics over the last 20 values")
+    void isAnomaly_RandomStream_ShouldMatchDescriptiveStatistics() {
+        when(measurementRepository.findTop20ByPatientIdAndTypeOrderByTimestampDesc(any(), any()))
+                .thenReturn(List.of());
+        Random random = new Random(42);
+        List<Double> previous = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            double value = i % 97 == 0 ? 200.0 : 70.0 + random.nextGaussian() * 5;
+            newMeasurement.setValue(value);
+
+            boolean expected = referenceIsAnomaly(previous, value);
+            assertEquals(expected, anomalyDetectionService.isAnomaly(newMeasurement), "Mismatch at index " + i);
+
+            previous.add(0, value);
+            if (previous.size() > AnomalyDetectionService.WINDOW_SIZE) {
+                previous.remove(previous.size() - 1);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Warm-up should exclude the scored measurement when it is already persisted")
+    void isAnomaly_HistoryContainsMeasurement_ShouldExcludeIt() {
+        newMeasurement.setId("m-new");
+        newMeasurement.setValue(150.0);
+        List<Measurement> history = new ArrayList<>();
+        history.add(newMeasurement);
+        history.addAll(normalHistory);
+        when(measurementRepository.findTop20ByPatientIdAndTypeOrderByTimestampDesc(
+                "patient-001", "Heart Rate")).thenReturn(history);
+
+        assertTrue(anomalyDetectionService.isAnomaly(newMeasurement));
+    }
+
+    @Test
+    @DisplayName("warmUp should load each key once for a batch")
+    void warmUp_ShouldLoadDistinctKeysOnce() {
+        when(measurementRepository.findTop20ByPatientIdAndTypeOrderByTimestampDesc(any(), any()))
+                .thenReturn(normalHistory);
+        Measurement spo2 = new Measurement();
+        spo2.setPatientId("patient-001");
+        spo2.setType("SpO2");
+        spo2.setValue(97.0);
+
+        anomalyDetectionService.warmUp(List.of(newMeasurement, newMeasurement, spo2));
+        anomalyDetectionService.isAnomaly(newMeasurement);
+
+        verify(measurementRepository, times(2)).findTop20ByPatientIdAndTypeOrderByTimestampDesc(any(), any());
+    }
+
+    @Test
+    @DisplayName("A slow window load should not block other callers, and the first window stored wins")
+    void windowFor_ConcurrentLoad_ShouldNotBlockAndKeepOneWindow() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        when(measurementRepository.findTop20ByPatientIdAndTypeOrderByTimestampDesc(
+                "patient-001", "Heart Rate")).thenAnswer(inv -> {
+                    if (calls.getAndIncrement() == 0) {
+                        loading.countDown();
+                        release.await(5, TimeUnit.SECONDS);
+                    }
+                    return normalHistory;
+                });
+        Thread slow = new Thread(() -> anomalyDetectionService.warmUp(List.of(newMeasurement)));
+        slow.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // The slow load is still running: this call loads on its own instead of waiting
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> anomalyDetectionService.isAnomaly(newMeasurement));
+        release.countDown();
+        slow.join(5_000);
+
+        assertEquals(1, anomalyDetectionService.trackedWindowCount());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Idle windows should be evicted")
+    void evictIdleWindows_ShouldDropIdleWindows() {
+        AnomalyDetectionService service = new AnomalyDetectionService(measurementRepository, -1);
+        when(measurementRepository.findTop20ByPatientIdAndTypeOrderByTimestampDesc(any(), any()))
+                .thenReturn(normalHistory);
+        service.isAnomaly(newMeasurement);
+        assertEquals(1, service.trackedWindowCount());
+
+        service.evictIdleWindows();
+
+        assertEquals(0, service.trackedWindowCount());
+    }
+
+    private boolean referenceIsAnomaly(List<Double> history, double value) {
+        if (history.size() < 5) {
+            return false;
+        }
+        DescriptiveStatistics stats = new DescriptiveStatistics();
+        history.forEach(stats::addValue);
+        double mean = stats.getMean();
+        double stdDev = stats.getStandardDeviation();
+        if (stdDev < 0.1) {
+            return Math.abs(value - mean) > (mean * 0.2);
+        }
+        return Math.abs((value - mean) / stdDev) > 2.5;
+    }
+
     // Helper method to create measurement history
     private List<Measurement> createMeasurementHistory(String patientId, String type, List<Double> values) {
         List<Measurement> history = new ArrayList<>();
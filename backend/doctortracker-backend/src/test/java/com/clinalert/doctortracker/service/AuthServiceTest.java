@@ -42,9 +42,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -101,13 +100,6 @@ class AuthServiceTest {
     @Mock
     private JwtTokenProvider tokenProvider;
 
-    /**
-     * Mock du gestionnaire d'authentification Spring Security
-     * Simule le processus d'authentification
-     */
-    @Mock
-    private AuthenticationManager authenticationManager;
-
     /**
      * L'instance du service à tester
      * Mockito injectera automatiquement tous les mocks ci-dessus
@@ -171,13 +163,9 @@ class AuthServiceTest {
     @DisplayName("Login réussi : doit retourner un token JWT et les informations utilisateur")
     void login_WithValidCredentials_ShouldReturnLoginResponse() {
         // ===== ARRANGE (Préparer) =====
-        // Créer un objet Authentication simulé
-        Authentication mockAuthentication = mock(Authentication.class);
-
         // Configurer le comportement des mocks :
-        // 1. L'authentification doit réussir
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenReturn(mockAuthentication);
+        // 1. Le mot de passe doit correspondre au hash stocké
+        when(passwordEncoder.matches("password123", "$2a$10$encodedPassword")).thenReturn(true);
 
         // 2. La recherche de l'utilisateur par email doit retourner notre utilisateur
         // de test
@@ -203,8 +191,9 @@ class AuthServiceTest {
         assertEquals("DOCTOR", response.getRole(), "Le rôle doit correspondre");
 
         // Vérifier que les méthodes des mocks ont bien été appelées
-        verify(authenticationManager, times(1)).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(userRepository, times(2)).findByEmail("doctor@clinalert.com"); // Appelé 2 fois : ligne 49 et 65
+        // Une seule recherche et une seule vérification de hash par tentative
+        verify(userRepository, times(1)).findByEmail("doctor@clinalert.com");
+        verify(passwordEncoder, times(1)).matches(anyString(), anyString());
         verify(tokenProvider, times(1)).generateToken(testUser, "user-123", "DOCTOR");
     }
 
@@ -221,9 +210,9 @@ class AuthServiceTest {
     @DisplayName("Login échoué : doit lever une exception avec un mot de passe incorrect")
     void login_WithInvalidPassword_ShouldThrowException() {
         // ===== ARRANGE =====
-        // Simuler une authentification échouée
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenThrow(new BadCredentialsException("Mot de passe incorrect"));
+        // Simuler un mot de passe qui ne correspond pas
+        when(userRepository.findByEmail("doctor@clinalert.com")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("password123", "$2a$10$encodedPassword")).thenReturn(false);
 
         // ===== ACT & ASSERT =====
         // Vérifier qu'une exception est bien levée
@@ -231,8 +220,8 @@ class AuthServiceTest {
             authService.login(loginRequest);
         }, "Une BadCredentialsException doit être levée pour un mot de passe incorrect");
 
-        // Vérifier que l'authentification a bien été tentée
-        verify(authenticationManager, times(1)).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        // Vérifier que le mot de passe a été vérifié une seule fois
+        verify(passwordEncoder, times(1)).matches(anyString(), anyString());
 
         // Vérifier que le token n'a PAS été généré (car l'auth a échoué)
         verify(tokenProvider, never()).generateToken(any(), anyString(), anyString());
@@ -251,23 +240,18 @@ class AuthServiceTest {
     @DisplayName("Login échoué : doit lever une exception si l'utilisateur n'existe pas")
     void login_WithNonExistentEmail_ShouldThrowException() {
         // ===== ARRANGE =====
-        // L'authentification réussit (car on ne vérifie pas l'existence dans
-        // authManager)
-        Authentication mockAuthentication = mock(Authentication.class);
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenReturn(mockAuthentication);
-
-        // Mais la recherche de l'utilisateur retourne vide
+        // La recherche de l'utilisateur retourne vide
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(passwordEncoder.encode(anyString())).thenReturn("$2a$10$unknownUserHash");
 
         // ===== ACT & ASSERT =====
-        assertThrows(RuntimeException.class, () -> {
+        assertThrows(BadCredentialsException.class, () -> {
             authService.login(loginRequest);
-        }, "Une RuntimeException doit être levée si l'utilisateur n'existe pas");
+        }, "Une BadCredentialsException doit être levée si l'utilisateur n'existe pas");
 
-        // Vérifier que la recherche a bien été tentée (2 fois car debug + méthode
-        // principale)
-        verify(userRepository, times(2)).findByEmail(anyString());
+        // Une seule recherche, et un hash vérifié quand même pour ne pas révéler l'absence du compte
+        verify(userRepository, times(1)).findByEmail(anyString());
+        verify(passwordEncoder, times(1)).matches("password123", "$2a$10$unknownUserHash");
     }
 
     /**
@@ -289,10 +273,6 @@ class AuthServiceTest {
         maliciousRequest.setEmail("hacker@clinalert.com\r\nADMIN");
         maliciousRequest.setPassword("password123");
 
-        Authentication mockAuthentication = mock(Authentication.class);
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenReturn(mockAuthentication);
-
         // On simule que l'utilisateur n'est pas trouvé (pour aller jusqu'au log WARN
         // qui utilise la sanitization)
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
@@ -308,6 +288,69 @@ class AuthServiceTest {
         verify(userRepository, atLeastOnce()).findByEmail(anyString());
     }
 
+    /**
+     * TEST 3c : Login d'un compte désactivé
+     *
+     * RÉSULTAT ATTENDU :
+     * - Une DisabledException, sans génération de token
+     */
+    @Test
+    @DisplayName("Login échoué : doit lever une exception si le compte est désactivé")
+    void login_WithDisabledAccount_ShouldThrowException() {
+        testUser.setEnabled(false);
+        when(userRepository.findByEmail("doctor@clinalert.com")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("password123", "$2a$10$encodedPassword")).thenReturn(true);
+
+        assertThrows(DisabledException.class, () -> authService.login(loginRequest));
+
+        verify(tokenProvider, never()).generateToken(any(), anyString(), anyString());
+    }
+
+    /**
+     * TEST : Mise à niveau transparente du hash
+     *
+     * SCÉNARIO :
+     * - Le hash stocké utilise un encodage ou un coût obsolète
+     *
+     * RÉSULTAT ATTENDU :
+     * - Le mot de passe est ré-encodé et remplacé seulement si le hash n'a pas changé entre-temps
+     */
+    @Test
+    @DisplayName("Login réussi : doit ré-encoder un hash obsolète")
+    void login_WithOutdatedHash_ShouldRehashPassword() {
+        when(userRepository.findByEmail("doctor@clinalert.com")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("password123", "$2a$10$encodedPassword")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("$2a$10$encodedPassword")).thenReturn(true);
+        when(passwordEncoder.encode("password123")).thenReturn("{bcrypt}$2a$12$upgraded");
+        when(userRepository.replacePasswordHash("user-123", "$2a$10$encodedPassword", "{bcrypt}$2a$12$upgraded"))
+                .thenReturn(1);
+        when(tokenProvider.generateToken(testUser, "user-123", "DOCTOR")).thenReturn("jwt-token-123456");
+
+        authService.login(loginRequest);
+
+        assertEquals("{bcrypt}$2a$12$upgraded", testUser.getPassword());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Login réussi : ne doit pas ré-encoder un hash à jour ni échouer si la mise à niveau échoue")
+    void login_RehashSkippedOrFailing_ShouldStillLogin() {
+        when(userRepository.findByEmail("doctor@clinalert.com")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("password123", "$2a$10$encodedPassword")).thenReturn(true);
+        when(tokenProvider.generateToken(testUser, "user-123", "DOCTOR")).thenReturn("jwt-token-123456");
+
+        authService.login(loginRequest);
+        verify(passwordEncoder, never()).encode(anyString());
+
+        when(passwordEncoder.upgradeEncoding("$2a$10$encodedPassword")).thenReturn(true);
+        when(passwordEncoder.encode("password123")).thenReturn("{bcrypt}$2a$12$upgraded");
+        when(userRepository.replacePasswordHash(anyString(), anyString(), anyString()))
+                .thenThrow(new RuntimeException("DB down"));
+
+        assertNotNull(authService.login(loginRequest));
+        assertEquals("$2a$10$encodedPassword", testUser.getPassword());
+    }
+
     // ==========================================
     // SECTION 4 : TESTS D'INSCRIPTION
     // ==========================================
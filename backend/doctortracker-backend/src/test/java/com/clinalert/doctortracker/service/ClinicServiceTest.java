@@ -13,7 +13,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.util.Arrays;
 import java.util.List;
@@ -30,6 +32,9 @@ class ClinicServiceTest {
     @Mock
     private ClinicRepository clinicRepository;
 
+    @Spy
+    private PageLimits pageLimits = new PageLimits(2, 100);
+
     @InjectMocks
     private ClinicService clinicService;
 
@@ -46,14 +51,14 @@ class ClinicServiceTest {
     }
 
     @Test
-    @DisplayName("getAllClinics")
+    @DisplayName("getAllClinics - Premières cliniques, bornées à la taille maximale")
     void getAllClinics_ShouldReturnAll() {
-        when(clinicRepository.findAll()).thenReturn(Arrays.asList(clinic));
+        when(clinicRepository.findAllByOrderByIdAsc(Limit.of(101))).thenReturn(Arrays.asList(clinic));
 
-        List<Clinic> result = clinicService.getAllClinics();
+        List<Clinic> result = clinicService.getAllClinics().getItems();
 
         assertThat(result).hasSize(1);
-        verify(clinicRepository).findAll();
+        verify(clinicRepository).findAllByOrderByIdAsc(Limit.of(101));
     }
 
     @Test
@@ -149,9 +154,9 @@ class ClinicServiceTest {
     @Test
     @DisplayName("getAllClinics - Liste vide")
     void getAllClinics_WhenEmpty_ShouldReturnEmpty() {
-        when(clinicRepository.findAll()).thenReturn(Arrays.asList());
+        when(clinicRepository.findAllByOrderByIdAsc(Limit.of(101))).thenReturn(Arrays.asList());
 
-        List<Clinic> result = clinicService.getAllClinics();
+        List<Clinic> result = clinicService.getAllClinics().getItems();
 
         assertThat(result).isEmpty();
     }
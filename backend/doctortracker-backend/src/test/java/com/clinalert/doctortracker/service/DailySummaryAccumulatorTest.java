@@ -0,0 +1,125 @@
+package com.clinalert.doctortracker.service;
+
+/**
+ * Tests Unitaires pour DailySummaryAccumulator
+ * Vérifie l'agrégation en une passe, la fusion de résultats partiels
+ * et l'utilisation comme Collector (séquentiel et parallèle).
+ */
+
+import com.clinalert.doctortracker.model.DailyHealthSummary;
+import com.clinalert.doctortracker.model.HealthData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests Unitaires DailySummaryAccumulator")
+class DailySummaryAccumulatorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    @Test
+    @DisplayName("add - Calcule moyennes, extrêmes et totaux en une passe")
+    void add_ShouldComputeEveryField() {
+        DailySummaryAccumulator accumulator = new DailySummaryAccumulator();
+        accumulator.add(row(60, 97.0, 120, 80, 36.5, 1000));
+        accumulator.add(row(90, 94.0, 130, 90, 37.5, 500));
+        accumulator.add(row(null, null, null, null, null, 250));
+
+        DailyHealthSummary summary = accumulator.toSummary("patient-001", DAY);
+
+        assertThat(summary.getDataPointsCount()).isEqualTo(3);
+        assertThat(summary.getAvgHeartRate()).isEqualTo(75.0);
+        assertThat(summary.getMinHeartRate()).isEqualTo(60);
+        assertThat(summary.getMaxHeartRate()).isEqualTo(90);
+        assertThat(summary.getHeartRateSamples()).isEqualTo(2);
+        assertThat(summary.getAvgSpO2()).isEqualTo(95.5);
+        assertThat(summary.getMinSpO2()).isEqualTo(94.0);
+        assertThat(summary.getAvgSystolic()).isEqualTo(125.0);
+        assertThat(summary.getAvgDiastolic()).isEqualTo(85.0);
+        assertThat(summary.getAvgTemperature()).isEqualTo(37.0);
+        assertThat(summary.getTotalSteps()).isEqualTo(1750);
+        assertThat(summary.getTotalSleepMinutes()).isZero();
+    }
+
+    @Test
+    @DisplayName("toSummary - Signes vitaux absents laissés à null")
+    void toSummary_WithoutVitals_ShouldLeaveAveragesNull() {
+        DailySummaryAccumulator accumulator = new DailySummaryAccumulator();
+        accumulator.add(row(null, null, null, null, null, 100));
+
+        DailyHealthSummary summary = accumulator.toSummary("patient-001", DAY);
+
+        assertThat(summary.getAvgHeartRate()).isNull();
+        assertThat(summary.getMinHeartRate()).isNull();
+        assertThat(summary.getMinSpO2()).isNull();
+        assertThat(summary.getAvgTemperature()).isNull();
+        assertThat(summary.getHeartRateSamples()).isZero();
+    }
+
+    @Test
+    @DisplayName("collector - Le résultat parallèle est identique au séquentiel")
+    void collector_Parallel_ShouldMatchSequential() {
+        List<HealthData> rows = randomDay(20_000);
+
+        DailyHealthSummary sequential = rows.stream()
+                .collect(DailySummaryAccumulator.collector()).toSummary("patient-001", DAY);
+        DailyHealthSummary parallel = rows.parallelStream()
+                .collect(DailySummaryAccumulator.collector()).toSummary("patient-001", DAY);
+
+        assertThat(parallel).usingRecursiveComparison()
+                .withComparatorForType((a, b) -> Math.abs(a - b) < 1e-6 ? 0 : Double.compare(a, b), Double.class)
+                .isEqualTo(sequential);
+        assertThat(sequential.getDataPointsCount()).isEqualTo(20_000);
+    }
+
+    @Test
+    @DisplayName("collector - Identique au calcul par flux (ancienne implémentation)")
+    void collector_ShouldMatchStreamComputation() {
+        List<HealthData> rows = randomDay(5_000);
+
+        DailyHealthSummary summary = rows.stream()
+                .collect(DailySummaryAccumulator.collector()).toSummary("patient-001", DAY);
+
+        assertThat(summary.getAvgHeartRate()).isCloseTo(rows.stream().filter(d -> d.getHeartRate() != null)
+                .mapToInt(HealthData::getHeartRate).average().orElseThrow(), within(1e-9));
+        assertThat(summary.getMaxHeartRate()).isEqualTo(rows.stream().filter(d -> d.getHeartRate() != null)
+                .mapToInt(HealthData::getHeartRate).max().orElseThrow());
+        assertThat(summary.getMinSpO2()).isEqualTo(rows.stream().filter(d -> d.getSpO2() != null)
+                .mapToDouble(HealthData::getSpO2).min().orElseThrow());
+        assertThat(summary.getTotalSteps()).isEqualTo(rows.stream().filter(d -> d.getSteps() != null)
+                .mapToInt(HealthData::getSteps).sum());
+    }
+
+    private static List<HealthData> randomDay(int size) {
+        Random random = new Random(42);
+        List<HealthData> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(row(random.nextInt(10) == 0 ? null : 50 + random.nextInt(80),
+                    random.nextBoolean() ? 90 + random.nextDouble() * 10 : null,
+                    110 + random.nextInt(40), 70 + random.nextInt(20),
+                    36 + random.nextDouble() * 2, random.nextInt(50)));
+        }
+        return rows;
+    }
+
+    private static HealthData row(Integer heartRate, Double spO2, Integer systolic, Integer diastolic,
+            Double temperature, Integer steps) {
+        HealthData data = new HealthData();
+        data.setPatientId("patient-001");
+        data.setHeartRate(heartRate);
+        data.setSpO2(spO2);
+        data.setBloodPressureSystolic(systolic);
+        data.setBloodPressureDiastolic(diastolic);
+        data.setTemperature(temperature);
+        data.setSteps(steps);
+        data.setTimestamp(LocalDateTime.of(2024, 3, 15, 12, 0));
+        return data;
+    }
+}
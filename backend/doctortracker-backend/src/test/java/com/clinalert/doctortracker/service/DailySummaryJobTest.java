@@ -0,0 +1,173 @@
+package com.clinalert.doctortracker.service;
+
+/**
+ * Tests Unitaires pour DailySummaryJob
+ * Vérifie le regroupement par patient du parcours en flux, l'écriture par lots,
+ * le point de reprise (checkpoint) et la reprise après échec.
+ */
+
+import com.clinalert.doctortracker.model.DailyHealthSummary;
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.model.JobCheckpoint;
+import com.clinalert.doctortracker.repository.DailyHealthSummaryRepository;
+import com.clinalert.doctortracker.repository.HealthDataRepository;
+import com.clinalert.doctortracker.repository.JobCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitaires DailySummaryJob")
+class DailySummaryJobTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    @Mock
+    private HealthDataRepository healthDataRepository;
+
+    @Mock
+    private DailyHealthSummaryRepository dailySummaryRepository;
+
+    @Mock
+    private JobCheckpointRepository checkpointRepository;
+
+    private DailySummaryJob job;
+
+    private final List<DailyHealthSummary> written = Collections.synchronizedList(new ArrayList<>());
+
+    private JobCheckpoint stored;
+
+    @BeforeEach
+    void setUp() {
+        job = new DailySummaryJob(healthDataRepository, dailySummaryRepository, checkpointRepository, 3, 2, 100);
+        lenient().when(checkpointRepository.findById(DailySummaryJob.JOB_NAME))
+                .thenAnswer(inv -> Optional.ofNullable(stored));
+        lenient().when(checkpointRepository.save(any())).thenAnswer(inv -> {
+            JobCheckpoint saved = inv.getArgument(0);
+            stored = copy(saved);
+            return saved;
+        });
+        lenient().when(dailySummaryRepository.upsertSummaries(anyList())).thenAnswer(inv -> {
+            List<DailyHealthSummary> batch = inv.getArgument(0);
+            written.addAll(batch);
+            return batch.size();
+        });
+    }
+
+    @Test
+    @DisplayName("run - Un résumé par patient, écrit par lots")
+    void run_ShouldWriteOneSummaryPerPatientInBatches() {
+        stream(rows("p1", 3), rows("p2", 2), rows("p3", 1), rows("p4", 4), rows("p5", 1));
+
+        DailySummaryJob.RunStats stats = job.run(DAY);
+
+        assertThat(stats.getPatients()).isEqualTo(5);
+        assertThat(stats.getRows()).isEqualTo(11);
+        assertThat(stats.getBatches()).isEqualTo(3);
+        verify(dailySummaryRepository, times(3)).upsertSummaries(anyList());
+        assertThat(written).extracting(DailyHealthSummary::getPatientId)
+                .containsExactlyInAnyOrder("p1", "p2", "p3", "p4", "p5");
+        assertThat(written).filteredOn(s -> s.getPatientId().equals("p4")).singleElement()
+                .satisfies(s -> {
+                    assertThat(s.getDataPointsCount()).isEqualTo(4);
+                    assertThat(s.getDate()).isEqualTo(DAY);
+                });
+        assertThat(stored.isCompleted()).isTrue();
+        assertThat(stored.getLastKey()).isEqualTo("p5");
+        verify(healthDataRepository).streamByPatient(eq(DAY.atStartOfDay()), eq(DAY.plusDays(1).atStartOfDay()),
+                isNull(), eq(100), any());
+    }
+
+    @Test
+    @DisplayName("run - Jour déjà calculé : ignoré")
+    void run_AlreadyCompleted_ShouldSkip() {
+        stored = checkpoint(DAY, "p9", true);
+
+        DailySummaryJob.RunStats stats = job.run(DAY);
+
+        assertThat(stats.isSkipped()).isTrue();
+        verifyNoInteractions(healthDataRepository, dailySummaryRepository);
+    }
+
+    @Test
+    @DisplayName("run - Reprend après le dernier patient enregistré")
+    void run_IncompleteCheckpoint_ShouldResume() {
+        stored = checkpoint(DAY, "p2", false);
+        stream(rows("p3", 1));
+
+        DailySummaryJob.RunStats stats = job.run(DAY);
+
+        assertThat(stats.getResumedAfter()).isEqualTo("p2");
+        verify(healthDataRepository).streamByPatient(any(), any(), eq("p2"), anyInt(), any());
+        assertThat(stored.isCompleted()).isTrue();
+    }
+
+    @Test
+    @DisplayName("run - Échec d'écriture : le checkpoint reste avant le lot en échec")
+    void run_WriteFailure_ShouldKeepCheckpointBeforeFailedChunk() {
+        stream(rows("p1", 1), rows("p2", 1), rows("p3", 1), rows("p4", 1));
+        AtomicInteger calls = new AtomicInteger();
+        when(dailySummaryRepository.upsertSummaries(anyList())).thenAnswer(inv -> {
+            if (calls.incrementAndGet() > 1) {
+                throw new IllegalStateException("db down");
+            }
+            return 2;
+        });
+
+        assertThatThrownBy(() -> job.run(DAY)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(stored.isCompleted()).isFalse();
+        assertThat(stored.getLastKey()).isIn(null, "p2");
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private void stream(List<HealthData>... patients) {
+        doAnswer(inv -> {
+            Consumer<HealthData> sink = inv.getArgument(4);
+            for (List<HealthData> rows : patients) {
+                rows.forEach(sink);
+            }
+            return null;
+        }).when(healthDataRepository).streamByPatient(any(), any(), any(), anyInt(), any(Consumer.class));
+    }
+
+    private static List<HealthData> rows(String patientId, int count) {
+        List<HealthData> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            HealthData data = new HealthData();
+            data.setPatientId(patientId);
+            data.setHeartRate(60 + i);
+            rows.add(data);
+        }
+        return rows;
+    }
+
+    private static JobCheckpoint checkpoint(LocalDate date, String lastKey, boolean completed) {
+        JobCheckpoint checkpoint = new JobCheckpoint();
+        checkpoint.setJobName(DailySummaryJob.JOB_NAME);
+        checkpoint.setRunDate(date);
+        checkpoint.setLastKey(lastKey);
+        checkpoint.setCompleted(completed);
+        return checkpoint;
+    }
+
+    private static JobCheckpoint copy(JobCheckpoint source) {
+        return checkpoint(source.getRunDate(), source.getLastKey(), source.isCompleted());
+    }
+}
@@ -27,7 +27,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.util.Arrays;
 import java.util.List;
@@ -57,6 +59,9 @@ class DoctorServiceTest {
     /**
      * Le service à tester : Mockito injecte automatiquement les mocks
      */
+    @Spy
+    private PageLimits pageLimits = new PageLimits(2, 100);
+
     @InjectMocks
     private DoctorService doctorService;
 
@@ -115,14 +120,14 @@ class DoctorServiceTest {
      * - La taille de la liste correspond au nombre de docteurs
      */
     @Test
-    @DisplayName("getAllDoctors - Doit retourner tous les docteurs")
+    @DisplayName("getAllDoctors - Doit retourner les premiers docteurs, bornés à la taille maximale")
     void getAllDoctors_ShouldReturnAllDoctors() {
         // ===== ARRANGE =====
         List<Doctor> allDoctors = Arrays.asList(doctor1, doctor2, doctor3);
-        when(doctorRepository.findAll()).thenReturn(allDoctors);
+        when(doctorRepository.findAllByOrderByIdAsc(Limit.of(101))).thenReturn(allDoctors);
 
         // ===== ACT =====
-        List<Doctor> result = doctorService.getAllDoctors();
+        List<Doctor> result = doctorService.getAllDoctors().getItems();
 
         // ===== ASSERT =====
         assertThat(result).isNotNull()
@@ -130,21 +135,21 @@ class DoctorServiceTest {
                 .contains(doctor1, doctor2, doctor3);
 
         // Vérifier que le repository a été appelé une fois
-        verify(doctorRepository, times(1)).findAll();
+        verify(doctorRepository, times(1)).findAllByOrderByIdAsc(Limit.of(101));
     }
 
     @Test
     @DisplayName("getAllDoctors - Doit retourner une liste vide si aucun docteur")
     void getAllDoctors_WhenNoDoctors_ShouldReturnEmptyList() {
         // ===== ARRANGE =====
-        when(doctorRepository.findAll()).thenReturn(Arrays.asList());
+        when(doctorRepository.findAllByOrderByIdAsc(Limit.of(101))).thenReturn(Arrays.asList());
 
         // ===== ACT =====
-        List<Doctor> result = doctorService.getAllDoctors();
+        List<Doctor> result = doctorService.getAllDoctors().getItems();
 
         // ===== ASSERT =====
         assertThat(result).isNotNull().isEmpty();
-        verify(doctorRepository, times(1)).findAll();
+        verify(doctorRepository, times(1)).findAllByOrderByIdAsc(Limit.of(101));
     }
 
     @Test
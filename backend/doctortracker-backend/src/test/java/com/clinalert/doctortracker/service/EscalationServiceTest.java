@@ -1,8 +1,9 @@
 package com.clinalert.doctortracker.service;
 
 /**
- * Tests EscalationService - 4 tests
- * Couvre: Alert escalation logic, scheduled tasks
+ * Tests EscalationService
+ * Couvre: enregistrement des échéances à la création, annulation à la lecture,
+ * escalade groupée des alertes échues et reconstruction depuis la base.
  */
 
 import com.clinalert.doctortracker.model.Alert;
@@ -11,15 +12,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import java.util.Collection;
+import java.util.function.BiConsumer;
 
+import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -27,84 +28,117 @@ import static org.mockito.Mockito.*;
 @DisplayName("Tests EscalationService")
 class EscalationServiceTest {
 
+    private static final long DELAY_MS = 15 * 60_000L;
+
     @Mock
     private AlertRepository alertRepository;
 
-    @InjectMocks
-    private EscalationService escalationService;
+    @Mock
+    private UnreadAlertIndex unreadIndex;
 
-    private Alert mediumAlert;
+    private EscalationService escalationService;
 
     @BeforeEach
     void setUp() {
-        mediumAlert = new Alert();
-        mediumAlert.setId("alert-001");
-        mediumAlert.setPatientId("patient-001");
-        mediumAlert.setSeverity("MEDIUM");
-        mediumAlert.setMessage("High heart rate detected");
-        mediumAlert.setTimestamp(LocalDateTime.now().minusMinutes(20));
+        escalationService = new EscalationService(alertRepository, unreadIndex, DELAY_MS);
+        lenient().when(alertRepository.escalate(anyCollection(), anyString(), anyString(), anyString()))
+                .thenAnswer(inv -> ((Collection<?>) inv.getArgument(0)).size());
     }
 
     @Test
-    @DisplayName("Should escalate old MEDIUM alerts to HIGH")
-    void checkAndEscalateAlerts_OldMediumAlerts_ShouldEscalateToHigh() {
-        List<Alert> pendingAlerts = Arrays.asList(mediumAlert);
-        when(alertRepository.findBySeverityAndTimestampBefore(eq("MEDIUM"), any(LocalDateTime.class)))
-                .thenReturn(pendingAlerts);
+    @DisplayName("Alertes MEDIUM échues escaladées en HIGH par un seul UPDATE")
+    void escalateDue_ExpiredMediumAlerts_ShouldBulkEscalate() {
+        escalationService.schedule(alert("alert-001", "MEDIUM", 20));
+        escalationService.schedule(alert("alert-002", "MEDIUM", 25));
+
+        int escalated = escalationService.escalateDue();
+
+        assertThat(escalated).isEqualTo(2);
+        ArgumentCaptor<Collection<String>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(alertRepository).escalate(ids.capture(), eq("MEDIUM"), eq("HIGH"), eq("[ESCALATED] "));
+        assertThat(ids.getValue()).containsExactlyInAnyOrder("alert-001", "alert-002");
+        verify(unreadIndex).regrade(ids.getValue(), "MEDIUM", "HIGH");
+        assertThat(escalationService.pendingCount()).isZero();
+        verify(alertRepository, never()).save(any());
+    }
 
-        escalationService.checkAndEscalateAlerts();
+    @Test
+    @DisplayName("Alerte MEDIUM récente non escaladée, sans accès base")
+    void escalateDue_RecentMediumAlert_ShouldWait() {
+        escalationService.schedule(alert("alert-001", "MEDIUM", 1));
 
-        verify(alertRepository).findBySeverityAndTimestampBefore(eq("MEDIUM"), any(LocalDateTime.class));
-        verify(alertRepository).save(argThat(alert -> alert.getSeverity().equals("HIGH") &&
-                alert.getMessage().startsWith("[ESCALATED]")));
+        assertThat(escalationService.escalateDue()).isZero();
+        assertThat(escalationService.pendingCount()).isEqualTo(1);
+        verifyNoInteractions(alertRepository);
     }
 
     @Test
-    @DisplayName("Should NOT escalate recent MEDIUM alerts")
-    void checkAndEscalateAlerts_RecentMediumAlerts_ShouldNotEscalate() {
-        when(alertRepository.findBySeverityAndTimestampBefore(eq("MEDIUM"), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
+    @DisplayName("Alerte lue avant l'échéance : escalade annulée")
+    void cancel_ShouldSkipEscalation() {
+        escalationService.schedule(alert("alert-001", "MEDIUM", 20));
+        escalationService.schedule(alert("alert-002", "MEDIUM", 20));
 
-        escalationService.checkAndEscalateAlerts();
+        escalationService.cancel("alert-001");
+        escalationService.escalateDue();
 
-        verify(alertRepository).findBySeverityAndTimestampBefore(eq("MEDIUM"), any(LocalDateTime.class));
-        verify(alertRepository, never()).save(any());
+        verify(alertRepository).escalate(argThat(ids -> ids.size() == 1 && ids.contains("alert-002")),
+                anyString(), anyString(), anyString());
     }
 
     @Test
-    @DisplayName("Should escalate multiple alerts")
-    void checkAndEscalateAlerts_MultipleAlerts_ShouldEscalateAll() {
-        Alert alert1 = new Alert();
-        alert1.setId("alert-001");
-        alert1.setSeverity("MEDIUM");
-        alert1.setMessage("Alert 1");
-        alert1.setTimestamp(LocalDateTime.now().minusMinutes(20));
-
-        Alert alert2 = new Alert();
-        alert2.setId("alert-002");
-        alert2.setSeverity("MEDIUM");
-        alert2.setMessage("Alert 2");
-        alert2.setTimestamp(LocalDateTime.now().minusMinutes(25));
-
-        List<Alert> pendingAlerts = Arrays.asList(alert1, alert2);
-        when(alertRepository.findBySeverityAndTimestampBefore(eq("MEDIUM"), any(LocalDateTime.class)))
-                .thenReturn(pendingAlerts);
-
-        escalationService.checkAndEscalateAlerts();
-
-        verify(alertRepository, times(2)).save(any(Alert.class));
+    @DisplayName("Seules les alertes MEDIUM non lues sont enregistrées")
+    void schedule_OtherSeverityOrRead_ShouldBeIgnored() {
+        Alert read = alert("alert-002", "MEDIUM", 20);
+        read.setRead(true);
+
+        escalationService.schedule(alert("alert-001", "HIGH", 20));
+        escalationService.schedule(read);
+
+        assertThat(escalationService.pendingCount()).isZero();
+        assertThat(escalationService.escalateDue()).isZero();
+        verifyNoInteractions(alertRepository);
     }
 
     @Test
-    @DisplayName("Should prepend ESCALATED to message")
-    void checkAndEscalateAlerts_ShouldPrependEscalatedToMessage() {
-        List<Alert> pendingAlerts = Arrays.asList(mediumAlert);
-        when(alertRepository.findBySeverityAndTimestampBefore(eq("MEDIUM"), any(LocalDateTime.class)))
-                .thenReturn(pendingAlerts);
+    @DisplayName("Échec de l'UPDATE : alertes remises en file et retentées")
+    void escalateDue_UpdateFails_ShouldRetryOnNextPoll() {
+        escalationService.schedule(alert("alert-001", "MEDIUM", 20));
+        when(alertRepository.escalate(anyCollection(), anyString(), anyString(), anyString()))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(1);
+
+        assertThat(escalationService.escalateDue()).isZero();
+        verifyNoInteractions(unreadIndex);
+        assertThat(escalationService.pendingCount()).isEqualTo(1);
+        assertThat(escalationService.escalateDue()).isEqualTo(1);
+    }
 
-        escalationService.checkAndEscalateAlerts();
+    @Test
+    @DisplayName("Reconstruction - Alertes non lues de la base remises en file avec leur échéance")
+    void rebuild_ShouldRegisterUnreadMediumAlerts() {
+        doAnswer(inv -> {
+            BiConsumer<String, LocalDateTime> consumer = inv.getArgument(1);
+            consumer.accept("alert-old", LocalDateTime.now().minusMinutes(30));
+            consumer.accept("alert-new", LocalDateTime.now().minusMinutes(2));
+            return null;
+        }).when(alertRepository).forEachUnread(eq("MEDIUM"), any());
+
+        escalationService.rebuild();
+
+        assertThat(escalationService.pendingCount()).isEqualTo(2);
+        escalationService.escalateDue();
+        verify(alertRepository).escalate(argThat(ids -> ids.size() == 1 && ids.contains("alert-old")),
+                anyString(), anyString(), anyString());
+        assertThat(escalationService.pendingCount()).isEqualTo(1);
+    }
 
-        verify(alertRepository).save(argThat(alert -> alert.getMessage().contains("[ESCALATED]") &&
-                alert.getMessage().contains("High heart rate detected")));
+    private static Alert alert(String id, String severity, int minutesAgo) {
+        Alert alert = new Alert();
+        alert.setId(id);
+        alert.setPatientId("patient-001");
+        alert.setSeverity(severity);
+        alert.setMessage("High heart rate detected");
+        alert.setTimestamp(LocalDateTime.now().minusMinutes(minutesAgo));
+        return alert;
     }
 }
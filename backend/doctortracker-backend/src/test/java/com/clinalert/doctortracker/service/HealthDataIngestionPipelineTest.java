@@ -0,0 +1,240 @@
+package com.clinalert.doctortracker.service;
+
+/**
+ * Tests HealthDataIngestionPipeline
+ * Couvre: file bornée, coalescence des lots, tickets, vidage à l'arrêt,
+ * reprise envoi par envoi d'un lot en échec, erreurs d'alerte après écriture
+ */
+
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.repository.HealthDataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests HealthDataIngestionPipeline")
+class HealthDataIngestionPipelineTest {
+
+    @Mock
+    private HealthDataRepository healthDataRepository;
+
+    @Mock
+    private SmartWatchHealthService smartWatchHealthService;
+
+    private HealthDataIngestionPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    private HealthDataIngestionPipeline newPipeline(int capacity, int workers) {
+        HealthDataIngestionPipeline p = new HealthDataIngestionPipeline(
+                healthDataRepository, smartWatchHealthService, capacity, workers, 1000, 20, 5000);
+        p.start();
+        return p;
+    }
+
+    private List<HealthData> rows(int count) {
+        List<HealthData> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            HealthData data = new HealthData();
+            data.setPatientId("patient-001");
+            data.setHeartRate(70 + i);
+            data.setTimestamp(LocalDateTime.now());
+            list.add(data);
+        }
+        return list;
+    }
+
+    @Test
+    @DisplayName("submit - Écrit le lot puis déclenche la détection d'alertes")
+    void submit_ShouldWriteBatchAndCheckAlerts() {
+        pipeline = newPipeline(100, 1);
+
+        Optional<String> ticket = pipeline.submit(rows(3));
+
+        assertThat(ticket).isPresent();
+        verify(healthDataRepository, timeout(2000)).insertBatch(anyList());
+        verify(smartWatchHealthService, timeout(2000)).checkAlerts(anyList());
+        verify(smartWatchHealthService).updateDailySummaries(anyList());
+        await(() -> pipeline.getTicketStatus(ticket.get())
+                .filter(s -> s == HealthDataIngestionPipeline.TicketStatus.COMPLETED).isPresent());
+        assertThat(pipeline.getStats().getWrittenRows()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("submit - File pleine doit rejeter")
+    void submit_WhenQueueFull_ShouldReject() throws Exception {
+        CountDownLatch blocker = new CountDownLatch(1);
+        when(healthDataRepository.insertBatch(anyList())).thenAnswer(inv -> {
+            blocker.await(2, TimeUnit.SECONDS);
+            return 0;
+        });
+        pipeline = newPipeline(5, 1);
+
+        assertThat(pipeline.submit(rows(5))).isPresent();
+        assertThat(pipeline.submit(rows(1))).isEmpty();
+        assertThat(pipeline.getStats().getRejectedUploads()).isEqualTo(1);
+
+        blocker.countDown();
+        await(() -> pipeline.getStats().getQueuedRows() == 0);
+        assertThat(pipeline.submit(rows(1))).isPresent();
+    }
+
+    @Test
+    @DisplayName("submit - Échec d'écriture marque le ticket FAILED")
+    void submit_WhenWriteFails_ShouldMarkTicketFailed() {
+        when(healthDataRepository.insertBatch(anyList())).thenThrow(new IllegalStateException("db down"));
+        pipeline = newPipeline(100, 1);
+
+        String ticket = pipeline.submit(rows(2)).orElseThrow();
+
+        await(() -> pipeline.getTicketStatus(ticket)
+                .filter(s -> s == HealthDataIngestionPipeline.TicketStatus.FAILED).isPresent());
+        assertThat(pipeline.getStats().getFailedRows()).isEqualTo(2);
+        verify(smartWatchHealthService, never()).checkAlerts(anyList());
+    }
+
+    @Test
+    @DisplayName("Lot fusionné en échec - Chaque envoi est repris seul, seul le mauvais échoue")
+    void writeBatch_MergedBatchFails_ShouldRetryEachUpload() throws Exception {
+        List<HealthData> bad = rows(2);
+        CountDownLatch firstInsert = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(healthDataRepository.insertBatch(anyList())).thenAnswer(inv -> {
+            List<HealthData> batch = inv.getArgument(0);
+            if (batch.size() == 1) {
+                // Premier envoi seul : bloque le worker pour que les deux suivants soient fusionnés
+                firstInsert.countDown();
+                release.await(2, TimeUnit.SECONDS);
+                return 1;
+            }
+            if (batch.containsAll(bad)) {
+                throw new IllegalStateException("bad row");
+            }
+            return batch.size();
+        });
+        pipeline = newPipeline(100, 1);
+        pipeline.submit(rows(1));
+        assertThat(firstInsert.await(2, TimeUnit.SECONDS)).isTrue();
+
+        String good = pipeline.submit(rows(3)).orElseThrow();
+        String failed = pipeline.submit(bad).orElseThrow();
+        release.countDown();
+
+        await(() -> pipeline.getTicketStatus(failed)
+                .filter(s -> s == HealthDataIngestionPipeline.TicketStatus.FAILED).isPresent());
+        assertThat(pipeline.getTicketStatus(good)).contains(HealthDataIngestionPipeline.TicketStatus.COMPLETED);
+        assertThat(pipeline.getStats().getFailedRows()).isEqualTo(2);
+        assertThat(pipeline.getStats().getWrittenRows()).isEqualTo(4);
+        verify(smartWatchHealthService).checkAlerts(argThat(list -> list.size() == 3));
+    }
+
+    @Test
+    @DisplayName("Échec de la détection d'alertes après écriture : ticket COMPLETED, lignes non comptées en échec")
+    void writeBatch_AlertCheckFails_ShouldStillComplete() {
+        doThrow(new IllegalStateException("rules down")).when(smartWatchHealthService).checkAlerts(anyList());
+        pipeline = newPipeline(100, 1);
+
+        String ticket = pipeline.submit(rows(2)).orElseThrow();
+
+        await(() -> pipeline.getTicketStatus(ticket)
+                .filter(s -> s == HealthDataIngestionPipeline.TicketStatus.COMPLETED).isPresent());
+        assertThat(pipeline.getStats().getWrittenRows()).isEqualTo(2);
+        assertThat(pipeline.getStats().getFailedRows()).isZero();
+        assertThat(pipeline.getStats().getPostWriteFailures()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("submit - Envoi plus grand que la file : rejeté d'emblée")
+    void submit_LargerThanQueue_ShouldThrow() {
+        pipeline = newPipeline(5, 1);
+
+        assertThat(pipeline.getMaxUploadRows()).isEqualTo(5);
+        assertThatThrownBy(() -> pipeline.submit(rows(6))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(pipeline.submit(rows(5))).isPresent();
+    }
+
+    @Test
+    @DisplayName("shutdown - Vide la file avant l'arrêt")
+    void shutdown_ShouldFlushQueuedUploads() {
+        pipeline = newPipeline(1000, 1);
+        for (int i = 0; i < 10; i++) {
+            pipeline.submit(rows(10));
+        }
+
+        pipeline.shutdown();
+
+        assertThat(pipeline.getStats().getWrittenRows()).isEqualTo(100);
+        assertThat(pipeline.submit(rows(1))).isEmpty();
+        pipeline = null;
+    }
+
+    @Test
+    @DisplayName("shutdown - Envois concurrents à l'arrêt : aucun ticket accepté ne reste QUEUED")
+    void shutdown_WithConcurrentSubmits_ShouldLeaveNoQueuedTicket() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            HealthDataIngestionPipeline p = newPipeline(100_000, 1);
+            List<String> accepted = java.util.Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch started = new CountDownLatch(4);
+            List<Thread> submitters = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread submitter = new Thread(() -> {
+                    started.countDown();
+                    for (int i = 0; i < 200; i++) {
+                        p.submit(rows(1)).ifPresent(accepted::add);
+                    }
+                });
+                submitter.start();
+                submitters.add(submitter);
+            }
+            assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+
+            p.shutdown();
+            for (Thread submitter : submitters) {
+                submitter.join(5_000);
+            }
+
+            // Tout envoi accepté a été écrit et ses places dans la file rendues
+            assertThat(accepted).allSatisfy(ticket -> assertThat(p.getTicketStatus(ticket))
+                    .contains(HealthDataIngestionPipeline.TicketStatus.COMPLETED));
+            assertThat(p.getStats().getQueuedRows()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("getTicketStatus - Ticket inconnu")
+    void getTicketStatus_Unknown_ShouldBeEmpty() {
+        pipeline = newPipeline(10, 1);
+
+        assertThat(pipeline.getTicketStatus("unknown")).isEmpty();
+    }
+
+    private static void await(java.util.function.BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within timeout");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
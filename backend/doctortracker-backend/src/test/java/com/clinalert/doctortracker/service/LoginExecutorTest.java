@@ -0,0 +1,72 @@
+package com.clinalert.doctortracker.service;
+
+/**
+ * Tests Unitaires pour LoginExecutor
+ * Vérifie l'exécution hors thread appelant et le rejet quand le pool et sa file sont pleins.
+ */
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests Unitaires LoginExecutor")
+class LoginExecutorTest {
+
+    private final LoginExecutor executor = new LoginExecutor(1, 1);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("submit - Exécuté sur un thread du pool de login")
+    void submit_ShouldRunOnLoginThread() throws Exception {
+        executor.start();
+
+        String threadName = executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        assertThat(threadName).startsWith("login-");
+    }
+
+    @Test
+    @DisplayName("submit - Pool et file pleins : rejet immédiat")
+    void submit_WhenSaturated_ShouldFailFast() throws Exception {
+        executor.start();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> busy = executor.submit(() -> {
+            running.countDown();
+            return await(release);
+        });
+        running.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Boolean> queued = executor.submit(() -> true);
+        CompletableFuture<Boolean> rejected = executor.submit(() -> true);
+
+        assertThat(rejected).isCompletedExceptionally();
+        assertThatThrownBy(rejected::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+
+        release.countDown();
+        assertThat(busy.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.clinalert.doctortracker.service;
+
+/**
+ * Tests Unitaires pour LttbDownsampler
+ * Vérifie le passage direct des petites séries, la conservation des extrémités
+ * et l'équivalence avec une implémentation LTTB de référence sur tableau.
+ */
+
+import com.clinalert.doctortracker.dto.VitalPoint;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests Unitaires LttbDownsampler")
+class LttbDownsamplerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @Test
+    @DisplayName("Série plus courte que la cible - Renvoyée telle quelle")
+    void shortSeries_ShouldPassThrough() {
+        List<VitalPoint> series = series(5, new Random(1));
+
+        assertThat(downsample(series, series.size(), 10)).containsExactlyElementsOf(series);
+    }
+
+    @Test
+    @DisplayName("Conserve le premier, le dernier point et un pic isolé")
+    void downsample_ShouldKeepEndsAndSpike() {
+        List<VitalPoint> series = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            series.add(point(i, i == 500 ? 180 : 70));
+        }
+
+        List<VitalPoint> result = downsample(series, series.size(), 50);
+
+        assertThat(result).hasSize(50);
+        assertThat(result.get(0)).isEqualTo(series.get(0));
+        assertThat(result.get(49)).isEqualTo(series.get(999));
+        assertThat(result).extracting(p -> p.getValue().intValue()).contains(180);
+    }
+
+    @Test
+    @DisplayName("Résultat identique à l'implémentation de référence")
+    void downsample_ShouldMatchReferenceImplementation() {
+        Random random = new Random(42);
+        for (int size : new int[] { 7, 100, 1001, 40_000 }) {
+            List<VitalPoint> series = series(size, random);
+            for (int threshold : new int[] { 3, 4, 6, 300 }) {
+                assertThat(downsample(series, size, threshold))
+                        .as("size %d, threshold %d", size, threshold)
+                        .containsExactlyElementsOf(reference(series, threshold));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Plus de points que prévu - Rangés dans le dernier seau, dernier point conservé")
+    void moreRowsThanExpected_ShouldStillEndWithLastPoint() {
+        List<VitalPoint> series = series(120, new Random(7));
+
+        List<VitalPoint> result = downsample(series, 100, 10);
+
+        assertThat(result).hasSize(10);
+        assertThat(result.get(9)).isEqualTo(series.get(119));
+        assertThat(result).isSortedAccordingTo((a, b) -> a.getTimestamp().compareTo(b.getTimestamp()));
+    }
+
+    private static List<VitalPoint> downsample(List<VitalPoint> series, long expectedSize, int threshold) {
+        LttbDownsampler downsampler = new LttbDownsampler(expectedSize, threshold);
+        series.forEach(downsampler);
+        return downsampler.finish();
+    }
+
+    private static List<VitalPoint> series(int size, Random random) {
+        List<VitalPoint> series = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            series.add(point(i, 60 + random.nextInt(60)));
+        }
+        return series;
+    }
+
+    private static VitalPoint point(int minute, int value) {
+        return new VitalPoint(START.plusMinutes(minute), value);
+    }
+
+    // Textbook LTTB over the whole series held in memory
+    private static List<VitalPoint> reference(List<VitalPoint> data, int threshold) {
+        int size = data.size();
+        if (threshold >= size) {
+            return data;
+        }
+        List<VitalPoint> sampled = new ArrayList<>();
+        double every = (double) (size - 2) / (threshold - 2);
+        int a = 0;
+        sampled.add(data.get(a));
+        for (int i = 0; i < threshold - 2; i++) {
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, size);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += x(data.get(j));
+                avgY += data.get(j).getValue().doubleValue();
+            }
+            avgX /= avgEnd - avgStart;
+            avgY /= avgEnd - avgStart;
+
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double ax = x(data.get(a));
+            double ay = data.get(a).getValue().doubleValue();
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((ax - avgX) * (data.get(j).getValue().doubleValue() - ay)
+                        - (ax - x(data.get(j))) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled.add(data.get(next));
+            a = next;
+        }
+        sampled.add(data.get(size - 1));
+        return sampled;
+    }
+
+    private static double x(VitalPoint point) {
+        return point.getTimestamp().toEpochSecond(ZoneOffset.UTC) * 1000.0;
+    }
+}
@@ -13,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
@@ -36,6 +37,9 @@ class MeasurementServiceTest {
     @Mock
     private AnomalyDetectionService anomalyDetectionService;
 
+    @Spy
+    private AlertRuleEngine alertRuleEngine = AlertRuleEngineTest.defaultEngine();
+
     @InjectMocks
     private MeasurementService measurementService;
 
@@ -61,18 +65,19 @@ class MeasurementServiceTest {
 
         assertThat(result).hasSize(1);
         verify(measurementRepository).saveAll(anyList());
+        verify(anomalyDetectionService).warmUp(anyList());
     }
 
     @Test
     @DisplayName("saveMeasurements - High heart rate")
     void saveMeasurements_HighHeartRate_ShouldCreateAlert() {
-        measurement.setValue(120.0);
+        measurement.setValue(130.0);
         when(measurementRepository.saveAll(anyList())).thenReturn(Arrays.asList(measurement));
         when(anomalyDetectionService.isAnomaly(any())).thenReturn(false);
 
         measurementService.saveMeasurements(Arrays.asList(measurement));
 
-        verify(alertService, atLeastOnce()).createAlert(any());
+        verify(alertService, atLeastOnce()).createAlerts(argThat(batch -> !batch.isEmpty()));
     }
 
     @Test
@@ -84,7 +89,7 @@ class MeasurementServiceTest {
 
         measurementService.saveMeasurements(Arrays.asList(measurement));
 
-        verify(alertService, atLeastOnce()).createAlert(any());
+        verify(alertService, atLeastOnce()).createAlerts(argThat(batch -> !batch.isEmpty()));
     }
 
     @Test
@@ -97,7 +102,7 @@ class MeasurementServiceTest {
 
         measurementService.saveMeasurements(Arrays.asList(measurement));
 
-        verify(alertService, atLeastOnce()).createAlert(any());
+        verify(alertService, atLeastOnce()).createAlerts(argThat(batch -> !batch.isEmpty()));
     }
 
     @Test
@@ -108,7 +113,7 @@ class MeasurementServiceTest {
 
         measurementService.saveMeasurements(Arrays.asList(measurement));
 
-        verify(alertService, atLeastOnce()).createAlert(any());
+        verify(alertService, atLeastOnce()).createAlerts(argThat(batch -> !batch.isEmpty()));
     }
 
     @Test
@@ -17,17 +17,25 @@ package com.clinalert.doctortracker.service;
  * @version 1.0
  */
 
+import com.clinalert.doctortracker.dto.CursorPage;
 import com.clinalert.doctortracker.model.Patient;
 import com.clinalert.doctortracker.repository.PatientRepository;
+import com.clinalert.doctortracker.util.CursorCodec;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -50,6 +58,18 @@ class PatientServiceTest {
     @Mock
     private PatientRepository patientRepository;
 
+    /**
+     * Bornes de pagination réelles : 2 par défaut, 100 au maximum
+     */
+    @Spy
+    private PageLimits pageLimits = new PageLimits(2, 100);
+
+    /**
+     * Index des alertes non lues, tenu informé du médecin et de la clinique du patient
+     */
+    @Mock
+    private UnreadAlertIndex unreadIndex;
+
     /**
      * Le service à tester - Mockito injectera le mock ci-dessus
      */
@@ -98,13 +118,13 @@ class PatientServiceTest {
      * TEST 1 : Récupérer tous les patients
      */
     @Test
-    @DisplayName("getAllPatients() : Doit retourner tous les patients")
+    @DisplayName("getAllPatients() : Doit retourner les premiers patients, bornés à la taille maximale")
     void getAllPatients_ShouldReturnAllPatients() {
         // ===== ARRANGE =====
-        when(patientRepository.findAll()).thenReturn(patientList);
+        when(patientRepository.findAllByOrderByIdAsc(Limit.of(101))).thenReturn(patientList);
 
         // ===== ACT =====
-        List<Patient> result = patientService.getAllPatients();
+        List<Patient> result = patientService.getAllPatients().getItems();
 
         // ===== ASSERT =====
         assertNotNull(result);
@@ -112,7 +132,22 @@ class PatientServiceTest {
         assertEquals("Jean Dupont", result.get(0).getName());
         assertEquals("Marie Martin", result.get(1).getName());
 
-        verify(patientRepository, times(1)).findAll();
+        verify(patientRepository, times(1)).findAllByOrderByIdAsc(Limit.of(101));
+    }
+
+    @Test
+    @DisplayName("getAllPatients() : Doit fournir un curseur quand la liste dépasse la taille maximale")
+    void getAllPatients_WhenTruncated_ShouldReturnNextCursor() {
+        // ===== ARRANGE : une ligne de plus que la taille maximale =====
+        when(patientRepository.findAllByOrderByIdAsc(Limit.of(101)))
+                .thenReturn(Collections.nCopies(101, patient1));
+
+        // ===== ACT =====
+        CursorPage<Patient> result = patientService.getAllPatients();
+
+        // ===== ASSERT =====
+        assertEquals(100, result.getItems().size());
+        assertEquals(CursorCodec.encode(patient1.getId()), result.getNextCursor());
     }
 
     /**
@@ -211,6 +246,7 @@ class PatientServiceTest {
         savedPatient.setId("p3");
         savedPatient.setName("Nouveau Patient");
         savedPatient.setAge(25);
+        savedPatient.setDoctorId("doc-1");
 
         when(patientRepository.save(any(Patient.class))).thenReturn(savedPatient);
 
@@ -223,6 +259,7 @@ class PatientServiceTest {
         assertEquals("Nouveau Patient", result.getName());
 
         verify(patientRepository, times(1)).save(newPatient);
+        verify(unreadIndex).updatePatient("p3", "doc-1", null);
     }
 
     // ==========================================
@@ -244,6 +281,7 @@ class PatientServiceTest {
 
         // ===== ASSERT =====
         verify(patientRepository, times(1)).deleteById(patientId);
+        verify(unreadIndex).updatePatient(patientId, null, null);
     }
 
     // ==========================================
@@ -318,14 +356,45 @@ class PatientServiceTest {
     @DisplayName("getAllPatients() : Doit retourner une liste vide si aucun patient")
     void getAllPatients_WhenNoPatients_ShouldReturnEmptyList() {
         // ===== ARRANGE =====
-        when(patientRepository.findAll()).thenReturn(Arrays.asList());
+        when(patientRepository.findAllByOrderByIdAsc(Limit.of(101))).thenReturn(Arrays.asList());
 
         // ===== ACT =====
-        List<Patient> result = patientService.getAllPatients();
+        List<Patient> result = patientService.getAllPatients().getItems();
 
         // ===== ASSERT =====
         assertNotNull(result);
         assertTrue(result.isEmpty());
         assertEquals(0, result.size());
     }
+
+    // ==========================================
+    // SECTION : PAGINATION
+    // ==========================================
+
+    @Test
+    @DisplayName("getPatientsAfter : pages successives par curseur sur l'id")
+    void getPatientsAfter_ShouldFollowCursor() {
+        Patient patient3 = new Patient();
+        patient3.setId("p3");
+        when(patientRepository.findAllByOrderByIdAsc(Limit.of(3))).thenReturn(List.of(patient1, patient2, patient3));
+        when(patientRepository.findByIdGreaterThanOrderByIdAsc("p2", Limit.of(3))).thenReturn(List.of(patient3));
+
+        CursorPage<Patient> first = patientService.getPatientsAfter(null, null);
+        CursorPage<Patient> second = patientService.getPatientsAfter(first.getNextCursor(), null);
+
+        assertEquals(List.of(patient1, patient2), first.getItems());
+        assertEquals(List.of(patient3), second.getItems());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("getPatientsPage : page par offset triée par id, taille maximale imposée")
+    void getPatientsPage_ShouldUseBoundedPageRequest() {
+        PageRequest request = PageRequest.of(1, 2, Sort.by("id"));
+        when(patientRepository.findAll(request)).thenReturn(new PageImpl<>(List.of(patient2), request, 3));
+
+        assertEquals(List.of(patient2), patientService.getPatientsPage(1, null).getContent());
+        assertThrows(IllegalArgumentException.class, () -> patientService.getPatientsPage(0, 101));
+        assertThrows(IllegalArgumentException.class, () -> patientService.getPatientsAfter(null, 0));
+    }
 }
@@ -0,0 +1,166 @@
+package com.clinalert.doctortracker.service;
+
+/**
+ * Tests Unitaires pour RawDataRetentionJob
+ * Vérifie la création anticipée des partitions, le calcul des résumés
+ * manquants avant purge, la suppression des partitions entièrement résumées
+ * et la purge jour par jour des données brutes expirées.
+ */
+
+import com.clinalert.doctortracker.model.DailyHealthSummary;
+import com.clinalert.doctortracker.model.HealthData;
+import com.clinalert.doctortracker.repository.DailyHealthSummaryRepository;
+import com.clinalert.doctortracker.repository.HealthDataRepository;
+import com.clinalert.doctortracker.repository.RawDataRetentionRepository;
+import com.clinalert.doctortracker.repository.RawDataRetentionRepository.MonthPartition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static com.clinalert.doctortracker.repository.RawDataRetentionRepository.HEALTH_DATA;
+import static com.clinalert.doctortracker.repository.RawDataRetentionRepository.MEASUREMENTS;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitaires RawDataRetentionJob")
+class RawDataRetentionJobTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 10);
+
+    @Mock
+    private RawDataRetentionRepository retentionRepository;
+
+    @Mock
+    private HealthDataRepository healthDataRepository;
+
+    @Mock
+    private DailyHealthSummaryRepository dailySummaryRepository;
+
+    private RawDataRetentionJob job(int rawDays) {
+        return new RawDataRetentionJob(retentionRepository, healthDataRepository, dailySummaryRepository,
+                rawDays, 3, true, 100, 100);
+    }
+
+    @Test
+    @DisplayName("run - Horizon à 0 : partitions préparées, aucune purge")
+    void run_NoHorizon_ShouldOnlyPreparePartitions() {
+        when(retentionRepository.isPartitioned(anyString())).thenReturn(true);
+        when(retentionRepository.createMonthlyPartitions(anyString(), any(), any())).thenReturn(1);
+
+        RawDataRetentionJob.RunStats stats = job(0).run(TODAY);
+
+        assertThat(stats.getPartitionsCreated()).isEqualTo(2);
+        verify(retentionRepository).createMonthlyPartitions(HEALTH_DATA, YearMonth.of(2025, 6), YearMonth.of(2025, 9));
+        verify(retentionRepository).createMonthlyPartitions(MEASUREMENTS, YearMonth.of(2025, 6), YearMonth.of(2025, 9));
+        verify(retentionRepository, never()).deleteSummarizedRows(anyString(), any());
+        verifyNoInteractions(healthDataRepository, dailySummaryRepository);
+    }
+
+    @Test
+    @DisplayName("run - Échec de création d'une partition : la purge a tout de même lieu")
+    void run_PartitionCreationFails_ShouldStillRetire() {
+        LocalDate cutoff = TODAY.minusDays(10);
+        when(retentionRepository.isPartitioned(anyString())).thenReturn(true);
+        when(retentionRepository.createMonthlyPartitions(eq(HEALTH_DATA), any(), any()))
+                .thenThrow(new IllegalStateException("updated partition constraint for default partition would be violated"));
+        when(retentionRepository.createMonthlyPartitions(eq(MEASUREMENTS), any(), any())).thenReturn(1);
+        when(retentionRepository.findOldestDay(HEALTH_DATA)).thenReturn(Optional.of(cutoff.minusDays(1)));
+        when(retentionRepository.findMonthlyPartitions(HEALTH_DATA)).thenReturn(List.of());
+        when(retentionRepository.deleteSummarizedRows(HEALTH_DATA, cutoff.minusDays(1))).thenReturn(4);
+
+        RawDataRetentionJob.RunStats stats = job(10).run(TODAY);
+
+        assertThat(stats.getPartitionsCreated()).isEqualTo(1);
+        assertThat(stats.getRowsDeleted()).isEqualTo(4);
+        verify(retentionRepository).createMonthlyPartitions(MEASUREMENTS, YearMonth.of(2025, 6), YearMonth.of(2025, 9));
+    }
+
+    @Test
+    @DisplayName("run - Sans partitionnement : résumés manquants calculés puis lignes purgées jour par jour")
+    void run_Unpartitioned_ShouldRollUpThenDeleteExpiredDays() {
+        LocalDate cutoff = TODAY.minusDays(10);
+        LocalDate oldest = cutoff.minusDays(2);
+        when(retentionRepository.isPartitioned(anyString())).thenReturn(false);
+        when(retentionRepository.findOldestDay(HEALTH_DATA)).thenReturn(Optional.of(oldest));
+        when(dailySummaryRepository.findPatientIdsByDate(any())).thenReturn(Set.of("p1"));
+        List<DailyHealthSummary> written = new ArrayList<>();
+        when(dailySummaryRepository.upsertSummaries(anyList())).thenAnswer(inv -> {
+            List<DailyHealthSummary> batch = inv.getArgument(0);
+            written.addAll(batch);
+            return batch.size();
+        });
+        doAnswer(inv -> {
+            Consumer<HealthData> sink = inv.getArgument(4);
+            rows("p1", 2).forEach(sink);
+            rows("p2", 3).forEach(sink);
+            return null;
+        }).when(healthDataRepository).streamByPatient(any(), any(), any(), anyInt(), any(Consumer.class));
+        when(retentionRepository.deleteSummarizedRows(eq(HEALTH_DATA), any())).thenReturn(5);
+
+        RawDataRetentionJob.RunStats stats = job(10).run(TODAY);
+
+        assertThat(stats.getCutoff()).isEqualTo(cutoff);
+        // p1 déjà résumé : seul p2 est calculé, pour chacun des deux jours expirés
+        assertThat(written).extracting(DailyHealthSummary::getPatientId).containsExactly("p2", "p2");
+        assertThat(written).extracting(DailyHealthSummary::getDate).containsExactly(oldest, oldest.plusDays(1));
+        assertThat(written.get(0).getDataPointsCount()).isEqualTo(3);
+        assertThat(stats.getSummariesRolledUp()).isEqualTo(2);
+        verify(retentionRepository).deleteSummarizedRows(HEALTH_DATA, oldest);
+        verify(retentionRepository).deleteSummarizedRows(HEALTH_DATA, oldest.plusDays(1));
+        verify(retentionRepository, never()).deleteSummarizedRows(HEALTH_DATA, cutoff);
+        // Aucun résumé ne couvre les mesures : elles ne sont jamais purgées
+        verify(retentionRepository, never()).findOldestDay(MEASUREMENTS);
+        verify(retentionRepository, never()).deleteSummarizedRows(eq(MEASUREMENTS), any());
+        assertThat(stats.getRowsDeleted()).isEqualTo(10);
+        verify(retentionRepository, never()).findMonthlyPartitions(anyString());
+    }
+
+    @Test
+    @DisplayName("run - Partitions expirées et entièrement résumées supprimées en bloc")
+    void run_Partitioned_ShouldDropOnlyExpiredSummarizedPartitions() {
+        MonthPartition expired = new MonthPartition("health_data_p202403", YearMonth.of(2024, 3));
+        MonthPartition unsummarized = new MonthPartition("health_data_p202404", YearMonth.of(2024, 4));
+        // Le mois de la date limite contient encore des données à conserver
+        MonthPartition straddling = new MonthPartition("health_data_p202405", YearMonth.of(2024, 5));
+        when(retentionRepository.isPartitioned(anyString())).thenReturn(true);
+        when(retentionRepository.findMonthlyPartitions(HEALTH_DATA))
+                .thenReturn(List.of(expired, unsummarized, straddling));
+        when(retentionRepository.isFullySummarized(expired)).thenReturn(true);
+        when(retentionRepository.isFullySummarized(unsummarized)).thenReturn(false);
+        when(retentionRepository.findOldestDay(anyString())).thenReturn(Optional.empty());
+
+        RawDataRetentionJob.RunStats stats = new RawDataRetentionJob(retentionRepository, healthDataRepository,
+                dailySummaryRepository, 395, 3, false, 100, 100).run(TODAY);
+
+        assertThat(stats.getCutoff()).isEqualTo(LocalDate.of(2024, 5, 11));
+        assertThat(stats.getPartitionsDropped()).isEqualTo(1);
+        verify(retentionRepository).dropPartition(HEALTH_DATA, expired);
+        verify(retentionRepository, never()).dropPartition(HEALTH_DATA, unsummarized);
+        verify(retentionRepository, never()).isFullySummarized(straddling);
+        verify(retentionRepository, never()).findMonthlyPartitions(MEASUREMENTS);
+        verifyNoInteractions(healthDataRepository, dailySummaryRepository);
+    }
+
+    private static List<HealthData> rows(String patientId, int count) {
+        List<HealthData> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            HealthData data = new HealthData();
+            data.setPatientId(patientId);
+            data.setHeartRate(60 + i);
+            rows.add(data);
+        }
+        return rows;
+    }
+}
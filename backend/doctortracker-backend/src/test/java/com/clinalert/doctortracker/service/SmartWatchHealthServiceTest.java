@@ -5,25 +5,35 @@ package com.clinalert.doctortracker.service;
  * Couvre: devices, health data, dailySummaries, stats
  */
 
+import com.clinalert.doctortracker.dto.CursorPage;
+import com.clinalert.doctortracker.dto.VitalPoint;
+import com.clinalert.doctortracker.dto.VitalSeries;
 import com.clinalert.doctortracker.model.*;
 import com.clinalert.doctortracker.repository.*;
+import com.clinalert.doctortracker.repository.HealthDataRepositoryCustom.Reading;
+import com.clinalert.doctortracker.repository.HealthDataRepositoryCustom.Span;
+import com.clinalert.doctortracker.repository.HealthDataRepositoryCustom.ValueSink;
 import com.clinalert.doctortracker.service.SmartWatchHealthService.HealthDataStats;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,6 +52,9 @@ class SmartWatchHealthServiceTest {
     @Mock
     private AlertService alertService;
 
+    @Spy
+    private AlertRuleEngine alertRuleEngine = AlertRuleEngineTest.defaultEngine();
+
     @InjectMocks
     private SmartWatchHealthService service;
 
@@ -333,7 +346,7 @@ class SmartWatchHealthServiceTest {
 
         service.saveHealthData(healthData);
 
-        verify(alertService, atLeastOnce()).createAlert(any());
+        verify(alertService, atLeastOnce()).createAlerts(argThat(batch -> !batch.isEmpty()));
     }
 
     @Test
@@ -344,9 +357,9 @@ class SmartWatchHealthServiceTest {
 
         service.saveHealthData(healthData);
 
-        verify(alertService, atLeastOnce()).createAlert(argThat(alert -> alert.getMessage().contains("Critical Fever")
+        verify(alertService, atLeastOnce()).createAlerts(argThat(batch -> batch.getAlerts().stream().anyMatch(alert -> alert.getMessage().contains("Critical Fever")
                 &&
-                alert.getSeverity().equals(com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_CRITICAL)));
+                alert.getSeverity().equals(com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_CRITICAL))));
     }
 
     @Test
@@ -357,8 +370,8 @@ class SmartWatchHealthServiceTest {
 
         service.saveHealthData(healthData);
 
-        verify(alertService, atLeastOnce()).createAlert(argThat(alert -> alert.getMessage().contains("High Fever") &&
-                alert.getSeverity().equals(com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_HIGH)));
+        verify(alertService, atLeastOnce()).createAlerts(argThat(batch -> batch.getAlerts().stream().anyMatch(alert -> alert.getMessage().contains("High Fever") &&
+                alert.getSeverity().equals(com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_HIGH))));
     }
 
     @Test
@@ -369,8 +382,8 @@ class SmartWatchHealthServiceTest {
 
         service.saveHealthData(healthData);
 
-        verify(alertService, atLeastOnce()).createAlert(argThat(alert -> alert.getMessage().contains("Hypothermia") &&
-                alert.getSeverity().equals(com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_HIGH)));
+        verify(alertService, atLeastOnce()).createAlerts(argThat(batch -> batch.getAlerts().stream().anyMatch(alert -> alert.getMessage().contains("Hypothermia") &&
+                alert.getSeverity().equals(com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_HIGH))));
     }
 
     @Test
@@ -382,9 +395,9 @@ class SmartWatchHealthServiceTest {
 
         service.saveHealthData(healthData);
 
-        verify(alertService, atLeastOnce()).createAlert(argThat(alert -> alert.getMessage()
+        verify(alertService, atLeastOnce()).createAlerts(argThat(batch -> batch.getAlerts().stream().anyMatch(alert -> alert.getMessage()
                 .contains("Hypertensive Crisis") &&
-                alert.getSeverity().equals(com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_CRITICAL)));
+                alert.getSeverity().equals(com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_CRITICAL))));
     }
 
     @Test
@@ -397,8 +410,99 @@ class SmartWatchHealthServiceTest {
         service.saveHealthData(healthData);
 
         verify(alertService, atLeastOnce())
-                .createAlert(argThat(alert -> alert.getMessage().contains("High Blood Pressure") &&
-                        alert.getSeverity().equals(com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_HIGH)));
+                .createAlerts(argThat(batch -> batch.getAlerts().stream().anyMatch(alert -> alert.getMessage().contains("High Blood Pressure") &&
+                        alert.getSeverity().equals(com.clinalert.doctortracker.util.AppConstants.ALERT_SEVERITY_HIGH))));
+    }
+
+    @Test
+    @DisplayName("updateDailySummaries - Un incrément par patient et par jour")
+    @SuppressWarnings("unchecked")
+    void updateDailySummaries_ShouldMergeOneIncrementPerPatientDay() {
+        LocalDateTime today = LocalDate.now().atTime(10, 0);
+        HealthData second = new HealthData();
+        second.setPatientId("patient-001");
+        second.setHeartRate(95);
+        second.setSteps(1000);
+        second.setTimestamp(today.plusHours(1));
+        HealthData yesterday = new HealthData();
+        yesterday.setPatientId("patient-001");
+        yesterday.setHeartRate(60);
+        yesterday.setTimestamp(today.minusDays(1));
+        healthData.setTimestamp(today);
+
+        service.updateDailySummaries(List.of(healthData, second, yesterday));
+
+        ArgumentCaptor<List<DailyHealthSummary>> captor = ArgumentCaptor.forClass(List.class);
+        verify(dailySummaryRepository).mergeIncrements(captor.capture());
+        List<DailyHealthSummary> increments = captor.getValue();
+        assertThat(increments).extracting(DailyHealthSummary::getDate)
+                .containsExactly(today.toLocalDate().minusDays(1), today.toLocalDate());
+        DailyHealthSummary todayIncrement = increments.get(1);
+        assertThat(todayIncrement.getDataPointsCount()).isEqualTo(2);
+        assertThat(todayIncrement.getHeartRateSamples()).isEqualTo(2);
+        assertThat(todayIncrement.getAvgHeartRate()).isEqualTo(85.0);
+        assertThat(todayIncrement.getMinHeartRate()).isEqualTo(75);
+        assertThat(todayIncrement.getMaxHeartRate()).isEqualTo(95);
+        assertThat(todayIncrement.getTotalSteps()).isEqualTo(6000);
+        assertThat(todayIncrement.getSpO2Samples()).isEqualTo(1);
+        assertThat(todayIncrement.getAvgTemperature()).isNull();
+    }
+
+    @Test
+    @DisplayName("saveHealthData - Met à jour le résumé journalier")
+    void saveHealthData_ShouldUpdateDailySummary() {
+        when(healthDataRepository.saveAll(anyList())).thenReturn(List.of(healthData));
+
+        service.saveHealthData(List.of(healthData));
+
+        verify(dailySummaryRepository).mergeIncrements(argThat(increments -> increments.size() == 1));
+        verify(healthDataRepository, never()).findByPatientIdAndTimestampBetweenOrderByTimestampAsc(any(), any(),
+                any());
+    }
+
+    @Test
+    @DisplayName("getHistoryPage - Page pleine : curseur vers la page suivante")
+    void getHistoryPage_MoreRows_ShouldReturnNextCursor() {
+        ReflectionTestUtils.setField(service, "maxHistoryPageSize", 100);
+        HealthData older = new HealthData();
+        older.setId("health-000");
+        older.setTimestamp(healthData.getTimestamp().minusMinutes(1));
+        when(healthDataRepository.findHistoryPage("patient-001", HealthMetric.HEART_RATE, null, null, 2))
+                .thenReturn(List.of(healthData, older));
+
+        CursorPage<HealthData> page = service.getHistoryPage("patient-001", HealthMetric.HEART_RATE, null, 1);
+
+        assertThat(page.getItems()).containsExactly(healthData);
+        assertThat(page.getNextCursor()).isNotNull();
+
+        service.getHistoryPage("patient-001", HealthMetric.HEART_RATE, page.getNextCursor(), 1);
+        verify(healthDataRepository).findHistoryPage("patient-001", HealthMetric.HEART_RATE,
+                healthData.getTimestamp(), "health-001", 2);
+    }
+
+    @Test
+    @DisplayName("getHistoryPage - Dernière page : pas de curseur")
+    void getHistoryPage_LastPage_ShouldHaveNoCursor() {
+        ReflectionTestUtils.setField(service, "maxHistoryPageSize", 100);
+        when(healthDataRepository.findHistoryPage(any(), any(), any(), any(), anyInt()))
+                .thenReturn(List.of(healthData));
+
+        CursorPage<HealthData> page = service.getHistoryPage("patient-001", HealthMetric.STEPS, null, 10);
+
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("getHistoryPage - Limite hors bornes ou curseur invalide")
+    void getHistoryPage_InvalidArguments_ShouldThrow() {
+        ReflectionTestUtils.setField(service, "maxHistoryPageSize", 100);
+
+        assertThatThrownBy(() -> service.getHistoryPage("patient-001", HealthMetric.STEPS, null, 101))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getHistoryPage("patient-001", HealthMetric.STEPS, "not a cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid pagination cursor");
     }
 
     @Test
@@ -411,4 +515,86 @@ class SmartWatchHealthServiceTest {
 
         assertThat(result).isNull();
     }
+
+    @Test
+    @DisplayName("downsampleLttb - Flux réduit au nombre de points demandé")
+    @SuppressWarnings("unchecked")
+    void downsampleLttb_ShouldStreamIntoDownsampler() {
+        ReflectionTestUtils.setField(service, "maxDownsamplePoints", 100);
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+        when(healthDataRepository.findHistorySpan("patient-001", HealthMetric.HEART_RATE, null, null))
+                .thenReturn(new Span(50, start, start.plusMinutes(49)));
+        doAnswer(invocation -> {
+            Consumer<Reading> sink = invocation.getArgument(5);
+            for (int i = 0; i < 50; i++) {
+                sink.accept(new Reading(start.plusMinutes(i), 60 + i % 7));
+            }
+            return null;
+        }).when(healthDataRepository).streamHistoryPoints(eq("patient-001"), eq(HealthMetric.HEART_RATE),
+                isNull(), isNull(), anyInt(), any(Consumer.class));
+
+        List<VitalPoint> points = service.downsampleLttb("patient-001", HealthMetric.HEART_RATE, null, null, 10);
+
+        assertThat(points).hasSize(10);
+        assertThat(points.get(0).getTimestamp()).isEqualTo(start);
+        assertThat(points.get(9).getTimestamp()).isEqualTo(start.plusMinutes(49));
+    }
+
+    @Test
+    @DisplayName("getHistoryPoints / getHistorySeries - Lectures converties en points et en tableaux")
+    void historyProjections_ShouldConvertReadings() {
+        LocalDateTime base = LocalDateTime.of(2024, 3, 15, 8, 0);
+        when(healthDataRepository.findHistoryPoints("patient-001", HealthMetric.SPO2))
+                .thenReturn(List.of(new Reading(base.plusMinutes(1), 97.5), new Reading(base, 95.5)));
+        doAnswer(invocation -> {
+            ValueSink sink = invocation.getArgument(2);
+            for (int i = 300; i > 0; i--) {
+                sink.accept(base.plusMinutes(i), 90 + i % 10);
+            }
+            return null;
+        }).when(healthDataRepository).forEachHistoryValue(eq("patient-001"), eq(HealthMetric.SPO2), any());
+
+        List<VitalPoint> points = service.getHistoryPoints("patient-001", HealthMetric.SPO2);
+        VitalSeries series = service.getHistorySeries("patient-001", HealthMetric.SPO2);
+
+        assertThat(points).extracting(VitalPoint::getTimestamp).containsExactly(base.plusMinutes(1), base);
+        assertThat(points).extracting(VitalPoint::getValue).containsExactly(97.5, 95.5);
+        // Au-delà de la capacité initiale des tableaux
+        assertThat(series.getTimestamps()).hasSize(300);
+        assertThat(series.getTimestamps()[0]).isEqualTo(VitalSeries.toEpochMillis(base.plusMinutes(300)));
+        assertThat(series.getValues()[299]).isEqualTo(91.0);
+        assertThat(series.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("getHistoryBuckets - Bornes ouvertes resserrées sur la première et la dernière mesure")
+    void getHistoryBuckets_OpenBounds_ShouldUseSpan() {
+        ReflectionTestUtils.setField(service, "maxDownsamplePoints", 100);
+        LocalDateTime first = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 31, 0, 0);
+        when(healthDataRepository.findHistorySpan("patient-001", HealthMetric.STEPS, null, end))
+                .thenReturn(new Span(40_000, first, end.minusHours(1)));
+        when(healthDataRepository.findHistoryBuckets("patient-001", HealthMetric.STEPS, first, end, 30))
+                .thenReturn(List.of());
+
+        service.getHistoryBuckets("patient-001", HealthMetric.STEPS, null, end, 30);
+
+        verify(healthDataRepository).findHistoryBuckets("patient-001", HealthMetric.STEPS, first, end, 30);
+    }
+
+    @Test
+    @DisplayName("Downsampling - Historique vide ou nombre de points hors bornes")
+    void downsampling_EmptyOrInvalid() {
+        ReflectionTestUtils.setField(service, "maxDownsamplePoints", 100);
+        when(healthDataRepository.findHistorySpan(any(), any(), any(), any())).thenReturn(new Span(0, null, null));
+
+        assertThat(service.downsampleLttb("patient-001", HealthMetric.SPO2, null, null, 10)).isEmpty();
+        assertThat(service.getHistoryBuckets("patient-001", HealthMetric.SPO2, null, null, 10)).isEmpty();
+        verify(healthDataRepository, never()).streamHistoryPoints(any(), any(), any(), any(), anyInt(), any());
+        verify(healthDataRepository, never()).findHistoryBuckets(any(), any(), any(), any(), anyInt());
+        assertThatThrownBy(() -> service.downsampleLttb("patient-001", HealthMetric.SPO2, null, null, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getHistoryBuckets("patient-001", HealthMetric.SPO2, null, null, 101))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
 }
@@ -0,0 +1,192 @@
+package com.clinalert.doctortracker.service;
+
+/**
+ * Tests Unitaires pour UnreadAlertIndex
+ * Vérifie les compteurs par patient, médecin, clinique et sévérité, leur mise
+ * à jour à la lecture, à l'escalade et au changement de médecin, la liste
+ * filtrée des non lues, la reconstruction depuis la base et la réconciliation
+ * avec le nombre d'alertes non lues stockées.
+ */
+
+import com.clinalert.doctortracker.dto.UnreadCounts;
+import com.clinalert.doctortracker.model.Alert;
+import com.clinalert.doctortracker.model.Patient;
+import com.clinalert.doctortracker.repository.AlertRepository;
+import com.clinalert.doctortracker.repository.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitaires UnreadAlertIndex")
+class UnreadAlertIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 15, 12, 0);
+
+    @Mock
+    private AlertRepository alertRepository;
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    private UnreadAlertIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UnreadAlertIndex(alertRepository, patientRepository);
+        lenient().when(patientRepository.findById("p1")).thenReturn(Optional.of(patient("p1", "doc-1", "clinic-1")));
+        lenient().when(patientRepository.findById("p2")).thenReturn(Optional.of(patient("p2", "doc-2", "clinic-1")));
+    }
+
+    @Test
+    @DisplayName("addAll - Compteurs par patient, médecin, clinique et global, répartis par sévérité")
+    void addAll_ShouldCountPerScopeAndSeverity() {
+        index.addAll(List.of(alert("a1", "p1", "HIGH", 10), alert("a2", "p1", "LOW", 5),
+                alert("a3", "p2", "HIGH", 1)));
+
+        assertThat(index.counts("p1", null, null)).isEqualTo(new UnreadCounts(2, Map.of("HIGH", 1, "LOW", 1)));
+        assertThat(index.counts(null, "doc-2", null)).isEqualTo(new UnreadCounts(1, Map.of("HIGH", 1)));
+        assertThat(index.counts(null, null, "clinic-1")).isEqualTo(new UnreadCounts(3, Map.of("HIGH", 2, "LOW", 1)));
+        assertThat(index.counts(null, null, null).getTotal()).isEqualTo(3);
+        assertThat(index.counts(null, "doc-404", null)).isEqualTo(new UnreadCounts(0, Map.of()));
+        // Un seul accès base par patient inconnu
+        verify(patientRepository, times(1)).findById("p1");
+    }
+
+    @Test
+    @DisplayName("addAll - Alerte déjà lue ou déjà indexée ignorée")
+    void addAll_ReadOrDuplicate_ShouldBeIgnored() {
+        Alert read = alert("a2", "p1", "HIGH", 1);
+        read.setRead(true);
+
+        index.add(alert("a1", "p1", "HIGH", 1));
+        index.addAll(List.of(alert("a1", "p1", "HIGH", 1), read));
+
+        assertThat(index.counts(null, null, null).getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("markRead / markPatientRead / markReadBefore - Compteurs décrémentés")
+    void markRead_ShouldDecrementCounts() {
+        index.addAll(List.of(alert("a1", "p1", "HIGH", 60), alert("a2", "p1", "LOW", 30),
+                alert("a3", "p2", "HIGH", 20), alert("a4", "p2", "LOW", 1)));
+
+        index.markRead(List.of("a1", "unknown"));
+        assertThat(index.counts(null, "doc-1", null)).isEqualTo(new UnreadCounts(1, Map.of("LOW", 1)));
+
+        index.markPatientRead("p2", NOW.minusMinutes(10));
+        assertThat(index.counts("p2", null, null)).isEqualTo(new UnreadCounts(1, Map.of("LOW", 1)));
+
+        index.markReadBefore(NOW);
+        assertThat(index.counts(null, null, null)).isEqualTo(new UnreadCounts(0, Map.of()));
+    }
+
+    @Test
+    @DisplayName("regrade - Alertes escaladées passées de MEDIUM à HIGH")
+    void regrade_ShouldMoveSeverity() {
+        index.addAll(List.of(alert("a1", "p1", "MEDIUM", 20), alert("a2", "p1", "LOW", 20)));
+
+        index.regrade(List.of("a1", "a2"), "MEDIUM", "HIGH");
+
+        assertThat(index.counts("p1", null, null)).isEqualTo(new UnreadCounts(2, Map.of("HIGH", 1, "LOW", 1)));
+    }
+
+    @Test
+    @DisplayName("updatePatient - Alertes non lues reportées sur le nouveau médecin")
+    void updatePatient_ShouldMoveCountsToNewDoctor() {
+        index.addAll(List.of(alert("a1", "p1", "HIGH", 5), alert("a2", "p1", "LOW", 4)));
+
+        index.updatePatient("p1", "doc-2", "clinic-1");
+
+        assertThat(index.counts(null, "doc-1", null).getTotal()).isZero();
+        assertThat(index.counts(null, "doc-2", null).getTotal()).isEqualTo(2);
+        assertThat(index.counts(null, null, "clinic-1").getTotal()).isEqualTo(2);
+        assertThat(index.unreadIds(null, "doc-1", null, null, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("unreadIds - Filtres combinés, plus récentes d'abord, limite appliquée")
+    void unreadIds_ShouldFilterSortAndLimit() {
+        index.addAll(List.of(alert("a1", "p1", "HIGH", 30), alert("a2", "p2", "HIGH", 10),
+                alert("a3", "p1", "LOW", 5), alert("a4", "p1", "HIGH", 1)));
+
+        assertThat(index.unreadIds(null, null, "clinic-1", "HIGH", 10)).containsExactly("a4", "a2", "a1");
+        assertThat(index.unreadIds(null, "doc-1", null, null, 2)).containsExactly("a4", "a3");
+        assertThat(index.unreadIds("p2", "doc-1", null, null, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("counts - Plusieurs périmètres rejetés")
+    void counts_SeveralScopes_ShouldThrow() {
+        assertThatThrownBy(() -> index.counts("p1", "doc-1", null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("rebuild - Index rechargé depuis les patients et les alertes non lues de la base")
+    void rebuild_ShouldLoadFromDatabase() {
+        index.add(alert("stale", "p1", "HIGH", 1));
+        when(patientRepository.findAll()).thenReturn(List.of(patient("p1", "doc-1", "clinic-1")));
+        doAnswer(inv -> {
+            Consumer<Alert> consumer = inv.getArgument(0);
+            consumer.accept(alert("a1", "p1", "CRITICAL", 3));
+            consumer.accept(alert("a2", "p1", "LOW", 2));
+            return null;
+        }).when(alertRepository).forEachUnread(any(Consumer.class));
+
+        index.rebuild();
+
+        assertThat(index.counts(null, "doc-1", null)).isEqualTo(new UnreadCounts(2, Map.of("CRITICAL", 1, "LOW", 1)));
+        assertThat(index.unreadIds(null, null, null, null, 10)).containsExactly("a2", "a1");
+    }
+
+    @Test
+    @DisplayName("reconcile - Reconstruction seulement si le total diffère de la base")
+    void reconcile_ShouldRebuildOnlyWhenTotalDiffers() {
+        index.add(alert("a1", "p1", "HIGH", 1));
+        when(alertRepository.countByIsReadFalse()).thenReturn(1L, 2L);
+        when(patientRepository.findAll()).thenReturn(List.of(patient("p1", "doc-1", "clinic-1")));
+        doAnswer(inv -> {
+            Consumer<Alert> consumer = inv.getArgument(0);
+            consumer.accept(alert("a1", "p1", "HIGH", 1));
+            consumer.accept(alert("a2", "p1", "LOW", 2));
+            return null;
+        }).when(alertRepository).forEachUnread(any(Consumer.class));
+
+        assertThat(index.reconcile()).isFalse();
+        verify(alertRepository, never()).forEachUnread(any(Consumer.class));
+
+        assertThat(index.reconcile()).isTrue();
+        assertThat(index.counts(null, "doc-1", null)).isEqualTo(new UnreadCounts(2, Map.of("HIGH", 1, "LOW", 1)));
+    }
+
+    private static Alert alert(String id, String patientId, String severity, int minutesAgo) {
+        Alert alert = new Alert();
+        alert.setId(id);
+        alert.setPatientId(patientId);
+        alert.setSeverity(severity);
+        alert.setTimestamp(NOW.minusMinutes(minutesAgo));
+        return alert;
+    }
+
+    private static Patient patient(String id, String doctorId, String clinicId) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setDoctorId(doctorId);
+        patient.setClinicId(clinicId);
+        return patient;
+    }
+}
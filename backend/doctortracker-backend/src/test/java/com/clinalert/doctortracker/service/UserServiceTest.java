@@ -7,13 +7,16 @@ package com.clinalert.doctortracker.service;
 
 import com.clinalert.doctortracker.model.User;
 import com.clinalert.doctortracker.repository.UserRepository;
+import com.clinalert.doctortracker.security.UserStateCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Arrays;
@@ -34,6 +37,12 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserStateCache userStateCache;
+
+    @Spy
+    private PageLimits pageLimits = new PageLimits(2, 100);
+
     @InjectMocks
     private UserService userService;
 
@@ -52,14 +61,14 @@ class UserServiceTest {
     }
 
     @Test
-    @DisplayName("getAllUsers - Doit retourner liste")
+    @DisplayName("getAllUsers - Premiers utilisateurs, bornés à la taille maximale")
     void getAllUsers_ShouldReturnList() {
-        when(userRepository.findAll()).thenReturn(Arrays.asList(user));
+        when(userRepository.findAllByOrderByEmailAsc(Limit.of(101))).thenReturn(Arrays.asList(user));
 
-        List<User> result = userService.getAllUsers();
+        List<User> result = userService.getAllUsers().getItems();
 
         assertThat(result).hasSize(1);
-        verify(userRepository).findAll();
+        verify(userRepository).findAllByOrderByEmailAsc(Limit.of(101));
     }
 
     @Test
@@ -118,6 +127,7 @@ class UserServiceTest {
         assertThat(result).isNotNull();
         // Verify changes if using capture, but strictly we verify call
         verify(userRepository).save(any());
+        verify(userStateCache).invalidate("user-001");
     }
 
     @Test
@@ -189,6 +199,7 @@ class UserServiceTest {
         userService.deleteUser("user-001");
 
         verify(userRepository).deleteById("user-001");
+        verify(userStateCache).invalidate("user-001");
     }
 
     @Test
@@ -58,4 +58,34 @@ class AuthDataSeederTest {
         verify(userRepository, times(5)).save(any(User.class));
         verify(passwordEncoder, atLeastOnce()).encode(anyString());
     }
+
+    @Test
+    @DisplayName("Run - Should Skip Re-Hashing When Stored Hash Already Matches")
+    void run_ShouldSkipRehash_WhenHashMatches() throws Exception {
+        User existingUser = new User();
+        existingUser.setPassword("{bcrypt}$2a$10$current");
+
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.matches(anyString(), eq("{bcrypt}$2a$10$current"))).thenReturn(true);
+
+        authDataSeeder.run();
+
+        verify(passwordEncoder, never()).encode(anyString());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Run - Should Re-Hash Outdated Encoding")
+    void run_ShouldRehash_WhenEncodingOutdated() throws Exception {
+        User existingUser = new User();
+        existingUser.setPassword("$2a$10$legacy");
+
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(existingUser));
+        when(passwordEncoder.upgradeEncoding("$2a$10$legacy")).thenReturn(true);
+        when(passwordEncoder.encode(anyString())).thenReturn("{bcrypt}$2a$12$upgraded");
+
+        authDataSeeder.run();
+
+        verify(userRepository, atLeastOnce()).save(any(User.class));
+    }
 }
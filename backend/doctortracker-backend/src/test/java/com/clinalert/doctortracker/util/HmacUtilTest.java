@@ -1,8 +1,9 @@
 package com.clinalert.doctortracker.util;
 
 /**
- * Tests pour HmacUtil - 5 tests
- * Couvre: HMAC signature verification, bytesToHex conversion
+ * Tests pour HmacUtil - 12 tests
+ * Couvre: HMAC signature verification, décodage hexadécimal de la signature,
+ * signature d'un flux pendant sa lecture, réutilisation du Mac par thread
  */
 
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +13,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -124,4 +136,87 @@ class HmacUtilTest {
 
         assertEquals(result1, result2, "Same payload and signature should give same result");
     }
+
+    @Test
+    @DisplayName("signing - Signature calculée sur tout le flux, y compris la partie non lue")
+    void signing_PartiallyReadStream_ShouldSignWholeBody() throws Exception {
+        String payload = "[{\"value\": 72}]   \n";
+        HmacUtil.SigningInputStream stream = hmacUtil.signing(
+                new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)));
+
+        // Lecture partielle, octet par octet puis par blocs, comme un parseur
+        assertEquals('[', stream.read());
+        stream.read(new byte[4], 0, 4);
+        stream.skip(3);
+
+        assertTrue(stream.matches(sign(payload).toUpperCase()));
+    }
+
+    @Test
+    @DisplayName("signing - Signature différente du contenu lu : rejet")
+    void signing_WrongSignature_ShouldReturnFalse() throws Exception {
+        HmacUtil.SigningInputStream stream = hmacUtil.signing(
+                new ByteArrayInputStream("payload".getBytes(StandardCharsets.UTF_8)));
+
+        assertFalse(stream.matches(sign("other payload")));
+        assertFalse(hmacUtil.signing(InputStream.nullInputStream()).matches(null));
+    }
+
+    @Test
+    @DisplayName("signing - Même résultat que verifySignature pour le même contenu")
+    void signing_ShouldAgreeWithVerifySignature() throws Exception {
+        String payload = "consistent-payload";
+        String signature = sign(payload);
+
+        assertTrue(hmacUtil.verifySignature(payload, signature));
+        assertTrue(hmacUtil.signing(new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)))
+                .matches(signature));
+    }
+
+    @Test
+    @DisplayName("Signature non hexadécimale ou de mauvaise longueur : rejet sans exception")
+    void verifySignature_MalformedHex_ShouldReturnFalse() throws Exception {
+        String payload = "test-payload";
+        String valid = sign(payload);
+
+        assertFalse(hmacUtil.verifySignature(payload, valid.substring(2)));
+        assertFalse(hmacUtil.verifySignature(payload, valid + "00"));
+        assertFalse(hmacUtil.verifySignature(payload, "zz" + valid.substring(2)));
+        assertTrue(hmacUtil.verifySignature(payload, valid));
+    }
+
+    @Test
+    @DisplayName("Flux abandonné avant vérification : le Mac réutilisé n'en garde rien")
+    void signing_AbandonedStream_ShouldNotAffectNextVerification() throws Exception {
+        HmacUtil.SigningInputStream abandoned = hmacUtil.signing(
+                new ByteArrayInputStream("half-read".getBytes(StandardCharsets.UTF_8)));
+        abandoned.read(new byte[4], 0, 4);
+
+        assertTrue(hmacUtil.verifySignature("payload", sign("payload")));
+        assertTrue(hmacUtil.verifySignature("payload", sign("payload")));
+    }
+
+    @Test
+    @DisplayName("Vérifications concurrentes : chaque thread a son propre Mac")
+    void verifySignature_Concurrent_ShouldStayCorrect() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Boolean>> checks = IntStream.range(0, 200).mapToObj(i -> (Callable<Boolean>) () -> {
+                String payload = "payload-" + i;
+                return hmacUtil.verifySignature(payload, sign(payload))
+                        && !hmacUtil.verifySignature(payload, sign(payload + "x"));
+            }).toList();
+            for (Future<Boolean> result : pool.invokeAll(checks)) {
+                assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String sign(String payload) throws Exception {
+        javax.crypto.Mac mac = javax.crypto.Mac.getInstance("HmacSHA256");
+        mac.init(new javax.crypto.spec.SecretKeySpec(TEST_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
 }